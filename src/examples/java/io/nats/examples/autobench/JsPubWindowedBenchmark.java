@@ -0,0 +1,78 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.examples.autobench;
+
+import io.nats.client.*;
+import io.nats.client.api.StorageType;
+import io.nats.client.api.StreamConfiguration;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes through a {@link JetStreamPublisher JetStreamPublisher} with a window the size of a
+ * round, for comparison with {@link JsPubAsyncRoundsBenchmark}. The rounds benchmark waits for a
+ * whole round of acks before sending more, the window refills as each ack arrives.
+ */
+public class JsPubWindowedBenchmark extends AutoBenchmark {
+
+    public JsPubWindowedBenchmark(String name, long messageCount, long messageSize, boolean file, long windowSize) {
+        super(name, messageCount, messageSize, file, windowSize);
+    }
+
+    public void execute(Options connectOptions) throws InterruptedException {
+        byte[] payload = createPayload();
+        String subject = getSubject();
+        String stream = getStream();
+        boolean file = (boolean) getCustoms()[0];
+        long windowSize = (long) getCustoms()[1];
+
+        try {
+            Connection nc = Nats.connect(connectOptions);
+
+            StreamConfiguration sc = StreamConfiguration.builder()
+                    .name(stream)
+                    .subjects(subject)
+                    .storageType(file ? StorageType.File : StorageType.Memory)
+                    .build();
+            JetStreamManagement jsm = nc.jetStreamManagement();
+            jsm.addStream(sc);
+
+            JetStream js = nc.jetStream();
+            JetStreamPublisherOptions jspo = JetStreamPublisherOptions.builder().maxInFlight((int) windowSize).build();
+
+            try (JetStreamPublisher publisher = js.publisher(jspo)) {
+                this.startTiming();
+                for (long l = 0; l < getMessageCount(); l++) {
+                    publisher.publish(subject, payload);
+                }
+                publisher.flushAcks(Duration.ofMinutes(1));
+                defaultFlush(nc);
+                this.endTiming();
+            } finally {
+                try {
+                    jsm.deleteStream(stream);
+                } catch (IOException | JetStreamApiException ex) {
+                    this.setException(ex);
+                }
+                finally {
+                    nc.close();
+                }
+            }
+        } catch (IOException | JetStreamApiException | TimeoutException ex) {
+            this.setException(ex);
+        }
+    }
+}
@@ -35,7 +35,7 @@ public class NatsAutoBench {
     static final String usageString =
             "\nUsage: java -cp <classpath> NatsAutoBench [serverURL] [help] [utf8] [tiny|small|med] [conscrypt] [jsfile]" +
                     "[PubOnly] [PubSub] [PubDispatch] [ReqReply] [Latency] " +
-                    "[JsPubSync] [JsPubAsync] [JsSub] [JsPubRounds]\n\n"
+                    "[JsPubSync] [JsPubAsync] [JsSub] [JsPubRounds] [JsPubWindowed]\n\n"
             + "If no specific test name(s) are supplied all will be run, otherwise only supplied tests will be run."
             + "\n\nUse tls:// or opentls:// to require tls, via the Default SSLContext\n"
             + "\n\ntiny, small and med reduce the number of messages used for tests, which can help on slower machines\n";
@@ -189,6 +189,11 @@ public class NatsAutoBench {
                     (msize, mcnt, rsize) -> new JsPubAsyncRoundsBenchmark("JsPubAsyncRounds " + msize + "," + rsize, mcnt, msize, a.jsFile, rsize));
         }
 
+        if (a.allTests || a.jsPubWindowed) {
+            addTestsWithRounds(a.baseMsgs, a.maxSize, tests, sizes, msgsMultiple,
+                    (msize, mcnt, rsize) -> new JsPubWindowedBenchmark("JsPubWindowed " + msize + "," + rsize, mcnt, msize, a.jsFile, rsize));
+        }
+
 
         if (a.allTests || a.reqReply) {
                 addRequestReplyTests(a.baseMsgs, a.maxSize, tests, sizes, msgsDivider,
@@ -288,6 +293,7 @@ public class NatsAutoBench {
         boolean jsPubAsync = false;
         boolean jsSub = false;
         boolean jsPubRounds = false;
+        boolean jsPubWindowed = false;
         boolean jsFile = false;
     }
 
@@ -357,6 +363,10 @@ public class NatsAutoBench {
                         a.allTests = false;
                         a.jsPubRounds = true;
                         break;
+                    case "jspubwindowed":
+                        a.allTests = false;
+                        a.jsPubWindowed = true;
+                        break;
                     case "jsfile":
                         a.jsFile = true;
                         break;
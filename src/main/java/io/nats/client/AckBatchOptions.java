@@ -0,0 +1,129 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client;
+
+import java.time.Duration;
+
+/**
+ * The AckBatchOptions class turns on ack batching for a JetStream subscription,
+ * see {@link SubscribeOptions.Builder#ackBatching(AckBatchOptions) ackBatching}.
+ *
+ * <p>When the consumer's ack policy is {@link io.nats.client.api.AckPolicy#All AckPolicy.All},
+ * only the ack for the highest consumer sequence in each window is sent, since it acknowledges everything before it.
+ * When it is {@link io.nats.client.api.AckPolicy#Explicit AckPolicy.Explicit} every ack is sent, but the acks of
+ * a window are handed to the connection's writer together, as a single protocol message, instead of one publish each.
+ * With {@link io.nats.client.api.AckPolicy#None AckPolicy.None} there is nothing to ack and the options are ignored.
+ * A window ends when it holds the maximum number of acks or the oldest ack in it has waited the maximum delay,
+ * whichever comes first.
+ * Naks, terms and in progress replies are never held, they send the window first to keep the order.
+ *
+ * <p>The maximum delay should be well below the consumer's ack wait, or held messages will be redelivered.
+ *
+ * <p>AckBatchOptions are created using a {@link AckBatchOptions.Builder Builder}.
+ */
+public class AckBatchOptions {
+    /**
+     * The default maximum number, {@value}, of acks held in a window.
+     */
+    public static final int DEFAULT_MAX_ACKS = 100;
+
+    /**
+     * The default maximum time an ack is held.
+     */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(50);
+
+    private final int maxAcks;
+    private final Duration maxDelay;
+
+    private AckBatchOptions(Builder b) {
+        this.maxAcks = b.maxAcks;
+        this.maxDelay = b.maxDelay;
+    }
+
+    /**
+     * Gets the maximum number of acks held in a window.
+     * @return the maximum number of acks
+     */
+    public int getMaxAcks() {
+        return maxAcks;
+    }
+
+    /**
+     * Gets the maximum time an ack is held.
+     * @return the maximum delay
+     */
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Creates a builder for the ack batch options.
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * AckBatchOptions are created using a Builder. The builder supports chaining and will
+     * create a default set of options if no methods are called.
+     */
+    public static class Builder {
+        private int maxAcks = DEFAULT_MAX_ACKS;
+        private Duration maxDelay = DEFAULT_MAX_DELAY;
+
+        /**
+         * Sets the maximum number of acks held in a window.
+         * @param maxAcks the number of acks, at least 1
+         * @return Builder
+         */
+        public Builder maxAcks(int maxAcks) {
+            if (maxAcks < 1) {
+                throw new IllegalArgumentException("Max acks must be at least 1.");
+            }
+            this.maxAcks = maxAcks;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time an ack is held.
+         * @param maxDelay the delay, null means the default
+         * @return Builder
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            if (maxDelay != null && (maxDelay.isZero() || maxDelay.isNegative())) {
+                throw new IllegalArgumentException("Max delay must be greater than zero.");
+            }
+            this.maxDelay = maxDelay == null ? DEFAULT_MAX_DELAY : maxDelay;
+            return this;
+        }
+
+        /**
+         * Builds the ack batch options.
+         * @return ack batch options
+         */
+        public AckBatchOptions build() {
+            return new AckBatchOptions(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AckBatchOptions{" +
+                "maxAcks=" + maxAcks +
+                ", maxDelay=" + maxDelay +
+                '}';
+    }
+}
@@ -17,6 +17,7 @@ import io.nats.client.api.ServerInfo;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
@@ -222,6 +223,41 @@ public interface Connection extends AutoCloseable {
      */
     Message request(Message message, Duration timeout) throws InterruptedException;
 
+    /**
+     * Send a hedged request. The request is sent once, then sent again for each hedge the policy allows
+     * if no reply has arrived within the hedge delay, optionally to an alternate subject. The first reply wins,
+     * the other requests are cancelled.
+     *
+     * <p>The hedge delay adapts to the reply latency the connection observes for the subject,
+     * see {@link HedgePolicy HedgePolicy}. Responders must be safe to call more than once for the same request.
+     *
+     * <p>The default implementation does not hedge, it sends a single request, see {@link #request(Message) request(Message)}.
+     *
+     * @param message the message
+     * @param policy the hedge policy
+     * @return a Future for the first response, which may be cancelled on error or timed out
+     */
+    default CompletableFuture<Message> request(Message message, HedgePolicy policy) {
+        return request(message);
+    }
+
+    /**
+     * Send a hedged request and block until the first response arrives or the timeout is reached,
+     * see {@link #request(Message, HedgePolicy) request(Message, HedgePolicy)}.
+     *
+     * <p>The default implementation does not hedge, it sends a single request,
+     * see {@link #request(Message, Duration) request(Message, Duration)}.
+     *
+     * @param message the message
+     * @param policy the hedge policy
+     * @param timeout the time to wait for a response
+     * @return the reply message or null if the timeout is reached
+     * @throws InterruptedException if one is thrown while waiting, in order to propagate it up
+     */
+    default Message request(Message message, HedgePolicy policy, Duration timeout) throws InterruptedException {
+        return request(message, timeout);
+    }
+
     /**
      * Create a synchronous subscription to the specified subject.
      * 
@@ -379,6 +415,16 @@ public interface Connection extends AutoCloseable {
      */
     Statistics getStatistics();
 
+    /**
+     * Get a copy of the per subscription and per subject prefix metrics. These are only kept when turned on with
+     * {@link Options.Builder#subscriptionMetrics() subscriptionMetrics()} or
+     * {@link Options.Builder#subjectMetrics(int, int) subjectMetrics()}.
+     * @return the metrics snapshot, empty if metrics are off
+     */
+    default MetricsSnapshot getMetricsSnapshot() {
+        return new MetricsSnapshot(System.currentTimeMillis(), new ArrayList<>(), new ArrayList<>(), null);
+    }
+
     /**
      * @return the read-only options used to create this connection
      */
@@ -13,8 +13,10 @@
 
 package io.nats.client;
 
+import java.time.Duration;
+
 /**
- * This library groups problems into four categories:
+ * This library groups problems into five categories:
  * <dl>
  * <dt>Errors</dt>
  * <dd>The server sent an error message using the {@code -err} protocol operation.</dd>
@@ -24,6 +26,8 @@ package io.nats.client;
  * <dd>One of the connections consumers, Subscription or Dispatcher, is slow, and starting to drop messages.</dd>
  * <dt>Fast Producers</dt>
  * <dd>One of the connections producers is too fast, and is discarding messages</dd>
+ * <dt>Heartbeat Alarms</dt>
+ * <dd>A JetStream push subscription stopped hearing from the server, including its idle heartbeats.</dd>
  * </dl>
  * <p>All of these problems are reported to the application code using the ErrorListener. The 
  * listener is configured in the {@link Options Options} at creation time.
@@ -75,4 +79,16 @@ public interface ErrorListener {
      * @param msg The message that is discarded
      */
     default void messageDiscarded(Connection conn, Message msg) {}
+
+    /**
+     * Called by the connection when a JetStream push subscription, whose consumer is configured with an
+     * idle heartbeat, has not heard from the server, neither messages nor heartbeats, for several heartbeat
+     * intervals. This call is only made once until something arrives again. The consumer may have been
+     * deleted, or the connection to the server holding it may be broken.
+     *
+     * @param conn The connection associated with the subscription
+     * @param sub The subscription that stopped receiving
+     * @param sinceLastActivity The time since anything arrived for the subscription
+     */
+    default void heartbeatAlarm(Connection conn, JetStreamSubscription sub, Duration sinceLastActivity) {}
 }
\ No newline at end of file
@@ -0,0 +1,280 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.nats.client.support.Validator.validateSubject;
+
+/**
+ * The HedgePolicy class controls hedged requests, see {@link Connection#request(Message, HedgePolicy) request}.
+ *
+ * <p>A hedged request is sent once. If no reply has arrived after the hedge delay, the same request is sent again,
+ * optionally to an alternate subject. The first reply wins and the other requests are cancelled.
+ *
+ * <p>The hedge delay is the configured percentile of the reply latency the connection has observed for the subject,
+ * kept between the minimum and maximum delay. Until enough replies have been observed the initial delay is used.
+ * Every reply to every attempt is observed, and latency is kept for the most recently hedged subjects only.
+ *
+ * <p>HedgePolicy objects are created using a {@link HedgePolicy.Builder Builder}.
+ */
+public class HedgePolicy {
+    /**
+     * The default percentile, {@value}, of observed latency used as the hedge delay.
+     */
+    public static final double DEFAULT_PERCENTILE = 95;
+
+    /**
+     * The default delay used until enough latency samples exist.
+     */
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(50);
+
+    /**
+     * The default lower bound of the hedge delay.
+     */
+    public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(1);
+
+    /**
+     * The default upper bound of the hedge delay.
+     */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+
+    /**
+     * The default number of replies, {@value}, observed for a subject before its latency is used.
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    /**
+     * The default maximum number, {@value}, of extra requests sent.
+     */
+    public static final int DEFAULT_MAX_HEDGES = 1;
+
+    private final double percentile;
+    private final Duration initialDelay;
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final int minSamples;
+    private final int maxHedges;
+    private final List<String> alternateSubjects;
+
+    private HedgePolicy(Builder b) {
+        this.percentile = b.percentile;
+        this.initialDelay = b.initialDelay;
+        this.minDelay = b.minDelay;
+        this.maxDelay = b.maxDelay;
+        this.minSamples = b.minSamples;
+        this.maxHedges = b.maxHedges;
+        this.alternateSubjects = Collections.unmodifiableList(new ArrayList<>(b.alternateSubjects));
+    }
+
+    /**
+     * Gets the percentile of observed latency used as the hedge delay
+     * @return the percentile
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Gets the delay used until enough latency samples exist
+     * @return the initial delay
+     */
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    /**
+     * Gets the lower bound of the hedge delay
+     * @return the minimum delay
+     */
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    /**
+     * Gets the upper bound of the hedge delay
+     * @return the maximum delay
+     */
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Gets the number of replies observed for a subject before its latency is used
+     * @return the minimum number of samples
+     */
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    /**
+     * Gets the maximum number of extra requests sent
+     * @return the maximum number of hedges
+     */
+    public int getMaxHedges() {
+        return maxHedges;
+    }
+
+    /**
+     * Gets the subjects hedges are sent to, in order, wrapping around if there are more hedges than subjects.
+     * If empty, hedges are sent to the original subject.
+     * @return the alternate subjects
+     */
+    public List<String> getAlternateSubjects() {
+        return alternateSubjects;
+    }
+
+    /**
+     * Get the subject for a hedge
+     * @param subject the subject of the original request
+     * @param hedge the hedge number, starting at 1
+     * @return the subject
+     */
+    public String getHedgeSubject(String subject, int hedge) {
+        if (alternateSubjects.isEmpty()) {
+            return subject;
+        }
+        return alternateSubjects.get((hedge - 1) % alternateSubjects.size());
+    }
+
+    /**
+     * Creates a builder for the hedge policy.
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * HedgePolicy is created using a Builder. The builder supports chaining and will
+     * create a default policy if no methods are called.
+     */
+    public static class Builder {
+        private double percentile = DEFAULT_PERCENTILE;
+        private Duration initialDelay = DEFAULT_INITIAL_DELAY;
+        private Duration minDelay = DEFAULT_MIN_DELAY;
+        private Duration maxDelay = DEFAULT_MAX_DELAY;
+        private int minSamples = DEFAULT_MIN_SAMPLES;
+        private int maxHedges = DEFAULT_MAX_HEDGES;
+        private final List<String> alternateSubjects = new ArrayList<>();
+
+        /**
+         * Set the percentile of observed latency used as the hedge delay.
+         * @param percentile the percentile, greater than 0 and at most 100
+         * @return Builder
+         */
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be greater than 0 and at most 100.");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Set the delay used until enough latency samples exist.
+         * @param initialDelay the delay, null means the default
+         * @return Builder
+         */
+        public Builder initialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay == null ? DEFAULT_INITIAL_DELAY : initialDelay;
+            return this;
+        }
+
+        /**
+         * Set the lower bound of the hedge delay.
+         * @param minDelay the delay, null means the default
+         * @return Builder
+         */
+        public Builder minDelay(Duration minDelay) {
+            this.minDelay = minDelay == null ? DEFAULT_MIN_DELAY : minDelay;
+            return this;
+        }
+
+        /**
+         * Set the upper bound of the hedge delay.
+         * @param maxDelay the delay, null means the default
+         * @return Builder
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay == null ? DEFAULT_MAX_DELAY : maxDelay;
+            return this;
+        }
+
+        /**
+         * Set the number of replies observed for a subject before its latency is used.
+         * @param minSamples the number of samples
+         * @return Builder
+         */
+        public Builder minSamples(int minSamples) {
+            this.minSamples = Math.max(0, minSamples);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of extra requests sent.
+         * @param maxHedges the number of hedges, at least 1
+         * @return Builder
+         */
+        public Builder maxHedges(int maxHedges) {
+            if (maxHedges < 1) {
+                throw new IllegalArgumentException("Max hedges must be at least 1.");
+            }
+            this.maxHedges = maxHedges;
+            return this;
+        }
+
+        /**
+         * Send hedges to these subjects instead of the original subject, in order.
+         * @param subjects the subjects
+         * @return Builder
+         */
+        public Builder alternateSubjects(String... subjects) {
+            this.alternateSubjects.clear();
+            if (subjects != null) {
+                for (String subject : subjects) {
+                    this.alternateSubjects.add(validateSubject(subject, true));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Builds the hedge policy.
+         * @return hedge policy
+         */
+        public HedgePolicy build() {
+            if (minDelay.compareTo(maxDelay) > 0) {
+                throw new IllegalArgumentException("Min delay cannot be greater than max delay.");
+            }
+            return new HedgePolicy(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HedgePolicy{" +
+                "percentile=" + percentile +
+                ", initialDelay=" + initialDelay +
+                ", minDelay=" + minDelay +
+                ", maxDelay=" + maxDelay +
+                ", minSamples=" + minSamples +
+                ", maxHedges=" + maxHedges +
+                ", alternateSubjects=" + alternateSubjects +
+                '}';
+    }
+}
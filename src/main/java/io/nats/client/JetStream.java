@@ -16,6 +16,9 @@ import io.nats.client.api.PublishAck;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -249,6 +252,30 @@ public interface JetStream {
      */
     CompletableFuture<PublishAck> publishAsync(Message message, PublishOptions options);
 
+    /**
+     * Create a publisher that limits how many messages can be waiting for an ack at once.
+     * Unlike {@link #publishAsync(String, byte[]) publishAsync}, publishing blocks while the
+     * window is full, and {@link JetStreamPublisher#flushAcks(Duration) flushAcks} waits for
+     * every outstanding ack.
+     *
+     * <pre>
+     * try (JetStreamPublisher publisher = js.publisher(JetStreamPublisherOptions.builder().maxInFlight(500).build())) {
+     *     for (byte[] data : batch) {
+     *         publisher.publish("destination", data);
+     *     }
+     *     publisher.flushAcks(Duration.ofSeconds(5));
+     * }
+     * </pre>
+     *
+     * <p>The default implementation does not support it and throws an UnsupportedOperationException.
+     *
+     * @param options the publisher options, null means the defaults
+     * @return the publisher
+     */
+    default JetStreamPublisher publisher(JetStreamPublisherOptions options) {
+        throw new UnsupportedOperationException("Publishers are not supported.");
+    }
+
    /**
     * Create a synchronous subscription to the specified subject with default options.
     *
@@ -365,4 +392,73 @@ public interface JetStream {
      * @throws JetStreamApiException the request had an error related to the data
      */      
     JetStreamSubscription subscribe(String subject, PullSubscribeOptions options) throws IOException, JetStreamApiException;
+
+    /**
+     * Create an asynchronous subscription to the specified subject in the mode of pull, under the
+     * control of the specified dispatcher. Messages are only delivered once pulled, so this is
+     * usually used with {@link PullSubscribeOptions.Builder#prefetch(PullPrefetchOptions) prefetch},
+     * which keeps the handler supplied without the application asking for each batch.
+     * The handler is responsible for acking the messages.
+     *
+     * <p>The default implementation does not support it and throws an UnsupportedOperationException.
+     *
+     * @param subject The subject to subscribe to
+     * @param dispatcher The dispatcher to handle this subscription
+     * @param handler The target for the messages
+     * @param options pull subscription options
+     * @return The subscription
+     * @throws IOException covers various communication issues with the NATS
+     *         server such as timeout or interruption
+     * @throws JetStreamApiException the request had an error related to the data
+     */
+    default JetStreamSubscription subscribe(String subject, Dispatcher dispatcher, MessageHandler handler, PullSubscribeOptions options) throws IOException, JetStreamApiException {
+        throw new UnsupportedOperationException("Dispatched pull subscriptions are not supported.");
+    }
+
+    /**
+     * Create many synchronous subscriptions at once. The stream lookups for all the subjects are
+     * sent together, then the consumer lookups for all the durables, so subscribing to many subjects
+     * costs a couple of round trips to the server instead of a couple per subject.
+     *
+     * <p>Each value must be {@link PushSubscribeOptions}, {@link PullSubscribeOptions} or null
+     * for a default push subscription. If any subscription fails, the ones already made are
+     * unsubscribed before the exception is thrown.
+     *
+     * <p>The default implementation subscribes to each subject in turn, without sending the lookups together.
+     *
+     * @param subscriptions the options for each subject to subscribe to
+     * @return The subscriptions, in the iteration order of the map
+     * @throws IOException covers various communication issues with the NATS
+     *         server such as timeout or interruption
+     * @throws JetStreamApiException the request had an error related to the data
+     */
+    default List<JetStreamSubscription> subscribeAll(Map<String, ? extends SubscribeOptions> subscriptions) throws IOException, JetStreamApiException {
+        List<JetStreamSubscription> subs = new ArrayList<>(subscriptions.size());
+        try {
+            for (Map.Entry<String, ? extends SubscribeOptions> entry : subscriptions.entrySet()) {
+                SubscribeOptions so = entry.getValue();
+                if (so instanceof PullSubscribeOptions) {
+                    subs.add(subscribe(entry.getKey(), (PullSubscribeOptions) so));
+                }
+                else if (so == null || so instanceof PushSubscribeOptions) {
+                    subs.add(subscribe(entry.getKey(), (PushSubscribeOptions) so));
+                }
+                else {
+                    throw new IllegalArgumentException("Options must be push or pull subscribe options.");
+                }
+            }
+        }
+        catch (IOException | JetStreamApiException | RuntimeException e) {
+            for (JetStreamSubscription sub : subs) {
+                try {
+                    sub.unsubscribe();
+                }
+                catch (IllegalStateException ignore) {
+                    // already closed
+                }
+            }
+            throw e;
+        }
+        return subs;
+    }
 }
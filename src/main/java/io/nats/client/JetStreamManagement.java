@@ -15,6 +15,7 @@ package io.nats.client;
 import io.nats.client.api.*;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -117,6 +118,21 @@ public interface JetStreamManagement {
      */
     List<String> getConsumerNames(String streamName) throws IOException, JetStreamApiException;
 
+    /**
+     * Iterate over the consumer names without holding the whole list. Pages are read as the
+     * iterator reaches them, and the next pages are requested while the current one is read.
+     * The first page is read before returning.
+     * The default implementation reads the whole list first, see {@link #getConsumerNames(String) getConsumerNames}.
+     * @param streamName the name of the stream.
+     * @return the iterator. If a later page fails, the iterator throws an {@link java.io.UncheckedIOException}
+     * @throws IOException covers various communication issues with the NATS
+     *         server such as timeout or interruption
+     * @throws JetStreamApiException the request had an error related to the data
+     */
+    default Iterator<String> getConsumerNamesIterator(String streamName) throws IOException, JetStreamApiException {
+        return getConsumerNames(streamName).iterator();
+    }
+
     /**
      * Return a list of ConsumerInfo objects.
      * @param streamName the name of the stream.
@@ -127,6 +143,21 @@ public interface JetStreamManagement {
      */
     List<ConsumerInfo> getConsumers(String streamName) throws IOException, JetStreamApiException;
 
+    /**
+     * Iterate over the ConsumerInfo objects without holding the whole list. Pages are read as the
+     * iterator reaches them, and the next pages are requested while the current one is read.
+     * The first page is read before returning.
+     * The default implementation reads the whole list first, see {@link #getConsumers(String) getConsumers}.
+     * @param streamName the name of the stream.
+     * @return the iterator. If a later page fails, the iterator throws an {@link java.io.UncheckedIOException}
+     * @throws IOException covers various communication issues with the NATS
+     *         server such as timeout or interruption
+     * @throws JetStreamApiException the request had an error related to the data
+     */
+    default Iterator<ConsumerInfo> getConsumersIterator(String streamName) throws IOException, JetStreamApiException {
+        return getConsumers(streamName).iterator();
+    }
+
     /**
      * Return a list of streams by name
      * @return The list of names
@@ -136,6 +167,20 @@ public interface JetStreamManagement {
      */
     List<String> getStreamNames() throws IOException, JetStreamApiException;
 
+    /**
+     * Iterate over the stream names without holding the whole list. Pages are read as the
+     * iterator reaches them, and the next pages are requested while the current one is read.
+     * The first page is read before returning.
+     * The default implementation reads the whole list first, see {@link #getStreamNames() getStreamNames}.
+     * @return the iterator. If a later page fails, the iterator throws an {@link java.io.UncheckedIOException}
+     * @throws IOException covers various communication issues with the NATS
+     *         server such as timeout or interruption
+     * @throws JetStreamApiException the request had an error related to the data
+     */
+    default Iterator<String> getStreamNamesIterator() throws IOException, JetStreamApiException {
+        return getStreamNames().iterator();
+    }
+
     /**
      * Return a list of StreamInfo objects.
      * @return The list of StreamInfo
@@ -145,6 +190,20 @@ public interface JetStreamManagement {
      */
     List<StreamInfo> getStreams() throws IOException, JetStreamApiException;
 
+    /**
+     * Iterate over the StreamInfo objects without holding the whole list. Pages are read as the
+     * iterator reaches them, and the next pages are requested while the current one is read.
+     * The first page is read before returning.
+     * The default implementation reads the whole list first, see {@link #getStreams() getStreams}.
+     * @return the iterator. If a later page fails, the iterator throws an {@link java.io.UncheckedIOException}
+     * @throws IOException covers various communication issues with the NATS
+     *         server such as timeout or interruption
+     * @throws JetStreamApiException the request had an error related to the data
+     */
+    default Iterator<StreamInfo> getStreamsIterator() throws IOException, JetStreamApiException {
+        return getStreams().iterator();
+    }
+
     /**
      * Return an info object about a message
      * @param streamName the name of the stream.
@@ -29,11 +29,13 @@ public class JetStreamOptions {
     private final String prefix;
     private final Duration requestTimeout;
     private final boolean publishNoAck;
+    private final Duration lookupCacheTtl;
 
-    private JetStreamOptions(String prefix, Duration requestTimeout, boolean publishNoAck) {
+    private JetStreamOptions(String prefix, Duration requestTimeout, boolean publishNoAck, Duration lookupCacheTtl) {
         this.prefix = prefix;
         this.requestTimeout = requestTimeout;
         this.publishNoAck = publishNoAck;
+        this.lookupCacheTtl = lookupCacheTtl;
     }
 
     /**
@@ -61,6 +63,15 @@ public class JetStreamOptions {
         return publishNoAck;
     }
 
+    /**
+     * Gets how long the stream found for a subject, and the info of an existing durable consumer,
+     * are remembered when subscribing.
+     * @return the time to live, zero if lookups are not cached
+     */
+    public Duration getLookupCacheTtl() {
+        return lookupCacheTtl;
+    }
+
     /**
      * Creates a builder for the publish options.
      * @return the builder.
@@ -95,6 +106,7 @@ public class JetStreamOptions {
         private String prefix;
         private Duration requestTimeout;
         private boolean publishNoAck;
+        private Duration lookupCacheTtl;
 
         public Builder() {}
 
@@ -103,6 +115,7 @@ public class JetStreamOptions {
                 this.prefix = jso.prefix;
                 this.requestTimeout = jso.requestTimeout;
                 this.publishNoAck = jso.publishNoAck;
+                this.lookupCacheTtl = jso.lookupCacheTtl;
             }
         }
 
@@ -138,6 +151,19 @@ public class JetStreamOptions {
             return this;
         }
 
+        /**
+         * Sets how long the lookups made when subscribing are remembered by a context created with these options:
+         * the stream found for a subject when no stream is given, and the info of an existing durable consumer.
+         * Entries are dropped early when the context sees an api error for the stream or consumer, or deletes
+         * or changes them. A consumer changed or deleted elsewhere may be missed for up to this long.
+         * @param lookupCacheTtl the time to live, null or zero turns caching off
+         * @return the builder
+         */
+        public Builder lookupCacheTtl(Duration lookupCacheTtl) {
+            this.lookupCacheTtl = lookupCacheTtl;
+            return this;
+        }
+
         /**
          * Builds the JetStream options.
          * @return JetStream options
@@ -145,7 +171,8 @@ public class JetStreamOptions {
         public JetStreamOptions build() {
             prefix = JsPrefixManager.addPrefix(prefix);
             this.requestTimeout = requestTimeout == null ? DEFAULT_TIMEOUT : requestTimeout;
-            return new JetStreamOptions(prefix, requestTimeout, publishNoAck);
+            this.lookupCacheTtl = lookupCacheTtl == null || lookupCacheTtl.isNegative() ? Duration.ZERO : lookupCacheTtl;
+            return new JetStreamOptions(prefix, requestTimeout, publishNoAck, lookupCacheTtl);
         }
     }
 }
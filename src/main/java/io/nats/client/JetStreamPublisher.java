@@ -0,0 +1,106 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client;
+
+import io.nats.client.api.PublishAck;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A JetStream publisher that keeps a bounded window of messages waiting for their ack.
+ * Publishing returns right away while there is room in the window and blocks while it is full,
+ * so a fast producer can't flood the server with unacknowledged messages.
+ *
+ * <p>Publishers are created with {@link JetStream#publisher(JetStreamPublisherOptions) publisher()}
+ * and should be closed when no longer needed. A publisher is safe to use from several threads.
+ *
+ * <p>The stream timeout of {@link PublishOptions PublishOptions} is not used, acks wait for the
+ * publisher's {@link JetStreamPublisherOptions#getAckTimeout() ack timeout}.
+ */
+public interface JetStreamPublisher extends AutoCloseable {
+
+    /**
+     * Publish a message, waiting for room in the window if it is full.
+     * @param subject the subject to send the message to
+     * @param body the message body
+     * @return a future completed with the ack, or exceptionally with an IOException or JetStreamApiException
+     * @throws IOException if the window stayed full for longer than the maximum wait
+     * @throws InterruptedException if interrupted while waiting for room
+     * @throws IllegalStateException if the publisher or connection is closed
+     */
+    CompletableFuture<PublishAck> publish(String subject, byte[] body) throws IOException, InterruptedException;
+
+    /**
+     * Publish a message, waiting for room in the window if it is full.
+     * @param subject the subject to send the message to
+     * @param body the message body
+     * @param options publish options
+     * @return a future completed with the ack, or exceptionally with an IOException or JetStreamApiException
+     * @throws IOException if the window stayed full for longer than the maximum wait
+     * @throws InterruptedException if interrupted while waiting for room
+     * @throws IllegalStateException if the publisher or connection is closed
+     */
+    CompletableFuture<PublishAck> publish(String subject, byte[] body, PublishOptions options) throws IOException, InterruptedException;
+
+    /**
+     * Publish a message, waiting for room in the window if it is full. The reply to of the
+     * message is ignored, it is used for the ack.
+     * @param message the message to send
+     * @return a future completed with the ack, or exceptionally with an IOException or JetStreamApiException
+     * @throws IOException if the window stayed full for longer than the maximum wait
+     * @throws InterruptedException if interrupted while waiting for room
+     * @throws IllegalStateException if the publisher or connection is closed
+     */
+    CompletableFuture<PublishAck> publish(Message message) throws IOException, InterruptedException;
+
+    /**
+     * Publish a message, waiting for room in the window if it is full. The reply to of the
+     * message is ignored, it is used for the ack.
+     * @param message the message to send
+     * @param options publish options
+     * @return a future completed with the ack, or exceptionally with an IOException or JetStreamApiException
+     * @throws IOException if the window stayed full for longer than the maximum wait
+     * @throws InterruptedException if interrupted while waiting for room
+     * @throws IllegalStateException if the publisher or connection is closed
+     */
+    CompletableFuture<PublishAck> publish(Message message, PublishOptions options) throws IOException, InterruptedException;
+
+    /**
+     * Wait until every message published so far has been acked or has failed.
+     * @param timeout how long to wait
+     * @throws TimeoutException if messages are still in flight after the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void flushAcks(Duration timeout) throws TimeoutException, InterruptedException;
+
+    /**
+     * @return the number of messages waiting for an ack
+     */
+    int getInFlight();
+
+    /**
+     * @return the number of payload bytes waiting for an ack
+     */
+    long getInFlightBytes();
+
+    /**
+     * Stop listening for acks. Messages still in flight fail with an IOException,
+     * call {@link #flushAcks(Duration) flushAcks} first to wait for them.
+     */
+    @Override
+    void close();
+}
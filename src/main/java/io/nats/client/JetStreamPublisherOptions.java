@@ -0,0 +1,198 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client;
+
+import java.time.Duration;
+
+/**
+ * The JetStreamPublisherOptions class specifies the window of a {@link JetStreamPublisher JetStreamPublisher}.
+ * Options are created using a {@link JetStreamPublisherOptions.Builder Builder}.
+ */
+public class JetStreamPublisherOptions {
+    /**
+     * The default maximum number, {@value}, of messages waiting for an ack.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+
+    /**
+     * The default maximum number of payload bytes waiting for an ack, {@value}, meaning no byte limit.
+     */
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 0;
+
+    /**
+     * The default number of times, {@value}, a message with a message id is published again after its ack times out.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    private final int maxInFlight;
+    private final long maxInFlightBytes;
+    private final Duration ackTimeout;
+    private final Duration maxWait;
+    private final boolean autoMessageId;
+    private final int maxRetries;
+
+    private JetStreamPublisherOptions(Builder b) {
+        this.maxInFlight = b.maxInFlight;
+        this.maxInFlightBytes = b.maxInFlightBytes;
+        this.ackTimeout = b.ackTimeout;
+        this.maxWait = b.maxWait;
+        this.autoMessageId = b.autoMessageId;
+        this.maxRetries = b.maxRetries;
+    }
+
+    /**
+     * Gets the maximum number of messages waiting for an ack.
+     * @return the maximum number of messages
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Gets the maximum number of payload bytes waiting for an ack.
+     * @return the maximum number of bytes, 0 means no byte limit
+     */
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    /**
+     * Gets how long to wait for an ack.
+     * @return the ack timeout, null means the JetStream request timeout
+     */
+    public Duration getAckTimeout() {
+        return ackTimeout;
+    }
+
+    /**
+     * Gets how long a publish waits for room in a full window.
+     * @return the maximum wait, null means the ack timeout
+     */
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Gets whether the publisher gives every message a message id.
+     * @return true if message ids are assigned automatically
+     */
+    public boolean isAutoMessageId() {
+        return autoMessageId;
+    }
+
+    /**
+     * Gets how many times a message with a message id is published again after its ack times out.
+     * @return the maximum number of retries
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Creates a builder for the publisher options.
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * JetStreamPublisherOptions are created using a Builder. The builder supports chaining and will
+     * create a default set of options if no methods are called.
+     */
+    public static class Builder {
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
+        private Duration ackTimeout;
+        private Duration maxWait;
+        private boolean autoMessageId;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+
+        /**
+         * Sets the maximum number of messages waiting for an ack.
+         * @param maxInFlight the number of messages, at least 1
+         * @return Builder
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("Max in flight must be at least 1.");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of payload bytes waiting for an ack. A single message larger than
+         * the limit is still published once nothing else is in flight.
+         * @param maxInFlightBytes the number of bytes, 0 or less means no byte limit
+         * @return Builder
+         */
+        public Builder maxInFlightBytes(long maxInFlightBytes) {
+            this.maxInFlightBytes = Math.max(0, maxInFlightBytes);
+            return this;
+        }
+
+        /**
+         * Sets how long to wait for an ack before the publish future fails.
+         * @param ackTimeout the timeout, null means the JetStream request timeout
+         * @return Builder
+         */
+        public Builder ackTimeout(Duration ackTimeout) {
+            this.ackTimeout = ackTimeout;
+            return this;
+        }
+
+        /**
+         * Sets how long a publish waits for room when the window is full before it fails.
+         * @param maxWait the maximum wait, null means the ack timeout
+         * @return Builder
+         */
+        public Builder maxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * Sets whether the publisher gives every message a message id, unless the publish options
+         * already have one. Ids are a prefix unique to the publisher followed by the publish sequence,
+         * so the stream's duplicate window drops a message that is published again.
+         * @param autoMessageId true to assign message ids
+         * @return Builder
+         */
+        public Builder autoMessageId(boolean autoMessageId) {
+            this.autoMessageId = autoMessageId;
+            return this;
+        }
+
+        /**
+         * Sets how many times a message with a message id is published again, with the same id,
+         * after its ack times out, for instance because the connection was lost. Its future
+         * only fails once the retries are used up. Messages without a message id are never retried.
+         * @param maxRetries the number of retries, 0 or less means none
+         * @return Builder
+         */
+        public Builder maxRetries(int maxRetries) {
+            this.maxRetries = Math.max(0, maxRetries);
+            return this;
+        }
+
+        /**
+         * Builds the publisher options.
+         * @return publisher options
+         */
+        public JetStreamPublisherOptions build() {
+            return new JetStreamPublisherOptions(this);
+        }
+    }
+}
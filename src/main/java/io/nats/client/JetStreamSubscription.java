@@ -14,11 +14,13 @@
 package io.nats.client;
 
 import io.nats.client.api.ConsumerInfo;
+import io.nats.client.support.LatencyHistogram;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Subscription on a JetStream context.
@@ -95,6 +97,21 @@ public interface JetStreamSubscription extends Subscription {
      */
     Iterator<Message> iterate(final int batchSize, Duration maxWait);
 
+    /**
+     * Prepares a blocking iterator over a prefetching pull subscription,
+     * see {@link PullSubscribeOptions.Builder#prefetch(PullPrefetchOptions) prefetch}.
+     * <code>hasNext()</code> waits for the next message and only returns false once the
+     * subscription is unsubscribed or the thread is interrupted. Status messages are not returned.
+     *
+     * <p>The default implementation does not prefetch, so it always throws.
+     *
+     * @return the message iterator
+     * @throws IllegalStateException if the subscription is not prefetching
+     */
+    default Iterator<Message> prefetchIterator() {
+        throw new IllegalStateException("Subscription is not prefetching.");
+    }
+
     /**
      * Gets information about the consumer behind this subscription.
      * @return consumer information
@@ -103,4 +120,25 @@ public interface JetStreamSubscription extends Subscription {
      * @throws JetStreamApiException the request had an error related to the data
      */
     ConsumerInfo getConsumerInfo() throws IOException, JetStreamApiException;
+
+    /**
+     * Sends any acks held by ack batching, then flushes the connection, so every ack made
+     * before this call has been processed by the server when it returns.
+     * See {@link SubscribeOptions.Builder#ackBatching(AckBatchOptions) ackBatching}.
+     * The default implementation holds no acks, so it does nothing.
+     *
+     * @param timeout the time to wait for the flush
+     * @throws TimeoutException if the flush does not complete in time
+     * @throws InterruptedException if the thread is interrupted
+     */
+    default void flushAcks(Duration timeout) throws TimeoutException, InterruptedException {
+    }
+
+    /**
+     * Gets the time acks were held by ack batching before being sent.
+     * @return the ack lag histogram in nanoseconds, or null if acks are not batched
+     */
+    default LatencyHistogram getAckLag() {
+        return null;
+    }
 }
@@ -0,0 +1,163 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A point in time copy of the per subscription and per subject prefix metrics kept by a connection,
+ * see {@link Connection#getMetricsSnapshot() getMetricsSnapshot()}. Counts are totals since the
+ * subscription was made or the prefix was first seen, so exporters can treat them as counters.
+ *
+ * <p>Subscription metrics are kept when {@link Options.Builder#subscriptionMetrics() subscriptionMetrics()}
+ * is on, subject prefix metrics when {@link Options.Builder#subjectMetrics(int, int) subjectMetrics()} is on.
+ */
+public class MetricsSnapshot {
+    private final long timestamp;
+    private final List<Metrics> subscriptions;
+    private final List<Metrics> subjectPrefixes;
+    private final Metrics subjectOverflow;
+
+    public MetricsSnapshot(long timestamp, List<Metrics> subscriptions, List<Metrics> subjectPrefixes, Metrics subjectOverflow) {
+        this.timestamp = timestamp;
+        this.subscriptions = Collections.unmodifiableList(subscriptions);
+        this.subjectPrefixes = Collections.unmodifiableList(subjectPrefixes);
+        this.subjectOverflow = subjectOverflow;
+    }
+
+    /**
+     * @return the time the snapshot was taken, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the metrics of each active subscription, empty if subscription metrics are off
+     */
+    public List<Metrics> getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * @return the metrics of each tracked subject prefix, empty if subject metrics are off
+     */
+    public List<Metrics> getSubjectPrefixes() {
+        return subjectPrefixes;
+    }
+
+    /**
+     * @return the combined metrics of messages whose subject prefix was not tracked because the
+     * prefix limit was reached, null if subject metrics are off
+     */
+    public Metrics getSubjectOverflow() {
+        return subjectOverflow;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "timestamp=" + timestamp +
+                ", subscriptions=" + subscriptions +
+                ", subjectPrefixes=" + subjectPrefixes +
+                ", subjectOverflow=" + subjectOverflow +
+                '}';
+    }
+
+    /**
+     * The counts for one subscription or one subject prefix.
+     */
+    public static class Metrics {
+        private final String name;
+        private final String sid;
+        private final String queueName;
+        private final long messages;
+        private final long bytes;
+        private final long handlerNanos;
+        private final long dropped;
+
+        public Metrics(String name, String sid, String queueName, long messages, long bytes, long handlerNanos, long dropped) {
+            this.name = name;
+            this.sid = sid;
+            this.queueName = queueName;
+            this.messages = messages;
+            this.bytes = bytes;
+            this.handlerNanos = handlerNanos;
+            this.dropped = dropped;
+        }
+
+        /**
+         * @return the subscribed subject or the subject prefix
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the subscription id, null for a subject prefix
+         */
+        public String getSid() {
+            return sid;
+        }
+
+        /**
+         * @return the queue group of the subscription, null if there is none or for a subject prefix
+         */
+        public String getQueueName() {
+            return queueName;
+        }
+
+        /**
+         * @return the number of messages accepted for delivery
+         */
+        public long getMessages() {
+            return messages;
+        }
+
+        /**
+         * @return the number of bytes accepted for delivery
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the total time dispatcher handlers spent on these messages, in nanoseconds
+         */
+        public long getHandlerNanos() {
+            return handlerNanos;
+        }
+
+        /**
+         * @return the number of messages dropped because pending limits were reached
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "name='" + name + '\'' +
+                    ", sid='" + sid + '\'' +
+                    ", queueName='" + queueName + '\'' +
+                    ", messages=" + messages +
+                    ", bytes=" + bytes +
+                    ", handlerNanos=" + handlerNanos +
+                    ", dropped=" + dropped +
+                    '}';
+        }
+    }
+}
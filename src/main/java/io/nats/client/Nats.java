@@ -186,6 +186,28 @@ public abstract class Nats {
         return createConnection(options, false);
     }
 
+    /**
+     * Connect to the servers with several connections at once, behind a single {@link Connection}.
+     * Each connection has its own socket, reader and writer, so together they can move more data
+     * than one. Publishes are spread over the connections by a hash of their subject, so messages
+     * published to the same subject keep their order, and subscriptions are spread over them in turn.
+     * See {@link io.nats.client.impl.ShardedConnection ShardedConnection} for the details.
+     *
+     * <p>Every connection is made with the same options, so listeners set in the options hear from
+     * each of them. If any connection fails the ones already made are closed. Since each connection would
+     * replay the same directory, a reconnect outbox can only be used with a single connection.
+     *
+     * @param options the options to connect each connection with
+     * @param shards the number of connections, at least 1
+     * @return the sharded connection, a {@link io.nats.client.impl.ShardedConnection ShardedConnection}
+     * @throws IllegalArgumentException if shards is less than 1, or more than 1 with a reconnect outbox
+     * @throws IOException if a networking issue occurs
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public static Connection connectSharded(Options options, int shards) throws IOException, InterruptedException {
+        return NatsImpl.createShardedConnection(options, shards);
+    }
+
     /**
      * Try to connect in another thread, a connection listener is required to get
      * the connection.
@@ -22,6 +22,8 @@ import java.lang.reflect.Constructor;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.*;
@@ -215,6 +217,27 @@ public class Options {
      */
     public static final boolean DEFAULT_DISCARD_MESSAGES_WHEN_OUTGOING_QUEUE_FULL = false;
 
+    /**
+     * Default maximum number of replies kept in the request reply cache, {@link #getRequestReplyCacheSize()
+     * getRequestReplyCacheSize()}. The cache is only used when a ttl is set, see
+     * {@link Builder#requestReplyCache(Duration, int) requestReplyCache()}.
+     */
+    public static final int DEFAULT_REQUEST_REPLY_CACHE_SIZE = 1024;
+
+    /**
+     * Default maximum number of subject prefixes tracked by subject metrics, {@link #getSubjectMetricsMaxPrefixes()
+     * getSubjectMetricsMaxPrefixes()}, see {@link Builder#subjectMetrics(int, int) subjectMetrics()}.
+     */
+    public static final int DEFAULT_SUBJECT_METRICS_MAX_PREFIXES = 1000;
+
+    /**
+     * Default maximum number of bytes kept in the reconnect outbox, {@link #getReconnectOutboxMaxBytes()
+     * getReconnectOutboxMaxBytes()}, see {@link Builder#reconnectOutbox(Path, long) reconnectOutbox()}.
+     *
+     * <p>This property is defined as {@value} bytes, 1 GB.
+     */
+    public static final long DEFAULT_RECONNECT_OUTBOX_MAX_BYTES = 1_073_741_824L;
+
     static final String PFX = "io.nats.client.";
 
     /**
@@ -380,6 +403,67 @@ public class Options {
      */
     public static final String PROP_INBOX_PREFIX = "inbox.prefix";
 
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see {@link Builder#requestCoalescing()
+     * requestCoalescing}.
+     */
+    public static final String PROP_REQUEST_COALESCING = PFX + "request.coalescing";
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#requestReplyCache(Duration, int) requestReplyCache}.
+     */
+    public static final String PROP_REQUEST_REPLY_CACHE_TTL = PFX + "request.cache.ttl";
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#requestReplyCache(Duration, int) requestReplyCache}.
+     */
+    public static final String PROP_REQUEST_REPLY_CACHE_SIZE = PFX + "request.cache.size";
+
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see {@link Builder#subscriptionMetrics()
+     * subscriptionMetrics}.
+     */
+    public static final String PROP_SUBSCRIPTION_METRICS = PFX + "metrics.subscriptions";
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#subjectMetrics(int, int) subjectMetrics}.
+     */
+    public static final String PROP_SUBJECT_METRICS_TOKENS = PFX + "metrics.subject.tokens";
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#subjectMetrics(int, int) subjectMetrics}.
+     */
+    public static final String PROP_SUBJECT_METRICS_MAX_PREFIXES = PFX + "metrics.subject.max";
+
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#reconnectOutbox(Path, long) reconnectOutbox}.
+     */
+    public static final String PROP_RECONNECT_OUTBOX_DIR = PFX + "reconnect.outbox.dir";
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#reconnectOutbox(Path, long) reconnectOutbox}.
+     */
+    public static final String PROP_RECONNECT_OUTBOX_MAX_BYTES = PFX + "reconnect.outbox.max.bytes";
+
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#serverProbing(int) serverProbing}.
+     */
+    public static final String PROP_SERVER_PROBES = PFX + "server.probes";
+
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#localRouting() localRouting}.
+     */
+    public static final String PROP_LOCAL_ROUTING = PFX + "local.routing";
+
+    /**
+     * Property used to configure a builder from a Properties object. {@value}, see
+     * {@link Builder#localDelivery() localDelivery}.
+     */
+    public static final String PROP_LOCAL_DELIVERY = PFX + "local.delivery";
+
     /**
      * Protocol key {@value}, see {@link Builder#verbose() verbose}.
      */
@@ -495,6 +579,17 @@ public class Options {
     private final boolean utf8Support;
     private final int maxMessagesInOutgoingQueue;
     private final boolean discardMessagesWhenOutgoingQueueFull;
+    private final boolean requestCoalescing;
+    private final Duration requestReplyCacheTtl;
+    private final int requestReplyCacheSize;
+    private final boolean subscriptionMetrics;
+    private final int subjectMetricsTokens;
+    private final int subjectMetricsMaxPrefixes;
+    private final Path reconnectOutboxDirectory;
+    private final long reconnectOutboxMaxBytes;
+    private final int serverProbes;
+    private final boolean localRouting;
+    private final boolean localDelivery;
 
     private final AuthHandler authHandler;
     private final ReconnectDelayHandler reconnectDelayHandler;
@@ -507,6 +602,7 @@ public class Options {
     private final boolean traceConnection;
 
     private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
 
     static class DefaultThreadFactory implements ThreadFactory {
         String name;
@@ -571,6 +667,17 @@ public class Options {
         private String inboxPrefix = DEFAULT_INBOX_PREFIX;
         private int maxMessagesInOutgoingQueue = DEFAULT_MAX_MESSAGES_IN_OUTGOING_QUEUE;
         private boolean discardMessagesWhenOutgoingQueueFull = DEFAULT_DISCARD_MESSAGES_WHEN_OUTGOING_QUEUE_FULL;
+        private boolean requestCoalescing = false;
+        private Duration requestReplyCacheTtl = Duration.ZERO;
+        private int requestReplyCacheSize = DEFAULT_REQUEST_REPLY_CACHE_SIZE;
+        private boolean subscriptionMetrics = false;
+        private int subjectMetricsTokens = 0;
+        private int subjectMetricsMaxPrefixes = DEFAULT_SUBJECT_METRICS_MAX_PREFIXES;
+        private Path reconnectOutboxDirectory = null;
+        private long reconnectOutboxMaxBytes = DEFAULT_RECONNECT_OUTBOX_MAX_BYTES;
+        private int serverProbes = 0;
+        private boolean localRouting = false;
+        private boolean localDelivery = false;
 
         private AuthHandler authHandler;
         private ReconnectDelayHandler reconnectDelayHandler;
@@ -579,6 +686,7 @@ public class Options {
         private ConnectionListener connectionListener = null;
         private String dataPortType = DEFAULT_DATA_PORT_TYPE;
         private ExecutorService executor;
+        private ScheduledExecutorService scheduler;
 
         /**
          * Constructs a new Builder with the default values.
@@ -772,6 +880,56 @@ public class Options {
                 this.discardMessagesWhenOutgoingQueueFull = Boolean.parseBoolean(props.getProperty(
                         PROP_DISCARD_MESSAGES_WHEN_OUTGOING_QUEUE_FULL, Boolean.toString(DEFAULT_DISCARD_MESSAGES_WHEN_OUTGOING_QUEUE_FULL)));
             }
+
+            if (props.containsKey(PROP_REQUEST_COALESCING)) {
+                this.requestCoalescing = Boolean.parseBoolean(props.getProperty(PROP_REQUEST_COALESCING));
+            }
+
+            if (props.containsKey(PROP_REQUEST_REPLY_CACHE_TTL)) {
+                int ms = Integer.parseInt(props.getProperty(PROP_REQUEST_REPLY_CACHE_TTL, "-1"));
+                this.requestReplyCacheTtl = (ms < 0) ? Duration.ZERO : Duration.ofMillis(ms);
+            }
+
+            if (props.containsKey(PROP_REQUEST_REPLY_CACHE_SIZE)) {
+                int size = Integer.parseInt(props.getProperty(PROP_REQUEST_REPLY_CACHE_SIZE, "-1"));
+                this.requestReplyCacheSize = (size < 0) ? DEFAULT_REQUEST_REPLY_CACHE_SIZE : size;
+            }
+
+            if (props.containsKey(PROP_SUBSCRIPTION_METRICS)) {
+                this.subscriptionMetrics = Boolean.parseBoolean(props.getProperty(PROP_SUBSCRIPTION_METRICS));
+            }
+
+            if (props.containsKey(PROP_SUBJECT_METRICS_TOKENS)) {
+                int tokens = Integer.parseInt(props.getProperty(PROP_SUBJECT_METRICS_TOKENS, "0"));
+                this.subjectMetricsTokens = Math.max(0, tokens);
+            }
+
+            if (props.containsKey(PROP_SUBJECT_METRICS_MAX_PREFIXES)) {
+                int max = Integer.parseInt(props.getProperty(PROP_SUBJECT_METRICS_MAX_PREFIXES, "-1"));
+                this.subjectMetricsMaxPrefixes = (max < 0) ? DEFAULT_SUBJECT_METRICS_MAX_PREFIXES : max;
+            }
+
+            if (props.containsKey(PROP_RECONNECT_OUTBOX_DIR)) {
+                this.reconnectOutboxDirectory = Paths.get(props.getProperty(PROP_RECONNECT_OUTBOX_DIR));
+            }
+
+            if (props.containsKey(PROP_RECONNECT_OUTBOX_MAX_BYTES)) {
+                this.reconnectOutboxMaxBytes = Long.parseLong(props.getProperty(
+                        PROP_RECONNECT_OUTBOX_MAX_BYTES, Long.toString(DEFAULT_RECONNECT_OUTBOX_MAX_BYTES)));
+            }
+
+            if (props.containsKey(PROP_SERVER_PROBES)) {
+                int probes = Integer.parseInt(props.getProperty(PROP_SERVER_PROBES, "0"));
+                this.serverProbes = Math.max(0, probes);
+            }
+
+            if (props.containsKey(PROP_LOCAL_ROUTING)) {
+                this.localRouting = Boolean.parseBoolean(props.getProperty(PROP_LOCAL_ROUTING));
+            }
+
+            if (props.containsKey(PROP_LOCAL_DELIVERY)) {
+                this.localDelivery = Boolean.parseBoolean(props.getProperty(PROP_LOCAL_DELIVERY));
+            }
         }
 
         static Object createInstanceOf(String className) {
@@ -1282,6 +1440,23 @@ public class Options {
             return this;
         }
 
+        /**
+         * Set the {@link ScheduledExecutorService ScheduledExecutorService} that times the connection's
+         * work: the ping and request cleanup timers and the one off tasks such as request hedges, ack batch
+         * flushes and heartbeat checks. By default every connection in the process shares one scheduler
+         * thread, and listener callbacks run one at a time on the {@link #executor(ExecutorService) executor},
+         * so an idle connection keeps no threads of its own. The scheduler only hands each task to the
+         * executor when it comes due, so work that blocks, like publishing into a full outgoing queue, never
+         * holds up other connections. The connection never shuts the scheduler down, that is up to whoever made it.
+         *
+         * @param scheduler the scheduler to use for connections built with these options, null for the shared one
+         * @return the Builder for chaining
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
         /**
          * The class to use for this connections data port. This is an advanced setting
          * and primarily useful for testing.
@@ -1315,6 +1490,132 @@ public class Options {
             return this;
         }
 
+        /**
+         * Turn on request coalescing. Concurrent requests made without headers to the same subject
+         * with the same payload share a single in flight request to the server. Every caller
+         * receives the same reply {@link Message Message} instance, so callers should treat
+         * it as read only.
+         *
+         * @return the Builder for chaining
+         */
+        public Builder requestCoalescing() {
+            this.requestCoalescing = true;
+            return this;
+        }
+
+        /**
+         * Keep replies to coalesced requests for a short time, so identical requests made
+         * shortly after a reply arrives are answered without going to the server. Only used
+         * when {@link #requestCoalescing() requestCoalescing()} is on. The oldest entries are
+         * evicted when the cache is full.
+         *
+         * @param ttl how long a reply can be reused, null or zero turns the cache off
+         * @param maxEntries the maximum number of replies kept
+         * @return the Builder for chaining
+         */
+        public Builder requestReplyCache(Duration ttl, int maxEntries) {
+            this.requestReplyCacheTtl = ttl == null ? Duration.ZERO : ttl;
+            this.requestReplyCacheSize = maxEntries;
+            return this;
+        }
+
+        /**
+         * Turn on per subscription metrics. Messages, bytes, handler time and dropped messages
+         * are counted for each subscription and can be read with
+         * {@link Connection#getMetricsSnapshot() getMetricsSnapshot()}.
+         *
+         * @return the Builder for chaining
+         */
+        public Builder subscriptionMetrics() {
+            this.subscriptionMetrics = true;
+            return this;
+        }
+
+        /**
+         * Turn on per subject prefix metrics. Incoming messages are counted against the first
+         * <code>prefixTokens</code> tokens of their subject, so with 2 tokens <code>orders.eu.new</code>
+         * and <code>orders.eu.paid</code> are both counted as <code>orders.eu</code>. Once
+         * <code>maxPrefixes</code> prefixes are tracked, messages for new prefixes are counted
+         * together as overflow.
+         *
+         * @param prefixTokens the number of subject tokens in a prefix, 0 turns subject metrics off
+         * @param maxPrefixes the maximum number of prefixes tracked
+         * @return the Builder for chaining
+         */
+        public Builder subjectMetrics(int prefixTokens, int maxPrefixes) {
+            this.subjectMetricsTokens = Math.max(0, prefixTokens);
+            this.subjectMetricsMaxPrefixes = maxPrefixes;
+            return this;
+        }
+
+        /**
+         * Keep publishes that don't fit in the {@link #reconnectBufferSize(long) reconnect buffer} in an
+         * outbox on disk instead of failing them. The outbox is a log of memory mapped segment files in the
+         * directory. Once a publish has gone to the outbox, later publishes follow it there so order is kept.
+         * After the connection is made again, the outbox is sent in order, a window at a time, so only a
+         * reconnect buffer's worth of it is ever in memory. Progress and lag are in the {@link Statistics}.
+         *
+         * <p>Messages still in the outbox when the connection is closed stay on disk and are sent
+         * after the next connect of a connection using the same directory. Only one connection
+         * at a time should use a directory.
+         *
+         * @param directory the directory for the outbox files, null turns the outbox off
+         * @param maxBytes the maximum number of bytes of messages kept in the outbox, less than zero means unlimited
+         * @return the Builder for chaining
+         */
+        public Builder reconnectOutbox(Path directory, long maxBytes) {
+            this.reconnectOutboxDirectory = directory;
+            this.reconnectOutboxMaxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Probe several servers at the same time before connecting or reconnecting, instead of trying
+         * them one at a time. Each probe opens a socket and waits for the server's INFO. Servers are
+         * then tried in order of how fast they answered, so a dead server costs one probe running
+         * alongside the others rather than a whole connection timeout. Servers that did not answer
+         * are still tried, last. Probe times are kept for the life of the connection, so servers
+         * that were not probed this time are ordered by how fast they answered before.
+         *
+         * @param maxParallel the number of servers probed at once, 0 turns probing off
+         * @return the Builder for chaining
+         */
+        public Builder serverProbing(int maxParallel) {
+            this.serverProbes = Math.max(0, maxParallel);
+            return this;
+        }
+
+        /**
+         * Route messages to plain subscriptions inside the client. Subscriptions without a queue group
+         * share server side interest: the server is sent one SUB per distinct interest, where a wildcard
+         * subscription covers the narrower subjects under it, and each incoming message is matched
+         * locally and handed to every subscription it belongs to. Applications with many overlapping
+         * subscriptions then cost the server one subscription instead of many, and a message is read
+         * off the socket once instead of once per subscription. Subscriptions that get the same message
+         * share its data array. Queue subscriptions and JetStream subscriptions always go to the server.
+         *
+         * @return the Builder for chaining
+         */
+        public Builder localRouting() {
+            this.localRouting = true;
+            return this;
+        }
+
+        /**
+         * Deliver messages published on this connection straight to this connection's own subscriptions,
+         * without the round trip through the server. The connection asks the server not to echo its
+         * messages back, the same as {@link #noEcho() noEcho}, and hands each published message to the
+         * matching local subscriptions itself. Subscriptions with a queue group are left to the server,
+         * so, as with no echo, they only get messages published by other connections. If
+         * {@link #noEcho() noEcho} is also set, messages are not delivered locally either.
+         *
+         * @return the Builder for chaining
+         */
+        public Builder localDelivery() {
+            this.localDelivery = true;
+            return this;
+        }
+
         /**
          * Build an Options object from this Builder.
          * 
@@ -1400,6 +1701,17 @@ public class Options {
         this.traceConnection = b.traceConnection;
         this.maxMessagesInOutgoingQueue = b.maxMessagesInOutgoingQueue;
         this.discardMessagesWhenOutgoingQueueFull = b.discardMessagesWhenOutgoingQueueFull;
+        this.requestCoalescing = b.requestCoalescing;
+        this.requestReplyCacheTtl = b.requestReplyCacheTtl;
+        this.requestReplyCacheSize = b.requestReplyCacheSize;
+        this.subscriptionMetrics = b.subscriptionMetrics;
+        this.subjectMetricsTokens = b.subjectMetricsTokens;
+        this.subjectMetricsMaxPrefixes = b.subjectMetricsMaxPrefixes;
+        this.reconnectOutboxDirectory = b.reconnectOutboxDirectory;
+        this.reconnectOutboxMaxBytes = b.reconnectOutboxMaxBytes;
+        this.serverProbes = b.serverProbes;
+        this.localRouting = b.localRouting;
+        this.localDelivery = b.localDelivery;
 
         this.authHandler = b.authHandler;
         this.reconnectDelayHandler = b.reconnectDelayHandler;
@@ -1409,6 +1721,7 @@ public class Options {
         this.dataPortType = b.dataPortType;
         this.trackAdvancedStats = b.trackAdvancedStats;
         this.executor = b.executor;
+        this.scheduler = b.scheduler;
     }
 
     /**
@@ -1418,6 +1731,14 @@ public class Options {
         return this.executor;
     }
 
+    /**
+     * @return the scheduler, or null if connections use the one they all share, see
+     * {@link Builder#scheduler(ScheduledExecutorService) scheduler()} in the builder doc
+     */
+    public ScheduledExecutorService getScheduler() {
+        return this.scheduler;
+    }
+
     /**
      * @return the error listener, or null, see {@link Builder#errorListener(ErrorListener) errorListener()} in the builder doc
      */
@@ -1710,6 +2031,94 @@ public class Options {
         return discardMessagesWhenOutgoingQueueFull;
     }
 
+    /**
+     * @return whether identical concurrent requests share one in flight request, see
+     * {@link Builder#requestCoalescing() requestCoalescing()} in the builder doc
+     */
+    public boolean isRequestCoalescing() {
+        return requestCoalescing;
+    }
+
+    /**
+     * @return how long coalesced replies are cached, see {@link Builder#requestReplyCache(Duration, int)
+     * requestReplyCache()} in the builder doc
+     */
+    public Duration getRequestReplyCacheTtl() {
+        return requestReplyCacheTtl;
+    }
+
+    /**
+     * @return the maximum number of cached replies, see {@link Builder#requestReplyCache(Duration, int)
+     * requestReplyCache()} in the builder doc
+     */
+    public int getRequestReplyCacheSize() {
+        return requestReplyCacheSize;
+    }
+
+    /**
+     * @return whether metrics are kept for each subscription, see
+     * {@link Builder#subscriptionMetrics() subscriptionMetrics()} in the builder doc
+     */
+    public boolean isSubscriptionMetrics() {
+        return subscriptionMetrics;
+    }
+
+    /**
+     * @return the number of subject tokens metrics are grouped by, 0 if subject metrics are off, see
+     * {@link Builder#subjectMetrics(int, int) subjectMetrics()} in the builder doc
+     */
+    public int getSubjectMetricsTokens() {
+        return subjectMetricsTokens;
+    }
+
+    /**
+     * @return the maximum number of subject prefixes tracked, see
+     * {@link Builder#subjectMetrics(int, int) subjectMetrics()} in the builder doc
+     */
+    public int getSubjectMetricsMaxPrefixes() {
+        return subjectMetricsMaxPrefixes;
+    }
+
+    /**
+     * @return the directory of the reconnect outbox, null if there is none, see
+     * {@link Builder#reconnectOutbox(Path, long) reconnectOutbox()} in the builder doc
+     */
+    public Path getReconnectOutboxDirectory() {
+        return reconnectOutboxDirectory;
+    }
+
+    /**
+     * @return the maximum number of bytes kept in the reconnect outbox, see
+     * {@link Builder#reconnectOutbox(Path, long) reconnectOutbox()} in the builder doc
+     */
+    public long getReconnectOutboxMaxBytes() {
+        return reconnectOutboxMaxBytes;
+    }
+
+    /**
+     * @return the number of servers probed at once before connecting, 0 if probing is off, see
+     * {@link Builder#serverProbing(int) serverProbing()} in the builder doc
+     */
+    public int getServerProbes() {
+        return serverProbes;
+    }
+
+    /**
+     * @return true if plain subscriptions are routed inside the client, see
+     * {@link Builder#localRouting() localRouting()} in the builder doc
+     */
+    public boolean isLocalRouting() {
+        return localRouting;
+    }
+
+    /**
+     * @return true if published messages are delivered to this connection's subscriptions without the
+     * server, see {@link Builder#localDelivery() localDelivery()} in the builder doc
+     */
+    public boolean isLocalDelivery() {
+        return localDelivery;
+    }
+
     public URI createURIForServer(String serverURI) throws URISyntaxException {
         return Options.parseURIForServer(serverURI);
     }
@@ -1775,7 +2184,9 @@ public class Options {
         appendOption(connectString, Options.OPTION_VERBOSE, String.valueOf(this.isVerbose()), false, true);
         appendOption(connectString, Options.OPTION_PEDANTIC, String.valueOf(this.isPedantic()), false, true);
         appendOption(connectString, Options.OPTION_TLS_REQUIRED, String.valueOf(this.isTLSRequired()), false, true);
-        appendOption(connectString, Options.OPTION_ECHO, String.valueOf(!this.isNoEcho()), false, true);
+        // with local delivery the messages come back without the server
+        boolean echo = !this.isNoEcho() && !this.isLocalDelivery();
+        appendOption(connectString, Options.OPTION_ECHO, String.valueOf(echo), false, true);
         appendOption(connectString, Options.OPTION_HEADERS, String.valueOf(!this.isNoHeaders()), false, true);
         appendOption(connectString, Options.OPTION_NORESPONDERS, String.valueOf(!this.isNoNoResponders()), false, true);
 
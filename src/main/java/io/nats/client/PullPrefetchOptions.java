@@ -0,0 +1,178 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client;
+
+import java.time.Duration;
+
+/**
+ * The PullPrefetchOptions class turns a pull subscription into a continuous one,
+ * see {@link PullSubscribeOptions.Builder#prefetch(PullPrefetchOptions) prefetch}.
+ *
+ * <p>Instead of the application asking for each batch, the subscription keeps up to the maximum number of
+ * messages requested from the server, counting both the messages still to arrive and the ones waiting to be
+ * read. When that number drops to the low water mark the subscription asks for enough messages to get back
+ * to the maximum, so the next messages are already on their way while the application works through the
+ * current ones. When a maximum number of bytes is set, no more messages are asked for while the messages
+ * waiting to be read hold at least that many bytes.
+ *
+ * <p>Each pull request asks the server to give up after the expiration, then a new one is sent in its place.
+ *
+ * <p>PullPrefetchOptions are created using a {@link PullPrefetchOptions.Builder Builder}.
+ */
+public class PullPrefetchOptions {
+    /**
+     * The default maximum number, {@value}, of messages requested and not yet read.
+     */
+    public static final int DEFAULT_MAX_MESSAGES = 256;
+
+    /**
+     * The default expiration of each pull request.
+     */
+    public static final Duration DEFAULT_EXPIRES_IN = Duration.ofSeconds(30);
+
+    private final int maxMessages;
+    private final long maxBytes;
+    private final int lowWaterMark;
+    private final Duration expiresIn;
+
+    private PullPrefetchOptions(Builder b) {
+        this.maxMessages = b.maxMessages;
+        this.maxBytes = b.maxBytes;
+        this.lowWaterMark = b.lowWaterMark < 0 ? b.maxMessages / 4 : b.lowWaterMark;
+        this.expiresIn = b.expiresIn;
+    }
+
+    /**
+     * Gets the maximum number of messages requested and not yet read.
+     * @return the maximum number of messages
+     */
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    /**
+     * Gets the number of bytes waiting to be read at which no more messages are requested.
+     * @return the maximum bytes, 0 if there is no limit
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Gets the number of messages requested and not yet read at which more messages are requested.
+     * @return the low water mark
+     */
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    /**
+     * Gets the expiration of each pull request.
+     * @return the expiration
+     */
+    public Duration getExpiresIn() {
+        return expiresIn;
+    }
+
+    /**
+     * Creates a builder for the pull prefetch options.
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * PullPrefetchOptions are created using a Builder. The builder supports chaining and will
+     * create a default set of options if no methods are called.
+     */
+    public static class Builder {
+        private int maxMessages = DEFAULT_MAX_MESSAGES;
+        private long maxBytes = 0;
+        private int lowWaterMark = -1;
+        private Duration expiresIn = DEFAULT_EXPIRES_IN;
+
+        /**
+         * Sets the maximum number of messages requested and not yet read.
+         * @param maxMessages the number of messages, at least 1
+         * @return Builder
+         */
+        public Builder maxMessages(int maxMessages) {
+            if (maxMessages < 1) {
+                throw new IllegalArgumentException("Max messages must be at least 1.");
+            }
+            this.maxMessages = maxMessages;
+            return this;
+        }
+
+        /**
+         * Sets the number of bytes waiting to be read at which no more messages are requested.
+         * @param maxBytes the number of bytes, 0 or less means no limit
+         * @return Builder
+         */
+        public Builder maxBytes(long maxBytes) {
+            this.maxBytes = Math.max(0, maxBytes);
+            return this;
+        }
+
+        /**
+         * Sets the number of messages requested and not yet read at which more messages are requested.
+         * Defaults to a quarter of the maximum messages.
+         * @param lowWaterMark the number of messages, less than the maximum messages
+         * @return Builder
+         */
+        public Builder lowWaterMark(int lowWaterMark) {
+            if (lowWaterMark < 0) {
+                throw new IllegalArgumentException("Low water mark cannot be negative.");
+            }
+            this.lowWaterMark = lowWaterMark;
+            return this;
+        }
+
+        /**
+         * Sets the expiration of each pull request.
+         * @param expiresIn the expiration, null means the default
+         * @return Builder
+         */
+        public Builder expiresIn(Duration expiresIn) {
+            if (expiresIn != null && (expiresIn.isZero() || expiresIn.isNegative())) {
+                throw new IllegalArgumentException("Expires in must be greater than zero.");
+            }
+            this.expiresIn = expiresIn == null ? DEFAULT_EXPIRES_IN : expiresIn;
+            return this;
+        }
+
+        /**
+         * Builds the pull prefetch options.
+         * @return pull prefetch options
+         */
+        public PullPrefetchOptions build() {
+            if (lowWaterMark >= maxMessages) {
+                throw new IllegalArgumentException("Low water mark must be less than max messages.");
+            }
+            return new PullPrefetchOptions(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PullPrefetchOptions{" +
+                "maxMessages=" + maxMessages +
+                ", maxBytes=" + maxBytes +
+                ", lowWaterMark=" + lowWaterMark +
+                ", expiresIn=" + expiresIn +
+                '}';
+    }
+}
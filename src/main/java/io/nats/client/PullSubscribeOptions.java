@@ -24,8 +24,20 @@ import static io.nats.client.support.Validator.validateStreamName;
  */
 public class PullSubscribeOptions extends SubscribeOptions {
 
-    private PullSubscribeOptions(String stream, ConsumerConfiguration consumerConfig) {
-        super(stream, consumerConfig);
+    private final PullPrefetchOptions prefetchOptions;
+
+    private PullSubscribeOptions(String stream, ConsumerConfiguration consumerConfig, AckBatchOptions ackBatchOptions,
+                                 PullPrefetchOptions prefetchOptions) {
+        super(stream, consumerConfig, ackBatchOptions);
+        this.prefetchOptions = prefetchOptions;
+    }
+
+    /**
+     * Gets the prefetch options.
+     * @return the prefetch options, null if the application asks for each batch
+     */
+    public PullPrefetchOptions getPrefetchOptions() {
+        return prefetchOptions;
     }
 
     public static Builder builder() {
@@ -39,11 +51,24 @@ public class PullSubscribeOptions extends SubscribeOptions {
     public static class Builder
             extends SubscribeOptions.Builder<Builder, PullSubscribeOptions> {
 
+        private PullPrefetchOptions prefetchOptions;
+
         @Override
         protected Builder getThis() {
             return this;
         }
 
+        /**
+         * Keep messages requested from the server continuously instead of asking
+         * for each batch, see {@link PullPrefetchOptions}.
+         * @param prefetchOptions the prefetch options, null turns prefetching off
+         * @return the builder
+         */
+        public Builder prefetch(PullPrefetchOptions prefetchOptions) {
+            this.prefetchOptions = prefetchOptions;
+            return this;
+        }
+
         /**
          * Builds the pull subscribe options.
          * @return pull subscribe options
@@ -58,7 +83,7 @@ public class PullSubscribeOptions extends SubscribeOptions {
                     .durable(durable)
                     .build();
 
-            return new PullSubscribeOptions(stream, cc);
+            return new PullSubscribeOptions(stream, cc, ackBatchOptions, prefetchOptions);
         }
     }
 }
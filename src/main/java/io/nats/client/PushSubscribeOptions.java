@@ -13,8 +13,11 @@
 
 package io.nats.client;
 
+import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
 
+import java.time.Duration;
+
 import static io.nats.client.support.Validator.*;
 
 /**
@@ -23,8 +26,25 @@ import static io.nats.client.support.Validator.*;
  */
 public class PushSubscribeOptions extends SubscribeOptions {
 
-    private PushSubscribeOptions(String stream, ConsumerConfiguration consumerConfig) {
-        super(stream, consumerConfig);
+    /**
+     * The idle heartbeat used by an ordered consumer when the configuration does not have one.
+     */
+    public static final Duration DEFAULT_ORDERED_HEARTBEAT = Duration.ofSeconds(5);
+
+    private final boolean ordered;
+
+    private PushSubscribeOptions(String stream, ConsumerConfiguration consumerConfig, AckBatchOptions ackBatchOptions,
+                                 boolean ordered) {
+        super(stream, consumerConfig, ackBatchOptions);
+        this.ordered = ordered;
+    }
+
+    /**
+     * Whether the subscription is an ordered consumer, see {@link Builder#ordered(boolean) ordered}.
+     * @return true if ordered
+     */
+    public boolean isOrdered() {
+        return ordered;
     }
 
     /**
@@ -56,12 +76,27 @@ public class PushSubscribeOptions extends SubscribeOptions {
     public static class Builder
             extends SubscribeOptions.Builder<Builder, PushSubscribeOptions> {
         private String deliverSubject;
+        private boolean ordered;
 
         @Override
         protected Builder getThis() {
             return this;
         }
 
+        /**
+         * Make the subscription an ordered consumer, the fastest way to read a stream in order.
+         * The consumer is ephemeral, does not need acks and uses flow control and idle heartbeats.
+         * If a message is missed, or the heartbeats stop, the consumer is replaced with one starting
+         * after the last message delivered, so the application sees every message once, in order.
+         * An ordered consumer cannot be durable, have a deliver subject or be in a queue.
+         * @param ordered true for an ordered consumer
+         * @return the builder.
+         */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
         /**
          * Setting this specifies the push model to a delivery subject.
          * Null or empty clears the field.
@@ -86,12 +121,27 @@ public class PushSubscribeOptions extends SubscribeOptions {
                 durable = validateDurable(consumerConfig.getDurable(), false);
             }
 
-            this.consumerConfig = ConsumerConfiguration.builder(consumerConfig)
+            ConsumerConfiguration.Builder ccBuilder = ConsumerConfiguration.builder(consumerConfig)
                     .durable(durable)
-                    .deliverSubject(emptyAsNull(deliverSubject))
-                    .build();
+                    .deliverSubject(emptyAsNull(deliverSubject));
+
+            if (ordered) {
+                if (durable != null) {
+                    throw new IllegalArgumentException("An ordered consumer cannot be durable.");
+                }
+                if (emptyAsNull(deliverSubject) != null) {
+                    throw new IllegalArgumentException("An ordered consumer cannot have a deliver subject.");
+                }
+                Duration hb = consumerConfig == null ? null : consumerConfig.getIdleHeartbeat();
+                ccBuilder.ackPolicy(AckPolicy.None)
+                        .maxDeliver(1)
+                        .flowControl(true)
+                        .idleHeartbeat(hb == null || hb.isZero() ? DEFAULT_ORDERED_HEARTBEAT : hb);
+            }
+
+            this.consumerConfig = ccBuilder.build();
 
-            return new PushSubscribeOptions(stream, consumerConfig);
+            return new PushSubscribeOptions(stream, consumerConfig, ackBatchOptions, ordered);
         }
     }
 }
@@ -13,11 +13,18 @@
 
 package io.nats.client;
 
+import io.nats.client.support.LatencyHistogram;
+
 /**
  * Connections can provide an instance of Statistics, {@link Connection#getStatistics() getStatistics()}. The statistics
  * object provides information about key metrics related to the connection over its entire lifecycle.
  * 
  * <p>The Statistics toString() provides a summary of the statistics.
+ *
+ * <p>The counters and latencies added after the first release have default implementations that return
+ * 0 or an empty histogram, so existing implementations of this interface keep compiling.
+ *
+ * <p>The latency histograms returned are read only snapshots taken when the getter is called.
  */
 public interface Statistics {
     /**
@@ -49,4 +56,97 @@ public interface Statistics {
      * @return the total number of messages dropped by this connection across all slow consumers.
      */
     public long getDroppedCount();
+
+    /**
+     * @return the total number of requests that shared a reply with an identical request already in flight,
+     * see {@link Options.Builder#requestCoalescing() requestCoalescing()}.
+     */
+    public default long getCoalescedRequests() {
+        return 0;
+    }
+
+    /**
+     * @return the total number of requests answered from the request reply cache,
+     * see {@link Options.Builder#requestReplyCache(java.time.Duration, int) requestReplyCache()}.
+     */
+    public default long getRequestCacheHits() {
+        return 0;
+    }
+
+    /**
+     * Latencies are only recorded when advanced statistics are on, see
+     * {@link Options.Builder#turnOnAdvancedStats() turnOnAdvancedStats()}.
+     * @return the time from sending a request until its reply arrives.
+     */
+    public default LatencyHistogram getRequestLatency() {
+        return new LatencyHistogram().snapshot();
+    }
+
+    /**
+     * Latencies are only recorded when advanced statistics are on.
+     * @return the time from sending a ping, including the ping sent by a flush, until its pong arrives.
+     */
+    public default LatencyHistogram getPingLatency() {
+        return new LatencyHistogram().snapshot();
+    }
+
+    /**
+     * Latencies are only recorded when advanced statistics are on.
+     * @return the time dispatcher message handlers take to run.
+     */
+    public default LatencyHistogram getHandlerLatency() {
+        return new LatencyHistogram().snapshot();
+    }
+
+    /**
+     * Latencies are only recorded when advanced statistics are on.
+     * @return the time outgoing messages wait to be written to the socket.
+     */
+    public default LatencyHistogram getOutgoingQueueLatency() {
+        return new LatencyHistogram().snapshot();
+    }
+
+    /**
+     * Latencies are only recorded when advanced statistics are on.
+     * @return the time incoming messages wait in subscription and dispatcher queues before they are delivered.
+     */
+    public default LatencyHistogram getIncomingQueueLatency() {
+        return new LatencyHistogram().snapshot();
+    }
+
+    /**
+     * @return the total number of messages written to the reconnect outbox,
+     * see {@link Options.Builder#reconnectOutbox(java.nio.file.Path, long) reconnectOutbox()}.
+     */
+    public default long getOutboxSpilled() {
+        return 0;
+    }
+
+    /**
+     * @return the total number of messages replayed from the reconnect outbox after a reconnect.
+     */
+    public default long getOutboxReplayed() {
+        return 0;
+    }
+
+    /**
+     * @return the number of messages waiting in the reconnect outbox to be replayed.
+     */
+    public default long getOutboxPending() {
+        return 0;
+    }
+
+    /**
+     * @return the number of bytes the messages waiting in the reconnect outbox take on disk to be replayed.
+     */
+    public default long getOutboxPendingBytes() {
+        return 0;
+    }
+
+    /**
+     * @return how long, in milliseconds, the last message replayed from the reconnect outbox had waited there.
+     */
+    public default long getOutboxReplayLag() {
+        return 0;
+    }
 }
@@ -23,10 +23,16 @@ public abstract class SubscribeOptions {
 
     protected final String stream;
     protected final ConsumerConfiguration consumerConfig;
+    protected final AckBatchOptions ackBatchOptions;
 
     protected SubscribeOptions(String stream, ConsumerConfiguration consumerConfig) {
+        this(stream, consumerConfig, null);
+    }
+
+    protected SubscribeOptions(String stream, ConsumerConfiguration consumerConfig, AckBatchOptions ackBatchOptions) {
         this.stream = stream;
         this.consumerConfig = consumerConfig;
+        this.ackBatchOptions = ackBatchOptions;
     }
 
     /**
@@ -53,11 +59,20 @@ public abstract class SubscribeOptions {
         return consumerConfig;
     }
 
+    /**
+     * Gets the ack batching options.
+     * @return the ack batch options, null if acks are not batched
+     */
+    public AckBatchOptions getAckBatchOptions() {
+        return ackBatchOptions;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" +
                 "stream='" + stream + '\'' +
                 ", " + consumerConfig +
+                ", " + ackBatchOptions +
                 '}';
     }
 
@@ -69,6 +84,7 @@ public abstract class SubscribeOptions {
         protected String stream;
         protected String durable;
         protected ConsumerConfiguration consumerConfig;
+        protected AckBatchOptions ackBatchOptions;
 
         protected abstract B getThis();
 
@@ -106,6 +122,17 @@ public abstract class SubscribeOptions {
             return getThis();
         }
 
+        /**
+         * Batch the acks of messages from this subscription, see {@link AckBatchOptions}.
+         * Has no effect when the consumer's ack policy is none.
+         * @param ackBatchOptions the ack batch options, null turns ack batching off
+         * @return the builder
+         */
+        public B ackBatching(AckBatchOptions ackBatchOptions) {
+            this.ackBatchOptions = ackBatchOptions;
+            return getThis();
+        }
+
         /**
          * Builds the subscribe options.
          * @return subscribe options
@@ -13,7 +13,8 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 
 import static io.nats.client.support.ApiConstants.*;
 
@@ -28,10 +29,14 @@ public class AccountLimits {
     private final long maxConsumers;
 
     AccountLimits(String json) {
-        this.maxMemory = JsonUtils.readLong(json, MAX_MEMORY_RE, -1);
-        this.maxStorage = JsonUtils.readLong(json, MAX_STORAGE_RE, -1);
-        this.maxStreams = JsonUtils.readLong(json, MAX_STREAMS_RE, -1);
-        this.maxConsumers = JsonUtils.readLong(json, MAX_CONSUMERS_RE, -1);
+        this(JsonReader.parse(json));
+    }
+
+    AccountLimits(JsonNode json) {
+        this.maxMemory = json.readLong(MAX_MEMORY, -1);
+        this.maxStorage = json.readLong(MAX_STORAGE, -1);
+        this.maxStreams = json.readLong(MAX_STREAMS, -1);
+        this.maxConsumers = json.readLong(MAX_CONSUMERS, -1);
     }
 
     /**
@@ -14,7 +14,6 @@
 package io.nats.client.api;
 
 import io.nats.client.Message;
-import io.nats.client.support.JsonUtils;
 
 import static io.nats.client.support.ApiConstants.*;
 
@@ -31,10 +30,10 @@ public class AccountStatistics
 
     public AccountStatistics(Message msg) {
         super(msg);
-        memory = JsonUtils.readLong(json, MEMORY_RE, 0);
-        storage = JsonUtils.readLong(json, STORAGE_RE, 0);
-        streams = JsonUtils.readLong(json, STREAMS_RE, 0);
-        consumers = JsonUtils.readLong(json, CONSUMERS_RE, 0);
+        memory = json.readLong(MEMORY, 0);
+        storage = json.readLong(STORAGE, 0);
+        streams = json.readLong(STREAMS, 0);
+        consumers = json.readLong(CONSUMERS, 0);
     }
 
     /**
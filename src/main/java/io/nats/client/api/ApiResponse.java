@@ -15,27 +15,30 @@ package io.nats.client.api;
 
 import io.nats.client.JetStreamApiException;
 import io.nats.client.Message;
-import io.nats.client.support.JsonUtils;
-
-import java.nio.charset.StandardCharsets;
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 
 import static io.nats.client.api.Error.NOT_SET;
-import static io.nats.client.support.ApiConstants.TYPE_RE;
+import static io.nats.client.support.ApiConstants.TYPE;
 
 public abstract class ApiResponse<T> {
 
     public static final String NO_TYPE = "io.nats.jetstream.api.v1.no_type";
 
-    protected final String json;
+    protected final JsonNode json;
 
     private String type;
     private Error error;
 
     public ApiResponse(Message msg) {
-        this(new String(msg.getData(), StandardCharsets.UTF_8));
+        this(JsonReader.parse(msg.getData()));
     }
 
     public ApiResponse(String json) {
+        this(JsonReader.parse(json));
+    }
+
+    public ApiResponse(JsonNode json) {
         this.json = json;
         error = Error.optionalInstance(json);
     }
@@ -56,9 +59,18 @@ public abstract class ApiResponse<T> {
         return error != null;
     }
 
+    /**
+     * The json field was a String before responses were read with {@link JsonReader},
+     * subclasses that need the text can use this instead.
+     * @return the json text of the response, as it was received, or null if there is none
+     */
+    protected String getJson() {
+        return json == null ? null : json.toJson();
+    }
+
     public String getType() {
         if (type == null) {
-            type = JsonUtils.readString(json, TYPE_RE, NO_TYPE);
+            type = json == null ? NO_TYPE : json.readString(TYPE, NO_TYPE);
         }
         return type;
     }
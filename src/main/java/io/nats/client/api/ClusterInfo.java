@@ -13,7 +13,7 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import java.util.List;
 
@@ -27,14 +27,14 @@ public class ClusterInfo {
     private final String leader;
     private final List<Replica> replicas;
 
-    static ClusterInfo optionalInstance(String fullJson) {
-        String objJson = JsonUtils.getJsonObject(CLUSTER, fullJson, null);
+    static ClusterInfo optionalInstance(JsonNode fullJson) {
+        JsonNode objJson = fullJson.getObject(CLUSTER, null);
         return objJson == null ? null : new ClusterInfo(objJson);
     }
 
-    ClusterInfo(String json) {
-        name = JsonUtils.readString(json, NAME_RE);
-        leader = JsonUtils.readString(json, LEADER_RE);
+    ClusterInfo(JsonNode json) {
+        name = json.readString(NAME);
+        leader = json.readString(LEADER);
         replicas = Replica.optionalListOf(json);
     }
 
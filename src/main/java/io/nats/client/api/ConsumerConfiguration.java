@@ -13,12 +13,13 @@
 
 package io.nats.client.api;
 
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 import io.nats.client.support.JsonSerializable;
 import io.nats.client.support.JsonUtils;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.regex.Matcher;
 
 import static io.nats.client.support.ApiConstants.*;
 import static io.nats.client.support.JsonUtils.beginJson;
@@ -50,28 +51,32 @@ public class ConsumerConfiguration implements JsonSerializable {
 
     // for the response from the server
     ConsumerConfiguration(String json) {
+        this(JsonReader.parse(json));
+    }
 
-        Matcher m = DELIVER_POLICY_RE.matcher(json);
-        deliverPolicy = m.find() ? DeliverPolicy.get(m.group(1)) : DeliverPolicy.All;
-
-        m = ACK_POLICY_RE.matcher(json);
-        ackPolicy = m.find() ? AckPolicy.get(m.group(1)) : AckPolicy.Explicit;
-
-        m = REPLAY_POLICY_RE.matcher(json);
-        replayPolicy = m.find() ? ReplayPolicy.get(m.group(1)) : ReplayPolicy.Instant;
-
-        durable = JsonUtils.readString(json, DURABLE_NAME_RE);
-        deliverSubject = JsonUtils.readString(json, DELIVER_SUBJECT_RE);
-        startSeq = JsonUtils.readLong(json, OPT_START_SEQ_RE, 0);
-        startTime = JsonUtils.readDate(json, OPT_START_TIME_RE);
-        ackWait = JsonUtils.readNanos(json, ACK_WAIT_RE, Duration.ofSeconds(30));
-        maxDeliver = JsonUtils.readLong(json, MAX_DELIVER_RE, -1);
-        filterSubject = JsonUtils.readString(json, FILTER_SUBJECT_RE);
-        sampleFrequency = JsonUtils.readString(json, SAMPLE_FREQ_RE);
-        rateLimit = JsonUtils.readLong(json, RATE_LIMIT_BPS_RE, 0);
-        maxAckPending = JsonUtils.readLong(json, MAX_ACK_PENDING_RE, 0);
-        idleHeartbeat = JsonUtils.readNanos(json, IDLE_HEARTBEAT_RE, Duration.ZERO);
-        flowControl = JsonUtils.readBoolean(json, FLOW_CONTROL_RE);
+    ConsumerConfiguration(JsonNode json) {
+
+        String policy = json.readString(DELIVER_POLICY);
+        deliverPolicy = policy == null ? DeliverPolicy.All : DeliverPolicy.get(policy);
+
+        policy = json.readString(ACK_POLICY);
+        ackPolicy = policy == null ? AckPolicy.Explicit : AckPolicy.get(policy);
+
+        policy = json.readString(REPLAY_POLICY);
+        replayPolicy = policy == null ? ReplayPolicy.Instant : ReplayPolicy.get(policy);
+
+        durable = json.readString(DURABLE_NAME);
+        deliverSubject = json.readString(DELIVER_SUBJECT);
+        startSeq = json.readLong(OPT_START_SEQ, 0);
+        startTime = json.readDate(OPT_START_TIME);
+        ackWait = json.readNanos(ACK_WAIT, Duration.ofSeconds(30));
+        maxDeliver = json.readLong(MAX_DELIVER, -1);
+        filterSubject = json.readString(FILTER_SUBJECT);
+        sampleFrequency = json.readString(SAMPLE_FREQ);
+        rateLimit = json.readLong(RATE_LIMIT_BPS, 0);
+        maxAckPending = json.readLong(MAX_ACK_PENDING, 0);
+        idleHeartbeat = json.readNanos(IDLE_HEARTBEAT, Duration.ZERO);
+        flowControl = json.readBoolean(FLOW_CONTROL);
     }
 
     // For the builder
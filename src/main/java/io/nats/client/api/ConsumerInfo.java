@@ -14,9 +14,9 @@
 package io.nats.client.api;
 
 import io.nats.client.Message;
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 
-import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 
 import static io.nats.client.support.ApiConstants.*;
@@ -39,28 +39,27 @@ public class ConsumerInfo extends ApiResponse<ConsumerInfo> {
     private final long numRedelivered;
 
     public ConsumerInfo(Message msg) {
-        this(new String(msg.getData(), StandardCharsets.UTF_8));
+        this(JsonReader.parse(msg.getData()));
     }
 
     public ConsumerInfo(String json) {
-        super(json);
-        stream = JsonUtils.readString(json, STREAM_NAME_RE);
-        name = JsonUtils.readString(json, NAME_RE);
-        created = JsonUtils.readDate(json, CREATED_RE);
-
-        String jsonObject = JsonUtils.getJsonObject(CONFIG, json);
-        this.configuration = new ConsumerConfiguration(jsonObject);
-
-        jsonObject = JsonUtils.getJsonObject(DELIVERED, json);
-        this.delivered = new SequencePair(jsonObject);
-
-        jsonObject = JsonUtils.getJsonObject(ACK_FLOOR, json);
-        this.ackFloor = new SequencePair(jsonObject);
+        this(JsonReader.parse(json));
+    }
 
-        numAckPending = JsonUtils.readLong(json, NUM_ACK_PENDING_RE, 0);
-        numRedelivered = JsonUtils.readLong(json, NUM_REDELIVERED_RE, 0);
-        numPending = JsonUtils.readLong(json, NUM_PENDING_RE, 0);
-        numWaiting = JsonUtils.readLong(json, NUM_WAITING_RE, 0);
+    public ConsumerInfo(JsonNode json) {
+        super(json);
+        stream = json.readString(STREAM_NAME);
+        name = json.readString(NAME);
+        created = json.readDate(CREATED);
+
+        this.configuration = new ConsumerConfiguration(json.getObject(CONFIG));
+        this.delivered = new SequencePair(json.getObject(DELIVERED));
+        this.ackFloor = new SequencePair(json.getObject(ACK_FLOOR));
+
+        numAckPending = json.readLong(NUM_ACK_PENDING, 0);
+        numRedelivered = json.readLong(NUM_REDELIVERED, 0);
+        numPending = json.readLong(NUM_PENDING, 0);
+        numWaiting = json.readLong(NUM_WAITING, 0);
     }
     
     public ConsumerConfiguration getConsumerConfiguration() {
@@ -13,7 +13,7 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import static io.nats.client.support.ApiConstants.*;
 
@@ -24,19 +24,19 @@ public class Error {
 
     public static final int NOT_SET = -1;
 
-    private final String json;
+    private final JsonNode json;
     private final Integer code;
     private final String desc;
 
-    static Error optionalInstance(String json) {
-        String errorJson = JsonUtils.getJsonObject(ERROR, json, null);
+    static Error optionalInstance(JsonNode fullJson) {
+        JsonNode errorJson = fullJson.getObject(ERROR, null);
         return errorJson == null ? null : new Error(errorJson);
     }
 
-    Error(String json) {
+    Error(JsonNode json) {
         this.json = json;
-        code = JsonUtils.readInt(json, CODE_RE, NOT_SET);
-        desc = JsonUtils.readString(json, DESCRIPTION_RE, null);
+        code = json.readInt(CODE, NOT_SET);
+        desc = json.readString(DESCRIPTION, null);
     }
 
     public long getCode() {
@@ -51,7 +51,7 @@ public class Error {
     public String toString() {
         if (desc == null) {
             return code == NOT_SET
-                    ? "Unknown JetStream Error: " + json
+                    ? "Unknown JetStream Error: " + json.toJson()
                     : "Unknown JetStream Error (" + code + ")";
         }
 
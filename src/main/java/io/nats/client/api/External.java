@@ -14,7 +14,8 @@
 package io.nats.client.api;
 
 import io.nats.client.support.JsonSerializable;
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 
 import static io.nats.client.support.ApiConstants.*;
 import static io.nats.client.support.JsonUtils.*;
@@ -26,14 +27,18 @@ public class External implements JsonSerializable {
     private final String api;
     private final String deliver;
 
-    static External optionalInstance(String fullJson) {
-        String objJson = JsonUtils.getJsonObject(EXTERNAL, fullJson, null);
+    static External optionalInstance(JsonNode fullJson) {
+        JsonNode objJson = fullJson.getObject(EXTERNAL, null);
         return objJson == null ? null : new External(objJson);
     }
 
     External(String json) {
-        api = JsonUtils.readString(json, API_RE);
-        deliver = JsonUtils.readString(json, DELIVER_RE);
+        this(JsonReader.parse(json));
+    }
+
+    External(JsonNode json) {
+        api = json.readString(API);
+        deliver = json.readString(DELIVER);
     }
 
     /**
@@ -16,7 +16,7 @@ package io.nats.client.api;
 import io.nats.client.Message;
 import io.nats.client.impl.Headers;
 import io.nats.client.support.IncomingHeadersProcessor;
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import java.time.ZonedDateTime;
 
@@ -35,11 +35,12 @@ public class MessageInfo extends ApiResponse<MessageInfo> {
 
     public MessageInfo(Message msg) {
         super(msg);
-        subject = JsonUtils.readString(json, SUBJECT_RE);
-        data = JsonUtils.readBase64(json, DATA_RE);
-        seq = JsonUtils.readLong(json, SEQ_RE, 0);
-        time = JsonUtils.readDate(json, TIME_RE);
-        byte[] hdrBytes = JsonUtils.readBase64(json, HDRS_RE);
+        JsonNode message = json.getObject(MESSAGE);
+        subject = message.readString(SUBJECT);
+        data = message.readBase64(DATA);
+        seq = message.readLong(SEQ, 0);
+        time = message.readDate(TIME);
+        byte[] hdrBytes = message.readBase64(HDRS);
         headers = hdrBytes == null ? null : new IncomingHeadersProcessor(hdrBytes).getHeaders();
     }
 
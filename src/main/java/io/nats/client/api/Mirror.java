@@ -13,7 +13,8 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 
 import java.time.ZonedDateTime;
 
@@ -25,12 +26,16 @@ import static io.nats.client.support.ApiConstants.MIRROR;
  */
 public class Mirror extends SourceBase {
 
-    static Mirror optionalInstance(String fullJson) {
-        String objJson = JsonUtils.getJsonObject(MIRROR, fullJson, null);
+    static Mirror optionalInstance(JsonNode fullJson) {
+        JsonNode objJson = fullJson.getObject(MIRROR, null);
         return objJson == null ? null : new Mirror(objJson);
     }
 
     Mirror(String json) {
+        this(JsonReader.parse(json));
+    }
+
+    Mirror(JsonNode json) {
         super(MIRROR, json);
     }
 
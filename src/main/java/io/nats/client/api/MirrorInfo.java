@@ -13,7 +13,7 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import static io.nats.client.support.ApiConstants.MIRROR;
 
@@ -22,12 +22,12 @@ import static io.nats.client.support.ApiConstants.MIRROR;
  */
 public class MirrorInfo extends SourceInfoBase {
 
-    static MirrorInfo optionalInstance(String fullJson) {
-        String objJson = JsonUtils.getJsonObject(MIRROR, fullJson, null);
+    static MirrorInfo optionalInstance(JsonNode fullJson) {
+        JsonNode objJson = fullJson.getObject(MIRROR, null);
         return objJson == null ? null : new MirrorInfo(objJson);
     }
 
-    MirrorInfo(String json) {
+    MirrorInfo(JsonNode json) {
         super(json, MIRROR);
     }
 }
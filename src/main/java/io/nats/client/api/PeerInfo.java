@@ -13,7 +13,7 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import java.time.Duration;
 
@@ -28,12 +28,12 @@ public class PeerInfo {
     private final long lag;
     private final String objectName;
 
-    PeerInfo(String objectName, String json) {
-        name = JsonUtils.readString(json, NAME_RE);
-        current = JsonUtils.readBoolean(json, CURRENT_RE);
-        offline = JsonUtils.readBoolean(json, OFFLINE_RE);
-        active = JsonUtils.readNanos(json, ACTIVE_RE, Duration.ZERO);
-        lag = JsonUtils.readLong(json, LAG_RE, 0);
+    PeerInfo(String objectName, JsonNode json) {
+        name = json.readString(NAME);
+        current = json.readBoolean(CURRENT);
+        offline = json.readBoolean(OFFLINE);
+        active = json.readNanos(ACTIVE, Duration.ZERO);
+        lag = json.readLong(LAG, 0);
         this.objectName = normalize(objectName);
     }
 
@@ -14,7 +14,7 @@
 package io.nats.client.api;
 
 import io.nats.client.support.JsonSerializable;
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import java.util.List;
 
@@ -28,14 +28,14 @@ public class Placement implements JsonSerializable {
     private final String cluster;
     private final List<String> tags;
 
-    static Placement optionalInstance(String fullJson) {
-        String objJson = JsonUtils.getJsonObject(PLACEMENT, fullJson, null);
+    static Placement optionalInstance(JsonNode fullJson) {
+        JsonNode objJson = fullJson.getObject(PLACEMENT, null);
         return objJson == null ? null : new Placement(objJson);
     }
 
-    Placement(String json) {
-        cluster = JsonUtils.readString(json, CLUSTER_RE);
-        tags = JsonUtils.getStringList(TAGS, json);
+    Placement(JsonNode json) {
+        cluster = json.readString(CLUSTER);
+        tags = json.getStringList(TAGS);
     }
 
     /**
@@ -14,7 +14,6 @@ package io.nats.client.api;
 
 import io.nats.client.JetStreamApiException;
 import io.nats.client.Message;
-import io.nats.client.support.JsonUtils;
 
 import java.io.IOException;
 
@@ -32,15 +31,15 @@ public class PublishAck extends ApiResponse<PublishAck> {
     public PublishAck(Message msg) throws IOException, JetStreamApiException {
         super(msg);
         throwOnHasError();
-        stream = JsonUtils.readString(json, STREAM_RE, null);
+        stream = json.readString(STREAM, null);
         if (stream == null) {
             throw new IOException("Invalid JetStream ack.");
         }
-        seq = JsonUtils.readLong(json, SEQ_RE, 0);
+        seq = json.readLong(SEQ, 0);
         if (seq == 0) {
             throw new IOException("Invalid JetStream ack.");
         }
-        duplicate = JsonUtils.readBoolean(json, DUPLICATE_RE);
+        duplicate = json.readBoolean(DUPLICATE);
     }
 
     /**
@@ -14,10 +14,9 @@
 package io.nats.client.api;
 
 import io.nats.client.Message;
-import io.nats.client.support.JsonUtils;
 
-import static io.nats.client.support.ApiConstants.PURGED_RE;
-import static io.nats.client.support.ApiConstants.SUCCESS_RE;
+import static io.nats.client.support.ApiConstants.PURGED;
+import static io.nats.client.support.ApiConstants.SUCCESS;
 
 public class PurgeResponse extends ApiResponse<PurgeResponse> {
 
@@ -26,8 +25,8 @@ public class PurgeResponse extends ApiResponse<PurgeResponse> {
 
     public PurgeResponse(Message msg) {
         super(msg);
-        success = JsonUtils.readBoolean(json, SUCCESS_RE);
-        purged = JsonUtils.readInt(json, PURGED_RE, 0);
+        success = json.readBoolean(SUCCESS);
+        purged = json.readInt(PURGED, 0);
     }
 
     /**
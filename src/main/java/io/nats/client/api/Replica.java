@@ -13,25 +13,26 @@
 
 package io.nats.client.api;
 
+import io.nats.client.support.JsonNode;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import static io.nats.client.support.ApiConstants.REPLICA;
 import static io.nats.client.support.ApiConstants.REPLICAS;
-import static io.nats.client.support.JsonUtils.getObjectList;
 
 public class Replica extends PeerInfo {
 
-    static List<Replica> optionalListOf(String json) {
-        List<String> strObjects = getObjectList(REPLICAS, json);
+    static List<Replica> optionalListOf(JsonNode json) {
+        List<JsonNode> objects = json.getObjectList(REPLICAS);
         List<Replica> list = new ArrayList<>();
-        for (String j : strObjects) {
+        for (JsonNode j : objects) {
             list.add(new Replica(j));
         }
         return list.isEmpty() ? null : list;
     }
 
-    Replica(String json) {
+    Replica(JsonNode json) {
         super(REPLICA, json);
     }
 }
@@ -13,7 +13,8 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 
 import java.util.Arrays;
 import java.util.List;
@@ -41,30 +42,31 @@ public class ServerInfo {
     private final String clientIp;
     private final String cluster;
 
-    public ServerInfo(String json) {
+    public ServerInfo(String infoJson) {
         // INFO<sp>{ INFO<\t>{ or {
-        if (json == null || json.length() < 6 || ('{' != json.charAt(0) && '{' != json.charAt(5))) {
+        if (infoJson == null || infoJson.length() < 6 || ('{' != infoJson.charAt(0) && '{' != infoJson.charAt(5))) {
             throw new IllegalArgumentException("Invalid Server Info");
         }
 
-        serverId = JsonUtils.readString(json, SERVER_ID_RE);
-        serverName = JsonUtils.readString(json, SERVER_NAME_RE);
-        version = JsonUtils.readString(json, VERSION_RE);
-        go = JsonUtils.readString(json, GO_RE);
-        host = JsonUtils.readString(json, HOST_RE);
-        headersSupported =JsonUtils.readBoolean(json, HEADERS_RE);
-        authRequired = JsonUtils.readBoolean(json, AUTH_REQUIRED_RE);
-        nonce = JsonUtils.readBytes(json, NONCE_RE);
-        tlsRequired = JsonUtils.readBoolean(json, TLS_RE);
-        lameDuckMode = JsonUtils.readBoolean(json, LAME_DUCK_MODE_RE);
-        jetStream = JsonUtils.readBoolean(json, JET_STREAM_RE);
-        port = JsonUtils.readInt(json, PORT_RE, 0);
-        protocolVersion = JsonUtils.readInt(json, PROTO_RE, 0);
-        maxPayload = JsonUtils.readLong(json, MAX_PAYLOAD_RE, 0);
-        clientId = JsonUtils.readInt(json, CLIENT_ID_RE, 0);
-        clientIp = JsonUtils.readString(json, CLIENT_IP_RE);
-        cluster = JsonUtils.readString(json, CLUSTER_RE);
-        connectURLs = JsonUtils.getStringList(CONNECT_URLS, json);
+        JsonNode json = JsonReader.parse(infoJson);
+        serverId = json.readString(SERVER_ID);
+        serverName = json.readString(SERVER_NAME);
+        version = json.readString(VERSION);
+        go = json.readString(GO);
+        host = json.readString(HOST);
+        headersSupported =json.readBoolean(HEADERS);
+        authRequired = json.readBoolean(AUTH_REQUIRED);
+        nonce = json.readBytes(NONCE);
+        tlsRequired = json.readBoolean(TLS);
+        lameDuckMode = json.readBoolean(LAME_DUCK_MODE);
+        jetStream = json.readBoolean(JETSTREAM);
+        port = json.readInt(PORT, 0);
+        protocolVersion = json.readInt(PROTO, 0);
+        maxPayload = json.readLong(MAX_PAYLOAD, 0);
+        clientId = json.readInt(CLIENT_ID, 0);
+        clientIp = json.readString(CLIENT_IP);
+        cluster = json.readString(CLUSTER);
+        connectURLs = json.getStringList(CONNECT_URLS);
     }
 
     public boolean isLameDuckMode() {
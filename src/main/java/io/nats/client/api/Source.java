@@ -14,28 +14,34 @@
 package io.nats.client.api;
 
 import java.time.ZonedDateTime;
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import static io.nats.client.support.ApiConstants.SOURCE;
 import static io.nats.client.support.ApiConstants.SOURCES;
-import static io.nats.client.support.JsonUtils.getObjectList;
 
 /**
  * Source Information
  */
 public class Source extends SourceBase {
 
-    static List<Source> optionalListOf(String json) {
-        List<String> strObjects = getObjectList(SOURCES, json);
+    static List<Source> optionalListOf(JsonNode json) {
+        List<JsonNode> objects = json.getObjectList(SOURCES);
         List<Source> list = new ArrayList<>();
-        for (String j : strObjects) {
+        for (JsonNode j : objects) {
             list.add(new Source(j));
         }
         return list.isEmpty() ? null : list;
     }
 
     Source(String json) {
+        this(JsonReader.parse(json));
+    }
+
+    Source(JsonNode json) {
         super(SOURCE, json);
     }
 
@@ -13,6 +13,7 @@
 
 package io.nats.client.api;
 
+import io.nats.client.support.JsonNode;
 import io.nats.client.support.JsonSerializable;
 import io.nats.client.support.JsonUtils;
 
@@ -29,11 +30,11 @@ abstract class SourceBase implements JsonSerializable {
     private final External external;
     private final String objectName;
 
-    SourceBase(String objectName, String json) {
-        sourceName = JsonUtils.readString(json, NAME_RE);
-        startSeq = JsonUtils.readLong(json, OPT_START_SEQ_RE, 0);
-        startTime = JsonUtils.readDate(json, OPT_START_TIME_RE);
-        filterSubject = JsonUtils.readString(json, FILTER_SUBJECT_RE);
+    SourceBase(String objectName, JsonNode json) {
+        sourceName = json.readString(NAME);
+        startSeq = json.readLong(OPT_START_SEQ, 0);
+        startTime = json.readDate(OPT_START_TIME);
+        filterSubject = json.readString(FILTER_SUBJECT);
         external = External.optionalInstance(json);
         this.objectName = normalize(objectName);
     }
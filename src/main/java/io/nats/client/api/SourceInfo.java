@@ -13,28 +13,29 @@
 
 package io.nats.client.api;
 
+import io.nats.client.support.JsonNode;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import static io.nats.client.support.ApiConstants.SOURCE;
 import static io.nats.client.support.ApiConstants.SOURCES;
-import static io.nats.client.support.JsonUtils.getObjectList;
 
 /**
  * Information about a stream being sourced
  */
 public class SourceInfo extends SourceInfoBase {
 
-    static List<SourceInfo> optionalListOf(String json) {
-        List<String> strObjects = getObjectList(SOURCES, json);
+    static List<SourceInfo> optionalListOf(JsonNode json) {
+        List<JsonNode> objects = json.getObjectList(SOURCES);
         List<SourceInfo> list = new ArrayList<>();
-        for (String j : strObjects) {
+        for (JsonNode j : objects) {
             list.add(new SourceInfo(j));
         }
         return list.isEmpty() ? null : list;
     }
 
-    SourceInfo(String json) {
+    SourceInfo(JsonNode json) {
         super(json, SOURCE);
     }
 }
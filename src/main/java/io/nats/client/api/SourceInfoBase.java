@@ -13,7 +13,7 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import java.time.Duration;
 
@@ -27,10 +27,10 @@ abstract class SourceInfoBase {
     private final Error error;
     private final String objectName;
 
-    SourceInfoBase(String json, String objectName) {
-        name = readString(json, NAME_RE);
-        lag = JsonUtils.readLong(json, LAG_RE, 0);
-        active = JsonUtils.readNanos(json, ACTIVE_RE, Duration.ZERO);
+    SourceInfoBase(JsonNode json, String objectName) {
+        name = json.readString(NAME);
+        lag = json.readLong(LAG, 0);
+        active = json.readNanos(ACTIVE, Duration.ZERO);
         error = Error.optionalInstance(json);
         this.objectName = normalize(objectName);
     }
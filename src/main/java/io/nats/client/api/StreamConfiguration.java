@@ -13,6 +13,8 @@
 
 package io.nats.client.api;
 
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 import io.nats.client.support.JsonSerializable;
 
 import java.time.Duration;
@@ -20,7 +22,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.regex.Matcher;
 
 import static io.nats.client.support.ApiConstants.*;
 import static io.nats.client.support.JsonUtils.*;
@@ -53,34 +54,38 @@ public class StreamConfiguration implements JsonSerializable {
 
     // for the response from the server
     static StreamConfiguration instance(String json) {
+        return instance(JsonReader.parse(json));
+    }
+
+    static StreamConfiguration instance(JsonNode json) {
         Builder builder = new Builder();
 
-        Matcher m = RETENTION_RE.matcher(json);
-        if (m.find()) {
-            builder.retentionPolicy(RetentionPolicy.get(m.group(1)));
+        String policy = json.readString(RETENTION);
+        if (policy != null) {
+            builder.retentionPolicy(RetentionPolicy.get(policy));
         }
 
-        m = STORAGE_TYPE_RE.matcher(json);
-        if (m.find()) {
-            builder.storageType(StorageType.get(m.group(1)));
+        policy = json.readString(STORAGE);
+        if (policy != null) {
+            builder.storageType(StorageType.get(policy));
         }
 
-        m = DISCARD_RE.matcher(json);
-        if (m.find()) {
-            builder.discardPolicy(DiscardPolicy.get(m.group(1)));
+        policy = json.readString(DISCARD);
+        if (policy != null) {
+            builder.discardPolicy(DiscardPolicy.get(policy));
         }
 
-        builder.name(readString(json, NAME_RE));
-        readLong(json, MAX_CONSUMERS_RE, builder::maxConsumers);
-        readLong(json, MAX_MSGS_RE, builder::maxMessages);
-        readLong(json, MAX_BYTES_RE, builder::maxBytes);
-        readNanos(json, MAX_AGE_RE, builder::maxAge);
-        readLong(json, MAX_MSG_SIZE_RE, builder::maxMsgSize);
-        readInt(json, NUM_REPLICAS_RE, builder::replicas);
-        builder.noAck(readBoolean(json, NO_ACK_RE));
-        builder.templateOwner(readString(json, TEMPLATE_OWNER_RE));
-        readNanos(json, DUPLICATE_WINDOW_RE, builder::duplicateWindow);
-        builder.subjects(getStringList(SUBJECTS, json));
+        builder.name(json.readString(NAME));
+        json.readLong(MAX_CONSUMERS, builder::maxConsumers);
+        json.readLong(MAX_MSGS, builder::maxMessages);
+        json.readLong(MAX_BYTES, builder::maxBytes);
+        json.readNanos(MAX_AGE, builder::maxAge);
+        json.readLong(MAX_MSG_SIZE, builder::maxMsgSize);
+        json.readInt(NUM_REPLICAS, builder::replicas);
+        builder.noAck(json.readBoolean(NO_ACK));
+        builder.templateOwner(json.readString(TEMPLATE_OWNER));
+        json.readNanos(DUPLICATE_WINDOW, builder::duplicateWindow);
+        builder.subjects(json.getStringList(SUBJECTS));
         builder.placement(Placement.optionalInstance(json));
         builder.mirror(Mirror.optionalInstance(json));
         builder.sources(Source.optionalListOf(json));
@@ -14,9 +14,9 @@
 package io.nats.client.api;
 
 import io.nats.client.Message;
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
+import io.nats.client.support.JsonReader;
 
-import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.List;
 
@@ -36,14 +36,18 @@ public class StreamInfo extends ApiResponse<StreamInfo> {
     private final List<SourceInfo> sourceInfos;
 
     public StreamInfo(Message msg) {
-        this(new String(msg.getData(), StandardCharsets.UTF_8));
+        this(JsonReader.parse(msg.getData()));
     }
 
     public StreamInfo(String json) {
+        this(JsonReader.parse(json));
+    }
+
+    public StreamInfo(JsonNode json) {
         super(json);
-        created = JsonUtils.readDate(json, CREATED_RE);
-        config = StreamConfiguration.instance(JsonUtils.getJsonObject(CONFIG, json));
-        state = new StreamState(JsonUtils.getJsonObject(STATE, json));
+        created = json.readDate(CREATED);
+        config = StreamConfiguration.instance(json.getObject(CONFIG));
+        state = new StreamState(json.getObject(STATE));
         clusterInfo = ClusterInfo.optionalInstance(json);
         mirrorInfo = MirrorInfo.optionalInstance(json);
         sourceInfos = SourceInfo.optionalListOf(json);
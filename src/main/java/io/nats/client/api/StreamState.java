@@ -13,7 +13,7 @@
 
 package io.nats.client.api;
 
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import java.time.ZonedDateTime;
 
@@ -28,14 +28,14 @@ public class StreamState {
     private final ZonedDateTime firstTime;
     private final ZonedDateTime lastTime;
 
-    StreamState(String json) {
-        msgs = JsonUtils.readLong(json, MESSAGES_RE, 0);
-        bytes = JsonUtils.readLong(json, BYTES_RE, 0);
-        firstSeq = JsonUtils.readLong(json, FIRST_SEQ_RE, 0);
-        lastSeq = JsonUtils.readLong(json, LAST_SEQ_RE, 0);
-        consumerCount = JsonUtils.readLong(json, CONSUMER_COUNT_RE, 0);
-        firstTime = JsonUtils.readDate(json, FIRST_TS_RE);
-        lastTime = JsonUtils.readDate(json, LAST_TS_RE);
+    StreamState(JsonNode json) {
+        msgs = json.readLong(MESSAGES, 0);
+        bytes = json.readLong(BYTES, 0);
+        firstSeq = json.readLong(FIRST_SEQ, 0);
+        lastSeq = json.readLong(LAST_SEQ, 0);
+        consumerCount = json.readLong(CONSUMER_COUNT, 0);
+        firstTime = json.readDate(FIRST_TS);
+        lastTime = json.readDate(LAST_TS);
     }
 
     /**
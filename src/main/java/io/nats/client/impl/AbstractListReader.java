@@ -15,6 +15,7 @@ package io.nats.client.impl;
 
 import io.nats.client.JetStreamApiException;
 import io.nats.client.Message;
+import io.nats.client.support.JsonNode;
 
 import java.util.List;
 
@@ -28,14 +29,22 @@ abstract class AbstractListReader {
     protected ListRequestEngine engine;
 
     void process(Message msg) throws JetStreamApiException {
-        engine = new ListRequestEngine(msg);
-        List<String> list = listType == ListType.OBJECTS
-                ? engine.getObjectList(objectName)
-                : engine.getStringList(objectName);
-        processItems(list);
+        process(new ListRequestEngine(msg));
     }
 
-    abstract void processItems(List<String> items);
+    void process(ListRequestEngine engine) {
+        this.engine = engine;
+        if (listType == ListType.OBJECTS) {
+            processObjects(engine.getObjectList(objectName));
+        }
+        else {
+            processStrings(engine.getStringList(objectName));
+        }
+    }
+
+    void processObjects(List<JsonNode> objects) {}
+
+    void processStrings(List<String> strings) {}
 
     AbstractListReader(String objectName, ListType listType) {
         this(objectName, listType, null);
@@ -0,0 +1,212 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.AckBatchOptions;
+import io.nats.client.api.AckPolicy;
+import io.nats.client.support.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static io.nats.client.impl.AckType.AckAck;
+
+/**
+ * Holds the acks of a JetStream subscription for a window. With AckPolicy.All only the ack with the highest
+ * consumer sequence of each window is sent, since it acknowledges everything before it. With AckPolicy.Explicit
+ * every ack is sent, but the whole window goes to the writer as one protocol message instead of a message per ack.
+ * A window is sent when it is full or when the first ack in it has waited the maximum delay. The acks are
+ * published outside the lock, so acking threads never wait on a publish.
+ */
+class AckBatcher {
+    private final int maxAcks;
+    private final long maxDelayNanos;
+    private final boolean coalesce;
+    private final NatsStatistics statistics;
+    private final Consumer<List<String>> sender;
+    private final BiConsumer<Runnable, Long> scheduler;
+    private final LatencyHistogram ackLag;
+
+    private final ReentrantLock lock;
+    private final long[] ackedAt; // guarded by lock
+    private final String[] replies; // guarded by lock, only when not coalescing
+    private String highestReply; // guarded by lock
+    private long highestSequence; // guarded by lock
+    private int pending; // guarded by lock
+    private long window; // guarded by lock, lets a timer know its window was already sent
+
+    AckBatcher(AckBatchOptions options, boolean coalesce, NatsStatistics statistics,
+               Consumer<List<String>> sender, BiConsumer<Runnable, Long> scheduler) {
+        this.maxAcks = options.getMaxAcks();
+        this.maxDelayNanos = options.getMaxDelay().toNanos();
+        this.coalesce = coalesce;
+        this.statistics = statistics;
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.ackLag = new LatencyHistogram();
+        this.lock = new ReentrantLock();
+        this.ackedAt = new long[maxAcks];
+        this.replies = coalesce ? null : new String[maxAcks];
+    }
+
+    /**
+     * Create the batcher for a subscription. AckPolicy.All acks are merged, any other policy that
+     * takes acks has them pipelined. A null policy is the server default, explicit.
+     * @return the batcher, null if there is nothing to batch
+     */
+    static AckBatcher create(NatsConnection conn, AckBatchOptions options, AckPolicy ackPolicy) {
+        if (options == null || ackPolicy == AckPolicy.None) {
+            return null;
+        }
+        if (ackPolicy == AckPolicy.All) {
+            return new AckBatcher(options, true, conn.getNatsStatistics(),
+                    replies -> conn.publish(replies.get(0), AckAck.bytes),
+                    conn::scheduleOnce);
+        }
+        return new AckBatcher(options, false, conn.getNatsStatistics(),
+                replies -> conn.publishBatch(replies, AckAck.bytes),
+                conn::scheduleOnce);
+    }
+
+    void ack(String replyTo, long consumerSequence) {
+        boolean startTimer = false;
+        long timerWindow;
+        List<String> toSend = null;
+        int count = 0;
+        lock.lock();
+        try {
+            if (!coalesce) {
+                replies[pending] = replyTo;
+            }
+            else if (pending == 0 || consumerSequence > highestSequence) {
+                highestReply = replyTo;
+                highestSequence = consumerSequence;
+            }
+            ackedAt[pending++] = System.nanoTime();
+
+            if (pending == maxAcks) {
+                count = pending;
+                toSend = takeLocked();
+            }
+            else if (pending == 1) {
+                startTimer = true;
+            }
+            timerWindow = window;
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (toSend != null) {
+            send(toSend, count);
+        }
+        if (startTimer) {
+            scheduler.accept(() -> timerExpired(timerWindow), maxDelayNanos);
+        }
+    }
+
+    /**
+     * Send whatever is held now
+     */
+    void flush() {
+        List<String> toSend;
+        int count;
+        lock.lock();
+        try {
+            count = pending;
+            toSend = takeLocked();
+        }
+        finally {
+            lock.unlock();
+        }
+        if (toSend != null) {
+            send(toSend, count);
+        }
+    }
+
+    int pendingCount() {
+        lock.lock();
+        try {
+            return pending;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    LatencyHistogram getAckLag() {
+        return ackLag;
+    }
+
+    private void timerExpired(long timerWindow) {
+        List<String> toSend = null;
+        int count = 0;
+        lock.lock();
+        try {
+            if (window == timerWindow) {
+                count = pending;
+                toSend = takeLocked();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (toSend != null) {
+            try {
+                send(toSend, count);
+            }
+            catch (RuntimeException e) {
+                // i.e. the connection closed, the server will redeliver
+            }
+        }
+    }
+
+    // ends the window and returns the replies to send for it, null if nothing is held
+    private List<String> takeLocked() {
+        if (pending == 0) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        for (int x = 0; x < pending; x++) {
+            ackLag.record(now - ackedAt[x]);
+        }
+
+        List<String> toSend;
+        if (coalesce) {
+            toSend = Collections.singletonList(highestReply);
+            highestReply = null;
+        }
+        else {
+            toSend = Arrays.asList(Arrays.copyOf(replies, pending));
+            Arrays.fill(replies, 0, pending, null);
+        }
+        pending = 0;
+        window++;
+        return toSend;
+    }
+
+    private void send(List<String> toSend, int count) {
+        sender.accept(toSend);
+        if (coalesce) {
+            statistics.addAcksCoalesced(count - 1);
+        }
+    }
+}
@@ -14,6 +14,7 @@
 package io.nats.client.impl;
 
 import io.nats.client.api.ConsumerInfo;
+import io.nats.client.support.JsonNode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,9 +31,9 @@ class ConsumerListReader extends AbstractListReader {
     }
 
     @Override
-    protected void processItems(List<String> items) {
-        for (String item : items) {
-            consumers.add(new ConsumerInfo(item));
+    protected void processObjects(List<JsonNode> objects) {
+        for (JsonNode object : objects) {
+            consumers.add(new ConsumerInfo(object));
         }
     }
 
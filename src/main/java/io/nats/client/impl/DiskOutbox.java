@@ -0,0 +1,358 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * An append only log of messages in memory mapped segment files, used to keep publishes
+ * that don't fit in memory while the connection is down.
+ *
+ * <p>Each record is a length followed by the append time, the utf8 flag, the subject, reply to,
+ * serialized headers and data. The length is written last, so a record that was not completely
+ * written reads as the end of the segment. When a record is taken its length is negated in place,
+ * so after a restart only the records that were never taken are read again. A segment is deleted
+ * once all of its records are taken.
+ *
+ * <p>Replaying {@link #peek() peeks} at a record and only {@link #commit() commits} it once it is in the
+ * outgoing queue, so it counts as pending until then and new publishes keep going in behind it.
+ */
+class DiskOutbox {
+    static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    static final String SEGMENT_PREFIX = "outbox-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int LENGTH_BYTES = 4;
+    private static final int FIXED_BYTES = 8 + 1 + 4 + 4 + 4 + 4; // time, flag and the 4 lengths
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int segmentSize;
+    private final NatsStatistics statistics;
+
+    private final ArrayDeque<Segment> segments; // guarded by this, head is read, tail is written
+    private long nextSegmentId; // guarded by this
+    private long pending; // guarded by this
+    private long pendingBytes; // guarded by this
+    private long lastTakenAppendTime; // guarded by this
+    private Segment peeked; // guarded by this, the segment holding the record handed out by peek
+    private int peekedLength; // guarded by this
+
+    // mirrors pending > 0, so publishing can skip the lock while the outbox is empty
+    private volatile boolean hasPending;
+
+    DiskOutbox(Path directory, long maxBytes, NatsStatistics statistics) throws IOException {
+        this(directory, maxBytes, DEFAULT_SEGMENT_SIZE, statistics);
+    }
+
+    DiskOutbox(Path directory, long maxBytes, int segmentSize, NatsStatistics statistics) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.segmentSize = segmentSize;
+        this.statistics = statistics;
+        this.segments = new ArrayDeque<>();
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Append a message, but only if there are already messages waiting, so it is sent behind them.
+     * @return true if the message was appended
+     */
+    synchronized boolean appendIfPending(NatsMessage msg) throws IOException {
+        return pending > 0 && append(msg);
+    }
+
+    /**
+     * Append a message
+     * @return false if the outbox is full
+     */
+    synchronized boolean append(NatsMessage msg) throws IOException {
+        byte[] subject = msg.getSubject().getBytes(msg.isUtf8mode() ? UTF_8 : US_ASCII);
+        String replyTo = msg.getReplyTo();
+        byte[] reply = replyTo == null ? null : replyTo.getBytes(msg.isUtf8mode() ? UTF_8 : US_ASCII);
+        byte[] headers = msg.hasHeaders() ? msg.getSerializedHeader() : null;
+        byte[] data = msg.getData();
+
+        int recordLength = FIXED_BYTES + subject.length + length(reply) + length(headers) + data.length;
+        if (maxBytes >= 0 && pendingBytes + recordLength > maxBytes) {
+            return false;
+        }
+
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.writePosition + LENGTH_BYTES + recordLength > tail.buffer.capacity()) {
+            tail = newSegment(LENGTH_BYTES + recordLength);
+        }
+
+        MappedByteBuffer buffer = tail.buffer;
+        int start = tail.writePosition;
+        buffer.position(start + LENGTH_BYTES);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.put((byte) (msg.isUtf8mode() ? 1 : 0));
+        put(buffer, subject);
+        put(buffer, reply);
+        put(buffer, headers);
+        put(buffer, data);
+        buffer.putInt(start, recordLength); // last, which makes the record visible
+        tail.writePosition = start + LENGTH_BYTES + recordLength;
+
+        pending++;
+        pendingBytes += recordLength;
+        hasPending = true;
+        statistics.incrementOutboxSpilled(recordLength);
+        return true;
+    }
+
+    /**
+     * Take the oldest message
+     * @return the message, null if there are none
+     */
+    synchronized NatsMessage take() throws IOException {
+        NatsMessage msg = peek();
+        if (msg != null) {
+            commit();
+        }
+        return msg;
+    }
+
+    /**
+     * Get the oldest message without taking it, it stays pending until {@link #commit()}.
+     * Peeking again before committing gets the same message.
+     * @return the message, null if there are none
+     */
+    synchronized NatsMessage peek() throws IOException {
+        while (pending > 0) {
+            Segment head = segments.peekFirst();
+            if (head == null) {
+                return null;
+            }
+            int length = head.readPosition + LENGTH_BYTES <= head.buffer.capacity()
+                    ? head.buffer.getInt(head.readPosition) : 0;
+            if (length > 0) {
+                peeked = head;
+                peekedLength = length;
+                return read(head, length);
+            }
+            if (length < 0) {
+                head.readPosition += LENGTH_BYTES - length; // taken before a restart
+                continue;
+            }
+            if (head == segments.peekLast()) {
+                return null;
+            }
+            segments.removeFirst().delete();
+        }
+        return null;
+    }
+
+    /**
+     * Take the message handed out by the last {@link #peek()}
+     */
+    synchronized void commit() throws IOException {
+        Segment head = peeked;
+        if (head == null) {
+            return;
+        }
+        int length = peekedLength;
+        peeked = null;
+        head.buffer.putInt(head.readPosition, -length);
+        head.readPosition += LENGTH_BYTES + length;
+        pending--;
+        pendingBytes -= length;
+        statistics.incrementOutboxReplayed(length, System.currentTimeMillis() - lastTakenAppendTime);
+        if (pending == 0) {
+            hasPending = false;
+            deleteAll();
+        }
+    }
+
+    /**
+     * Does not lock, so it may be briefly out of date. Use {@link #appendIfPending(NatsMessage)} to act on it.
+     */
+    boolean hasPending() {
+        return hasPending;
+    }
+
+    synchronized long getPending() {
+        return pending;
+    }
+
+    synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Close the files. Messages that were not taken stay on disk for the next outbox in this directory.
+     */
+    synchronized void close() throws IOException {
+        if (pending == 0) {
+            deleteAll();
+            return;
+        }
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+        peeked = null;
+    }
+
+    private NatsMessage read(Segment segment, int length) {
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.position(segment.readPosition + LENGTH_BYTES);
+        lastTakenAppendTime = buffer.getLong();
+        boolean utf8mode = buffer.get() == 1;
+        byte[] subject = get(buffer);
+        byte[] reply = get(buffer);
+        byte[] headers = get(buffer);
+        byte[] data = get(buffer);
+
+        String subjectString = new String(subject, utf8mode ? UTF_8 : US_ASCII);
+        String replyTo = reply == null ? null : new String(reply, utf8mode ? UTF_8 : US_ASCII);
+        NatsMessage msg = headers == null
+                ? new NatsMessage(subjectString, replyTo, null, data)
+                : NatsMessage.withSerializedHeaders(subjectString, replyTo, headers, data);
+        msg.utf8mode = utf8mode;
+        return msg;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files); // the ids are zero padded, so name order is append order
+
+        long messages = 0;
+        long bytes = 0;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+
+            FileChannel channel = FileChannel.open(file, READ, WRITE);
+            Segment segment = new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            int position = 0;
+            boolean first = true;
+            while (position + LENGTH_BYTES <= segment.buffer.capacity()) {
+                int length = segment.buffer.getInt(position);
+                if (length == 0) {
+                    break;
+                }
+                if (length > 0) {
+                    if (first) {
+                        segment.readPosition = position;
+                        first = false;
+                    }
+                    messages++;
+                    bytes += length;
+                }
+                position += LENGTH_BYTES + Math.abs(length);
+            }
+            if (first) {
+                segment.delete(); // nothing left in it
+            }
+            else {
+                segment.writePosition = position;
+                segments.addLast(segment);
+            }
+        }
+
+        pending = messages;
+        pendingBytes = bytes;
+        hasPending = messages > 0;
+        statistics.addOutboxRecovered(messages, bytes);
+
+        // never append to a recovered segment, it may end with a partly written record
+        if (!segments.isEmpty()) {
+            newSegment(0);
+        }
+    }
+
+    private Segment newSegment(int minimumSize) throws IOException {
+        Path file = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, nextSegmentId++, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(file, CREATE_NEW, READ, WRITE);
+        int size = Math.max(segmentSize, minimumSize);
+        Segment segment = new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void deleteAll() throws IOException {
+        while (!segments.isEmpty()) {
+            segments.removeFirst().delete();
+        }
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void put(MappedByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        }
+        else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static byte[] get(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    static class Segment {
+        final Path file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int readPosition;
+        int writePosition;
+
+        Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
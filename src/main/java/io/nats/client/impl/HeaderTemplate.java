@@ -0,0 +1,220 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.nats.client.support.NatsConstants.*;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A HeaderTemplate is for publishers that send the same headers on every message, with only
+ * a few values changing. The constant headers are serialized once, when the template is built.
+ * Each call to {@link #fill(String...) fill} only writes the values of the slots after them,
+ * and returns frozen {@link Headers} that are published as they are, without a map of keys to
+ * values ever being built and without being copied.
+ *
+ * <pre>
+ * HeaderTemplate template = HeaderTemplate.builder()
+ *     .add("tenant", "acme")
+ *     .add("schema", "order-v2")
+ *     .slot("trace-id")
+ *     .build();
+ * nc.publish(NatsMessage.builder().subject("orders").headers(template.fill(traceId)).data(data).build());
+ * </pre>
+ *
+ * <p>HeaderTemplate objects are immutable and can be shared by any number of threads.
+ */
+public class HeaderTemplate {
+    private final byte[] constant;      // the version line and the constant header lines
+    private final int[] constantIndex;  // offsets into constant, as for Headers.fromSerialized
+    private final int constantLines;
+    private final List<String> slots;
+    private final byte[][] slotPrefixes; // "key:" for each slot
+
+    private HeaderTemplate(Builder b) {
+        List<String> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (String[] kv : b.constants) {
+            keys.add(kv[0]);
+            values.add(kv[1]);
+        }
+
+        int len = VERSION_BYTES_PLUS_CRLF.length;
+        for (int x = 0; x < keys.size(); x++) {
+            len += keys.get(x).length() + values.get(x).length() + 3; // for colon, cr, lf
+        }
+        constant = new byte[len];
+        constantLines = keys.size();
+        constantIndex = new int[constantLines * 4];
+        System.arraycopy(VERSION_BYTES_PLUS_CRLF, 0, constant, 0, VERSION_BYTES_PLUS_CRLF.length);
+        int pos = VERSION_BYTES_PLUS_CRLF.length;
+        for (int x = 0, i = 0; x < constantLines; x++) {
+            constantIndex[i++] = pos;
+            pos = writeAscii(keys.get(x), constant, pos);
+            constantIndex[i++] = pos;
+            constant[pos++] = COLON;
+            constantIndex[i++] = pos;
+            pos = writeAscii(values.get(x), constant, pos);
+            constantIndex[i++] = pos;
+            constant[pos++] = CR;
+            constant[pos++] = LF;
+        }
+
+        slots = Collections.unmodifiableList(new ArrayList<>(b.slots));
+        slotPrefixes = new byte[slots.size()][];
+        for (int x = 0; x < slotPrefixes.length; x++) {
+            String key = slots.get(x);
+            slotPrefixes[x] = new byte[key.length() + 1];
+            writeAscii(key, slotPrefixes[x], 0);
+            slotPrefixes[x][key.length()] = COLON;
+        }
+    }
+
+    /**
+     * Gets the keys of the slots, in the order their values are given to {@link #fill(String...) fill}
+     * @return the slot keys
+     */
+    public List<String> getSlots() {
+        return slots;
+    }
+
+    /**
+     * Get headers made of the constant headers and the given slot values.
+     *
+     * @param values one value for each slot, in order. A null value leaves that slot out.
+     * @return frozen headers
+     * @throws IllegalArgumentException if the number of values does not match the number of slots
+     *         or a value contains an invalid character
+     */
+    public Headers fill(String... values) {
+        int count = values == null ? 0 : values.length;
+        if (count != slotPrefixes.length) {
+            throw new IllegalArgumentException("Template has " + slotPrefixes.length + " slots but " + count + " values were given.");
+        }
+
+        int len = constant.length + 2; // the final cr, lf
+        int lines = constantLines;
+        for (int x = 0; x < count; x++) {
+            String value = values[x];
+            if (value != null) {
+                Headers.checkValue(value);
+                len += slotPrefixes[x].length + value.length() + 2; // for cr, lf
+                lines++;
+            }
+        }
+
+        byte[] bytes = new byte[len];
+        int[] index = new int[lines * 4];
+        System.arraycopy(constant, 0, bytes, 0, constant.length);
+        System.arraycopy(constantIndex, 0, index, 0, constantIndex.length);
+        int pos = constant.length;
+        int i = constantIndex.length;
+        for (int x = 0; x < count; x++) {
+            String value = values[x];
+            if (value != null) {
+                byte[] prefix = slotPrefixes[x];
+                index[i++] = pos;
+                System.arraycopy(prefix, 0, bytes, pos, prefix.length);
+                pos += prefix.length;
+                index[i++] = pos - 1; // the key ends before the colon
+                index[i++] = pos;
+                pos = writeAscii(value, bytes, pos);
+                index[i++] = pos;
+                bytes[pos++] = CR;
+                bytes[pos++] = LF;
+            }
+        }
+        bytes[pos++] = CR;
+        bytes[pos] = LF;
+        return Headers.frozenFromSerialized(bytes, index, lines);
+    }
+
+    // keys and values are checked to be printable ascii, so each char is one byte
+    private static int writeAscii(String s, byte[] buffer, int position) {
+        int len = s.length();
+        for (int x = 0; x < len; x++) {
+            buffer[position++] = (byte) s.charAt(x);
+        }
+        return position;
+    }
+
+    /**
+     * Creates a builder for a header template.
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * HeaderTemplate is created using a Builder. Constant headers and slots can be added in any
+     * order, the slots are filled in the order they were added.
+     */
+    public static class Builder {
+        private final List<String[]> constants = new ArrayList<>();
+        private final List<String> slots = new ArrayList<>();
+
+        /**
+         * Add a constant header. A null value is ignored, as it is by {@link Headers#add(String, String...)}.
+         * @param key the key
+         * @param values the values
+         * @return Builder
+         * @throws IllegalArgumentException if the key or a value contains an invalid character
+         */
+        public Builder add(String key, String... values) {
+            Headers.checkKey(key);
+            if (values != null) {
+                for (String value : values) {
+                    if (value != null) {
+                        Headers.checkValue(value);
+                        constants.add(new String[]{key, value});
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Add a slot, a header whose value is given each time the template is filled.
+         * @param key the key
+         * @return Builder
+         * @throws IllegalArgumentException if the key is null, empty or contains an invalid character
+         */
+        public Builder slot(String key) {
+            Headers.checkKey(key);
+            slots.add(key);
+            return this;
+        }
+
+        /**
+         * Builds the header template.
+         * @return header template
+         */
+        public HeaderTemplate build() {
+            return new HeaderTemplate(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HeaderTemplate{" +
+                "constant=" + new String(constant, US_ASCII).replace("\r\n", "+") +
+                ", slots=" + slots +
+                '}';
+    }
+}
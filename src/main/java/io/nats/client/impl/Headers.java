@@ -19,13 +19,23 @@ import java.util.*;
 import java.util.function.BiConsumer;
 
 import static io.nats.client.support.NatsConstants.*;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * An object that represents a map of keys to a list of values. It does not accept
  * null or invalid keys. It ignores null values, accepts empty string as a value
  * and rejects invalid values.
  *
- * THIS CLASS IS NOT THREAD SAFE
+ * Headers of incoming messages are read from the message's header bytes as they are asked for,
+ * and are only copied into the map when they are changed or walked as a whole. Until they are
+ * changed, their serialized form is the original bytes.
+ *
+ * Headers that are published over and over can be {@link #freeze() frozen}. Frozen headers are
+ * kept as their serialized bytes plus a flat array of offsets, can't be changed, and are published
+ * without being copied.
+ *
+ * THIS CLASS IS NOT THREAD SAFE, EXCEPT WHEN FROZEN. Reading from several threads at once is safe
+ * as long as nothing changes the headers.
  */
 public class Headers {
 
@@ -38,6 +48,14 @@ public class Headers {
 	private byte[] serialized;
 	private int dataLength;
 
+	// while not null, the headers are still only in these bytes and not in the maps. Reads can move
+	// them into the maps, so this is volatile and set to null only after the maps are filled. The
+	// index is kept, since a reader that saw the bytes may still be walking it.
+	private volatile byte[] raw;
+	private int[] index; // for each header line: key start, key end, value start, value end
+	private int lines;
+	private boolean frozen; // frozen headers always keep raw, so are never changed once built
+
 	public Headers() {
 		valuesMap = new HashMap<>();
 		lengthMap = new HashMap<>();
@@ -46,13 +64,202 @@ public class Headers {
 	public Headers(Headers headers) {
 		this();
 		if (headers != null) {
-			valuesMap.putAll(headers.valuesMap);
-			lengthMap.putAll(headers.lengthMap);
+			byte[] otherRaw = headers.raw;
+			if (otherRaw != null) {
+				// the bytes are never changed, so they can be shared
+				raw = otherRaw;
+				index = headers.index;
+				lines = headers.lines;
+				serialized = headers.serialized;
+			}
+			else {
+				valuesMap.putAll(headers.valuesMap);
+				lengthMap.putAll(headers.lengthMap);
+				serialized = null;
+			}
 			dataLength = headers.dataLength;
-			serialized = null;
 		}
 	}
 
+	/**
+	 * Create headers that are read from serialized header bytes only when asked for.
+	 * This is meant for the client's header parsing, which has already checked the bytes
+	 * and found where each key and value starts and ends.
+	 *
+	 * @param serialized the header bytes, which must not be changed afterwards
+	 * @param index for each header line, the offsets of the key start, key end, value start and value end,
+	 *              ends are exclusive and keys and values are already trimmed
+	 * @param lines the number of header lines in the index
+	 * @param reuseSerialized whether the bytes can be sent as they are, for instance they have no status
+	 * @return the headers
+	 */
+	public static Headers fromSerialized(byte[] serialized, int[] index, int lines, boolean reuseSerialized) {
+		Headers headers = new Headers();
+		headers.raw = serialized;
+		headers.index = index;
+		headers.lines = lines;
+		for (int x = 0, i = 0; x < lines; x++, i += 4) {
+			headers.dataLength += (index[i + 1] - index[i]) + (index[i + 3] - index[i + 2]) + 3; // for colon, cr, lf
+		}
+		headers.serialized = reuseSerialized ? serialized : null;
+		return headers;
+	}
+
+	/**
+	 * Frozen headers over bytes built by the client, see {@link HeaderTemplate}.
+	 */
+	static Headers frozenFromSerialized(byte[] serialized, int[] index, int lines) {
+		Headers headers = fromSerialized(serialized, index, lines, true);
+		headers.frozen = true;
+		return headers;
+	}
+
+	/**
+	 * Get headers with the same keys and values that can't be changed. Frozen headers are serialized
+	 * once, when frozen, and can be shared by any number of messages and threads. Publishing a message
+	 * with frozen headers does not copy them. Trying to change them throws an UnsupportedOperationException.
+	 *
+	 * @return the frozen headers, this if already frozen
+	 */
+	public Headers freeze() {
+		if (frozen) {
+			return this;
+		}
+		Headers f = new Headers();
+		f.frozen = true;
+		f.dataLength = dataLength;
+		byte[] r = raw;
+		if (r != null && serialized == r) {
+			// incoming headers that were never changed, the bytes are already what is needed
+			f.raw = r;
+			f.index = index;
+			f.lines = lines;
+			f.serialized = r;
+			return f;
+		}
+
+		materialize();
+		int count = 0;
+		for (List<String> values : valuesMap.values()) {
+			count += values.size();
+		}
+		byte[] bytes = new byte[dataLength + NON_DATA_BYTES];
+		int[] idx = new int[count * 4];
+		System.arraycopy(VERSION_BYTES_PLUS_CRLF, 0, bytes, 0, VERSION_BYTES_PLUS_CRLF.length);
+		int pos = VERSION_BYTES_PLUS_CRLF.length;
+		int i = 0;
+		for (Map.Entry<String, List<String>> entry : valuesMap.entrySet()) {
+			String key = entry.getKey();
+			for (String value : entry.getValue()) {
+				idx[i++] = pos;
+				pos = writeAscii(key, bytes, pos);
+				idx[i++] = pos;
+				bytes[pos++] = COLON;
+				idx[i++] = pos;
+				pos = writeAscii(value, bytes, pos);
+				idx[i++] = pos;
+				bytes[pos++] = CR;
+				bytes[pos++] = LF;
+			}
+		}
+		bytes[pos++] = CR;
+		bytes[pos] = LF;
+		f.raw = bytes;
+		f.index = idx;
+		f.lines = count;
+		f.serialized = bytes;
+		return f;
+	}
+
+	/**
+	 * Returns <tt>true</tt> if these headers are frozen and can't be changed.
+	 *
+	 * @return <tt>true</tt> if frozen
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException("Headers are frozen.");
+		}
+	}
+
+	/**
+	 * The map of keys to values. Frozen headers build a new one every time,
+	 * since they are shared and must never change.
+	 */
+	private Map<String, List<String>> map() {
+		byte[] r = raw;
+		if (r == null) {
+			return valuesMap;
+		}
+		if (!frozen) {
+			materialize();
+			return valuesMap;
+		}
+		Map<String, List<String>> map = new HashMap<>();
+		for (int x = 0, i = 0; x < lines; x++, i += 4) {
+			String key = new String(r, index[i], index[i + 1] - index[i], US_ASCII);
+			map.computeIfAbsent(key, k -> new ArrayList<>())
+					.add(new String(r, index[i + 2], index[i + 3] - index[i + 2], US_ASCII));
+		}
+		return map;
+	}
+
+	/**
+	 * Move the headers from the raw bytes into the maps, which is needed before a change
+	 * or anything that works on all the keys. The serialized form stays valid until a change.
+	 * Reads call this too, so it is done once under the lock and published by clearing raw last.
+	 */
+	private void materialize() {
+		if (raw != null) {
+			synchronized (this) {
+				byte[] r = raw;
+				if (r != null) {
+					for (int x = 0, i = 0; x < lines; x++, i += 4) {
+						String key = new String(r, index[i], index[i + 1] - index[i], US_ASCII);
+						String value = new String(r, index[i + 2], index[i + 3] - index[i + 2], US_ASCII);
+						valuesMap.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+						lengthMap.merge(key, key.length() + value.length() + 3, Integer::sum);
+					}
+					raw = null;
+				}
+			}
+		}
+	}
+
+	private boolean keyMatches(byte[] r, int line, String key, boolean ignoreCase) {
+		int start = index[line * 4];
+		int len = index[line * 4 + 1] - start;
+		if (key == null || len != key.length()) {
+			return false;
+		}
+		for (int x = 0; x < len; x++) {
+			char c = (char) (r[start + x] & 0xFF);
+			char k = key.charAt(x);
+			if (c != k && !(ignoreCase && Character.toLowerCase(c) == Character.toLowerCase(k))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private List<String> rawValues(byte[] r, String key, boolean ignoreCase) {
+		List<String> values = null;
+		for (int x = 0; x < lines; x++) {
+			if (keyMatches(r, x, key, ignoreCase)) {
+				if (values == null) {
+					values = new ArrayList<>();
+				}
+				int i = x * 4;
+				values.add(new String(r, index[i + 2], index[i + 3] - index[i + 2], US_ASCII));
+			}
+		}
+		return values;
+	}
+
 	/**
 	 * If the key is present add the values to the list of values for the key.
 	 * If the key is not present, sets the specified values for the key.
@@ -86,7 +293,9 @@ public class Headers {
 
 	// the add delegate
 	private void _add(String key, Collection<String> values) {
+		checkNotFrozen();
 		if (values != null) {
+			materialize();
 			Checker checked = new Checker(key, values);
 			if (checked.hasValues()) {
 				// get values by key or compute empty if absent
@@ -136,10 +345,12 @@ public class Headers {
 
 	// the put delegate that all puts call
 	private void _put(String key, Collection<String> values) {
+		checkNotFrozen();
 		if (key == null || key.length() == 0) {
 			throw new IllegalArgumentException("Key cannot be null or empty.");
 		}
 		if (values != null) {
+			materialize();
 			Checker checked = new Checker(key, values);
 			if (checked.hasValues()) {
 				// update the data length removing the old length adding the new length
@@ -158,6 +369,7 @@ public class Headers {
 	 * @param keys the key or keys to remove
 	 */
 	public void remove(String... keys) {
+		checkNotFrozen();
 		for (String key : keys) {
 			_remove(key);
 		}
@@ -170,6 +382,7 @@ public class Headers {
 	 * @param keys the key or keys to remove
 	 */
 	public void remove(Collection<String> keys) {
+		checkNotFrozen();
 		for (String key : keys) {
 			_remove(key);
 		}
@@ -177,6 +390,7 @@ public class Headers {
 	}
 
 	private void _remove(String key) {
+		materialize();
 		// if the values had a key, then the data length had a length
 		if (valuesMap.remove(key) != null) {
 			dataLength -= lengthMap.remove(key);
@@ -189,7 +403,7 @@ public class Headers {
 	 * @return the number of keys
 	 */
 	public int size() {
-		return valuesMap.size();
+		return map().size();
 	}
 
 	/**
@@ -198,13 +412,16 @@ public class Headers {
 	 * @return <tt>true</tt> if this map contains no keys
 	 */
 	public boolean isEmpty() {
-		return valuesMap.isEmpty();
+		return raw == null ? valuesMap.isEmpty() : lines == 0;
 	}
 
 	/**
 	 * Removes all of the keys The object map will be empty after this call returns.
 	 */
 	public void clear() {
+		checkNotFrozen();
+		raw = null;
+		index = null;
 		valuesMap.clear();
 		lengthMap.clear();
 		dataLength = 0;
@@ -218,6 +435,10 @@ public class Headers {
 	 * @return <tt>true</tt> if the key (case sensitive) is present (has values)
 	 */
 	public boolean containsKey(String key) {
+		byte[] r = raw;
+		if (r != null) {
+			return rawValues(r, key, false) != null;
+		}
 		return valuesMap.containsKey(key);
 	}
 
@@ -228,6 +449,10 @@ public class Headers {
 	 * @return <tt>true</tt> if the key (case insensitive) is present (has values)
 	 */
 	public boolean containsKeyIgnoreCase(String key) {
+		byte[] r = raw;
+		if (r != null) {
+			return rawValues(r, key, true) != null;
+		}
 		for (String k : valuesMap.keySet()) {
 			if (k.equalsIgnoreCase(key)) {
 				return true;
@@ -242,7 +467,7 @@ public class Headers {
 	 * @return a read-only set the keys contained in this map
 	 */
 	public Set<String> keySet() {
-		return Collections.unmodifiableSet(valuesMap.keySet());
+		return Collections.unmodifiableSet(map().keySet());
 	}
 
 	/**
@@ -252,7 +477,7 @@ public class Headers {
 	 */
 	public Set<String> keySetIgnoreCase() {
 		HashSet<String> set = new HashSet<>();
-		for (String k : valuesMap.keySet()) {
+		for (String k : map().keySet()) {
 			set.add(k.toLowerCase());
 		}
 		return Collections.unmodifiableSet(set);
@@ -265,7 +490,8 @@ public class Headers {
 	 * @return a read-only list of the values for the case sensitive key.
 	 */
 	public List<String> get(String key) {
-		List<String> values = valuesMap.get(key);
+		byte[] r = raw;
+		List<String> values = r == null ? valuesMap.get(key) : rawValues(r, key, false);
 		return values == null ? null : Collections.unmodifiableList(values);
 	}
 
@@ -276,6 +502,11 @@ public class Headers {
 	 * @return a read-only list of the values for the case insensitive key.
 	 */
 	public List<String> getIgnoreCase(String key) {
+		byte[] r = raw;
+		if (r != null) {
+			List<String> values = rawValues(r, key, true);
+			return values == null ? null : Collections.unmodifiableList(values);
+		}
 		List<String> values = new ArrayList<>();
 		for (String k : valuesMap.keySet()) {
 			if (k.equalsIgnoreCase(key)) {
@@ -296,7 +527,7 @@ public class Headers {
 	 * removed during iteration
 	 */
 	public void forEach(BiConsumer<String, List<String>> action) {
-		Collections.unmodifiableMap(valuesMap).forEach(action);
+		Collections.unmodifiableMap(map()).forEach(action);
 	}
 
 	/**
@@ -306,7 +537,7 @@ public class Headers {
 	 * @return a set view of the mappings contained in this map
 	 */
 	public Set<Map.Entry<String, List<String>>> entrySet() {
-		return Collections.unmodifiableSet(valuesMap.entrySet());
+		return Collections.unmodifiableSet(map().entrySet());
 	}
 
 	/**
@@ -325,7 +556,8 @@ public class Headers {
 	 * @return the number of bytes
 	 */
 	public int serializedLength() {
-		return dataLength + NON_DATA_BYTES;
+		// the original bytes may have spaces that are not counted in the data length
+		return serialized == null ? dataLength + NON_DATA_BYTES : serialized.length;
 	}
 
 	private static final int NON_DATA_BYTES = VERSION_BYTES_PLUS_CRLF.length + 2;
@@ -337,6 +569,7 @@ public class Headers {
 	 */
 	public byte[] getSerialized() {
 		if (serialized == null) {
+			materialize();
 			ByteArrayBuilder bab = new ByteArrayBuilder(dataLength + NON_DATA_BYTES)
 					.append(VERSION_BYTES_PLUS_CRLF);
 			for (String key : valuesMap.keySet()) {
@@ -353,13 +586,50 @@ public class Headers {
 		return serialized;
 	}
 
+	/**
+	 * Write the serialized headers straight into a buffer, without building the serialized bytes
+	 * if they are not already known. The buffer must have room for {@link #serializedLength()} bytes.
+	 *
+	 * @return the position after the headers
+	 */
+	int serializeTo(byte[] buffer, int position) {
+		if (serialized != null) {
+			System.arraycopy(serialized, 0, buffer, position, serialized.length);
+			return position + serialized.length;
+		}
+		materialize();
+		System.arraycopy(VERSION_BYTES_PLUS_CRLF, 0, buffer, position, VERSION_BYTES_PLUS_CRLF.length);
+		position += VERSION_BYTES_PLUS_CRLF.length;
+		for (Map.Entry<String, List<String>> entry : valuesMap.entrySet()) {
+			for (String value : entry.getValue()) {
+				position = writeAscii(entry.getKey(), buffer, position);
+				buffer[position++] = COLON;
+				position = writeAscii(value, buffer, position);
+				buffer[position++] = CR;
+				buffer[position++] = LF;
+			}
+		}
+		buffer[position++] = CR;
+		buffer[position++] = LF;
+		return position;
+	}
+
+	// keys and values are checked to be printable ascii, so each char is one byte
+	private static int writeAscii(String s, byte[] buffer, int position) {
+		int len = s.length();
+		for (int x = 0; x < len; x++) {
+			buffer[position++] = (byte) s.charAt(x);
+		}
+		return position;
+	}
+
 	/**
 	 * Check the key to ensure it matches the specification for keys.
 	 *
 	 * @throws IllegalArgumentException if the key is null, empty or contains
 	 *         an invalid character
 	 */
-	private void checkKey(String key) {
+	static void checkKey(String key) {
 		// key cannot be null or empty and contain only printable characters except colon
 		if (key == null || key.length() == 0) {
 			throw new IllegalArgumentException(KEY_CANNOT_BE_EMPTY_OR_NULL);
@@ -379,7 +649,7 @@ public class Headers {
 	 *
 	 * @throws IllegalArgumentException if the value contains an invalid character
 	 */
-	private void checkValue(String val) {
+	static void checkValue(String val) {
 		// Generally more permissive than HTTP.  Allow only printable
 		// characters and include tab (0x9) to cover what's allowed
 		// in quoted strings and comments.
@@ -423,11 +693,11 @@ public class Headers {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		Headers headers = (Headers) o;
-		return Objects.equals(valuesMap, headers.valuesMap);
+		return Objects.equals(map(), headers.map());
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(valuesMap);
+		return Objects.hash(map());
 	}
 }
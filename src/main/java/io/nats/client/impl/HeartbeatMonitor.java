@@ -0,0 +1,80 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Watches a push subscription whose consumer sends idle heartbeats. Anything arriving from the
+ * server counts as activity. If nothing arrives for several heartbeat intervals the alarm is raised,
+ * once, and not again until activity resumes and stops again.
+ */
+class HeartbeatMonitor {
+    static final int ALARM_INTERVALS = 3;
+
+    private final long intervalNanos;
+    private final long alarmNanos;
+    private final BiConsumer<Runnable, Long> scheduler;
+    private final LongConsumer alarm;
+    private final LongSupplier clock;
+
+    private volatile long lastActivity;
+    private volatile boolean running;
+    private boolean alarmed; // only used by the check, which runs on the timer
+
+    HeartbeatMonitor(long intervalNanos, BiConsumer<Runnable, Long> scheduler, LongConsumer alarm) {
+        this(intervalNanos, scheduler, alarm, System::nanoTime);
+    }
+
+    HeartbeatMonitor(long intervalNanos, BiConsumer<Runnable, Long> scheduler, LongConsumer alarm, LongSupplier clock) {
+        this.intervalNanos = intervalNanos;
+        this.alarmNanos = intervalNanos * ALARM_INTERVALS;
+        this.scheduler = scheduler;
+        this.alarm = alarm;
+        this.clock = clock;
+    }
+
+    void start() {
+        lastActivity = clock.getAsLong();
+        running = true;
+        scheduler.accept(this::check, intervalNanos);
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    void activity() {
+        lastActivity = clock.getAsLong();
+    }
+
+    private void check() {
+        if (!running) {
+            return;
+        }
+
+        long since = clock.getAsLong() - lastActivity;
+        if (since < alarmNanos) {
+            alarmed = false;
+        }
+        else if (!alarmed) {
+            alarmed = true;
+            alarm.accept(since);
+        }
+        scheduler.accept(this::check, intervalNanos);
+    }
+}
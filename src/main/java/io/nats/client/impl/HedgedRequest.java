@@ -0,0 +1,202 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.HedgePolicy;
+import io.nats.client.Message;
+import io.nats.client.support.LatencyHistogram;
+import io.nats.client.support.NatsRequestCompletableFuture;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drives a single hedged request. The request is sent once, then again after the hedge delay
+ * for each allowed hedge while no reply has arrived. The first reply completes the result, and
+ * the other attempts are cancelled and removed from the connection's awaiting responses.
+ */
+class HedgedRequest {
+    private final NatsConnection conn;
+    private final HedgePolicy policy;
+    private final String subject;
+    private final Headers headers;
+    private final byte[] data;
+    private final boolean utf8mode;
+    private final Duration futureTimeout;
+    private final LatencyHistogram latencies;
+    private final CompletableFuture<Message> result;
+
+    private final List<Attempt> attempts; // guarded by this
+    private int hedgesSent; // guarded by this
+    private long hedgeDelayNanos;
+
+    HedgedRequest(NatsConnection conn, HedgePolicy policy, LatencyHistogram latencies,
+                  String subject, Headers headers, byte[] data, boolean utf8mode, Duration futureTimeout) {
+        this.conn = conn;
+        this.policy = policy;
+        this.latencies = latencies;
+        this.subject = subject;
+        this.headers = headers;
+        this.data = data;
+        this.utf8mode = utf8mode;
+        this.futureTimeout = futureTimeout;
+        this.result = new CompletableFuture<>();
+        this.attempts = new ArrayList<>();
+    }
+
+    CompletableFuture<Message> start() {
+        hedgeDelayNanos = hedgeDelayNanos(policy, latencies);
+        send(newAttempt(), subject); // let the first attempt throw straight to the caller
+        result.whenComplete((msg, exception) -> abandonLosers());
+        scheduleHedge();
+        return result;
+    }
+
+    static long hedgeDelayNanos(HedgePolicy policy, LatencyHistogram latencies) {
+        if (latencies.getCount() < policy.getMinSamples()) {
+            return policy.getInitialDelay().toNanos();
+        }
+        long nanos = latencies.getValueAtPercentile(policy.getPercentile());
+        return Math.min(Math.max(nanos, policy.getMinDelay().toNanos()), policy.getMaxDelay().toNanos());
+    }
+
+    private void scheduleHedge() {
+        synchronized (this) {
+            if (result.isDone() || hedgesSent >= policy.getMaxHedges()) {
+                return;
+            }
+        }
+        conn.scheduleOnce(this::hedge, hedgeDelayNanos);
+    }
+
+    private void hedge() {
+        int hedge;
+        Attempt attempt;
+        synchronized (this) {
+            if (result.isDone() || hedgesSent >= policy.getMaxHedges()) {
+                return;
+            }
+            hedge = ++hedgesSent;
+            attempt = newAttempt();
+        }
+
+        try {
+            send(attempt, policy.getHedgeSubject(subject, hedge));
+            conn.getNatsStatistics().incrementHedgedRequests();
+        }
+        catch (RuntimeException e) {
+            // i.e. the connection closed, let the remaining attempts decide the outcome
+            failIfNothingLeft(e);
+            return;
+        }
+        scheduleHedge();
+    }
+
+    private synchronized Attempt newAttempt() {
+        Attempt attempt = new Attempt(new NatsRequestCompletableFuture(true, futureTimeout));
+        attempts.add(attempt);
+        return attempt;
+    }
+
+    private void send(Attempt attempt, String attemptSubject) {
+        NatsRequestCompletableFuture future = attempt.future;
+        String key;
+        try {
+            key = conn.sendRequest(future, attemptSubject, headers, data, utf8mode);
+        }
+        catch (RuntimeException e) {
+            synchronized (this) {
+                attempts.remove(attempt);
+            }
+            throw e;
+        }
+
+        boolean abandon;
+        synchronized (this) {
+            attempt.key = key;
+            abandon = result.isDone();
+        }
+        if (abandon) {
+            conn.abandonRequest(key, future);
+            return;
+        }
+
+        future.whenComplete((msg, exception) -> {
+            if (exception == null) {
+                // every reply counts, not only the winner, otherwise the delay is biased towards the fastest replies
+                latencies.record(System.nanoTime() - attempt.started);
+                if (result.complete(msg)) {
+                    if (attempt != firstAttempt()) {
+                        conn.getNatsStatistics().incrementHedgeWins();
+                    }
+                }
+            }
+            else {
+                failIfNothingLeft(exception);
+            }
+        });
+    }
+
+    private synchronized Attempt firstAttempt() {
+        return attempts.get(0);
+    }
+
+    private void failIfNothingLeft(Throwable exception) {
+        boolean hedgeNow;
+        synchronized (this) {
+            for (Attempt a : attempts) {
+                if (!a.future.isDone()) {
+                    return; // something is still in flight
+                }
+            }
+            hedgeNow = hedgesSent < policy.getMaxHedges();
+        }
+
+        if (hedgeNow) {
+            // every attempt failed (i.e. no responders), don't wait for the timer
+            hedge();
+        }
+        else {
+            result.completeExceptionally(exception);
+        }
+    }
+
+    private void abandonLosers() {
+        List<Attempt> losers = new ArrayList<>();
+        synchronized (this) {
+            for (Attempt a : attempts) {
+                // an attempt without a key is still sending and will abandon itself
+                if (a.key != null && !a.future.isDone()) {
+                    losers.add(a);
+                }
+            }
+        }
+        for (Attempt a : losers) {
+            conn.abandonRequest(a.key, a.future);
+        }
+    }
+
+    static class Attempt {
+        final NatsRequestCompletableFuture future;
+        final long started;
+        String key;
+
+        Attempt(NatsRequestCompletableFuture future) {
+            this.future = future;
+            this.started = System.nanoTime();
+        }
+    }
+}
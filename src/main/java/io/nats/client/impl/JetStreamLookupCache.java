@@ -0,0 +1,137 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.api.ConsumerInfo;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the lookups made when subscribing: the stream holding a subject and the info of existing
+ * consumers. Entries expire after the time to live. A cache with no time to live holds nothing.
+ */
+class JetStreamLookupCache {
+    static final int MAX_ENTRIES = 10_000;
+
+    private final long ttlNanos;
+    private final Map<String, Entry<String>> streamsBySubject;
+    private final Map<ConsumerKey, Entry<ConsumerInfo>> consumers;
+
+    JetStreamLookupCache(Duration ttl) {
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.streamsBySubject = new ConcurrentHashMap<>();
+        this.consumers = new ConcurrentHashMap<>();
+    }
+
+    boolean isEnabled() {
+        return ttlNanos > 0;
+    }
+
+    String getStream(String subject) {
+        return get(streamsBySubject, subject);
+    }
+
+    void putStream(String subject, String stream) {
+        put(streamsBySubject, subject, stream);
+    }
+
+    ConsumerInfo getConsumer(String stream, String consumer) {
+        return get(consumers, new ConsumerKey(stream, consumer));
+    }
+
+    void putConsumer(String stream, ConsumerInfo ci) {
+        put(consumers, new ConsumerKey(stream, ci.getName()), ci);
+    }
+
+    void invalidateConsumer(String stream, String consumer) {
+        consumers.remove(new ConsumerKey(stream, consumer));
+    }
+
+    /**
+     * Forget everything about a stream, its subjects and its consumers
+     */
+    void invalidateStream(String stream) {
+        streamsBySubject.values().removeIf(e -> e.value.equals(stream));
+        consumers.keySet().removeIf(k -> k.stream.equals(stream));
+    }
+
+    int size() {
+        return streamsBySubject.size() + consumers.size();
+    }
+
+    private <K, V> V get(Map<K, Entry<V>> map, K key) {
+        if (ttlNanos == 0) {
+            return null;
+        }
+        Entry<V> e = map.get(key);
+        if (e == null) {
+            return null;
+        }
+        if (System.nanoTime() - e.created > ttlNanos) {
+            map.remove(key, e);
+            return null;
+        }
+        return e.value;
+    }
+
+    private <K, V> void put(Map<K, Entry<V>> map, K key, V value) {
+        if (ttlNanos == 0) {
+            return;
+        }
+        if (map.size() >= MAX_ENTRIES) {
+            long now = System.nanoTime();
+            map.values().removeIf(e -> now - e.created > ttlNanos);
+            if (map.size() >= MAX_ENTRIES) {
+                map.clear(); // everything is fresh, start over rather than track use
+            }
+        }
+        map.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    static class Entry<V> {
+        final V value;
+        final long created;
+
+        Entry(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+
+    static class ConsumerKey {
+        final String stream;
+        final String consumer;
+
+        ConsumerKey(String stream, String consumer) {
+            this.stream = stream;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConsumerKey)) return false;
+            ConsumerKey that = (ConsumerKey) o;
+            return stream.equals(that.stream) && consumer.equals(that.consumer);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * stream.hashCode() + consumer.hashCode();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.JetStreamApiException;
+import io.nats.client.Message;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Walks the pages of a JetStream list api lazily. The first page tells the total and the page size,
+ * after which the following pages are requested ahead of the one being read, several at a time,
+ * so reading a long list waits for about one round trip per {@code pagesAhead} pages instead of
+ * one per page. Pages are always read in offset order.
+ *
+ * <p>The first page is read by {@link #start()}, which throws the api error if, for instance,
+ * the stream does not exist. A later page that fails while iterating throws an
+ * {@link UncheckedIOException}, with any api error as the cause of its cause.
+ */
+class ListPager<T> implements Iterator<T> {
+    static final int DEFAULT_PAGES_AHEAD = 4;
+
+    private final IntFunction<CompletableFuture<Message>> requester;
+    private final Function<ListRequestEngine, List<T>> reader;
+    private final Duration timeout;
+    private final int pagesAhead;
+    private final Deque<CompletableFuture<Message>> inFlight;
+
+    private int total;
+    private int limit;
+    private int nextOffset;
+    private Iterator<T> page;
+
+    /**
+     * @param requester sends the request for the page at the offset
+     * @param reader gets the items from a page
+     * @param timeout how long to wait for each page
+     * @param pagesAhead how many pages can be requested before they are read
+     */
+    ListPager(IntFunction<CompletableFuture<Message>> requester, Function<ListRequestEngine, List<T>> reader,
+              Duration timeout, int pagesAhead) {
+        this.requester = requester;
+        this.reader = reader;
+        this.timeout = timeout;
+        this.pagesAhead = Math.max(1, pagesAhead);
+        this.inFlight = new ArrayDeque<>();
+        this.page = Collections.emptyIterator();
+    }
+
+    /**
+     * Read the first page
+     * @return this pager
+     */
+    ListPager<T> start() throws IOException, JetStreamApiException {
+        inFlight.add(requester.apply(0));
+        readPage();
+        return this;
+    }
+
+    /**
+     * Read everything that is left
+     * @return the items
+     */
+    List<T> toList() throws IOException, JetStreamApiException {
+        List<T> list = new ArrayList<>();
+        do {
+            while (page.hasNext()) {
+                list.add(page.next());
+            }
+        } while (readPage());
+        return list;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (!page.hasNext()) {
+                if (!readPage()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (JetStreamApiException e) {
+            throw new UncheckedIOException(new IOException(e));
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private boolean readPage() throws IOException, JetStreamApiException {
+        CompletableFuture<Message> future = inFlight.poll();
+        if (future == null) {
+            return false;
+        }
+
+        ListRequestEngine engine;
+        try {
+            Message msg = future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (msg == null) {
+                throw new TimeoutException();
+            }
+            engine = new ListRequestEngine(msg);
+        }
+        catch (InterruptedException | ExecutionException | TimeoutException e) {
+            future.cancel(true);
+            abandon();
+            throw new IOException("Timeout or no response waiting for NATS JetStream server", e);
+        }
+        catch (JetStreamApiException e) {
+            abandon();
+            throw e;
+        }
+
+        if (limit == 0) {
+            limit = engine.limit;
+            nextOffset = engine.lastOffset + limit;
+        }
+        List<T> items = reader.apply(engine);
+        total = items.isEmpty() ? 0 : engine.total; // the latest page knows best if the list is changing
+        page = items.iterator();
+        requestAhead();
+        return true;
+    }
+
+    private void requestAhead() {
+        while (limit > 0 && nextOffset < total && inFlight.size() < pagesAhead) {
+            inFlight.add(requester.apply(nextOffset));
+            nextOffset += limit;
+        }
+    }
+
+    private void abandon() {
+        for (CompletableFuture<Message> future : inFlight) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        total = 0;
+    }
+}
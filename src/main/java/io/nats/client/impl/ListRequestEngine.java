@@ -16,7 +16,7 @@ package io.nats.client.impl;
 import io.nats.client.JetStreamApiException;
 import io.nats.client.Message;
 import io.nats.client.api.ApiResponse;
-import io.nats.client.support.JsonUtils;
+import io.nats.client.support.JsonNode;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -40,9 +40,9 @@ class ListRequestEngine extends ApiResponse<ListRequestEngine> {
         if (hasError()) {
             throw new JetStreamApiException(this);
         }
-        total = JsonUtils.readInt(json, TOTAL_RE, Integer.MAX_VALUE);
-        limit = JsonUtils.readInt(json, LIMIT_RE, 0);
-        lastOffset = JsonUtils.readInt(json, OFFSET_RE, 0);
+        total = json.readInt(TOTAL, Integer.MAX_VALUE);
+        limit = json.readInt(LIMIT, 0);
+        lastOffset = json.readInt(OFFSET, 0);
     }
 
     boolean hasMore() {
@@ -54,25 +54,26 @@ class ListRequestEngine extends ApiResponse<ListRequestEngine> {
     }
 
     byte[] noFilterJson() {
-        return (OFFSET_JSON_START + (lastOffset + limit) + "}").getBytes(StandardCharsets.US_ASCII);
+        return offsetJson(lastOffset + limit, null, null);
     }
 
     byte[] internalNextJson(String fieldName, String filter) {
-        if (hasMore()) {
-            if (filter == null) {
-                return noFilterJson();
-            }
-            return (OFFSET_JSON_START + (lastOffset + limit)
-                    + ",\"" + fieldName + "\":\"" + filter + "\"}").getBytes(StandardCharsets.US_ASCII);
+        return hasMore() ? offsetJson(lastOffset + limit, fieldName, filter) : null;
+    }
+
+    static byte[] offsetJson(int offset, String fieldName, String filter) {
+        if (filter == null) {
+            return (OFFSET_JSON_START + offset + "}").getBytes(StandardCharsets.US_ASCII);
         }
-        return null;
+        return (OFFSET_JSON_START + offset
+                + ",\"" + fieldName + "\":\"" + filter + "\"}").getBytes(StandardCharsets.US_ASCII);
     }
 
-    List<String> getObjectList(String objectName) {
-        return JsonUtils.getObjectList(objectName, json);
+    List<JsonNode> getObjectList(String objectName) {
+        return json.getObjectList(objectName);
     }
 
     List<String> getStringList(String objectName) {
-        return JsonUtils.getStringList(objectName, json);
+        return json.getStringList(objectName);
     }
 }
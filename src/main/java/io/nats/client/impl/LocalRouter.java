@@ -0,0 +1,372 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Routes incoming messages to plain subscriptions inside the client, so that subscriptions share
+ * interest on the server. The server gets one SUB for each route subject that is not covered by
+ * another route subject, and every route is owned by exactly one of those interests. A message
+ * that arrives for an interest is matched against the routes and handed to the ones that interest
+ * owns, so a message the server sends for two overlapping interests is still delivered once.
+ *
+ * <p>When the interests change, for instance a wider wildcard subscription arrives or goes away,
+ * routes have to move from one interest to another. The new interest is subscribed first and the
+ * routes only move once a PONG shows the server has processed the SUB. Until then the old interest
+ * keeps delivering them, so nothing is lost or delivered twice during the move. Interests that no
+ * longer own any routes are unsubscribed.
+ */
+class LocalRouter {
+
+    /**
+     * What the router needs from the connection.
+     */
+    interface Wire {
+        String nextSid();
+
+        void subscribe(String sid, String subject);
+
+        void unsubscribe(String sid);
+
+        /**
+         * @return a future completed with true when the server answers, or null if no ping could be sent
+         */
+        CompletableFuture<Boolean> ping();
+
+        void deliver(NatsSubscription sub, NatsMessage msg);
+    }
+
+    private static class Interest {
+        final String sid;
+        final String subject;
+        final long generation;
+        int routes;
+
+        Interest(String sid, String subject, long generation) {
+            this.sid = sid;
+            this.subject = subject;
+            this.generation = generation;
+        }
+    }
+
+    private static class Route {
+        final NatsSubscription sub;
+        Interest owner;
+
+        Route(NatsSubscription sub) {
+            this.sub = sub;
+        }
+    }
+
+    private final Wire wire;
+    private final ReentrantLock lock;
+
+    private final Map<NatsSubscription, Route> routes;
+    private final SubjectTrie<Route> routeTrie;
+    private final Map<String, Integer> subjectCounts; // route subjects and how many routes have each
+    private final SubjectTrie<String> subjects;
+
+    private final Map<String, Interest> interests; // by subject
+    private final Map<String, Interest> interestsBySid;
+    private final SubjectTrie<Interest> interestTrie;
+    private final Set<Interest> retiring; // interests that may no longer be wanted
+    private long generation;
+    private boolean movePending;
+
+    LocalRouter(NatsConnection connection) {
+        this(new Wire() {
+            @Override
+            public String nextSid() {
+                return connection.nextSid();
+            }
+
+            @Override
+            public void subscribe(String sid, String subject) {
+                connection.sendSubscriptionMessage(sid, subject, null, false);
+            }
+
+            @Override
+            public void unsubscribe(String sid) {
+                if (connection.isConnected()) {
+                    connection.sendUnsub(sid, 0);
+                }
+            }
+
+            @Override
+            public CompletableFuture<Boolean> ping() {
+                return connection.sendPing();
+            }
+
+            @Override
+            public void deliver(NatsSubscription sub, NatsMessage msg) {
+                connection.deliverToSubscription(sub, msg);
+            }
+        });
+    }
+
+    LocalRouter(Wire wire) {
+        this.wire = wire;
+        this.lock = new ReentrantLock();
+        this.routes = new HashMap<>();
+        this.routeTrie = new SubjectTrie<>();
+        this.subjectCounts = new HashMap<>();
+        this.subjects = new SubjectTrie<>();
+        this.interests = new HashMap<>();
+        this.interestsBySid = new ConcurrentHashMap<>();
+        this.interestTrie = new SubjectTrie<>();
+        this.retiring = new HashSet<>();
+    }
+
+    void add(NatsSubscription sub) {
+        lock.lock();
+        try {
+            if (routes.containsKey(sub)) {
+                return;
+            }
+            String subject = sub.getSubject();
+            Route route = new Route(sub);
+            routes.put(sub, route);
+            routeTrie.add(subject, route);
+
+            if (subjectCounts.merge(subject, 1, Integer::sum) == 1) {
+                subjects.add(subject, subject);
+                if (isWanted(subject)) {
+                    // interests under the new subject can hand their routes to it
+                    interestTrie.coveredBy(subject, retiring::add);
+                    if (!interests.containsKey(subject)) {
+                        addInterest(subject);
+                    }
+                }
+            }
+
+            route.owner = wantedOwner(subject);
+            route.owner.routes++;
+            settle();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(NatsSubscription sub) {
+        lock.lock();
+        try {
+            Route route = routes.remove(sub);
+            if (route == null) {
+                return;
+            }
+            String subject = sub.getSubject();
+            routeTrie.remove(subject, route);
+            route.owner.routes--;
+            retiring.add(route.owner);
+
+            if (subjectCounts.merge(subject, -1, Integer::sum) == 0) {
+                subjectCounts.remove(subject);
+                subjects.remove(subject, subject);
+
+                // subjects this one covered may now need their own interest
+                List<String> uncovered = new ArrayList<>();
+                subjects.coveredBy(subject, s -> {
+                    if (isWanted(s) && !interests.containsKey(s)) {
+                        uncovered.add(s);
+                    }
+                });
+                uncovered.forEach(this::addInterest);
+            }
+            settle();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand a message to the routes owned by the interest it arrived for.
+     * @return false if the message is not for one of the router's interests
+     */
+    boolean deliver(NatsMessage msg) {
+        Interest interest = interestsBySid.get(msg.getSID());
+        if (interest == null) {
+            return false;
+        }
+
+        List<NatsSubscription> targets = new ArrayList<>();
+        lock.lock();
+        try {
+            routeTrie.match(msg.getSubject(), route -> {
+                if (route.owner == interest) {
+                    targets.add(route.sub);
+                }
+            });
+        }
+        finally {
+            lock.unlock();
+        }
+
+        // copies first, the original may be picked up by its subscriber as soon as it is delivered
+        for (int i = 1; i < targets.size(); i++) {
+            wire.deliver(targets.get(i), msg.copyForFanOut());
+        }
+        if (!targets.isEmpty()) {
+            wire.deliver(targets.get(0), msg);
+        }
+        return true;
+    }
+
+    /**
+     * Add a SUB for every interest to the batch sent after a reconnect.
+     */
+    void resendInterests(SubscribeBatch batch) {
+        lock.lock();
+        try {
+            for (Interest interest : interests.values()) {
+                batch.add(interest.sid, interest.subject, null);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called once the connection is back, to finish any move a lost PONG interrupted.
+     */
+    void resubscribed() {
+        lock.lock();
+        try {
+            settle();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    int getInterestCount() {
+        return interests.size();
+    }
+
+    int getRouteCount() {
+        return routes.size();
+    }
+
+    // an interest is wanted if its subject is a route subject that no other route subject covers
+    private boolean isWanted(String subject) {
+        if (!subjectCounts.containsKey(subject)) {
+            return false;
+        }
+        boolean[] covered = new boolean[1];
+        subjects.covering(subject, s -> {
+            if (!s.equals(subject)) {
+                covered[0] = true;
+            }
+        });
+        return !covered[0];
+    }
+
+    // there is always one, every route subject is covered by some wanted subject and those have interests
+    private Interest wantedOwner(String subject) {
+        Interest[] owner = new Interest[1];
+        interestTrie.covering(subject, i -> {
+            if (owner[0] == null && isWanted(i.subject)) {
+                owner[0] = i;
+            }
+        });
+        return owner[0];
+    }
+
+    private void addInterest(String subject) {
+        Interest interest = new Interest(wire.nextSid(), subject, ++generation);
+        interests.put(subject, interest);
+        interestsBySid.put(interest.sid, interest);
+        interestTrie.add(subject, interest);
+        wire.subscribe(interest.sid, subject);
+    }
+
+    private void dropInterest(Interest interest) {
+        interests.remove(interest.subject);
+        interestsBySid.remove(interest.sid);
+        interestTrie.remove(interest.subject, interest);
+        wire.unsubscribe(interest.sid);
+    }
+
+    // Unsubscribe interests that are no longer wanted and own nothing. If some still own routes,
+    // ping so the routes can move once the server has every SUB sent so far.
+    private void settle() {
+        boolean draining = false;
+        Iterator<Interest> iter = retiring.iterator();
+        while (iter.hasNext()) {
+            Interest interest = iter.next();
+            if (interests.get(interest.subject) != interest || isWanted(interest.subject)) {
+                iter.remove();
+            }
+            else if (interest.routes == 0) {
+                iter.remove();
+                dropInterest(interest);
+            }
+            else {
+                draining = true;
+            }
+        }
+
+        if (draining && !movePending) {
+            movePending = true;
+            long confirmed = generation;
+            CompletableFuture<Boolean> pong = wire.ping();
+            if (pong == null) {
+                movePending = false;
+            }
+            else {
+                pong.whenComplete((ok, t) -> moveRoutes(confirmed, t == null && Boolean.TRUE.equals(ok)));
+            }
+        }
+    }
+
+    // Runs as the PONG is read, so messages read after it were routed by a server that has every
+    // interest up to the confirmed generation.
+    private void moveRoutes(long confirmed, boolean ok) {
+        lock.lock();
+        try {
+            movePending = false;
+            if (!ok) {
+                return; // tried again after a reconnect or the next change
+            }
+
+            for (Interest from : retiring) {
+                List<Route> owned = new ArrayList<>();
+                routeTrie.coveredBy(from.subject, route -> {
+                    if (route.owner == from) {
+                        owned.add(route);
+                    }
+                });
+                for (Route route : owned) {
+                    Interest to = wantedOwner(route.sub.getSubject());
+                    if (to != from && to.generation <= confirmed) {
+                        from.routes--;
+                        to.routes++;
+                        route.owner = to;
+                    }
+                }
+            }
+            settle();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+}
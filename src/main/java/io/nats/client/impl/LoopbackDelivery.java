@@ -0,0 +1,91 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers messages published on a connection to the connection's own subscriptions, in place of
+ * the server echoing them back. Only subscriptions without a queue group are kept here, the server
+ * chooses the members of a queue group.
+ */
+class LoopbackDelivery {
+    private final NatsConnection connection;
+    private final NatsStatistics statistics;
+    private final ReentrantLock lock;
+    private final SubjectTrie<NatsSubscription> subscriptions;
+
+    LoopbackDelivery(NatsConnection connection, NatsStatistics statistics) {
+        this.connection = connection;
+        this.statistics = statistics;
+        this.lock = new ReentrantLock();
+        this.subscriptions = new SubjectTrie<>();
+    }
+
+    void add(NatsSubscription sub) {
+        lock.lock();
+        try {
+            subscriptions.add(sub.getSubject(), sub);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(NatsSubscription sub) {
+        lock.lock();
+        try {
+            subscriptions.remove(sub.getSubject(), sub);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the subscriptions a message published to the subject goes to, empty if there are none
+     */
+    List<NatsSubscription> match(String subject) {
+        lock.lock();
+        try {
+            if (subscriptions.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<NatsSubscription> found = new ArrayList<>();
+            subscriptions.match(subject, found::add);
+            return found;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand the message to each subscription, each getting its own copy sharing the data.
+     */
+    void deliver(List<NatsSubscription> targets, NatsMessage looped) {
+        int last = targets.size() - 1;
+        for (int i = 0; i <= last; i++) {
+            NatsSubscription sub = targets.get(i);
+            NatsMessage msg = i == last ? looped : looped.copyForFanOut();
+            msg.sid = sub.getSID();
+            statistics.incrementLoopbackMsgs();
+            connection.deliverToSubscription(sub, msg);
+        }
+    }
+}
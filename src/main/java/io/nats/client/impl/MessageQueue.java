@@ -13,6 +13,8 @@
 
 package io.nats.client.impl;
 
+import io.nats.client.support.LatencyHistogram;
+
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -37,6 +39,7 @@ class MessageQueue {
     private final LinkedBlockingQueue<NatsMessage> queue;
     private final Lock filterLock;
     private final boolean discardWhenFull;
+    private final LatencyHistogram queueTime;
 
     // Poison pill is a graphic, but common term for an item that breaks loops or stop something.
     // In this class the poisonPill is used to break out of timed waits on the blocking queue.
@@ -51,10 +54,12 @@ class MessageQueue {
      * @param singleReaderMode allows the use of "accumulate"
      * @param publishHighwaterMark sets a limit on the size of the underlying queue
      * @param discardWhenFull allows to discard messages when the underlying queue is full
+     * @param queueTime if not null, records how long each message waits in the queue
      */
-    MessageQueue(boolean singleReaderMode, int publishHighwaterMark, boolean discardWhenFull) {
+    MessageQueue(boolean singleReaderMode, int publishHighwaterMark, boolean discardWhenFull, LatencyHistogram queueTime) {
         this.queue = publishHighwaterMark > 0 ? new LinkedBlockingQueue<NatsMessage>(publishHighwaterMark) : new LinkedBlockingQueue<NatsMessage>();
         this.discardWhenFull = discardWhenFull;
+        this.queueTime = queueTime;
         this.running = new AtomicInteger(RUNNING);
         this.sizeInBytes = new AtomicLong(0);
         this.length = new AtomicLong(0);
@@ -67,10 +72,18 @@ class MessageQueue {
         this.singleThreadedReader = singleReaderMode;
     }
 
+    MessageQueue(boolean singleReaderMode, int publishHighwaterMark, boolean discardWhenFull) {
+        this(singleReaderMode, publishHighwaterMark, discardWhenFull, null);
+    }
+
     MessageQueue(boolean singleReaderMode) {
         this(singleReaderMode, 0);
     }
 
+    MessageQueue(boolean singleReaderMode, LatencyHistogram queueTime) {
+        this(singleReaderMode, 0, false, queueTime);
+    }
+
     MessageQueue(boolean singleReaderMode, int publishHighwaterMark) {
         this(singleReaderMode, publishHighwaterMark, false);
     }
@@ -112,6 +125,10 @@ class MessageQueue {
 
     boolean push(NatsMessage msg, boolean internal) {
 
+        if (this.queueTime != null) {
+            msg.queuedAt = System.nanoTime();
+        }
+
         this.filterLock.lock();
         try {
             // If we aren't running, then we need to obey the filter lock
@@ -193,6 +210,10 @@ class MessageQueue {
         this.sizeInBytes.getAndAdd(-msg.getSizeInBytes());
         this.length.decrementAndGet();
 
+        if (this.queueTime != null) {
+            this.queueTime.record(System.nanoTime() - msg.queuedAt);
+        }
+
         return msg;
     }
     
@@ -228,6 +249,7 @@ class MessageQueue {
         if (maxMessages <= 1 || size >= maxSize) {
             this.sizeInBytes.addAndGet(-size);
             this.length.decrementAndGet();
+            recordQueueTime(msg);
             return msg;
         }
 
@@ -259,10 +281,23 @@ class MessageQueue {
 
         this.sizeInBytes.addAndGet(-size);
         this.length.addAndGet(-count);
+        recordQueueTime(msg);
 
         return msg;
     }
 
+    // Records the wait of every message in an accumulated chain
+    private void recordQueueTime(NatsMessage msg) {
+        if (this.queueTime == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        while (msg != null) {
+            this.queueTime.record(now - msg.queuedAt);
+            msg = msg.next;
+        }
+    }
+
     // Returns a message or null
     NatsMessage popNow() throws InterruptedException {
         return pop(null);
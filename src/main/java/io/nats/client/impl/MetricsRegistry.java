@@ -0,0 +1,183 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.MetricsSnapshot;
+import io.nats.client.Options;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps message, byte, handler time and drop counts per subscription and per subject prefix.
+ * Counting uses LongAdders so the reader and dispatcher threads don't contend on a single value.
+ */
+class MetricsRegistry {
+    static final int DEFAULT_MAX_CACHED_SUBJECTS = 4096;
+
+    private final boolean perSubscription;
+    private final int prefixTokens;
+    private final int maxPrefixes;
+    private final int maxCachedSubjects;
+    private final ConcurrentHashMap<String, Counters> subscriptions;
+    private final ConcurrentHashMap<String, Counters> prefixes;
+    private final ConcurrentHashMap<String, Counters> subjects; // full subject to its prefix's counters
+    private final Counters overflow;
+
+    MetricsRegistry(boolean perSubscription, int prefixTokens, int maxPrefixes) {
+        this(perSubscription, prefixTokens, maxPrefixes, DEFAULT_MAX_CACHED_SUBJECTS);
+    }
+
+    MetricsRegistry(boolean perSubscription, int prefixTokens, int maxPrefixes, int maxCachedSubjects) {
+        this.perSubscription = perSubscription;
+        this.prefixTokens = prefixTokens;
+        this.maxPrefixes = maxPrefixes;
+        this.maxCachedSubjects = maxCachedSubjects;
+        this.subscriptions = new ConcurrentHashMap<>();
+        this.prefixes = new ConcurrentHashMap<>();
+        this.subjects = new ConcurrentHashMap<>();
+        this.overflow = prefixTokens > 0 ? new Counters(null, null, null) : null;
+    }
+
+    // null if no metrics are turned on
+    static MetricsRegistry create(Options options) {
+        if (!options.isSubscriptionMetrics() && options.getSubjectMetricsTokens() == 0) {
+            return null;
+        }
+        return new MetricsRegistry(options.isSubscriptionMetrics(), options.getSubjectMetricsTokens(), options.getSubjectMetricsMaxPrefixes());
+    }
+
+    void register(NatsSubscription sub) {
+        if (perSubscription) {
+            Counters counters = new Counters(sub.getSubject(), sub.getSID(), sub.getQueueName());
+            subscriptions.put(sub.getSID(), counters);
+            sub.setMetrics(counters);
+        }
+    }
+
+    void unregister(NatsSubscription sub) {
+        subscriptions.remove(sub.getSID());
+    }
+
+    void received(NatsSubscription sub, String subject, long bytes) {
+        Counters counters = sub.getMetrics();
+        if (counters != null) {
+            counters.received(bytes);
+        }
+        if (prefixTokens > 0) {
+            prefixCounters(subject).received(bytes);
+        }
+    }
+
+    void dropped(NatsSubscription sub, String subject) {
+        Counters counters = sub.getMetrics();
+        if (counters != null) {
+            counters.dropped.increment();
+        }
+        if (prefixTokens > 0) {
+            prefixCounters(subject).dropped.increment();
+        }
+    }
+
+    void handled(NatsSubscription sub, String subject, long nanos) {
+        Counters counters = sub.getMetrics();
+        if (counters != null) {
+            counters.handlerNanos.add(nanos);
+        }
+        if (prefixTokens > 0) {
+            prefixCounters(subject).handlerNanos.add(nanos);
+        }
+    }
+
+    MetricsSnapshot snapshot() {
+        List<MetricsSnapshot.Metrics> subs = new ArrayList<>();
+        for (Counters c : subscriptions.values()) {
+            subs.add(c.toMetrics());
+        }
+        List<MetricsSnapshot.Metrics> prefixed = new ArrayList<>();
+        for (Counters c : prefixes.values()) {
+            prefixed.add(c.toMetrics());
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), subs, prefixed, overflow == null ? null : overflow.toMetrics());
+    }
+
+    Counters prefixCounters(String subject) {
+        // a subject seen before maps straight to its counters without cutting out the prefix again,
+        // subjects past the cache limit (i.e. unique inboxes) fall back to the allocating path
+        Counters counters = subjects.get(subject);
+        if (counters == null) {
+            counters = countersForPrefix(prefixOf(subject, prefixTokens));
+            if (subjects.size() < maxCachedSubjects) {
+                subjects.put(subject, counters);
+            }
+        }
+        return counters;
+    }
+
+    // prefixes are never removed, so a subject that went to the overflow stays there and can be cached too
+    private Counters countersForPrefix(String prefix) {
+        Counters counters = prefixes.get(prefix);
+        if (counters == null) {
+            // the limit is checked without locking, so concurrent threads can overshoot it slightly
+            if (prefixes.size() >= maxPrefixes) {
+                return overflow;
+            }
+            counters = prefixes.computeIfAbsent(prefix, p -> new Counters(p, null, null));
+        }
+        return counters;
+    }
+
+    int cachedSubjectCount() {
+        return subjects.size();
+    }
+
+    static String prefixOf(String subject, int tokens) {
+        int end = -1;
+        for (int x = 0; x < tokens; x++) {
+            end = subject.indexOf('.', end + 1);
+            if (end == -1) {
+                return subject;
+            }
+        }
+        return subject.substring(0, end);
+    }
+
+    static class Counters {
+        final String name;
+        final String sid;
+        final String queueName;
+        final LongAdder messages = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder handlerNanos = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        Counters(String name, String sid, String queueName) {
+            this.name = name;
+            this.sid = sid;
+            this.queueName = queueName;
+        }
+
+        void received(long size) {
+            messages.increment();
+            bytes.add(size);
+        }
+
+        MetricsSnapshot.Metrics toMetrics() {
+            return new MetricsSnapshot.Metrics(name, sid, queueName,
+                    messages.sum(), bytes.sum(), handlerNanos.sum(), dropped.sum());
+        }
+    }
+}
@@ -18,6 +18,7 @@ import io.nats.client.ConnectionListener.Events;
 import io.nats.client.api.ServerInfo;
 import io.nats.client.impl.NatsMessage.ProtocolMessage;
 import io.nats.client.support.ByteArrayBuilder;
+import io.nats.client.support.LatencyHistogram;
 import io.nats.client.support.NatsRequestCompletableFuture;
 
 import java.io.IOException;
@@ -45,6 +46,9 @@ import static io.nats.client.support.Validator.validateNotNull;
 
 class NatsConnection implements Connection {
 
+    // each subject's histogram is about 5KB, only the most recently hedged subjects are kept
+    static final int MAX_HEDGE_LATENCY_SUBJECTS = 1024;
+
     private final Options options;
 
     private final NatsStatistics statistics;
@@ -76,10 +80,15 @@ class NatsConnection implements Connection {
     private final Map<String, NatsRequestCompletableFuture> responsesAwaiting;
     private final Map<String, NatsRequestCompletableFuture> responsesRespondedTo;
     private final ConcurrentLinkedDeque<CompletableFuture<Boolean>> pongQueue;
+    private final RequestCoalescer requestCoalescer;
+    private final MetricsRegistry metricsRegistry;
+    private final Map<String, LatencyHistogram> requestLatencies; // least recently used order, guarded by itself
 
     private final String mainInbox;
     private final AtomicReference<NatsDispatcher> inboxDispatcher;
-    private Timer timer;
+    private final ScheduledExecutorService scheduler;
+    private volatile List<ScheduledFuture<?>> timers; // ping and cleanup, null when not running
+    private final Set<ScheduledFuture<?>> onceTimers; // one off tasks that have not come due, cancelled on close
 
     private final AtomicBoolean needPing;
 
@@ -91,13 +100,18 @@ class NatsConnection implements Connection {
     private final AtomicReference<CompletableFuture<Boolean>> draining;
     private final AtomicBoolean blockPublishForDrain;
 
-    private final ExecutorService callbackRunner;
+    private final SerialExecutor callbackRunner;
 
     private final ExecutorService executor;
-    private final ExecutorService connectExecutor;
 
     private String currentServer = null;
 
+    private volatile DiskOutbox outbox;
+    private final ServerProber serverProber;
+    private final LocalRouter localRouter;
+    private final LoopbackDelivery loopback;
+    private final AtomicBoolean outboxReplaying;
+
     NatsConnection(Options options) {
         boolean trace = options.isTraceConnection();
         timeTrace(trace, "creating connection object");
@@ -116,6 +130,16 @@ class NatsConnection implements Connection {
         this.subscribers = new ConcurrentHashMap<>();
         this.responsesAwaiting = new ConcurrentHashMap<>();
         this.responsesRespondedTo = new ConcurrentHashMap<>();
+        this.requestCoalescer = options.isRequestCoalescing()
+                ? new RequestCoalescer(statistics, options.getRequestReplyCacheTtl(), options.getRequestReplyCacheSize())
+                : null;
+        this.requestLatencies = Collections.synchronizedMap(new LinkedHashMap<String, LatencyHistogram>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LatencyHistogram> eldest) {
+                return size() > MAX_HEDGE_LATENCY_SUBJECTS;
+            }
+        });
+        this.metricsRegistry = MetricsRegistry.create(options);
 
         this.serverAuthErrors = new HashMap<>();
 
@@ -132,11 +156,16 @@ class NatsConnection implements Connection {
         this.pongQueue = new ConcurrentLinkedDeque<>();
         this.draining = new AtomicReference<>();
         this.blockPublishForDrain = new AtomicBoolean();
+        this.outboxReplaying = new AtomicBoolean();
 
         timeTrace(trace, "creating executors");
-        this.callbackRunner = Executors.newSingleThreadExecutor();
         this.executor = options.getExecutor();
-        this.connectExecutor = Executors.newSingleThreadExecutor();
+        this.callbackRunner = new SerialExecutor(executor); // listener callbacks keep their order
+        this.scheduler = options.getScheduler() == null ? SharedScheduler.get() : options.getScheduler();
+        this.onceTimers = ConcurrentHashMap.newKeySet();
+        this.serverProber = options.getServerProbes() > 0 ? new ServerProber(options, executor) : null;
+        this.localRouter = options.isLocalRouting() ? new LocalRouter(this) : null;
+        this.loopback = options.isLocalDelivery() && !options.isNoEcho() ? new LoopbackDelivery(this, statistics) : null;
 
         timeTrace(trace, "creating reader and writer");
         this.reader = new NatsConnectionReader(this);
@@ -157,9 +186,14 @@ class NatsConnection implements Connection {
 
         this.lastError.set("");
 
+        if (options.getReconnectOutboxDirectory() != null) {
+            timeTrace(trace, "opening reconnect outbox");
+            this.outbox = new DiskOutbox(options.getReconnectOutboxDirectory(), options.getReconnectOutboxMaxBytes(), statistics);
+        }
+
         timeTrace(trace, "starting connect loop");
 
-        Collection<String> serversToTry = getReconnectServerList();
+        Collection<String> serversToTry = orderServers(getReconnectServerList());
         for (String serverURI : serversToTry) {
             if (isClosed()) {
                 break; // goes to statement after end-connect-server-loop
@@ -180,6 +214,7 @@ class NatsConnection implements Connection {
 
             timeTrace(trace, "setting status to disconnected");
             updateStatus(Status.DISCONNECTED);
+            recordServerFailure(serverURI);
 
             String err = connectError.get();
 
@@ -205,10 +240,13 @@ class NatsConnection implements Connection {
                     throw new IOException(msg);
                 }
             }
-        } else if (trace) {
-            long end = System.nanoTime();
-            double seconds = ((double) (end - start)) / 1_000_000_000.0;
-            timeTrace(trace, "connect complete in %.3f seconds", seconds);
+        } else {
+            startOutboxReplay(); // anything left by a previous connection
+            if (trace) {
+                long end = System.nanoTime();
+                double seconds = ((double) (end - start)) / 1_000_000_000.0;
+                timeTrace(trace, "connect complete in %.3f seconds", seconds);
+            }
         }
     }
 
@@ -235,7 +273,7 @@ class NatsConnection implements Connection {
                 waitForReconnectTimeout(tries);
             }
 
-            List<String> serversToTry = getReconnectServerList();
+            List<String> serversToTry = orderServers(getReconnectServerList());
             for (String server : serversToTry) {
                 if (isClosed()) {
                     break; // goes to statement after end-reconnect-server-loop
@@ -261,6 +299,7 @@ class NatsConnection implements Connection {
                     this.currentServer = server;
                     break; // goes to statement after end-reconnect-server-loop
                 }
+                recordServerFailure(server);
 
                 String err = connectError.get();
                 if (this.isAuthenticationError(err)) {
@@ -287,30 +326,96 @@ class NatsConnection implements Connection {
             return;
         }
 
+        // All the SUB lines go out in a few buffer sized writes, ahead of any publishes
+        // queued while disconnected, which are not released until the flush below.
+        SubscribeBatch batch = new SubscribeBatch(options.getBufferSize(), options.getMaxControlLine(),
+                this.writer::queueInternalMessage);
+
         this.subscribers.forEach((sid, sub) -> {
-            if (sub.getDispatcher() == null && !sub.isDraining()) {
-                sendSubscriptionMessage(sub.getSID(), sub.getSubject(), sub.getQueueName(), true);
+            if (sub.getDispatcher() == null && !sub.isDraining() && !sub.isLocallyRouted()) {
+                batch.add(sub.getSID(), sub.getSubject(), sub.getQueueName());
             }
         });
 
         this.dispatchers.forEach((nuid, d) -> {
             if (!d.isDraining()) {
-                d.resendSubscriptions();
+                d.resendSubscriptions(batch);
             }
         });
 
+        if (localRouter != null) {
+            localRouter.resendInterests(batch);
+        }
+
+        batch.flush();
+
         try {
             this.flush(this.options.getConnectionTimeout());
         } catch (Exception exp) {
             this.processException(exp);
         }
 
+        if (localRouter != null) {
+            localRouter.resubscribed();
+        }
+
         // When the flush returns we are done sending internal messages, so we can
         // switch to the
         // non-reconnect queue
         this.writer.setReconnectMode(false);
 
         processConnectionEvent(Events.RESUBSCRIBED);
+
+        startOutboxReplay();
+    }
+
+    private void startOutboxReplay() {
+        DiskOutbox box = this.outbox;
+        if (box != null && box.hasPending() && outboxReplaying.compareAndSet(false, true)) {
+            executor.submit(() -> replayOutbox(box));
+        }
+    }
+
+    // Sends the outbox in order, only taking more from disk while the outgoing queue is
+    // below the reconnect buffer size, so memory stays bounded however big the outbox is.
+    // A record stays pending until it is in the outgoing queue, so publishes made meanwhile
+    // go into the outbox behind it. When the queue is full the replay stops, and the writer
+    // starts it again once the queue has drained below the window.
+    private void replayOutbox(DiskOutbox box) {
+        long window = options.getReconnectBufferSize() > 0 ? options.getReconnectBufferSize() : Options.DEFAULT_RECONNECT_BUF_SIZE;
+        boolean waitForDrain = false;
+        try {
+            while (isConnected()) {
+                if (writer.outgoingSizeInBytes() >= window) {
+                    waitForDrain = true;
+                    break;
+                }
+                NatsMessage msg = box.peek();
+                if (msg == null) {
+                    break;
+                }
+                queueOutgoing(msg);
+                box.commit();
+            }
+        } catch (Exception e) {
+            processException(e);
+        } finally {
+            outboxReplaying.set(false);
+        }
+
+        if (waitForDrain) {
+            writer.whenDrainedBelow(window, () -> {
+                try {
+                    startOutboxReplay();
+                } catch (RejectedExecutionException e) {
+                    // closing, what is left stays on disk
+                }
+            });
+        }
+        else if (isConnected() && box.hasPending()) {
+            // the connection may have come back while this was stopping
+            startOutboxReplay();
+        }
     }
 
     void timeTrace(boolean trace, String format, Object... args) {
@@ -405,7 +510,7 @@ class NatsConnection implements Connection {
             };
 
             timeoutNanos = timeCheck(trace, end, "reading info, version and upgrading to secure if necessary");
-            Future<Object> future = this.connectExecutor.submit(connectTask);
+            Future<Object> future = this.executor.submit(connectTask);
             try {
                 future.get(timeoutNanos, TimeUnit.NANOSECONDS);
             } finally {
@@ -428,31 +533,26 @@ class NatsConnection implements Connection {
                 pongFuture.get(timeoutNanos, TimeUnit.NANOSECONDS);
             }
 
-            if (this.timer == null) {
+            if (this.timers == null) {
                 timeCheck(trace, end, "starting ping and cleanup timers");
-                this.timer = new Timer("Nats Connection Timer");
+                List<ScheduledFuture<?>> started = new ArrayList<>(2);
 
                 long pingMillis = this.options.getPingInterval().toMillis();
 
                 if (pingMillis > 0) {
-                    this.timer.schedule(new TimerTask() {
-                        public void run() {
-                            if (isConnected()) {
-                                softPing(); // The timer always uses the standard queue
-                            }
+                    started.add(scheduleRepeating(() -> {
+                        if (isConnected()) {
+                            softPing(); // The timer always uses the standard queue
                         }
-                    }, pingMillis, pingMillis);
+                    }, pingMillis));
                 }
 
                 long cleanMillis = this.options.getRequestCleanupInterval().toMillis();
 
                 if (cleanMillis > 0) {
-                    this.timer.schedule(new TimerTask() {
-                        public void run() {
-                            cleanResponses(false);
-                        }
-                    }, cleanMillis, cleanMillis);
+                    started.add(scheduleRepeating(() -> cleanResponses(false), cleanMillis));
                 }
+                this.timers = started;
             }
 
             // Set connected status
@@ -625,10 +725,13 @@ class NatsConnection implements Connection {
         this.dispatchers.clear();
         this.subscribers.clear();
 
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
+        List<ScheduledFuture<?>> running = this.timers;
+        if (running != null) {
+            this.timers = null; // also drops one off tasks that have not run yet
+            running.forEach(f -> f.cancel(false));
         }
+        onceTimers.forEach(f -> f.cancel(false));
+        onceTimers.clear();
 
         cleanResponses(true);
 
@@ -655,8 +758,14 @@ class NatsConnection implements Connection {
             callbackRunner.shutdownNow();
         }
 
-        // There's no need to wait for running tasks since we're told to close
-        connectExecutor.shutdownNow();
+        DiskOutbox box = this.outbox;
+        if (box != null) {
+            try {
+                box.close(); // what was not sent stays on disk for the next connection
+            } catch (IOException e) {
+                processException(e);
+            }
+        }
 
         statusLock.lock();
         try {
@@ -745,24 +854,98 @@ class NatsConnection implements Connection {
     void publishInternal(String subject, String replyTo, Headers headers, byte[] data, boolean utf8mode) {
         checkIfNeedsHeaderSupport(headers);
         checkPayloadSize(data);
+        queuePublish(new NatsMessage(subject, replyTo, copyUnlessFrozen(headers), data, utf8mode));
+    }
+
+    // the caller may change their headers after publish returns, unless they are frozen
+    private static Headers copyUnlessFrozen(Headers headers) {
+        return headers != null && headers.isFrozen() ? headers : new Headers(headers);
+    }
+
+    /**
+     * Publish a message the caller built and will not change, such as one with headers
+     * serialized up front, without copying its headers.
+     */
+    void publishInternal(NatsMessage nm) {
+        if (nm.hasHeaders() && !serverInfo.get().isHeadersSupported()) {
+            throw new IllegalArgumentException(
+                    "Headers are not supported by the server, version: " + serverInfo.get().getVersion());
+        }
+        checkPayloadSize(nm.getData());
+        queuePublish(nm);
+    }
+
+    /**
+     * Publish the same small payload to each of the subjects, packed into a few protocol messages
+     * instead of one message per publish, see {@link PublishBatch}. Used to pipeline acks.
+     */
+    void publishBatch(List<String> subjects, byte[] data) {
+        if (isClosed()) {
+            throw new IllegalStateException("Connection is Closed");
+        } else if (blockPublishForDrain.get()) {
+            throw new IllegalStateException("Connection is Draining");
+        }
 
+        PublishBatch batch = new PublishBatch(options.getBufferSize(), options.getMaxControlLine(),
+                this.writer::queueInternalMessage);
+        for (String subject : subjects) {
+            batch.add(subject, data);
+        }
+        batch.flush();
+    }
+
+    private void queuePublish(NatsMessage nm) {
         if (isClosed()) {
             throw new IllegalStateException("Connection is Closed");
         } else if (blockPublishForDrain.get()) {
             throw new IllegalStateException("Connection is Draining"); // Ok to publish while waiting on subs
         }
 
-        NatsMessage nm = new NatsMessage(subject, replyTo, new Headers(headers), data, utf8mode);
+        if (loopback == null) {
+            sendPublish(nm);
+            return;
+        }
+
+        // the local copy is taken before the writer can get to the message,
+        // and only delivered once the message is on its way to the server
+        List<NatsSubscription> local = loopback.match(nm.getSubject());
+        NatsMessage looped = local.isEmpty() ? null : nm.copyForLoopback();
+        sendPublish(nm);
+        if (looped != null) {
+            loopback.deliver(local, looped);
+        }
+    }
+
+    private void sendPublish(NatsMessage nm) {
+        DiskOutbox box = this.outbox;
+        if (box != null) {
+            checkControlLine(nm);
+            // only lock the outbox while it has something in it
+            if (box.hasPending() && appendToOutbox(box, nm, true)) {
+                return; // messages are waiting in the outbox, this one has to go behind them
+            }
+        }
 
         Connection.Status stat = this.status;
         if ((stat == Status.RECONNECTING || stat == Status.DISCONNECTED)
                 && !this.writer.canQueue(nm, options.getReconnectBufferSize())) {
+            if (box != null && appendToOutbox(box, nm, false)) {
+                return;
+            }
             throw new IllegalStateException(
                     "Unable to queue any more messages during reconnect, max buffer is " + options.getReconnectBufferSize());
         }
         queueOutgoing(nm);
     }
 
+    private boolean appendToOutbox(DiskOutbox box, NatsMessage nm, boolean onlyIfPending) {
+        try {
+            return onlyIfPending ? box.appendIfPending(nm) : box.append(nm);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write to the reconnect outbox", e);
+        }
+    }
+
     private void checkIfNeedsHeaderSupport(Headers headers) {
         if (headers != null && !headers.isEmpty() && !serverInfo.get().isHeadersSupported()) {
             throw new IllegalArgumentException(
@@ -826,6 +1009,18 @@ class NatsConnection implements Connection {
 
         subscribers.remove(sid);
 
+        if (sub.isLocallyRouted()) {
+            localRouter.remove(sub);
+        }
+
+        if (loopback != null) {
+            loopback.remove(sub);
+        }
+
+        if (metricsRegistry != null) {
+            metricsRegistry.unregister(sub);
+        }
+
         if (sub.getNatsDispatcher() != null) {
             sub.getNatsDispatcher().remove(sub);
         }
@@ -856,10 +1051,24 @@ class NatsConnection implements Connection {
     }
 
     void sendUnsub(NatsSubscription sub, int after) {
+        if (after <= 0 && loopback != null) {
+            loopback.remove(sub); // the server stops now, so does local delivery
+        }
+        if (sub.isLocallyRouted()) {
+            // the server never saw this subscription, it only has to stop being routed
+            if (after <= 0) {
+                localRouter.remove(sub);
+            }
+            return;
+        }
+        sendUnsub(sub.getSID(), after);
+    }
+
+    void sendUnsub(String sid, int after) {
         // allocate the proto length + 19 + 10 (sid is a long, 19 bytes max, after is an int 10 bytes max)
         ByteArrayBuilder bab = new ByteArrayBuilder(OP_UNSUB_SP_LEN + 29)
                 .append(UNSUB_SP_BYTES)
-                .append(sub.getSID());
+                .append(sid);
 
         if (after > 0) {
             bab.appendSpace().append(after);
@@ -876,20 +1085,35 @@ class NatsConnection implements Connection {
         }
 
         NatsSubscription sub;
-        long sidL = nextSid.getAndIncrement();
-        String sid = String.valueOf(sidL);
+        String sid = nextSid();
 
         if (isJetStream) {
             sub = new NatsJetStreamSubscription(sid, subject, queueName, this, dispatcher);
         } else {
             sub = new NatsSubscription(sid, subject, queueName, this, dispatcher);
         }
+        if (metricsRegistry != null) {
+            metricsRegistry.register(sub);
+        }
         subscribers.put(sid, sub);
 
-        sendSubscriptionMessage(sid, subject, queueName, false);
+        if (loopback != null && queueName == null) {
+            loopback.add(sub);
+        }
+
+        if (localRouter != null && queueName == null && !isJetStream) {
+            sub.setLocallyRouted();
+            localRouter.add(sub);
+        } else {
+            sendSubscriptionMessage(sid, subject, queueName, false);
+        }
         return sub;
     }
 
+    String nextSid() {
+        return String.valueOf(nextSid.getAndIncrement());
+    }
+
     void sendSubscriptionMessage(String sid, String subject, String queueName, boolean treatAsInternal) {
         if (!isConnected()) {
             return;// We will setup sub on reconnect or ignore
@@ -980,21 +1204,30 @@ class NatsConnection implements Connection {
         for (String token : toRemove) {
             responsesRespondedTo.remove(token);
         }
+
+        if (requestCoalescer != null) {
+            requestCoalescer.cleanCallers(System.nanoTime(), closing);
+        }
+
+        onceTimers.removeIf(Future::isDone); // in case a task ran before its future was known
     }
 
     @Override
     public Message request(String subject, byte[] body, Duration timeout) throws InterruptedException {
-        return requestInternal(subject, null, body, options.supportUTF8Subjects(), timeout, true);
+        return waitForReply(userRequestFuture(subject, null, body, options.supportUTF8Subjects(), timeout), timeout);
     }
 
     @Override
     public Message request(Message message, Duration timeout) throws InterruptedException {
         validateNotNull(message, "Message");
-        return requestInternal(message.getSubject(), message.getHeaders(), message.getData(), message.isUtf8mode(), timeout, true);
+        return waitForReply(userRequestFuture(message.getSubject(), message.getHeaders(), message.getData(), message.isUtf8mode(), timeout), timeout);
     }
 
     Message requestInternal(String subject, Headers headers, byte[] data, boolean utf8mode, Duration timeout, boolean cancelOn503) throws InterruptedException {
-        CompletableFuture<Message> incoming = requestFutureInternal(subject, headers, data, utf8mode, timeout, cancelOn503);
+        return waitForReply(requestFutureInternal(subject, headers, data, utf8mode, timeout, cancelOn503), timeout);
+    }
+
+    private Message waitForReply(CompletableFuture<Message> incoming, Duration timeout) throws InterruptedException {
         try {
             return incoming.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
         } catch (TimeoutException | ExecutionException | CancellationException e) {
@@ -1004,16 +1237,52 @@ class NatsConnection implements Connection {
 
     @Override
     public CompletableFuture<Message> request(String subject, byte[] body) {
-        return requestFutureInternal(subject, null, body, options.supportUTF8Subjects(), null, true);
+        return userRequestFuture(subject, null, body, options.supportUTF8Subjects(), null);
     }
 
     @Override
     public CompletableFuture<Message> request(Message message) {
         validateNotNull(message, "Message");
-        return requestFutureInternal(message.getSubject(), message.getHeaders(), message.getData(), message.isUtf8mode(), null, true);
+        return userRequestFuture(message.getSubject(), message.getHeaders(), message.getData(), message.isUtf8mode(), null);
+    }
+
+    @Override
+    public CompletableFuture<Message> request(Message message, HedgePolicy policy) {
+        return hedgedRequestFuture(message, policy, null);
+    }
+
+    @Override
+    public Message request(Message message, HedgePolicy policy, Duration timeout) throws InterruptedException {
+        return waitForReply(hedgedRequestFuture(message, policy, timeout), timeout);
+    }
+
+    private CompletableFuture<Message> hedgedRequestFuture(Message message, HedgePolicy policy, Duration futureTimeout) {
+        validateNotNull(message, "Message");
+        validateNotNull(policy, "Hedge Policy");
+        LatencyHistogram latencies = requestLatencies.computeIfAbsent(message.getSubject(), s -> new LatencyHistogram());
+        return new HedgedRequest(this, policy, latencies, message.getSubject(), message.getHeaders(),
+                message.getData(), message.isUtf8mode(), futureTimeout).start();
+    }
+
+    // Requests made through the public api can be coalesced, internal ones (i.e. JetStream) never are
+    private CompletableFuture<Message> userRequestFuture(String subject, Headers headers, byte[] data, boolean utf8mode, Duration futureTimeout) {
+        if (requestCoalescer != null && (headers == null || headers.isEmpty())) {
+            // the shared request has no deadline, each caller is timed out on its own
+            return requestCoalescer.request(subject, data, futureTimeout,
+                    () -> requestFutureInternal(subject, null, data, utf8mode, null, true));
+        }
+        return requestFutureInternal(subject, headers, data, utf8mode, futureTimeout, true);
     }
 
     CompletableFuture<Message> requestFutureInternal(String subject, Headers headers, byte[] data, boolean utf8mode, Duration futureTimeout, boolean cancelOn503) {
+        NatsRequestCompletableFuture future = new NatsRequestCompletableFuture(cancelOn503, futureTimeout);
+        sendRequest(future, subject, headers, data, utf8mode);
+        return future;
+    }
+
+    // Registers the future as awaiting a response and publishes the request,
+    // returns the key the future is registered under
+    String sendRequest(NatsRequestCompletableFuture future, String subject, Headers headers, byte[] data, boolean utf8mode) {
         checkPayloadSize(data);
 
         if (isClosed()) {
@@ -1035,11 +1304,10 @@ class NatsConnection implements Connection {
 
         boolean oldStyle = options.isOldRequestStyle();
         String responseInbox = oldStyle ? createInbox() : createResponseInbox(this.mainInbox);
-        String responseToken = getResponseToken(responseInbox);
-        NatsRequestCompletableFuture future = new NatsRequestCompletableFuture(cancelOn503, futureTimeout);
+        String responseKey = getResponseToken(responseInbox);
 
         if (!oldStyle) {
-            responsesAwaiting.put(responseToken, future);
+            responsesAwaiting.put(responseKey, future);
         }
         statistics.incrementOutstandingRequests();
 
@@ -1053,14 +1321,23 @@ class NatsConnection implements Connection {
                     dispatcher.unsubscribe(responseInbox);
                 }
             });
-            responsesAwaiting.put(sub.getSID(), future);
+            responseKey = sub.getSID();
+            responsesAwaiting.put(responseKey, future);
         }
 
         publishInternal(subject, responseInbox, headers, data, utf8mode);
         writer.flushBuffer();
         statistics.incrementRequestsSent();
 
-        return future;
+        return responseKey;
+    }
+
+    // Cancels a request that is no longer wanted and stops waiting for its response
+    void abandonRequest(String responseKey, NatsRequestCompletableFuture future) {
+        if (responsesAwaiting.remove(responseKey, future)) {
+            statistics.decrementOutstandingRequests();
+        }
+        future.cancel(true);
     }
 
     void deliverReply(Message msg) {
@@ -1076,6 +1353,7 @@ class NatsConnection implements Connection {
                 f.cancel(true);
             }
             else {
+                statistics.registerRequestLatency(System.nanoTime() - f.getStartNanos());
                 f.complete(msg);
             }
             statistics.incrementRepliesReceived();
@@ -1180,6 +1458,83 @@ class NatsConnection implements Connection {
         }
     }
 
+    // Runs the task once after the delay, on the connection's executor,
+    // the task is dropped if the timers are not running, then or when it comes due
+    void scheduleOnce(Runnable task, long delayNanos) {
+        if (this.timers == null) {
+            return;
+        }
+        OnceTask once = new OnceTask(task);
+        try {
+            ScheduledFuture<?> future = scheduler.schedule(once, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+            once.future = future;
+            onceTimers.add(future);
+            if (future.isDone() || this.timers == null) {
+                onceTimers.remove(future); // ran or closed while this was adding it
+            }
+        } catch (RejectedExecutionException e) {
+            // the scheduler was shut down by its owner
+        }
+    }
+
+    private class OnceTask implements Runnable {
+        private final Runnable task;
+        private volatile ScheduledFuture<?> future;
+
+        OnceTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                onceTimers.remove(f);
+            }
+            if (timers != null) {
+                handOff(task);
+            }
+        }
+    }
+
+    // Only hands the task off on the scheduler thread, the run is skipped while the last one is still going
+    private ScheduledFuture<?> scheduleRepeating(Runnable task, long periodMillis) {
+        AtomicBoolean running = new AtomicBoolean();
+        Runnable once = () -> {
+            try {
+                task.run();
+            } finally {
+                running.set(false);
+            }
+        };
+        return scheduler.scheduleWithFixedDelay(() -> {
+            if (running.compareAndSet(false, true) && !handOff(once)) {
+                running.set(false);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // The scheduler may be shared by every connection, and scheduled work can block, for instance
+    // publishing into a full outgoing queue, so it runs on the connection's executor instead.
+    // Returns false if the executor no longer takes tasks.
+    private boolean handOff(Runnable task) {
+        try {
+            executor.execute(() -> runScheduled(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false; // closing
+        }
+    }
+
+    // An exception must not cancel a repeating task or reach other connections
+    private void runScheduled(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            processException(e);
+        }
+    }
+
     void sendConnect(String serverURI) throws IOException {
         try {
             ServerInfo info = this.serverInfo.get();
@@ -1229,6 +1584,11 @@ class NatsConnection implements Connection {
         NatsMessage msg = new ProtocolMessage(OP_PING_BYTES);
         pongQueue.add(pongFuture);
 
+        if (statistics.isTrackAdvanced()) {
+            long start = System.nanoTime();
+            pongFuture.thenRun(() -> statistics.registerPingLatency(System.nanoTime() - start));
+        }
+
         if (treatAsInternal) {
             queueInternalOutgoing(msg);
         } else {
@@ -1324,9 +1684,7 @@ class NatsConnection implements Connection {
     }
 
     void queueOutgoing(NatsMessage msg) {
-        if (msg.getControlLineLength() > this.options.getMaxControlLine()) {
-            throw new IllegalArgumentException("Control line is too long");
-        }
+        checkControlLine(msg);
         if (!this.writer.queue(msg)) {
             ErrorListener errorListener = this.options.getErrorListener();
             if (errorListener != null) {
@@ -1335,10 +1693,14 @@ class NatsConnection implements Connection {
         }
     }
 
-    void queueInternalOutgoing(NatsMessage msg) {
+    private void checkControlLine(NatsMessage msg) {
         if (msg.getControlLineLength() > this.options.getMaxControlLine()) {
             throw new IllegalArgumentException("Control line is too long");
         }
+    }
+
+    void queueInternalOutgoing(NatsMessage msg) {
+        checkControlLine(msg);
         this.writer.queueInternalMessage(msg);
     }
 
@@ -1350,32 +1712,48 @@ class NatsConnection implements Connection {
         NatsSubscription sub = subscribers.get(msg.getSID());
 
         if (sub != null) {
-            msg.setSubscription(sub);
+            deliverToSubscription(sub, msg);
+        }
+        else if (localRouter != null) {
+            localRouter.deliver(msg);
+        }
+//        else {
+//            // Drop messages we don't have a subscriber for (could be extras on an
+//            // auto-unsub for example)
+//        }
+    }
 
-            NatsDispatcher d = sub.getNatsDispatcher();
-            NatsConsumer c = (d == null) ? sub : d;
-            MessageQueue q = ((d == null) ? sub.getMessageQueue() : d.getMessageQueue());
+    void deliverToSubscription(NatsSubscription sub, NatsMessage msg) {
+        msg.setSubscription(sub);
 
-            if (c.hasReachedPendingLimits()) {
-                // Drop the message and count it
-                this.statistics.incrementDroppedCount();
-                c.incrementDroppedCount();
+        if (sub.arrived(msg)) {
+            return;
+        }
 
-                // Notify the first time
-                if (!c.isMarkedSlow()) {
-                    c.markSlow();
-                    processSlowConsumer(c);
-                }
-            } else if (q != null) {
-                c.markNotSlow();
-                q.push(msg);
+        NatsDispatcher d = sub.getNatsDispatcher();
+        NatsConsumer c = (d == null) ? sub : d;
+        MessageQueue q = ((d == null) ? sub.getMessageQueue() : d.getMessageQueue());
+
+        if (c.hasReachedPendingLimits()) {
+            // Drop the message and count it
+            this.statistics.incrementDroppedCount();
+            c.incrementDroppedCount();
+            if (metricsRegistry != null) {
+                metricsRegistry.dropped(sub, msg.getSubject());
             }
 
+            // Notify the first time
+            if (!c.isMarkedSlow()) {
+                c.markSlow();
+                processSlowConsumer(c);
+            }
+        } else if (q != null) {
+            c.markNotSlow();
+            q.push(msg);
+            if (metricsRegistry != null) {
+                metricsRegistry.received(sub, msg.getSubject(), msg.getSizeInBytes());
+            }
         }
-//        else {
-//            // Drop messages we don't have a subscriber for (could be extras on an
-//            // auto-unsub for example)
-//        }
     }
 
     void processOK() {
@@ -1400,6 +1778,24 @@ class NatsConnection implements Connection {
         }
     }
 
+    void processHeartbeatAlarm(JetStreamSubscription sub, Duration sinceLastActivity) {
+        ErrorListener handler = this.options.getErrorListener();
+
+        if (handler != null && !this.callbackRunner.isShutdown()) {
+            try {
+                this.callbackRunner.execute(() -> {
+                    try {
+                        handler.heartbeatAlarm(this, sub, sinceLastActivity);
+                    } catch (Exception ex) {
+                        this.statistics.incrementExceptionCount();
+                    }
+                });
+            } catch (RejectedExecutionException re) {
+                // Timing with shutdown, let it go
+            }
+        }
+    }
+
     void processException(Exception exp) {
         ErrorListener handler = this.options.getErrorListener();
 
@@ -1486,6 +1882,18 @@ class NatsConnection implements Connection {
         return this.statistics;
     }
 
+    @Override
+    public MetricsSnapshot getMetricsSnapshot() {
+        if (metricsRegistry == null) {
+            return new MetricsSnapshot(System.currentTimeMillis(), new ArrayList<>(), new ArrayList<>(), null);
+        }
+        return metricsRegistry.snapshot();
+    }
+
+    MetricsRegistry getMetricsRegistry() {
+        return this.metricsRegistry;
+    }
+
     NatsStatistics getNatsStatistics() {
         return this.statistics;
     }
@@ -1524,6 +1932,27 @@ class NatsConnection implements Connection {
         return options.isNoRandomize() ? getServersList() : shuffle(getServersList());
     }
 
+    private List<String> orderServers(List<String> servers) throws InterruptedException {
+        if (serverProber == null) {
+            return servers;
+        }
+        timeTrace(options.isTraceConnection(), "probing servers");
+        return serverProber.order(servers);
+    }
+
+    private void recordServerFailure(String server) {
+        if (serverProber != null) {
+            serverProber.recordFailure(server);
+        }
+    }
+
+    /**
+     * @return the round trip times measured by server probing, empty if probing is off
+     */
+    Map<String, Duration> getServerRtts() {
+        return serverProber == null ? Collections.emptyMap() : serverProber.getRttTable();
+    }
+
     private List<String> shuffle(List<String> servers) {
         if (servers.size() > 1) {
             if (currentServer != null) {
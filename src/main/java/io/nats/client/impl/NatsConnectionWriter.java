@@ -24,6 +24,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static io.nats.client.support.NatsConstants.OP_PING_BYTES;
@@ -46,8 +47,13 @@ class NatsConnectionWriter implements Runnable {
     private MessageQueue outgoing;
     private MessageQueue reconnectOutgoing;
 
+    // run once, by the writer thread, when the outgoing queue drops below drainedBelow bytes
+    private final AtomicReference<Runnable> onDrained;
+    private volatile long drainedBelow;
+
     NatsConnectionWriter(NatsConnection connection) {
         this.connection = connection;
+        this.onDrained = new AtomicReference<>();
 
         this.running = new AtomicBoolean(false);
         this.reconnectMode = new AtomicBoolean(false);
@@ -62,7 +68,8 @@ class NatsConnectionWriter implements Runnable {
         
         outgoing = new MessageQueue(true,
             options.getMaxMessagesInOutgoingQueue(),
-            options.isDiscardMessagesWhenOutgoingQueueFull());
+            options.isDiscardMessagesWhenOutgoingQueueFull(),
+            connection.getNatsStatistics().outgoingQueueTracker());
 
         // The reconnect buffer contains internal messages, and we will keep it unlimited in size
         reconnectOutgoing = new MessageQueue(true, 0);
@@ -136,11 +143,7 @@ class NatsConnectionWriter implements Runnable {
             sendBuffer[sendPosition++] = '\n';
 
             if (!msg.isProtocol()) {
-                bytes = msg.getSerializedHeader();
-                if (bytes != null && bytes.length > 0) {
-                    System.arraycopy(bytes, 0, sendBuffer, sendPosition, bytes.length);
-                    sendPosition += bytes.length;
-                }
+                sendPosition = msg.serializeHeaders(sendBuffer, sendPosition);
 
                 bytes = msg.getData(); // guaranteed to not be null
                 if (bytes.length > 0) {
@@ -186,6 +189,7 @@ class NatsConnectionWriter implements Runnable {
                 }
 
                 sendMessageBatch(msg, dataPort, stats);
+                runIfDrained();
             }
         } catch (IOException | BufferOverflowException io) {
             this.connection.handleCommunicationIssue(io);
@@ -204,6 +208,29 @@ class NatsConnectionWriter implements Runnable {
         return (maxSize < 0 || (outgoing.sizeInBytes() + msg.getSizeInBytes()) < maxSize);
     }
 
+    long outgoingSizeInBytes() {
+        return outgoing.sizeInBytes();
+    }
+
+    /**
+     * Run the task once the outgoing queue is below the given size, right away if it already is.
+     * Only one task is kept, a new one replaces one that has not run yet. The task must not block.
+     */
+    void whenDrainedBelow(long bytes, Runnable task) {
+        drainedBelow = bytes;
+        onDrained.set(task);
+        runIfDrained();
+    }
+
+    private void runIfDrained() {
+        if (onDrained.get() != null && outgoing.sizeInBytes() < drainedBelow) {
+            Runnable task = onDrained.getAndSet(null);
+            if (task != null) {
+                task.run();
+            }
+        }
+    }
+
     boolean queue(NatsMessage msg) {
         return this.outgoing.push(msg);
     }
@@ -49,7 +49,7 @@ class NatsDispatcher extends NatsConsumer implements Dispatcher, Runnable {
     NatsDispatcher(NatsConnection conn, MessageHandler handler) {
         super(conn);
         this.defaultHandler = handler;
-        this.incoming = new MessageQueue(true);
+        this.incoming = new MessageQueue(true, conn.getNatsStatistics().incomingQueueTracker());
         this.subscriptionsUsingDefaultHandler = new ConcurrentHashMap<>();
         this.subscriptionsWithHandlers = new ConcurrentHashMap<>();
         this.subscriptionHandlers = new ConcurrentHashMap<>();
@@ -68,6 +68,9 @@ class NatsDispatcher extends NatsConsumer implements Dispatcher, Runnable {
     }
 
     public void run() {
+        NatsStatistics stats = this.connection.getNatsStatistics();
+        MetricsRegistry metrics = this.connection.getMetricsRegistry();
+        boolean timeHandlers = stats.isTrackAdvanced() || metrics != null;
         try {
             while (this.running.get()) {
 
@@ -94,11 +97,19 @@ class NatsDispatcher extends NatsConsumer implements Dispatcher, Runnable {
                         currentHandler = customHandler;
                     }
 
+                    long start = timeHandlers ? System.nanoTime() : 0;
                     try {
                         currentHandler.onMessage(msg);
                     } catch (Exception exp) {
                         this.connection.processException(exp);
                     }
+                    if (timeHandlers) {
+                        long elapsed = System.nanoTime() - start;
+                        stats.registerHandlerLatency(elapsed);
+                        if (metrics != null) {
+                            metrics.handled(sub, msg.getSubject(), elapsed);
+                        }
+                    }
 
                     if (sub.reachedUnsubLimit()) {
                         this.connection.invalidate(sub);
@@ -160,12 +171,16 @@ class NatsDispatcher extends NatsConsumer implements Dispatcher, Runnable {
         return incoming;
     }
 
-    void resendSubscriptions() {
+    void resendSubscriptions(SubscribeBatch batch) {
         this.subscriptionsUsingDefaultHandler.forEach((id, sub)->{
-            this.connection.sendSubscriptionMessage(sub.getSID(), sub.getSubject(), sub.getQueueName(), true);
+            if (!sub.isLocallyRouted()) {
+                batch.add(sub.getSID(), sub.getSubject(), sub.getQueueName());
+            }
         });
         this.subscriptionsWithHandlers.forEach((sid, sub)->{
-            this.connection.sendSubscriptionMessage(sub.getSID(), sub.getSubject(), sub.getQueueName(), true);
+            if (!sub.isLocallyRouted()) {
+                batch.add(sub.getSID(), sub.getSubject(), sub.getQueueName());
+            }
         });
     }
 
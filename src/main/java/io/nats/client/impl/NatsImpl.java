@@ -30,6 +30,10 @@ public class NatsImpl {
         return conn;
     }
 
+    public static Connection createShardedConnection(Options options, int shards) throws IOException, InterruptedException {
+        return ShardedConnection.connect(options, shards);
+    }
+
     public static Statistics createEmptyStats() {
         return new NatsStatistics(false);
     }
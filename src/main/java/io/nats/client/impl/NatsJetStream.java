@@ -6,17 +6,29 @@ import io.nats.client.support.NatsJetStreamConstants;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import static io.nats.client.support.ApiConstants.SEQ;
+import static io.nats.client.support.ApiConstants.SUBJECT;
 import static io.nats.client.support.JsonUtils.simpleMessageBody;
 import static io.nats.client.support.Validator.*;
 
 public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStreamConstants {
 
+    private static final Duration BULK_LOOKUP_TTL = Duration.ofMinutes(1);
+
     private final NatsConnection conn;
     private final JetStreamOptions jso;
+    private final JetStreamLookupCache lookupCache;
 
     // ----------------------------------------------------------------------------------------------------
     // Create / Init
@@ -24,6 +36,7 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
     NatsJetStream(NatsConnection connection, JetStreamOptions jsOptions) throws IOException {
         conn = connection;
         jso = JetStreamOptions.builder(jsOptions).build(); // builder handles null
+        lookupCache = new JetStreamLookupCache(jso.getLookupCacheTtl());
 
         checkEnabled();
     }
@@ -73,6 +86,7 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
             throw new IllegalArgumentException("Configuration must have a valid stream name");
         }
 
+        lookupCache.invalidateStream(streamName); // subjects may move
         String subj = String.format(template, streamName);
         Message resp = makeRequestResponseRequired(subj, config.toJson().getBytes(), jso.getRequestTimeout());
         return new StreamInfo(resp).throwOnHasError();
@@ -80,6 +94,7 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
 
     @Override
     public boolean deleteStream(String streamName) throws IOException, JetStreamApiException {
+        lookupCache.invalidateStream(streamName);
         String subj = String.format(JSAPI_STREAM_DELETE, streamName);
         Message resp = makeRequestResponseRequired(subj, null, jso.getRequestTimeout());
         return new SuccessApiResponse(resp).throwOnHasError().getSuccess();
@@ -116,7 +131,7 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
         return addOrUpdateConsumerInternal(streamName, config);
     }
 
-    private ConsumerInfo addOrUpdateConsumerInternal(String streamName, ConsumerConfiguration config) throws IOException, JetStreamApiException {
+    ConsumerInfo addOrUpdateConsumerInternal(String streamName, ConsumerConfiguration config) throws IOException, JetStreamApiException {
         String durable = config.getDurable();
         String requestJSON = new ConsumerCreateRequest(streamName, config).toJson();
 
@@ -127,7 +142,17 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
             subj = String.format(JSAPI_DURABLE_CREATE, streamName, durable);
         }
         Message resp = makeRequestResponseRequired(subj, requestJSON.getBytes(), conn.getOptions().getConnectionTimeout());
-        return new ConsumerInfo(resp).throwOnHasError();
+        ConsumerInfo ci = new ConsumerInfo(resp);
+        if (ci.hasError()) {
+            if (durable != null) {
+                lookupCache.invalidateConsumer(streamName, durable);
+            }
+            ci.throwOnHasError();
+        }
+        if (durable != null) {
+            lookupCache.putConsumer(streamName, ci);
+        }
+        return ci;
     }
 
     /**
@@ -135,6 +160,7 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
      */
     @Override
     public boolean deleteConsumer(String streamName, String consumer) throws IOException, JetStreamApiException {
+        lookupCache.invalidateConsumer(streamName, consumer);
         String subj = String.format(JSAPI_CONSUMER_DELETE, streamName, consumer);
         Message resp = makeRequestResponseRequired(subj, null, jso.getRequestTimeout());
         return new SuccessApiResponse(resp).throwOnHasError().getSuccess();
@@ -158,13 +184,24 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
     // TODO FUTURE resurface this api publicly when server supports
     // @Override
     private List<String> getConsumerNames(String streamName, String filter) throws IOException, JetStreamApiException {
+        return consumerNamesPager(streamName, filter).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<String> getConsumerNamesIterator(String streamName) throws IOException, JetStreamApiException {
+        return consumerNamesPager(streamName, null);
+    }
+
+    private ListPager<String> consumerNamesPager(String streamName, String filter) throws IOException, JetStreamApiException {
         String subj = String.format(JSAPI_CONSUMER_NAMES, streamName);
-        ConsumerNamesReader cnr = new ConsumerNamesReader();
-        while (cnr.hasMore()) {
-            Message resp = makeRequestResponseRequired(subj, cnr.nextJson(filter), jso.getRequestTimeout());
-            cnr.process(resp);
-        }
-        return cnr.getStrings();
+        return pager(subj, SUBJECT, filter, engine -> {
+            ConsumerNamesReader cnr = new ConsumerNamesReader();
+            cnr.process(engine);
+            return cnr.getStrings();
+        });
     }
 
     /**
@@ -172,33 +209,74 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
      */
     @Override
     public List<ConsumerInfo> getConsumers(String streamName) throws IOException, JetStreamApiException {
+        return consumersPager(streamName).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<ConsumerInfo> getConsumersIterator(String streamName) throws IOException, JetStreamApiException {
+        return consumersPager(streamName);
+    }
+
+    private ListPager<ConsumerInfo> consumersPager(String streamName) throws IOException, JetStreamApiException {
         String subj = String.format(JSAPI_CONSUMER_LIST, streamName);
-        ConsumerListReader clg = new ConsumerListReader();
-        while (clg.hasMore()) {
-            Message resp = makeRequestResponseRequired(subj, clg.nextJson(), jso.getRequestTimeout());
-            clg.process(resp);
-        }
-        return clg.getConsumers();
+        return pager(subj, null, null, engine -> {
+            ConsumerListReader clr = new ConsumerListReader();
+            clr.process(engine);
+            return clr.getConsumers();
+        });
     }
 
     @Override
     public List<String> getStreamNames() throws IOException, JetStreamApiException {
-        StreamNamesReader snr = new StreamNamesReader();
-        while (snr.hasMore()) {
-            Message resp = makeRequestResponseRequired(JSAPI_STREAMS, snr.nextJson(), jso.getRequestTimeout());
-            snr.process(resp);
-        }
-        return snr.getStrings();
+        return streamNamesPager().toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<String> getStreamNamesIterator() throws IOException, JetStreamApiException {
+        return streamNamesPager();
+    }
+
+    private ListPager<String> streamNamesPager() throws IOException, JetStreamApiException {
+        return pager(JSAPI_STREAMS, null, null, engine -> {
+            StreamNamesReader snr = new StreamNamesReader();
+            snr.process(engine);
+            return snr.getStrings();
+        });
     }
 
     @Override
     public List<StreamInfo> getStreams() throws IOException, JetStreamApiException {
-        StreamListReader slg = new StreamListReader();
-        while (slg.hasMore()) {
-            Message resp = makeRequestResponseRequired(JSAPI_STREAM_LIST, slg.nextJson(), jso.getRequestTimeout());
-            slg.process(resp);
-        }
-        return slg.getStreams();
+        return streamsPager().toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<StreamInfo> getStreamsIterator() throws IOException, JetStreamApiException {
+        return streamsPager();
+    }
+
+    private ListPager<StreamInfo> streamsPager() throws IOException, JetStreamApiException {
+        return pager(JSAPI_STREAM_LIST, null, null, engine -> {
+            StreamListReader slr = new StreamListReader();
+            slr.process(engine);
+            return slr.getStreams();
+        });
+    }
+
+    private <T> ListPager<T> pager(String subject, String filterFieldName, String filter,
+                                   Function<ListRequestEngine, List<T>> reader) throws IOException, JetStreamApiException {
+        String prefixed = prependPrefix(subject);
+        return new ListPager<>(
+                offset -> conn.request(prefixed, ListRequestEngine.offsetJson(offset, filterFieldName, filter)),
+                reader, jso.getRequestTimeout(), ListPager.DEFAULT_PAGES_AHEAD).start();
     }
 
     @Override
@@ -287,6 +365,14 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
         return publishAsyncInternal(message.getSubject(), message.getHeaders(), message.getData(), message.isUtf8mode(), options, null);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JetStreamPublisher publisher(JetStreamPublisherOptions options) {
+        return new NatsJetStreamPublisher(conn, this, options == null ? JetStreamPublisherOptions.builder().build() : options);
+    }
+
     private PublishAck publishSyncInternal(String subject, Headers headers, byte[] data, PublishOptions options) throws IOException, JetStreamApiException {
         return publishSyncInternal(subject, headers, data, false, options);
     }
@@ -331,7 +417,7 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
         });
     }
 
-    private PublishAck processPublishResponse(Message resp, PublishOptions options) throws IOException, JetStreamApiException {
+    PublishAck processPublishResponse(Message resp, PublishOptions options) throws IOException, JetStreamApiException {
         if (resp.isStatusMessage()) {
             if (resp.getStatus().getCode() == 503) {
                 throw new IOException("Error Publishing: No stream available.");
@@ -350,11 +436,12 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
         return ack;
     }
 
-    private Headers mergePublishOptions(Headers headers, PublishOptions options) {
+    Headers mergePublishOptions(Headers headers, PublishOptions options) {
         Headers piHeaders;
 
         if (options == null) {
-            piHeaders = headers == null ? null : new Headers(headers);
+            // frozen headers can't change, so they can be shared instead of copied
+            piHeaders = headers == null || headers.isFrozen() ? headers : new Headers(headers);
         }
         else {
             piHeaders = new Headers(headers);
@@ -394,6 +481,14 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
                                                  NatsDispatcher dispatcher, MessageHandler handler, boolean autoAck,
                                                  PushSubscribeOptions pushSubscribeOptions,
                                                  PullSubscribeOptions pullSubscribeOptions) throws IOException, JetStreamApiException {
+        return createSubscription(subject, queueName, dispatcher, handler, autoAck, pushSubscribeOptions, pullSubscribeOptions, lookupCache);
+    }
+
+    NatsJetStreamSubscription createSubscription(String subject, String queueName,
+                                                 NatsDispatcher dispatcher, MessageHandler handler, boolean autoAck,
+                                                 PushSubscribeOptions pushSubscribeOptions,
+                                                 PullSubscribeOptions pullSubscribeOptions,
+                                                 JetStreamLookupCache lookups) throws IOException, JetStreamApiException {
         // first things first...
         boolean isPullMode = pullSubscribeOptions != null;
 
@@ -418,18 +513,38 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
 
         String durable = ccBuilder.getDurable();
         String inbox = ccBuilder.getDeliverSubject();
+        boolean isOrdered = !isPullMode && ((PushSubscribeOptions) so).isOrdered();
+        if (isOrdered && queueName != null) {
+            throw new IllegalArgumentException("An ordered consumer cannot be in a queue.");
+        }
 
         boolean createConsumer = true;
+        ConsumerConfiguration existingConfig = null;
 
         // 1. Did they tell me what stream? No? look it up
         if (stream == null) {
-            stream = lookupStreamBySubject(subject);
+            stream = lookups.getStream(subject);
+            if (stream == null) {
+                stream = lookupStreamBySubject(subject);
+                lookups.putStream(subject, stream);
+            }
         }
 
         // 2. Is this a durable or ephemeral
         if (durable != null) {
-            ConsumerInfo consumerInfo =
-                    lookupConsumerInfo(stream, durable);
+            ConsumerInfo consumerInfo = lookups.getConsumer(stream, durable);
+            if (consumerInfo == null) {
+                try {
+                    consumerInfo = lookupConsumerInfo(stream, durable);
+                }
+                catch (JetStreamApiException e) {
+                    lookups.invalidateStream(stream); // i.e. the stream is gone
+                    throw e;
+                }
+                if (consumerInfo != null) {
+                    lookups.putConsumer(stream, consumerInfo);
+                }
+            }
 
             if (consumerInfo != null) { // consumer for that durable already exists
                 createConsumer = false;
@@ -444,6 +559,7 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
 
                 // use the deliver subject as the inbox. It may be null, that's ok
                 inbox = cc.getDeliverSubject();
+                existingConfig = cc;
             }
         }
 
@@ -464,6 +580,7 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
             } else {
                 mh = handler;
             }
+            mh = new JetStreamMessageHandler(mh);
             sub = (NatsJetStreamSubscription) dispatcher.subscribeImpl(inbox, queueName, mh, true);
         }
 
@@ -486,11 +603,21 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
             // being discussed if this is correct, but leave it for now.
             ccBuilder.filterSubject(subject);
 
+            ConsumerConfiguration cc = ccBuilder.build();
+
+            // an ordered consumer checks messages from the moment the consumer exists
+            OrderedConsumer ordered = null;
+            if (isOrdered) {
+                ordered = new OrderedConsumer(this, conn, sub, stream, cc, conn.getExecutor());
+                sub.setOrderedConsumer(ordered);
+            }
+
             // createOrUpdateConsumer can fail for security reasons, maybe other reasons?
             ConsumerInfo ci;
             try {
-                ci = addOrUpdateConsumerInternal(stream, ccBuilder.build());
+                ci = addOrUpdateConsumerInternal(stream, cc);
             } catch (JetStreamApiException e) {
+                lookups.invalidateStream(stream);
                 if (dispatcher == null) {
                     sub.unsubscribe();
                 }
@@ -499,11 +626,14 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
                 }
                 throw e;
             }
-            sub.setupJetStream(this, ci.getName(), ci.getStreamName(), inbox, so);
+            sub.setupJetStream(this, ci.getName(), ci.getStreamName(), inbox, so, ci.getConsumerConfiguration());
+            if (ordered != null) {
+                ordered.created(ci.getName());
+            }
         }
         // 5-Consumer did exist.
         else {
-            sub.setupJetStream(this, durable, stream, inbox, so);
+            sub.setupJetStream(this, durable, stream, inbox, so, existingConfig);
         }
 
         return sub;
@@ -579,6 +709,117 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
         return createSubscription(subject, null, null, null, false, null, options);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JetStreamSubscription subscribe(String subject, Dispatcher dispatcher, MessageHandler handler, PullSubscribeOptions options) throws IOException, JetStreamApiException {
+        validateSubject(subject, true);
+        validateNotNull(dispatcher, "Dispatcher");
+        validateNotNull(handler, "Handler");
+        validateNotNull(options, "Options");
+        validateNotNull(options.getDurable(), "Durable");
+        return createSubscription(subject, null, (NatsDispatcher) dispatcher, handler, false, null, options);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JetStreamSubscription> subscribeAll(Map<String, ? extends SubscribeOptions> subscriptions) throws IOException, JetStreamApiException {
+        validateNotNull(subscriptions, "Subscriptions");
+        for (Map.Entry<String, ? extends SubscribeOptions> entry : subscriptions.entrySet()) {
+            validateSubject(entry.getKey(), true);
+            SubscribeOptions so = entry.getValue();
+            if (so instanceof PullSubscribeOptions) {
+                validateNotNull(so.getDurable(), "Durable");
+            }
+            else if (so != null && !(so instanceof PushSubscribeOptions)) {
+                throw new IllegalArgumentException("Options must be push or pull subscribe options.");
+            }
+        }
+
+        // without a context cache, the lookups only need to live as long as this call
+        JetStreamLookupCache lookups = lookupCache.isEnabled() ? lookupCache : new JetStreamLookupCache(BULK_LOOKUP_TTL);
+        prefetchLookups(subscriptions, lookups);
+
+        List<JetStreamSubscription> subs = new ArrayList<>(subscriptions.size());
+        try {
+            for (Map.Entry<String, ? extends SubscribeOptions> entry : subscriptions.entrySet()) {
+                SubscribeOptions so = entry.getValue();
+                if (so instanceof PullSubscribeOptions) {
+                    subs.add(createSubscription(entry.getKey(), null, null, null, false, null, (PullSubscribeOptions) so, lookups));
+                }
+                else {
+                    subs.add(createSubscription(entry.getKey(), null, null, null, false, (PushSubscribeOptions) so, null, lookups));
+                }
+            }
+        }
+        catch (IOException | JetStreamApiException | RuntimeException e) {
+            for (JetStreamSubscription sub : subs) {
+                try {
+                    sub.unsubscribe();
+                }
+                catch (IllegalStateException ignore) {
+                    // already closed
+                }
+            }
+            throw e;
+        }
+        return subs;
+    }
+
+    /**
+     * Make the stream and consumer lookups for many subscriptions at once, so the whole batch
+     * waits about one round trip for each kind of lookup instead of one per subscription.
+     */
+    private void prefetchLookups(Map<String, ? extends SubscribeOptions> subscriptions, JetStreamLookupCache lookups) throws IOException, JetStreamApiException {
+        Map<String, CompletableFuture<Message>> streamRequests = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends SubscribeOptions> entry : subscriptions.entrySet()) {
+            String subject = entry.getKey();
+            SubscribeOptions so = entry.getValue();
+            if ((so == null || so.getStream() == null) && lookups.getStream(subject) == null && !streamRequests.containsKey(subject)) {
+                streamRequests.put(subject, conn.request(prependPrefix(JSAPI_STREAMS), streamNamesRequest(subject)));
+            }
+        }
+        for (Map.Entry<String, CompletableFuture<Message>> entry : streamRequests.entrySet()) {
+            lookups.putStream(entry.getKey(), readStreamName(entry.getKey(), awaitResponse(entry.getValue())));
+        }
+
+        Map<JetStreamLookupCache.ConsumerKey, CompletableFuture<Message>> consumerRequests = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends SubscribeOptions> entry : subscriptions.entrySet()) {
+            SubscribeOptions so = entry.getValue();
+            if (so == null || so.getDurable() == null) {
+                continue;
+            }
+            String stream = so.getStream() == null ? lookups.getStream(entry.getKey()) : so.getStream();
+            JetStreamLookupCache.ConsumerKey key = new JetStreamLookupCache.ConsumerKey(stream, so.getDurable());
+            if (lookups.getConsumer(stream, so.getDurable()) == null && !consumerRequests.containsKey(key)) {
+                String subj = String.format(JSAPI_CONSUMER_INFO, stream, so.getDurable());
+                consumerRequests.put(key, conn.request(prependPrefix(subj), null));
+            }
+        }
+        for (Map.Entry<JetStreamLookupCache.ConsumerKey, CompletableFuture<Message>> entry : consumerRequests.entrySet()) {
+            ConsumerInfo ci = new ConsumerInfo(awaitResponse(entry.getValue()));
+            if (!ci.hasError()) {
+                lookups.putConsumer(entry.getKey().stream, ci);
+            }
+            else if (ci.getErrorCode() != 404 || !ci.getDescription().contains("consumer")) {
+                ci.throwOnHasError();
+            }
+            // otherwise the consumer does not exist yet and will be created when subscribing
+        }
+    }
+
+    private Message awaitResponse(CompletableFuture<Message> future) throws IOException {
+        try {
+            return responseRequired(future.get(jso.getRequestTimeout().toNanos(), TimeUnit.NANOSECONDS));
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("Timeout or no response waiting for NATS JetStream server", e);
+        }
+    }
+
     // ----------------------------------------------------------------------------------------------------
     // General Utils
     // ----------------------------------------------------------------------------------------------------
@@ -595,9 +836,16 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
     }
 
     private String lookupStreamBySubject(String subject) throws IOException, JetStreamApiException {
-        String streamRequest = String.format("{\"subject\":\"%s\"}", subject);
+        Message resp = makeRequestResponseRequired(JSAPI_STREAMS, streamNamesRequest(subject), jso.getRequestTimeout());
+        return readStreamName(subject, resp);
+    }
+
+    private static byte[] streamNamesRequest(String subject) {
+        return String.format("{\"subject\":\"%s\"}", subject).getBytes();
+    }
+
+    private static String readStreamName(String subject, Message resp) throws JetStreamApiException {
         StreamNamesReader snr = new StreamNamesReader();
-        Message resp = makeRequestResponseRequired(JSAPI_STREAMS, streamRequest.getBytes(), jso.getRequestTimeout());
         snr.process(resp);
         if (snr.getStrings().size() != 1) {
             throw new IllegalStateException("No matching streams for subject: " + subject);
@@ -624,6 +872,22 @@ public class NatsJetStream implements JetStream, JetStreamManagement, NatsJetStr
         }
     }
 
+    private static class JetStreamMessageHandler implements MessageHandler {
+        MessageHandler userMH;
+
+        // caller must ensure userMH is not null
+        JetStreamMessageHandler(MessageHandler userMH) {
+            this.userMH = userMH;
+        }
+
+        @Override
+        public void onMessage(Message msg) throws InterruptedException {
+            if (!((NatsJetStreamSubscription) msg.getSubscription()).handledInternally(msg)) {
+                userMH.onMessage(msg);
+            }
+        }
+    }
+
     // ----------------------------------------------------------------------------------------------------
     // Request Utils
     // ----------------------------------------------------------------------------------------------------
@@ -68,6 +68,14 @@ class NatsJetStreamMessage extends InternalMessage {
 
     private void ackReply(AckType ackType) {
         Connection nc = getJetStreamValidatedConnection();
+        AckBatcher batcher = getAckBatcher();
+        if (batcher != null) {
+            if (ackType == AckAck) {
+                batcher.ack(replyTo, metaData().consumerSequence());
+                return;
+            }
+            batcher.flush(); // keep acks ahead of anything sent after them
+        }
 // SFF 2021-02-25 Future ackNext() behavior
 //        if (ackType == AckNext) {
 //            byte[] bytes = ((NatsJetStreamSubscription) subscription).getPrefixedPullJson(AckNext.text);
@@ -81,6 +89,10 @@ class NatsJetStreamMessage extends InternalMessage {
 
     private void ackReplySync(AckType ackType, Duration dur) throws InterruptedException, TimeoutException {
         Connection nc = getJetStreamValidatedConnection();
+        AckBatcher batcher = getAckBatcher();
+        if (batcher != null) {
+            batcher.flush();
+        }
         if (nc.request(replyTo, ackType.bytes, dur) == null) {
             throw new TimeoutException("Ack response timed out.");
         }
@@ -92,6 +104,12 @@ class NatsJetStreamMessage extends InternalMessage {
 //                && ((NatsJetStreamSubscription) subscription).isPullMode();
 //    }
 
+    private AckBatcher getAckBatcher() {
+        return subscription instanceof NatsJetStreamSubscription
+                ? ((NatsJetStreamSubscription) subscription).getAckBatcher()
+                : null;
+    }
+
     private Connection getJetStreamValidatedConnection() {
         if (getSubscription() == null) {
             throw new IllegalStateException("Message is not bound to a subscription.");
@@ -20,28 +20,40 @@ import java.time.ZonedDateTime;
 
 /**
  * Jetstream meta data about a message, when applicable.
+ *
+ * <p>The reply subject is scanned once, numbers are read in place, and the stream name, consumer name
+ * and timestamp objects are only created when they are asked for.
  */
 public class NatsJetStreamMetaData {
 
     private static final long NANO_FACTOR = 10_00_000_000;
 
-    private final String stream;
-    private final String consumer;
+    // $JS.ACK.<stream>.<consumer>.<delivered>.<stream seq>.<consumer seq>.<timestamp>[.<pending>]
+    private static final int MIN_TOKENS = 8;
+
+    private final String replyTo;
+    private final int streamStart;
+    private final int streamEnd;
+    private final int consumerEnd;
     private final long delivered;
     private final long streamSeq;
     private final long consumerSeq;
-    private final ZonedDateTime timestamp;
-    private long pending = -1;
+    private final long timestampNanos;
+    private final long pending;
+
+    private String stream;
+    private String consumer;
+    private ZonedDateTime timestamp;
 
     @Override
     public String toString() {
         return "NatsJetStreamMetaData{" +
-                "stream='" + stream + '\'' +
-                ", consumer='" + consumer + '\'' +
+                "stream='" + getStream() + '\'' +
+                ", consumer='" + getConsumer() + '\'' +
                 ", delivered=" + delivered +
                 ", streamSeq=" + streamSeq +
                 ", consumerSeq=" + consumerSeq +
-                ", timestamp=" + timestamp +
+                ", timestamp=" + timestamp() +
                 ", pending=" + pending +
                 '}';
     }
@@ -51,27 +63,68 @@ public class NatsJetStreamMetaData {
             throwNotAJetStreamMessage(natsMessage.getReplyTo());
         }
 
-        String[] parts = natsMessage.getReplyTo().split("\\.");
-        if (parts.length < 8 || parts.length > 9 || !"ACK".equals(parts[1])) {
-            throwNotAJetStreamMessage(natsMessage.getReplyTo());
+        replyTo = natsMessage.getReplyTo();
+        int tokens = 0;
+        int tokenStart = 0;
+        int sStart = 0;
+        int sEnd = 0;
+        int cEnd = 0;
+        long d = 0;
+        long sSeq = 0;
+        long cSeq = 0;
+        long ts = 0;
+        long p = -1;
+        int len = replyTo.length();
+        for (int x = 0; x <= len; x++) {
+            if (x < len && replyTo.charAt(x) != '.') {
+                continue;
+            }
+            switch (tokens) {
+                case 0: break; // $JS
+                case 1:
+                    if (x - tokenStart != 3 || !replyTo.startsWith("ACK", tokenStart)) {
+                        throwNotAJetStreamMessage(replyTo);
+                    }
+                    break;
+                case 2: sStart = tokenStart; sEnd = x; break;
+                case 3: cEnd = x; break;
+                case 4: d = parseLong(replyTo, tokenStart, x); break;
+                case 5: sSeq = parseLong(replyTo, tokenStart, x); break;
+                case 6: cSeq = parseLong(replyTo, tokenStart, x); break;
+                case 7: ts = parseLong(replyTo, tokenStart, x); break;
+                case 8: p = parseLong(replyTo, tokenStart, x); break;
+                default: throwNotAJetStreamMessage(replyTo);
+            }
+            tokens++;
+            tokenStart = x + 1;
+        }
+        if (tokens < MIN_TOKENS) {
+            throwNotAJetStreamMessage(replyTo);
         }
 
-        stream = parts[2];
-        consumer = parts[3];
-        delivered = Long.parseLong(parts[4]);
-        streamSeq = Long.parseLong(parts[5]);
-        consumerSeq = Long.parseLong(parts[6]);
-
-        // not so clever way to separate nanos from seconds
-        long tsi = Long.parseLong(parts[7]);
-        long seconds = tsi / NANO_FACTOR;
-        int nanos = (int) (tsi - ((tsi / NANO_FACTOR) * NANO_FACTOR));
-        LocalDateTime ltd = LocalDateTime.ofEpochSecond(seconds, nanos, OffsetDateTime.now().getOffset());
-        timestamp = ZonedDateTime.of(ltd, ZoneId.systemDefault()); // I think this is safe b/c the zone should match local
-
-        if (parts.length == 9) {
-            pending = Long.parseLong(parts[8]);
+        streamStart = sStart;
+        streamEnd = sEnd;
+        consumerEnd = cEnd;
+        delivered = d;
+        streamSeq = sSeq;
+        consumerSeq = cSeq;
+        timestampNanos = ts;
+        pending = p;
+    }
+
+    private static long parseLong(String s, int start, int end) {
+        if (start == end) {
+            throw new NumberFormatException("Empty number in: " + s);
         }
+        long value = 0;
+        for (int x = start; x < end; x++) {
+            int digit = s.charAt(x) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number in: " + s);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
     }
 
     /**
@@ -80,6 +133,9 @@ public class NatsJetStreamMetaData {
      * @return the stream.
      */
     public String getStream() {
+        if (stream == null) {
+            stream = replyTo.substring(streamStart, streamEnd);
+        }
         return stream;
     }
 
@@ -89,6 +145,9 @@ public class NatsJetStreamMetaData {
      * @return the consumer.
      */
     public String getConsumer() {
+        if (consumer == null) {
+            consumer = replyTo.substring(streamEnd + 1, consumerEnd);
+        }
         return consumer;
     }
 
@@ -134,9 +193,26 @@ public class NatsJetStreamMetaData {
      * @return the timestamp
      */
     public ZonedDateTime timestamp() {
+        if (timestamp == null) {
+            // not so clever way to separate nanos from seconds
+            long seconds = timestampNanos / NANO_FACTOR;
+            int nanos = (int) (timestampNanos - (seconds * NANO_FACTOR));
+            LocalDateTime ltd = LocalDateTime.ofEpochSecond(seconds, nanos, OffsetDateTime.now().getOffset());
+            timestamp = ZonedDateTime.of(ltd, ZoneId.systemDefault()); // I think this is safe b/c the zone should match local
+        }
         return timestamp;
     }
 
+    /**
+     * Gets the timestamp of the message as nanoseconds since the epoch,
+     * without creating a date time object.
+     *
+     * @return the timestamp in nanoseconds
+     */
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
     private void throwNotAJetStreamMessage(String subject) {
         throw new IllegalArgumentException("Message is not a JetStream message.  ReplySubject: <" + subject + ">");
     }
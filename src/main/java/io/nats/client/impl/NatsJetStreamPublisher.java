@@ -0,0 +1,465 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.*;
+import io.nats.client.api.PublishAck;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static io.nats.client.support.NatsConstants.CRLF;
+import static io.nats.client.support.NatsJetStreamConstants.MSG_ID_HDR;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Every message gets the next sequence number and its ack comes back to a reply subject ending
+ * in that number. Pending acks live in a ring indexed by sequence, so acks are matched without
+ * going through the connection's awaiting responses, and the window is just a count of used slots.
+ *
+ * <p>With automatic message ids the id is a prefix unique to the publisher plus the sequence.
+ * A message with no headers or options gets its header bytes built directly from the id,
+ * without a Headers object. The ring keeps each message until it is acked, so a message whose
+ * ack times out can be sent again with the same id and the stream drops it if it already has it.
+ */
+class NatsJetStreamPublisher implements JetStreamPublisher {
+    private final NatsConnection conn;
+    private final NatsJetStream js;
+    private final int maxInFlight;
+    private final long maxInFlightBytes;
+    private final long ackTimeoutNanos;
+    private final long maxWaitNanos;
+    private final long sweepNanos;
+    private final String ackPrefix;
+    private final NatsDispatcher dispatcher;
+    private final String msgIdPrefix; // null unless ids are automatic
+    private final byte[] msgIdHeaderStart;
+    private final int maxRetries;
+
+    private final ReentrantLock lock;
+    private final Condition changed;
+    private final Slot[] ring; // guarded by lock, like everything below
+    private final int mask;
+    private long nextSeq;
+    private long oldestSeq;
+    private int inFlight;
+    private long inFlightBytes;
+    private boolean sweepScheduled;
+    private boolean closed;
+
+    NatsJetStreamPublisher(NatsConnection conn, NatsJetStream js, JetStreamPublisherOptions options) {
+        this.conn = conn;
+        this.js = js;
+        this.maxInFlight = options.getMaxInFlight();
+        this.maxInFlightBytes = options.getMaxInFlightBytes();
+        Duration ackTimeout = options.getAckTimeout() == null ? js.getRequestTimeout() : options.getAckTimeout();
+        this.ackTimeoutNanos = ackTimeout.toNanos();
+        this.maxWaitNanos = options.getMaxWait() == null ? ackTimeoutNanos : options.getMaxWait().toNanos();
+        this.sweepNanos = Math.max(ackTimeoutNanos / 4, TimeUnit.MILLISECONDS.toNanos(10));
+
+        int size = Integer.highestOneBit(Math.max(1, maxInFlight - 1)) << 1;
+        this.ring = new Slot[size];
+        for (int x = 0; x < size; x++) {
+            ring[x] = new Slot();
+        }
+        this.mask = size - 1;
+        this.nextSeq = 1;
+        this.oldestSeq = 1;
+        this.lock = new ReentrantLock();
+        this.changed = lock.newCondition();
+
+        this.maxRetries = options.getMaxRetries();
+        if (options.isAutoMessageId()) {
+            this.msgIdPrefix = NUID.nextGlobal() + "-";
+            this.msgIdHeaderStart = ("NATS/1.0" + CRLF + MSG_ID_HDR + ":" + msgIdPrefix).getBytes(US_ASCII);
+        }
+        else {
+            this.msgIdPrefix = null;
+            this.msgIdHeaderStart = null;
+        }
+
+        this.ackPrefix = conn.createInbox() + ".";
+        this.dispatcher = (NatsDispatcher) conn.createDispatcher(this::onAck);
+        this.dispatcher.subscribe(ackPrefix + "*");
+    }
+
+    @Override
+    public CompletableFuture<PublishAck> publish(String subject, byte[] body) throws IOException, InterruptedException {
+        return publishInternal(subject, null, body, false, null);
+    }
+
+    @Override
+    public CompletableFuture<PublishAck> publish(String subject, byte[] body, PublishOptions options) throws IOException, InterruptedException {
+        return publishInternal(subject, null, body, false, options);
+    }
+
+    @Override
+    public CompletableFuture<PublishAck> publish(Message message) throws IOException, InterruptedException {
+        return publishInternal(message.getSubject(), message.getHeaders(), message.getData(), message.isUtf8mode(), null);
+    }
+
+    @Override
+    public CompletableFuture<PublishAck> publish(Message message, PublishOptions options) throws IOException, InterruptedException {
+        return publishInternal(message.getSubject(), message.getHeaders(), message.getData(), message.isUtf8mode(), options);
+    }
+
+    private CompletableFuture<PublishAck> publishInternal(String subject, Headers headers, byte[] data, boolean utf8mode, PublishOptions options)
+            throws IOException, InterruptedException {
+        int size = data == null ? 0 : data.length;
+        CompletableFuture<PublishAck> future = new CompletableFuture<>();
+        long seq;
+        boolean scheduleSweep = false;
+
+        lock.lock();
+        try {
+            long waitNanos = maxWaitNanos;
+            while (!hasRoom(size)) {
+                if (waitNanos <= 0) {
+                    throw new IOException("Timed out waiting for room in the publish window.");
+                }
+                waitNanos = changed.awaitNanos(waitNanos);
+            }
+            seq = nextSeq++;
+            ring[(int) (seq & mask)].take(seq, future, size, System.nanoTime() + ackTimeoutNanos, options);
+            inFlight++;
+            inFlightBytes += size;
+            if (!sweepScheduled) {
+                sweepScheduled = true;
+                scheduleSweep = true;
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (scheduleSweep) {
+            conn.scheduleOnce(this::sweep, sweepNanos);
+        }
+
+        try {
+            NatsMessage message = buildMessage(seq, subject, headers, data, utf8mode, options);
+            if (maxRetries > 0 && (msgIdPrefix != null || (options != null && options.getMessageId() != null))) {
+                keepForRetry(seq, message);
+            }
+            conn.publishInternal(message);
+        }
+        catch (RuntimeException e) {
+            release(seq);
+            throw e;
+        }
+        return future;
+    }
+
+    private NatsMessage buildMessage(long seq, String subject, Headers headers, byte[] data, boolean utf8mode, PublishOptions options) {
+        String replyTo = ackPrefix + seq;
+        if (msgIdPrefix != null && options == null && (headers == null || headers.isEmpty()) && !utf8mode) {
+            return NatsMessage.withSerializedHeaders(subject, replyTo, msgIdHeader(seq), data);
+        }
+
+        Headers merged = js.mergePublishOptions(headers, options);
+        if (msgIdPrefix != null && (options == null || options.getMessageId() == null)) {
+            if (merged == null) {
+                merged = new Headers();
+            }
+            else if (merged.isFrozen()) {
+                // frozen headers are passed through uncopied and may be shared with other messages
+                merged = new Headers(merged);
+            }
+            merged.put(MSG_ID_HDR, msgIdPrefix + seq);
+        }
+        NatsMessage message = new NatsMessage(subject, replyTo, merged, data);
+        message.utf8mode = utf8mode;
+        return message;
+    }
+
+    private byte[] msgIdHeader(long seq) {
+        String digits = Long.toString(seq);
+        int len = msgIdHeaderStart.length;
+        byte[] bytes = new byte[len + digits.length() + 4];
+        System.arraycopy(msgIdHeaderStart, 0, bytes, 0, len);
+        for (int x = 0; x < digits.length(); x++) {
+            bytes[len++] = (byte) digits.charAt(x);
+        }
+        bytes[len++] = '\r';
+        bytes[len++] = '\n';
+        bytes[len++] = '\r';
+        bytes[len] = '\n';
+        return bytes;
+    }
+
+    /**
+     * Get the message id an automatic id publisher gives a sequence
+     */
+    String messageId(long seq) {
+        return msgIdPrefix == null ? null : msgIdPrefix + seq;
+    }
+
+    private void keepForRetry(long seq, NatsMessage message) {
+        lock.lock();
+        try {
+            Slot slot = ring[(int) (seq & mask)];
+            if (slot.seq == seq && slot.future != null) {
+                slot.message = message;
+                slot.retriesLeft = maxRetries;
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // must hold the lock
+    private boolean hasRoom(int size) {
+        if (closed) {
+            throw new IllegalStateException("Publisher is closed.");
+        }
+        if (inFlight >= maxInFlight || ring[(int) (nextSeq & mask)].future != null) {
+            return false;
+        }
+        // a message bigger than the byte window still goes once nothing else is in flight
+        return maxInFlightBytes == 0 || inFlight == 0 || inFlightBytes + size <= maxInFlightBytes;
+    }
+
+    private void onAck(Message msg) {
+        long seq = parseSeq(msg.getSubject());
+        CompletableFuture<PublishAck> future;
+        PublishOptions options;
+
+        lock.lock();
+        try {
+            Slot slot = ring[(int) (seq & mask)];
+            if (seq < 1 || slot.seq != seq || slot.future == null) {
+                return; // already timed out or closed
+            }
+            future = slot.future;
+            options = slot.options;
+            free(slot);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        try {
+            future.complete(js.processPublishResponse(msg, options));
+        }
+        catch (IOException | JetStreamApiException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void release(long seq) {
+        lock.lock();
+        try {
+            Slot slot = ring[(int) (seq & mask)];
+            if (slot.seq == seq && slot.future != null) {
+                free(slot);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // must hold the lock
+    private void free(Slot slot) {
+        inFlight--;
+        inFlightBytes -= slot.size;
+        slot.clear();
+        while (oldestSeq < nextSeq && ring[(int) (oldestSeq & mask)].future == null) {
+            oldestSeq++;
+        }
+        changed.signalAll();
+    }
+
+    private void sweep() {
+        List<CompletableFuture<PublishAck>> expired = new ArrayList<>();
+        List<Slot> retries = new ArrayList<>();
+        boolean reschedule;
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            for (long seq = oldestSeq; seq < nextSeq; seq++) {
+                Slot slot = ring[(int) (seq & mask)];
+                if (slot.seq == seq && slot.future != null && now - slot.deadline > 0) {
+                    if (slot.message != null && slot.retriesLeft > 0 && !closed) {
+                        slot.retriesLeft--;
+                        slot.deadline = now + ackTimeoutNanos;
+                        retries.add(new Slot().copyOf(slot));
+                    }
+                    else {
+                        expired.add(slot.future);
+                        free(slot);
+                    }
+                }
+            }
+            reschedule = inFlight > 0 && !closed;
+            sweepScheduled = reschedule;
+        }
+        finally {
+            lock.unlock();
+        }
+
+        for (Slot retry : retries) {
+            try {
+                conn.publishInternal(again(retry.message));
+                conn.getNatsStatistics().incrementPublishRetries();
+            }
+            catch (RuntimeException e) {
+                // i.e. closed or the reconnect buffer is full
+                release(retry.seq);
+                retry.future.completeExceptionally(new IOException("Unable to publish again: " + e.getMessage(), e));
+            }
+        }
+        for (CompletableFuture<PublishAck> future : expired) {
+            future.completeExceptionally(new IOException("Timeout or no response waiting for NATS JetStream server"));
+        }
+        if (reschedule) {
+            conn.scheduleOnce(this::sweep, sweepNanos);
+        }
+    }
+
+    @Override
+    public void flushAcks(Duration timeout) throws TimeoutException, InterruptedException {
+        lock.lock();
+        try {
+            long waitNanos = timeout == null ? 0 : timeout.toNanos();
+            while (inFlight > 0) {
+                if (waitNanos <= 0) {
+                    throw new TimeoutException("Timed out waiting for " + inFlight + " publish acks.");
+                }
+                waitNanos = changed.awaitNanos(waitNanos);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getInFlightBytes() {
+        lock.lock();
+        try {
+            return inFlightBytes;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        List<CompletableFuture<PublishAck>> pending = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Slot slot : ring) {
+                if (slot.future != null) {
+                    pending.add(slot.future);
+                    free(slot);
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        for (CompletableFuture<PublishAck> future : pending) {
+            future.completeExceptionally(new IOException("Publisher closed before the ack arrived."));
+        }
+        if (!conn.isClosed()) {
+            conn.closeDispatcher(dispatcher);
+        }
+    }
+
+    // The sequence is the last token of the reply subject
+    static long parseSeq(String subject) {
+        long seq = 0;
+        long mult = 1;
+        for (int x = subject.length() - 1; x >= 0; x--) {
+            char c = subject.charAt(x);
+            if (c == '.') {
+                return mult == 1 ? -1 : seq;
+            }
+            if (c < '0' || c > '9' || mult > 100_000_000_000_000_000L) {
+                return -1;
+            }
+            seq += (c - '0') * mult;
+            mult *= 10;
+        }
+        return -1;
+    }
+
+    // The message that was sent may still be in the outgoing queue, so it can't be queued twice
+    private static NatsMessage again(NatsMessage sent) {
+        if (sent.serializedHeaders != null) {
+            return NatsMessage.withSerializedHeaders(sent.subject, sent.replyTo, sent.serializedHeaders, sent.data);
+        }
+        NatsMessage message = new NatsMessage(sent.subject, sent.replyTo, sent.headers, sent.data);
+        message.utf8mode = sent.utf8mode;
+        return message;
+    }
+
+    static class Slot {
+        long seq;
+        CompletableFuture<PublishAck> future;
+        int size;
+        long deadline;
+        PublishOptions options;
+        NatsMessage message; // only kept when it can be retried
+        int retriesLeft;
+
+        void take(long seq, CompletableFuture<PublishAck> future, int size, long deadline, PublishOptions options) {
+            this.seq = seq;
+            this.future = future;
+            this.size = size;
+            this.deadline = deadline;
+            this.options = options;
+        }
+
+        Slot copyOf(Slot slot) {
+            this.seq = slot.seq;
+            this.future = slot.future;
+            this.message = slot.message;
+            return this;
+        }
+
+        void clear() {
+            this.future = null;
+            this.options = null;
+            this.message = null;
+        }
+    }
+}
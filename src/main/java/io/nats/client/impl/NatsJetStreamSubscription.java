@@ -14,8 +14,10 @@
 package io.nats.client.impl;
 
 import io.nats.client.*;
+import io.nats.client.api.ConsumerConfiguration;
 import io.nats.client.api.ConsumerInfo;
 import io.nats.client.support.JsonUtils;
+import io.nats.client.support.LatencyHistogram;
 import io.nats.client.support.NatsJetStreamConstants;
 
 import java.io.IOException;
@@ -24,6 +26,8 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
 
 import static io.nats.client.support.Validator.validatePullBatchSize;
 
@@ -33,33 +37,247 @@ import static io.nats.client.support.Validator.validatePullBatchSize;
 public class NatsJetStreamSubscription extends NatsSubscription implements JetStreamSubscription, NatsJetStreamConstants {
 
     private NatsJetStream js;
-    private String consumer;
+    private volatile String consumer;
     private String stream;
     private String deliver;
     private boolean isPullMode;
+    private AckBatcher ackBatcher;
+    private PullPrefetcher prefetcher;
+    private HeartbeatMonitor heartbeatMonitor;
+    private OrderedConsumer orderedConsumer;
 
     NatsJetStreamSubscription(String sid, String subject, String queueName, NatsConnection connection,
             NatsDispatcher dispatcher) {
         super(sid, subject, queueName, connection, dispatcher);
     }
 
-    void setupJetStream(NatsJetStream js, String consumer, String stream, String deliver, SubscribeOptions subscribeOptions) {
+    void setupJetStream(NatsJetStream js, String consumer, String stream, String deliver,
+                        SubscribeOptions subscribeOptions, ConsumerConfiguration consumerConfig) {
         this.js = js;
         this.consumer = consumer;
         this.stream = stream;
         this.deliver = deliver;
         isPullMode = subscribeOptions instanceof PullSubscribeOptions;
+        ackBatcher = AckBatcher.create(connection, subscribeOptions.getAckBatchOptions(), consumerConfig.getAckPolicy());
+
+        Duration idleHeartbeat = consumerConfig.getIdleHeartbeat();
+        if (!isPullMode && idleHeartbeat != null && idleHeartbeat.toNanos() > 0) {
+            heartbeatMonitor = new HeartbeatMonitor(idleHeartbeat.toNanos(), connection::scheduleOnce, since -> {
+                OrderedConsumer oc = orderedConsumer;
+                if (oc != null) {
+                    oc.stalled();
+                }
+                connection.processHeartbeatAlarm(this, Duration.ofNanos(since));
+            });
+            heartbeatMonitor.start();
+        }
+
+        if (isPullMode) {
+            PullPrefetchOptions ppo = ((PullSubscribeOptions) subscribeOptions).getPrefetchOptions();
+            if (ppo != null) {
+                prefetcher = PullPrefetcher.create(connection, this, ppo);
+                prefetcher.start();
+            }
+        }
     }
 
     boolean isPullMode() {
         return isPullMode;
     }
 
+    void setOrderedConsumer(OrderedConsumer orderedConsumer) {
+        this.orderedConsumer = orderedConsumer;
+    }
+
+    OrderedConsumer getOrderedConsumer() {
+        return orderedConsumer;
+    }
+
+    void setConsumer(String consumer) {
+        this.consumer = consumer;
+    }
+
+    AckBatcher getAckBatcher() {
+        return ackBatcher;
+    }
+
+    @Override
+    void invalidate() {
+        AckBatcher batcher = ackBatcher;
+        if (batcher != null) {
+            try {
+                batcher.flush();
+            }
+            catch (IllegalStateException e) {
+                // the connection is closed, the server will redeliver
+            }
+        }
+        PullPrefetcher p = prefetcher;
+        if (p != null) {
+            p.stop();
+        }
+        HeartbeatMonitor hm = heartbeatMonitor;
+        if (hm != null) {
+            hm.stop();
+        }
+        OrderedConsumer oc = orderedConsumer;
+        if (oc != null) {
+            oc.stop();
+        }
+        super.invalidate();
+    }
+
+    @Override
+    boolean arrived(NatsMessage msg) {
+        HeartbeatMonitor hm = heartbeatMonitor;
+        if (hm != null) {
+            hm.activity();
+        }
+        if (msg.isStatusMessage()) {
+            if (!msg.getStatus().isHeartbeat()) {
+                return false;
+            }
+            // a heartbeat only shows the consumer is alive, it is never delivered, but if the
+            // consumer is stalled waiting on a lost flow control reply, answer it before dropping
+            String stalledReply = stalledFlowControlReply(msg);
+            if (stalledReply != null) {
+                connection.publish(stalledReply, null);
+            }
+            return true;
+        }
+        OrderedConsumer oc = orderedConsumer;
+        return oc != null && oc.drop(msg);
+    }
+
+    static String stalledFlowControlReply(Message msg) {
+        Headers headers = msg.getHeaders();
+        if (headers == null) {
+            return null;
+        }
+        List<String> values = headers.get(CONSUMER_STALLED_HDR);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Deal with a message the application doesn't need to see, before it is delivered.
+     * @return true if the message was used up and must not be delivered
+     */
+    boolean handledInternally(Message msg) {
+        PullPrefetcher p = prefetcher;
+        if (p != null) {
+            p.read(msg);
+            return msg.isStatusMessage(); // only ends a pull request
+        }
+        if (msg.isStatusMessage() && msg.getStatus().isFlowControl()) {
+            // reply as the message is reached, so the server only sends more once the ones before it were read
+            connection.publish(msg.getReplyTo(), null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Flow control requests are answered and not returned. When prefetching, status messages
+     * from the server only end pull requests and are not returned, and every message read lets
+     * more be requested.
+     */
+    @Override
+    public Message nextMessage(Duration timeout) throws InterruptedException, IllegalStateException {
+        if (isPullMode && prefetcher == null) {
+            return super.nextMessage(timeout);
+        }
+
+        boolean forever = timeout == null || timeout.toNanos() <= 0;
+        long end = forever ? 0 : System.nanoTime() + timeout.toNanos();
+        Duration wait = forever ? Duration.ZERO : timeout;
+        while (true) {
+            Message msg = super.nextMessage(wait);
+            if (msg == null) {
+                return null;
+            }
+            if (!handledInternally(msg)) {
+                return msg;
+            }
+            if (!forever) {
+                long left = end - System.nanoTime();
+                if (left <= 0) {
+                    return null;
+                }
+                wait = Duration.ofNanos(left);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Message> prefetchIterator() {
+        if (prefetcher == null) {
+            throw new IllegalStateException("Subscription is not prefetching.");
+        }
+
+        return new Iterator<Message>() {
+            Message msg = null;
+            boolean finished = false;
+
+            @Override
+            public boolean hasNext() {
+                while (!finished && msg == null) {
+                    try {
+                        msg = nextMessage(Duration.ZERO);
+                    }
+                    catch (IllegalStateException e) {
+                        finished = true; // unsubscribed or closed
+                    }
+                    catch (InterruptedException e) {
+                        finished = true;
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return msg != null;
+            }
+
+            @Override
+            public Message next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Message next = msg;
+                msg = null;
+                return next;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flushAcks(Duration timeout) throws TimeoutException, InterruptedException {
+        AckBatcher batcher = ackBatcher;
+        if (batcher != null) {
+            batcher.flush();
+        }
+        connection.flush(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencyHistogram getAckLag() {
+        AckBatcher batcher = ackBatcher;
+        return batcher == null ? null : batcher.getAckLag();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void pull(int batchSize) {
+        checkNotPrefetching();
         _pull(batchSize, false, null);
     }
 
@@ -68,6 +286,7 @@ public class NatsJetStreamSubscription extends NatsSubscription implements JetSt
      */
     @Override
     public void pullNoWait(int batchSize) {
+        checkNotPrefetching();
         _pull(batchSize, true, null);
     }
 
@@ -76,9 +295,20 @@ public class NatsJetStreamSubscription extends NatsSubscription implements JetSt
      */
     @Override
     public void pullExpiresIn(int batchSize, Duration expiresIn) {
+        checkNotPrefetching();
         _pull(batchSize, false, expiresIn);
     }
 
+    void prefetchPull(int batchSize, Duration expiresIn) {
+        _pull(batchSize, false, expiresIn);
+    }
+
+    private void checkNotPrefetching() {
+        if (prefetcher != null) {
+            throw new IllegalStateException("Subscription is prefetching, messages are already being pulled.");
+        }
+    }
+
     private void _pull(int batchSize, boolean noWait, Duration expiresIn) {
         if (!isPullMode()) {
             throw new IllegalStateException("Subscription type does not support pull.");
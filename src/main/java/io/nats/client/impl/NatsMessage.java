@@ -24,6 +24,7 @@ import io.nats.client.support.Status;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.concurrent.TimeoutException;
 
 import static io.nats.client.support.NatsConstants.*;
@@ -41,6 +42,7 @@ public class NatsMessage implements Message {
     protected byte[] data;
     protected boolean utf8mode;
     protected Headers headers;
+    protected byte[] serializedHeaders; // outgoing headers serialized up front, used until headers are asked for
 
     // incoming specific : subject, replyTo, data and these fields
     protected String sid;
@@ -60,6 +62,7 @@ public class NatsMessage implements Message {
     protected NatsSubscription subscription;
 
     NatsMessage next; // for linked list
+    long queuedAt; // nano time the message was put in a queue, only set when tracking queue latency
 
     // ----------------------------------------------------------------------------------------------------
     // Constructors - Prefer to use Builder
@@ -106,15 +109,28 @@ public class NatsMessage implements Message {
         dirty = true;
     }
 
+    /**
+     * Make an outgoing message whose headers are already serialized, so publishing does not build
+     * or copy a Headers object. The headers are only parsed if someone asks for them.
+     */
+    static NatsMessage withSerializedHeaders(String subject, String replyTo, byte[] serializedHeaders, byte[] data) {
+        NatsMessage nm = new NatsMessage(subject, replyTo, null, data);
+        nm.serializedHeaders = serializedHeaders;
+        return nm;
+    }
+
     // ----------------------------------------------------------------------------------------------------
     // Only for implementors. The user facing message is the only current one that calculates.
     // ----------------------------------------------------------------------------------------------------
     protected boolean calculateIfDirty() {
-        if (dirty || (hasHeaders() && headers.isDirty())) {
+        if (dirty || (headers != null && !headers.isEmpty() && headers.isDirty())) {
             int replyToLen = replyTo == null ? 0 : replyTo.length();
             dataLen = data.length;
 
-            if (headers != null && !headers.isEmpty()) {
+            if (serializedHeaders != null) {
+                hdrLen = serializedHeaders.length;
+            }
+            else if (headers != null && !headers.isEmpty()) {
                 hdrLen = headers.serializedLength();
             } else {
                 hdrLen = 0;
@@ -195,11 +211,19 @@ public class NatsMessage implements Message {
 
     Headers getOrCreateHeaders() {
         if (headers == null) {
-            headers = new Headers();
+            headers = serializedHeaders == null ? new Headers() : parseSerializedHeaders();
         }
         return headers;
     }
 
+    private Headers parseSerializedHeaders() {
+        // the headers can be changed from here on, so they are serialized again when needed
+        Headers parsed = new IncomingHeadersProcessor(serializedHeaders).getHeaders();
+        serializedHeaders = null;
+        dirty = true;
+        return parsed;
+    }
+
     void setSubscription(NatsSubscription sub) {
         subscription = sub;
     }
@@ -208,6 +232,54 @@ public class NatsMessage implements Message {
         return subscription;
     }
 
+    // The message as a subscription on the publishing connection would get it back from the server.
+    // Made before the message is queued, since the writer may serialize the headers at any time after.
+    // The data is copied once, the publisher is free to reuse its array.
+    NatsMessage copyForLoopback() {
+        NatsMessage copy = JsPrefixManager.hasPrefix(replyTo) ? new NatsJetStreamMessage() : new InternalMessage();
+        copy.subject = this.subject;
+        copy.replyTo = this.replyTo;
+        copy.utf8mode = this.utf8mode;
+        if (serializedHeaders != null) {
+            copy.headers = new IncomingHeadersProcessor(serializedHeaders).getHeaders();
+            copy.hdrLen = serializedHeaders.length;
+        }
+        else if (headers != null && !headers.isEmpty()) {
+            copy.headers = new Headers(headers);
+            copy.hdrLen = headers.serializedLength();
+        }
+        copy.data = data.length == 0 ? EMPTY_BODY : Arrays.copyOf(data, data.length);
+        copy.dataLen = data.length;
+        copy.totLen = copy.hdrLen + copy.dataLen;
+        return copy;
+    }
+
+    // A copy of an incoming message for one more subscription. The data is shared, the headers
+    // are copied, which is cheap since incoming headers are kept serialized until read.
+    NatsMessage copyForFanOut() {
+        NatsMessage copy;
+        if (isStatusMessage()) {
+            copy = new StatusMessage(getStatus());
+        }
+        else if (isJetStream()) {
+            copy = new NatsJetStreamMessage();
+        }
+        else {
+            copy = new InternalMessage();
+        }
+        copy.sid = this.sid;
+        copy.subject = this.subject;
+        copy.replyTo = this.replyTo;
+        copy.protocolLineLength = this.protocolLineLength;
+        copy.headers = this.headers == null ? null : new Headers(this.headers);
+        copy.data = this.data;
+        copy.utf8mode = this.utf8mode;
+        copy.hdrLen = this.hdrLen;
+        copy.dataLen = this.dataLen;
+        copy.totLen = this.totLen;
+        return copy;
+    }
+
     // ----------------------------------------------------------------------------------------------------
     // Public Interface Methods
     // ----------------------------------------------------------------------------------------------------
@@ -232,16 +304,34 @@ public class NatsMessage implements Message {
     }
 
     byte[] getSerializedHeader() {
+        if (serializedHeaders != null) {
+            return serializedHeaders;
+        }
         return hasHeaders() ? headers.getSerialized() : null;
     }
 
+    /**
+     * Write the serialized headers, if any, straight into the buffer
+     * @return the position after the headers
+     */
+    int serializeHeaders(byte[] buffer, int position) {
+        if (serializedHeaders != null) {
+            System.arraycopy(serializedHeaders, 0, buffer, position, serializedHeaders.length);
+            return position + serializedHeaders.length;
+        }
+        return hasHeaders() ? headers.serializeTo(buffer, position) : position;
+    }
+
     @Override
     public boolean hasHeaders() {
-        return headers != null && !headers.isEmpty();
+        return serializedHeaders != null || (headers != null && !headers.isEmpty());
     }
 
     @Override
     public Headers getHeaders() {
+        if (headers == null && serializedHeaders != null) {
+            headers = parseSerializedHeaders();
+        }
         return headers;
     }
 
@@ -334,7 +424,7 @@ public class NatsMessage implements Message {
     }
 
     private String headersToString() {
-        return hasHeaders() ? new String(headers.getSerialized(), US_ASCII).replace("\r", "+").replace("\n", "+") : "";
+        return hasHeaders() ? new String(getSerializedHeader(), US_ASCII).replace("\r", "+").replace("\n", "+") : "";
     }
 
     private String dataToString() {
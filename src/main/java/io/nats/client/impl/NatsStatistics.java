@@ -14,134 +14,247 @@
 package io.nats.client.impl;
 
 import io.nats.client.Statistics;
+import io.nats.client.support.LatencyHistogram;
 
 import java.text.NumberFormat;
-import java.util.LongSummaryStatistics;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+// Counters are LongAdders and latency histograms are sharded, so the reader, the writer and
+// publishing threads don't contend on shared cache lines. Totals are summed when read.
 class NatsStatistics implements Statistics {
-    private ReentrantLock lock;
-    private LongSummaryStatistics readStats;
-    private LongSummaryStatistics writeStats;
-
-    private AtomicLong flushCounter;
-    private AtomicLong outstandingRequests;
-    private AtomicLong requestsSent;
-    private AtomicLong repliesReceived;
-    private AtomicLong orphanRepliesReceived;
-    private AtomicLong reconnects;
-    private AtomicLong inMsgs;
-    private AtomicLong outMsgs;
-    private AtomicLong inBytes;
-    private AtomicLong outBytes;
-    private AtomicLong pingCount;
-    private AtomicLong okCount;
-    private AtomicLong errCount;
-    private AtomicLong exceptionCount;
-    private AtomicLong droppedCount;
+    // enough shards to spread the threads that commonly record at once, without wasting memory
+    private static final int HISTOGRAM_SHARDS = Math.min(Runtime.getRuntime().availableProcessors(), 16);
+
+    private SizeStats readStats;
+    private SizeStats writeStats;
+
+    private LongAdder flushCounter;
+    private LongAdder outstandingRequests;
+    private LongAdder requestsSent;
+    private LongAdder repliesReceived;
+    private LongAdder orphanRepliesReceived;
+    private LongAdder reconnects;
+    private LongAdder inMsgs;
+    private LongAdder outMsgs;
+    private LongAdder inBytes;
+    private LongAdder outBytes;
+    private LongAdder pingCount;
+    private LongAdder okCount;
+    private LongAdder errCount;
+    private LongAdder exceptionCount;
+    private LongAdder droppedCount;
+    private LongAdder coalescedRequests;
+    private LongAdder requestCacheHits;
+    private LongAdder hedgedRequests;
+    private LongAdder hedgeWins;
+    private LongAdder acksCoalesced;
+    private LongAdder publishRetries;
+    private LongAdder outboxSpilled;
+    private LongAdder outboxReplayed;
+    private LongAdder outboxPending;
+    private LongAdder outboxPendingBytes;
+    private LongAdder loopbackMsgs;
+    private final AtomicLong outboxReplayLag;
+
+    private final LatencyHistogram requestLatency;
+    private final LatencyHistogram pingLatency;
+    private final LatencyHistogram handlerLatency;
+    private final LatencyHistogram outgoingQueueLatency;
+    private final LatencyHistogram incomingQueueLatency;
 
     final private boolean trackAdvanced;
 
     public NatsStatistics(boolean trackAdvanced) {
         this.trackAdvanced = trackAdvanced;
-        this.readStats = new LongSummaryStatistics();
-        this.writeStats = new LongSummaryStatistics();
-
-        this.lock = new ReentrantLock();
-        this.flushCounter = new AtomicLong();
-        this.outstandingRequests = new AtomicLong();
-        this.requestsSent = new AtomicLong();
-        this.repliesReceived = new AtomicLong();
-        this.orphanRepliesReceived = new AtomicLong();
-        this.reconnects = new AtomicLong();
-        this.inMsgs = new AtomicLong();
-        this.outMsgs = new AtomicLong();
-        this.inBytes = new AtomicLong();
-        this.outBytes = new AtomicLong();
-        this.pingCount = new AtomicLong();
-        this.okCount = new AtomicLong();
-        this.errCount = new AtomicLong();
-        this.exceptionCount = new AtomicLong();
-        this.droppedCount = new AtomicLong();
+        this.readStats = new SizeStats();
+        this.writeStats = new SizeStats();
+
+        this.flushCounter = new LongAdder();
+        this.outstandingRequests = new LongAdder();
+        this.requestsSent = new LongAdder();
+        this.repliesReceived = new LongAdder();
+        this.orphanRepliesReceived = new LongAdder();
+        this.reconnects = new LongAdder();
+        this.inMsgs = new LongAdder();
+        this.outMsgs = new LongAdder();
+        this.inBytes = new LongAdder();
+        this.outBytes = new LongAdder();
+        this.pingCount = new LongAdder();
+        this.okCount = new LongAdder();
+        this.errCount = new LongAdder();
+        this.exceptionCount = new LongAdder();
+        this.droppedCount = new LongAdder();
+        this.coalescedRequests = new LongAdder();
+        this.requestCacheHits = new LongAdder();
+        this.hedgedRequests = new LongAdder();
+        this.hedgeWins = new LongAdder();
+        this.acksCoalesced = new LongAdder();
+        this.publishRetries = new LongAdder();
+        this.outboxSpilled = new LongAdder();
+        this.outboxReplayed = new LongAdder();
+        this.outboxPending = new LongAdder();
+        this.outboxPendingBytes = new LongAdder();
+        this.loopbackMsgs = new LongAdder();
+        this.outboxReplayLag = new AtomicLong();
+
+        int shards = trackAdvanced ? HISTOGRAM_SHARDS : 1; // nothing is recorded unless advanced
+        this.requestLatency = new LatencyHistogram(shards);
+        this.pingLatency = new LatencyHistogram(1);
+        this.handlerLatency = new LatencyHistogram(shards);
+        this.outgoingQueueLatency = new LatencyHistogram(shards);
+        this.incomingQueueLatency = new LatencyHistogram(shards);
+    }
+
+    boolean isTrackAdvanced() {
+        return trackAdvanced;
     }
 
     void incrementPingCount() {
-        this.pingCount.incrementAndGet();
+        this.pingCount.increment();
     }
 
     void incrementDroppedCount() {
-        this.droppedCount.incrementAndGet();
+        this.droppedCount.increment();
     }
 
     void incrementOkCount() {
-        this.okCount.incrementAndGet();
+        this.okCount.increment();
     }
 
     void incrementErrCount() {
-        this.errCount.incrementAndGet();
+        this.errCount.increment();
     }
 
     void incrementExceptionCount() {
-        this.exceptionCount.incrementAndGet();
+        this.exceptionCount.increment();
     }
 
     void incrementRequestsSent() {
-        this.requestsSent.incrementAndGet();
+        this.requestsSent.increment();
     }
 
     void incrementRepliesReceived() {
-        this.repliesReceived.incrementAndGet();
+        this.repliesReceived.increment();
     }
 
     void incrementOrphanRepliesReceived() {
-        this.orphanRepliesReceived.incrementAndGet();
+        this.orphanRepliesReceived.increment();
     }
 
     void incrementReconnects() {
-        this.reconnects.incrementAndGet();
+        this.reconnects.increment();
     }
 
     void incrementInMsgs() {
-        this.inMsgs.incrementAndGet();
+        this.inMsgs.increment();
     }
 
     void incrementOutMsgs() {
-        this.outMsgs.incrementAndGet();
+        this.outMsgs.increment();
     }
 
     void incrementInBytes(long bytes) {
-        this.inBytes.addAndGet(bytes);
+        this.inBytes.add(bytes);
     }
 
     void incrementOutBytes(long bytes) {
-        this.outBytes.addAndGet(bytes);
+        this.outBytes.add(bytes);
     }
 
     void incrementFlushCounter() {
-        this.flushCounter.incrementAndGet();
+        this.flushCounter.increment();
     }
 
     void incrementOutstandingRequests() {
-        this.outstandingRequests.incrementAndGet();
+        this.outstandingRequests.increment();
     }
 
     void decrementOutstandingRequests() {
-        this.outstandingRequests.decrementAndGet();
+        this.outstandingRequests.decrement();
     }
 
-    void registerSummaryStat(LongSummaryStatistics stats, long value) {
+    void incrementCoalescedRequests() {
+        this.coalescedRequests.increment();
+    }
+
+    void incrementRequestCacheHits() {
+        this.requestCacheHits.increment();
+    }
+
+    void incrementHedgedRequests() {
+        this.hedgedRequests.increment();
+    }
+
+    void incrementHedgeWins() {
+        this.hedgeWins.increment();
+    }
+
+    void addAcksCoalesced(long acks) {
+        this.acksCoalesced.add(acks);
+    }
+
+    void incrementPublishRetries() {
+        this.publishRetries.increment();
+    }
+
+    void incrementLoopbackMsgs() {
+        this.loopbackMsgs.increment();
+    }
+
+    void incrementOutboxSpilled(long bytes) {
+        this.outboxSpilled.increment();
+        this.outboxPending.increment();
+        this.outboxPendingBytes.add(bytes);
+    }
+
+    void addOutboxRecovered(long messages, long bytes) {
+        this.outboxPending.add(messages);
+        this.outboxPendingBytes.add(bytes);
+    }
+
+    void incrementOutboxReplayed(long bytes, long lagMillis) {
+        this.outboxReplayed.increment();
+        this.outboxPending.decrement();
+        this.outboxPendingBytes.add(-bytes);
+        this.outboxReplayLag.set(lagMillis);
+    }
+
+    void registerSummaryStat(SizeStats stats, long value) {
         if(!trackAdvanced) {
             return;
         }
-        lock.lock();
-        try {
-            stats.accept(value);
-        } finally {
-            lock.unlock();
+        stats.accept(value);
+    }
+
+    void registerRequestLatency(long nanos) {
+        if (trackAdvanced) {
+            requestLatency.record(nanos);
+        }
+    }
+
+    void registerPingLatency(long nanos) {
+        if (trackAdvanced) {
+            pingLatency.record(nanos);
+        }
+    }
+
+    void registerHandlerLatency(long nanos) {
+        if (trackAdvanced) {
+            handlerLatency.record(nanos);
         }
     }
 
+    // Queues record into these directly, null means don't time the queue
+    LatencyHistogram outgoingQueueTracker() {
+        return trackAdvanced ? outgoingQueueLatency : null;
+    }
+
+    LatencyHistogram incomingQueueTracker() {
+        return trackAdvanced ? incomingQueueLatency : null;
+    }
+
     void registerRead(long bytes) {
         registerSummaryStat(readStats, bytes);
     }
@@ -151,51 +264,119 @@ class NatsStatistics implements Statistics {
     }
 
     public long getPings() {
-        return this.pingCount.get();
+        return this.pingCount.sum();
     }
 
     public long getDroppedCount() {
-        return this.droppedCount.get();
+        return this.droppedCount.sum();
     }
 
     public long getOKs() {
-        return this.okCount.get();
+        return this.okCount.sum();
     }
 
     public long getErrs() {
-        return this.errCount.get();
+        return this.errCount.sum();
     }
 
     public long getExceptions() {
-        return this.exceptionCount.get();
+        return this.exceptionCount.sum();
     }
 
     public long getReconnects() {
-        return this.reconnects.get();
+        return this.reconnects.sum();
     }
 
     public long getInMsgs() {
-        return this.inMsgs.get();
+        return this.inMsgs.sum();
     }
 
     public long getOutMsgs() {
-        return this.outMsgs.get();
+        return this.outMsgs.sum();
     }
 
     public long getInBytes() {
-        return this.inBytes.get();
+        return this.inBytes.sum();
     }
 
     public long getOutBytes() {
-        return this.outBytes.get();
+        return this.outBytes.sum();
+    }
+
+    public long getCoalescedRequests() {
+        return this.coalescedRequests.sum();
+    }
+
+    public long getRequestCacheHits() {
+        return this.requestCacheHits.sum();
+    }
+
+    public LatencyHistogram getRequestLatency() {
+        return requestLatency.snapshot();
+    }
+
+    public LatencyHistogram getPingLatency() {
+        return pingLatency.snapshot();
+    }
+
+    public LatencyHistogram getHandlerLatency() {
+        return handlerLatency.snapshot();
+    }
+
+    public LatencyHistogram getOutgoingQueueLatency() {
+        return outgoingQueueLatency.snapshot();
+    }
+
+    public LatencyHistogram getIncomingQueueLatency() {
+        return incomingQueueLatency.snapshot();
+    }
+
+    long getHedgedRequests() {
+        return hedgedRequests.sum();
+    }
+
+    long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    long getAcksCoalesced() {
+        return acksCoalesced.sum();
+    }
+
+    long getPublishRetries() {
+        return publishRetries.sum();
+    }
+
+    long getLoopbackMsgs() {
+        return loopbackMsgs.sum();
+    }
+
+    public long getOutboxSpilled() {
+        return outboxSpilled.sum();
+    }
+
+    public long getOutboxReplayed() {
+        return outboxReplayed.sum();
+    }
+
+    public long getOutboxPending() {
+        return outboxPending.sum();
+    }
+
+    public long getOutboxPendingBytes() {
+        return outboxPendingBytes.sum();
+    }
+
+    public long getOutboxReplayLag() {
+        return outboxReplayLag.get();
     }
 
     long getFlushCounter() {
-        return flushCounter.get();
+        return flushCounter.sum();
     }
 
     long getOutstandingRequests() {
-        return outstandingRequests.get();
+        return outstandingRequests.sum();
     }
 
     void appendNumberStat(StringBuilder builder, String name, long value) {
@@ -210,51 +391,111 @@ class NatsStatistics implements Statistics {
         builder.append("\n");
     }
 
+    void appendLatencyStat(StringBuilder builder, String name, LatencyHistogram histogram) {
+        long[] values = histogram.getValuesAtPercentiles(50, 90, 99, 99.9);
+        NumberFormat format = NumberFormat.getNumberInstance();
+        builder.append(name);
+        builder.append("p50 ").append(format.format(values[0] / 1000));
+        builder.append(" p90 ").append(format.format(values[1] / 1000));
+        builder.append(" p99 ").append(format.format(values[2] / 1000));
+        builder.append(" p99.9 ").append(format.format(values[3] / 1000));
+        builder.append(" max ").append(format.format(histogram.getMax() / 1000));
+        builder.append(" (micros)\n");
+    }
+
     public String toString() {
         StringBuilder builder = new StringBuilder();
 
-        lock.lock();
-        try {
-            builder.append("### Connection ###\n");
-            appendNumberStat(builder, "Reconnects:                      ", this.reconnects.get());
-            if (this.trackAdvanced) {
-                appendNumberStat(builder, "Requests Sent:                   ", this.requestsSent.get());
-                appendNumberStat(builder, "Replies Received:                ", this.repliesReceived.get());
-                appendNumberStat(builder, "Orphan Replies Received:         ", this.orphanRepliesReceived.get());
-                appendNumberStat(builder, "Pings Sent:                      ", this.pingCount.get());
-                appendNumberStat(builder, "+OKs Received:                   ", this.okCount.get());
-                appendNumberStat(builder, "-Errs Received:                  ", this.errCount.get());
-                appendNumberStat(builder, "Handled Exceptions:              ", this.exceptionCount.get());
-                appendNumberStat(builder, "Successful Flush Calls:          ", this.flushCounter.get());
-                appendNumberStat(builder, "Outstanding Request Futures:     ", this.outstandingRequests.get());
-                appendNumberStat(builder, "Dropped Messages:                ", this.droppedCount.get());
-            }
-            builder.append("\n");
-            builder.append("### Reader ###\n");
-            appendNumberStat(builder, "Messages in:                     ", this.inMsgs.get());
-            appendNumberStat(builder, "Bytes in:                        ", this.inBytes.get());
-            builder.append("\n");
-            if (this.trackAdvanced) {
-                appendNumberStat(builder, "Socket Reads:                    ", readStats.getCount());
-                appendNumberStat(builder, "Average Bytes Per Read:          ", readStats.getAverage());
-                appendNumberStat(builder, "Min Bytes Per Read:              ", readStats.getMin());
-                appendNumberStat(builder, "Max Bytes Per Read:              ", readStats.getMax());
-            }
-            builder.append("\n");
-            builder.append("### Writer ###\n");
-            appendNumberStat(builder, "Messages out:                    ", this.outMsgs.get());
-            appendNumberStat(builder, "Bytes out:                       ", this.outBytes.get());
+        builder.append("### Connection ###\n");
+        appendNumberStat(builder, "Reconnects:                      ", this.reconnects.sum());
+        if (this.trackAdvanced) {
+            appendNumberStat(builder, "Requests Sent:                   ", this.requestsSent.sum());
+            appendNumberStat(builder, "Replies Received:                ", this.repliesReceived.sum());
+            appendNumberStat(builder, "Orphan Replies Received:         ", this.orphanRepliesReceived.sum());
+            appendNumberStat(builder, "Coalesced Requests:              ", this.coalescedRequests.sum());
+            appendNumberStat(builder, "Request Cache Hits:              ", this.requestCacheHits.sum());
+            appendNumberStat(builder, "Hedged Requests Sent:            ", this.hedgedRequests.sum());
+            appendNumberStat(builder, "Hedged Requests Won:             ", this.hedgeWins.sum());
+            appendNumberStat(builder, "Acks Coalesced:                  ", this.acksCoalesced.sum());
+            appendNumberStat(builder, "Publish Retries:                 ", this.publishRetries.sum());
+            appendNumberStat(builder, "Pings Sent:                      ", this.pingCount.sum());
+            appendNumberStat(builder, "+OKs Received:                   ", this.okCount.sum());
+            appendNumberStat(builder, "-Errs Received:                  ", this.errCount.sum());
+            appendNumberStat(builder, "Handled Exceptions:              ", this.exceptionCount.sum());
+            appendNumberStat(builder, "Successful Flush Calls:          ", this.flushCounter.sum());
+            appendNumberStat(builder, "Outstanding Request Futures:     ", this.outstandingRequests.sum());
+            appendNumberStat(builder, "Dropped Messages:                ", this.droppedCount.sum());
+            appendNumberStat(builder, "Outbox Messages Spilled:         ", this.outboxSpilled.sum());
+            appendNumberStat(builder, "Outbox Messages Replayed:        ", this.outboxReplayed.sum());
+            appendNumberStat(builder, "Outbox Messages Pending:         ", this.outboxPending.sum());
+            appendNumberStat(builder, "Outbox Bytes Pending:            ", this.outboxPendingBytes.sum());
+            appendNumberStat(builder, "Outbox Replay Lag (ms):          ", this.outboxReplayLag.get());
+            appendNumberStat(builder, "Loopback Messages Delivered:     ", this.loopbackMsgs.sum());
+        }
+        builder.append("\n");
+        builder.append("### Reader ###\n");
+        appendNumberStat(builder, "Messages in:                     ", this.inMsgs.sum());
+        appendNumberStat(builder, "Bytes in:                        ", this.inBytes.sum());
+        builder.append("\n");
+        if (this.trackAdvanced) {
+            appendNumberStat(builder, "Socket Reads:                    ", readStats.getCount());
+            appendNumberStat(builder, "Average Bytes Per Read:          ", readStats.getAverage());
+            appendNumberStat(builder, "Min Bytes Per Read:              ", readStats.getMin());
+            appendNumberStat(builder, "Max Bytes Per Read:              ", readStats.getMax());
+        }
+        builder.append("\n");
+        builder.append("### Writer ###\n");
+        appendNumberStat(builder, "Messages out:                    ", this.outMsgs.sum());
+        appendNumberStat(builder, "Bytes out:                       ", this.outBytes.sum());
+        builder.append("\n");
+        if (this.trackAdvanced) {
+            appendNumberStat(builder, "Socket Writes:                   ", writeStats.getCount());
+            appendNumberStat(builder, "Average Bytes Per Write:         ", writeStats.getAverage());
+            appendNumberStat(builder, "Min Bytes Per Write:             ", writeStats.getMin());
+            appendNumberStat(builder, "Max Bytes Per Write:             ", writeStats.getMax());
+        }
+        if (this.trackAdvanced) {
             builder.append("\n");
-            if (this.trackAdvanced) {
-                appendNumberStat(builder, "Socket Writes:                   ", writeStats.getCount());
-                appendNumberStat(builder, "Average Bytes Per Write:         ", writeStats.getAverage());
-                appendNumberStat(builder, "Min Bytes Per Write:             ", writeStats.getMin());
-                appendNumberStat(builder, "Max Bytes Per Write:             ", writeStats.getMax());
-            }
-        } finally {
-            lock.unlock();
+            builder.append("### Latency ###\n");
+            appendLatencyStat(builder, "Request Round Trip:              ", requestLatency);
+            appendLatencyStat(builder, "Ping Round Trip:                 ", pingLatency);
+            appendLatencyStat(builder, "Handler Execution:               ", handlerLatency);
+            appendLatencyStat(builder, "Time In Outgoing Queue:          ", outgoingQueueLatency);
+            appendLatencyStat(builder, "Time In Incoming Queues:         ", incomingQueueLatency);
         }
 
         return builder.toString();
     }
+
+    // A lock free replacement for LongSummaryStatistics
+    static class SizeStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        void accept(long value) {
+            count.increment();
+            sum.add(value);
+            min.accumulate(value);
+            max.accumulate(value);
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        double getAverage() {
+            long c = count.sum();
+            return c == 0 ? 0 : (double) sum.sum() / c;
+        }
+
+        long getMin() {
+            return min.get();
+        }
+
+        long getMax() {
+            return max.get();
+        }
+    }
 }
\ No newline at end of file
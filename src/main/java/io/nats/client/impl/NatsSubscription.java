@@ -31,6 +31,9 @@ class NatsSubscription extends NatsConsumer implements Subscription {
 
     private AtomicLong unSubMessageLimit;
 
+    private MetricsRegistry.Counters metrics; // null unless subscription metrics are on
+    private boolean locallyRouted; // no SUB of its own, messages come through the connection's local router
+
     NatsSubscription(String sid, String subject, String queueName, NatsConnection connection,
             NatsDispatcher dispatcher) {
         super(connection);
@@ -41,7 +44,7 @@ class NatsSubscription extends NatsConsumer implements Subscription {
         this.unSubMessageLimit = new AtomicLong(-1);
 
         if (this.dispatcher == null) {
-            this.incoming = new MessageQueue(false);
+            this.incoming = new MessageQueue(false, connection.getNatsStatistics().incomingQueueTracker());
         }
     }
 
@@ -57,6 +60,20 @@ class NatsSubscription extends NatsConsumer implements Subscription {
         this.incoming = null;
     }
 
+    // Called by the connection when a message arrives, before it is queued.
+    // Returns true if the message was used up here and must not be queued.
+    boolean arrived(NatsMessage msg) {
+        return false;
+    }
+
+    void setLocallyRouted() {
+        this.locallyRouted = true;
+    }
+
+    boolean isLocallyRouted() {
+        return this.locallyRouted;
+    }
+
     void setUnsubLimit(long cd) {
         this.unSubMessageLimit.set(cd);
     }
@@ -71,6 +88,14 @@ class NatsSubscription extends NatsConsumer implements Subscription {
         return this.sid;
     }
 
+    MetricsRegistry.Counters getMetrics() {
+        return this.metrics;
+    }
+
+    void setMetrics(MetricsRegistry.Counters metrics) {
+        this.metrics = metrics;
+    }
+
     NatsDispatcher getNatsDispatcher() {
         return this.dispatcher;
     }
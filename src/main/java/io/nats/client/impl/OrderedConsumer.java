@@ -0,0 +1,243 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.api.ConsumerConfiguration;
+import io.nats.client.api.ConsumerInfo;
+import io.nats.client.api.DeliverPolicy;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps an ordered consumer's messages in order. Every message arriving for the subscription is checked
+ * against the consumer sequence expected next. On a gap, or when heartbeats stop, the consumer is retired,
+ * everything else it sends is dropped, and a new consumer is created starting after the last stream
+ * sequence let through. The new consumer is recognized by its first message, or by the create reply,
+ * whichever comes first, since messages and the reply may arrive in either order.
+ */
+class OrderedConsumer {
+    private static final int RETIRED_NAMES = 8;
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final NatsJetStream js;
+    private final NatsConnection conn;
+    private final NatsJetStreamSubscription sub;
+    private final String stream;
+    private final ConsumerConfiguration config;
+    private final Executor executor;
+
+    private final ReentrantLock lock;
+    private final LinkedHashSet<String> retired; // guarded by lock
+    private final List<String> toDelete; // guarded by lock
+    private String consumer; // guarded by lock, null until the next consumer is known
+    private long expectedConsumerSequence = 1; // guarded by lock
+    private long lastStreamSequence; // guarded by lock
+    private boolean recreating; // guarded by lock
+    private volatile boolean running;
+
+    OrderedConsumer(NatsJetStream js, NatsConnection conn, NatsJetStreamSubscription sub,
+                    String stream, ConsumerConfiguration config, Executor executor) {
+        this.js = js;
+        this.conn = conn;
+        this.sub = sub;
+        this.stream = stream;
+        this.config = config;
+        this.executor = executor;
+        this.lock = new ReentrantLock();
+        this.retired = new LinkedHashSet<>();
+        this.toDelete = new ArrayList<>();
+        this.running = true;
+    }
+
+    /**
+     * Check a message as it arrives
+     * @return true if the message must be dropped
+     */
+    boolean drop(NatsMessage msg) {
+        if (!msg.isJetStream()) {
+            return false;
+        }
+
+        NatsJetStreamMetaData md = msg.metaData();
+        String name = md.getConsumer();
+        lock.lock();
+        try {
+            if (retired.contains(name)) {
+                return true;
+            }
+            if (consumer == null) {
+                consumer = name; // the first message from the replacement
+                expectedConsumerSequence = 1;
+            }
+            else if (!consumer.equals(name)) {
+                return true;
+            }
+
+            if (md.consumerSequence() != expectedConsumerSequence) {
+                retireLocked();
+                return true;
+            }
+            expectedConsumerSequence++;
+            lastStreamSequence = md.streamSequence();
+            return false;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The create reply for a consumer arrived
+     * @return true if it is still the current consumer
+     */
+    boolean created(String name) {
+        lock.lock();
+        try {
+            if (retired.contains(name)) {
+                return false;
+            }
+            if (consumer == null) {
+                consumer = name;
+                expectedConsumerSequence = 1;
+            }
+            sub.setConsumer(consumer);
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Heartbeats stopped, the consumer is gone or the server lost track of it
+     */
+    void stalled() {
+        lock.lock();
+        try {
+            retireLocked();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    long getLastStreamSequence() {
+        lock.lock();
+        try {
+            return lastStreamSequence;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void retireLocked() {
+        if (consumer != null) {
+            retired.add(consumer);
+            toDelete.add(consumer);
+            consumer = null;
+            if (retired.size() > RETIRED_NAMES) {
+                Iterator<String> oldest = retired.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        if (!recreating) {
+            recreating = true;
+            submitRecreate();
+        }
+    }
+
+    private void submitRecreate() {
+        try {
+            executor.execute(this::recreate);
+        }
+        catch (RejectedExecutionException e) {
+            // the connection is closing
+        }
+    }
+
+    private void recreate() {
+        while (running) {
+            long startSeq;
+            List<String> deleting;
+            lock.lock();
+            try {
+                startSeq = lastStreamSequence + 1;
+                deleting = new ArrayList<>(toDelete);
+                toDelete.clear();
+            }
+            finally {
+                lock.unlock();
+            }
+
+            for (String name : deleting) {
+                try {
+                    js.deleteConsumer(stream, name);
+                }
+                catch (Exception e) {
+                    // already gone
+                }
+            }
+
+            ConsumerInfo ci;
+            try {
+                ci = js.addOrUpdateConsumerInternal(stream, configStartingAt(startSeq));
+            }
+            catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                conn.processException(e);
+                conn.scheduleOnce(this::submitRecreate, RETRY_NANOS);
+                return;
+            }
+
+            lock.lock();
+            try {
+                if (!running || created(ci.getName())) {
+                    recreating = false;
+                    return;
+                }
+                // it was replaced while being created, go again
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ConsumerConfiguration configStartingAt(long startSeq) {
+        if (startSeq == 1) {
+            return config; // nothing was let through yet, start where the first one did
+        }
+        return ConsumerConfiguration.builder(config)
+                .deliverPolicy(DeliverPolicy.ByStartSequence)
+                .startSequence(startSeq)
+                .startTime(null)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.impl.NatsMessage.ProtocolMessage;
+import io.nats.client.support.ByteArrayBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static io.nats.client.support.NatsConstants.PUB_SP_BYTES;
+
+/**
+ * Builds the PUB lines and payloads of many small messages without headers, such as acks, into a few
+ * protocol messages, each about the size of the writer's buffer, instead of one message per publish.
+ * The writer sends a protocol message as it is, followed by a CRLF, which ends the last payload.
+ */
+class PublishBatch {
+    private final int maxBytes;
+    private final int maxControlLine;
+    private final Consumer<NatsMessage> sink;
+    private ByteArrayBuilder bab;
+    private int count;
+    private int messages;
+
+    PublishBatch(int maxBytes, int maxControlLine, Consumer<NatsMessage> sink) {
+        this.maxBytes = maxBytes;
+        this.maxControlLine = maxControlLine;
+        this.sink = sink;
+        this.bab = new ByteArrayBuilder(maxBytes);
+    }
+
+    void add(String subject, byte[] data) {
+        if (bab.length() > 0) {
+            bab.appendCrLf();
+        }
+        int start = bab.length();
+        bab.append(PUB_SP_BYTES).append(subject, StandardCharsets.UTF_8); // utf-8 just in case
+        bab.appendSpace().append(data.length);
+
+        if (bab.length() - start + 2 > maxControlLine) {
+            throw new IllegalArgumentException("Control line is too long");
+        }
+        bab.appendCrLf().append(data);
+        count++;
+
+        if (bab.length() + 2 >= maxBytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Send whatever has not been sent yet
+     */
+    void flush() {
+        if (bab.length() > 0) {
+            sink.accept(new ProtocolMessage(bab));
+            bab = new ByteArrayBuilder(maxBytes);
+            messages++;
+        }
+    }
+
+    /**
+     * @return the number of publishes added
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of protocol messages sent
+     */
+    int getMessages() {
+        return messages;
+    }
+}
@@ -0,0 +1,218 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.JetStreamSubscription;
+import io.nats.client.Message;
+import io.nats.client.PullPrefetchOptions;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps a pull subscription topped up with messages. Pull requests are filled by the server in the
+ * order they were sent, and messages are read in the order they arrived, so each message read is
+ * counted against the oldest open request. A status message ends the oldest request, as does
+ * passing its expiration without hearing from the server. There is at most one expiry timer pending,
+ * set for the oldest open request, and it moves on to the next oldest each time it fires.
+ */
+class PullPrefetcher {
+    // a request is given up on this long after it should have expired, so a late status isn't miscounted
+    private static final long EXPIRE_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxMessages;
+    private final int lowWaterMark;
+    private final long maxBytes;
+    private final long expiresNanos;
+    private final IntConsumer puller;
+    private final LongSupplier pendingBytes;
+    private final BiConsumer<Runnable, Long> scheduler;
+
+    private final ReentrantLock lock;
+    private final Deque<Request> requests; // guarded by lock, oldest first
+    private int outstanding; // guarded by lock, messages requested and not yet read
+    private boolean running; // guarded by lock
+    private boolean expiryScheduled; // guarded by lock
+
+    PullPrefetcher(PullPrefetchOptions options, IntConsumer puller, LongSupplier pendingBytes,
+                   BiConsumer<Runnable, Long> scheduler) {
+        this.maxMessages = options.getMaxMessages();
+        this.lowWaterMark = options.getLowWaterMark();
+        this.maxBytes = options.getMaxBytes();
+        this.expiresNanos = options.getExpiresIn().toNanos();
+        this.puller = puller;
+        this.pendingBytes = pendingBytes;
+        this.scheduler = scheduler;
+        this.lock = new ReentrantLock();
+        this.requests = new ArrayDeque<>();
+    }
+
+    static PullPrefetcher create(NatsConnection conn, NatsJetStreamSubscription sub, PullPrefetchOptions options) {
+        return new PullPrefetcher(options,
+                batch -> sub.prefetchPull(batch, options.getExpiresIn()),
+                () -> {
+                    NatsDispatcher d = sub.getNatsDispatcher();
+                    return d == null ? sub.getPendingByteCount() : d.getPendingByteCount();
+                },
+                conn::scheduleOnce);
+    }
+
+    void start() {
+        lock.lock();
+        try {
+            running = true;
+        }
+        finally {
+            lock.unlock();
+        }
+        topUp();
+    }
+
+    void stop() {
+        lock.lock();
+        try {
+            running = false;
+            requests.clear();
+            outstanding = 0;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Count a message the application is about to get, or a status message from the server
+     */
+    void read(Message msg) {
+        lock.lock();
+        try {
+            if (msg.isStatusMessage()) {
+                end(requests.peekFirst());
+            }
+            else if (msg.isJetStream()) {
+                Request r = requests.peekFirst();
+                if (r != null) {
+                    outstanding--;
+                    if (--r.remaining == 0) {
+                        requests.pollFirst();
+                    }
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        topUp();
+    }
+
+    int outstanding() {
+        lock.lock();
+        try {
+            return outstanding;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    int openRequests() {
+        lock.lock();
+        try {
+            return requests.size();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    void topUp() {
+        long expiryDelay = -1;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Request oldest = requests.peekFirst();
+            while (oldest != null && now - oldest.sent > expiresNanos + EXPIRE_GRACE_NANOS) {
+                end(oldest);
+                oldest = requests.peekFirst();
+            }
+
+            // the next read tops up when there are too many bytes waiting
+            if (running && outstanding <= lowWaterMark && (maxBytes <= 0 || pendingBytes.getAsLong() < maxBytes)) {
+                // pull under the lock, so requests are sent in the order they are counted
+                int want = maxMessages - outstanding;
+                while (want > 0) {
+                    int batch = Math.min(want, JetStreamSubscription.MAX_PULL_SIZE);
+                    puller.accept(batch);
+                    requests.addLast(new Request(batch, now));
+                    outstanding += batch;
+                    want -= batch;
+                }
+            }
+
+            // check back when the oldest request expires, in case the server never answers
+            oldest = requests.peekFirst();
+            if (running && oldest != null && !expiryScheduled) {
+                expiryScheduled = true;
+                expiryDelay = Math.max(0, oldest.sent + expiresNanos + EXPIRE_GRACE_NANOS - now);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (expiryDelay >= 0) {
+            scheduler.accept(this::expired, expiryDelay);
+        }
+    }
+
+    private void expired() {
+        lock.lock();
+        try {
+            expiryScheduled = false;
+        }
+        finally {
+            lock.unlock();
+        }
+
+        try {
+            topUp();
+        }
+        catch (RuntimeException e) {
+            // i.e. the connection closed, the subscription will be stopped
+        }
+    }
+
+    private void end(Request r) {
+        if (r != null) {
+            requests.remove(r);
+            outstanding -= r.remaining;
+        }
+    }
+
+    static class Request {
+        final long sent;
+        int remaining;
+
+        Request(int remaining, long sent) {
+            this.remaining = remaining;
+            this.sent = sent;
+        }
+    }
+}
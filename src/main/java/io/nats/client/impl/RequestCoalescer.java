@@ -0,0 +1,274 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.Message;
+
+import io.nats.client.Options;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in flight request among callers asking the same subject with the same payload,
+ * and optionally keeps the reply for a short time in a bounded, least recently used cache.
+ *
+ * <p>The shared request has no deadline of its own. Each caller has its own, checked by
+ * {@link #cleanCallers(long, boolean) cleanCallers()} on the connection's cleanup timer,
+ * and the shared request is dropped once no caller is waiting for it.
+ */
+class RequestCoalescer {
+    private static final byte[] EMPTY = new byte[0];
+    private static final long ORPHAN_NANOS = Duration.ofMinutes(10).toNanos(); // same as an unbounded request
+    private static final long TIMEOUT_PADDING_NANOS = Options.DEFAULT_CONNECTION_TIMEOUT.toNanos();
+
+    private final NatsStatistics statistics;
+    private final Map<Key, InFlight> inFlight;
+    private final long ttlNanos;
+    private final ReentrantLock cacheLock;
+    private final LinkedHashMap<Key, CachedReply> cache;
+
+    RequestCoalescer(NatsStatistics statistics, Duration ttl, int maxCached) {
+        this.statistics = statistics;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.ttlNanos = (ttl == null || maxCached <= 0) ? 0 : ttl.toNanos();
+        this.cacheLock = new ReentrantLock();
+        this.cache = new LinkedHashMap<Key, CachedReply>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedReply> eldest) {
+                return size() > maxCached;
+            }
+        };
+    }
+
+    /**
+     * Get a future for the reply to this subject and payload, only calling the requester
+     * if there is neither a cached reply nor a matching request already in flight.
+     * Each caller gets its own future and its own timeout, so cancelling one or timing
+     * one out does not affect the others.
+     * @param timeout how long this caller waits, null to wait like an unbounded request
+     */
+    CompletableFuture<Message> request(String subject, byte[] data, Duration timeout, Supplier<CompletableFuture<Message>> requester) {
+        // the key keeps its own copy, the caller is free to reuse its array
+        Key key = new Key(subject, data == null || data.length == 0 ? EMPTY : data.clone());
+
+        Message cached = getCached(key);
+        if (cached != null) {
+            statistics.incrementRequestCacheHits();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        long now = System.nanoTime();
+        Caller caller = new Caller(timeout == null ? now + ORPHAN_NANOS : now + timeout.toNanos() + TIMEOUT_PADDING_NANOS);
+        while (true) {
+            InFlight flight = new InFlight();
+            InFlight existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                if (existing.join(caller)) {
+                    statistics.incrementCoalescedRequests();
+                    return caller.future;
+                }
+                inFlight.remove(key, existing); // it finished as we got here, start a new one
+                continue;
+            }
+
+            flight.join(caller);
+            CompletableFuture<Message> actual;
+            try {
+                actual = requester.get();
+            }
+            catch (RuntimeException e) {
+                inFlight.remove(key, flight);
+                flight.complete(null, e);
+                throw e;
+            }
+            flight.setShared(actual);
+
+            actual.whenComplete((msg, exception) -> {
+                inFlight.remove(key, flight);
+                if (exception == null && ttlNanos > 0 && msg != null && !msg.isStatusMessage()) {
+                    putCached(key, msg);
+                }
+                flight.complete(msg, exception);
+            });
+            return caller.future;
+        }
+    }
+
+    /**
+     * Time out the callers whose own deadline has passed, or all of them when closing, and drop
+     * shared requests no caller is waiting for anymore.
+     */
+    void cleanCallers(long nowNanos, boolean closing) {
+        inFlight.forEach((key, flight) -> {
+            if (flight.clean(nowNanos, closing)) {
+                inFlight.remove(key, flight);
+            }
+        });
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Message getCached(Key key) {
+        if (ttlNanos == 0) {
+            return null;
+        }
+        cacheLock.lock();
+        try {
+            CachedReply reply = cache.get(key);
+            if (reply == null) {
+                return null;
+            }
+            if (System.nanoTime() - reply.created > ttlNanos) {
+                cache.remove(key);
+                return null;
+            }
+            return reply.message;
+        }
+        finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private void putCached(Key key, Message msg) {
+        cacheLock.lock();
+        try {
+            cache.put(key, new CachedReply(msg, System.nanoTime()));
+        }
+        finally {
+            cacheLock.unlock();
+        }
+    }
+
+    static class Caller {
+        final CompletableFuture<Message> future;
+        final long deadlineNanos;
+
+        Caller(long deadlineNanos) {
+            this.future = new CompletableFuture<>();
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    static class InFlight {
+        private final List<Caller> callers = new ArrayList<>();
+        private CompletableFuture<Message> shared;
+        private boolean done;
+
+        synchronized boolean join(Caller caller) {
+            if (done) {
+                return false;
+            }
+            callers.add(caller);
+            return true;
+        }
+
+        synchronized void setShared(CompletableFuture<Message> shared) {
+            this.shared = shared;
+        }
+
+        void complete(Message msg, Throwable exception) {
+            List<Caller> waiting;
+            synchronized (this) {
+                done = true;
+                waiting = new ArrayList<>(callers);
+                callers.clear();
+            }
+            for (Caller caller : waiting) {
+                if (exception == null) {
+                    caller.future.complete(msg);
+                }
+                else {
+                    caller.future.completeExceptionally(exception);
+                }
+            }
+        }
+
+        // returns true if nobody is waiting anymore and the shared request was dropped
+        boolean clean(long nowNanos, boolean closing) {
+            List<Caller> expired = new ArrayList<>();
+            CompletableFuture<Message> drop = null;
+            boolean abandoned = false;
+            synchronized (this) {
+                if (done) {
+                    return false;
+                }
+                Iterator<Caller> iter = callers.iterator();
+                while (iter.hasNext()) {
+                    Caller caller = iter.next();
+                    if (closing || caller.future.isDone() || nowNanos - caller.deadlineNanos > 0) {
+                        iter.remove();
+                        expired.add(caller);
+                    }
+                }
+                if (callers.isEmpty()) {
+                    done = true;
+                    abandoned = true;
+                    drop = shared;
+                }
+            }
+            for (Caller caller : expired) {
+                caller.future.completeExceptionally(new CancellationException(closing
+                        ? "Future cancelled, connection closing."
+                        : "Future cancelled, response not registered in time, likely due to server disconnect."));
+            }
+            if (drop != null) {
+                drop.cancel(true);
+            }
+            return abandoned;
+        }
+    }
+
+    static class CachedReply {
+        final Message message;
+        final long created;
+
+        CachedReply(Message message, long created) {
+            this.message = message;
+            this.created = created;
+        }
+    }
+
+    static class Key {
+        final String subject;
+        final byte[] data;
+        final int hash;
+
+        Key(String subject, byte[] data) {
+            this.subject = subject;
+            this.data = data;
+            this.hash = 31 * subject.hashCode() + Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash && subject.equals(key.subject) && Arrays.equals(data, key.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
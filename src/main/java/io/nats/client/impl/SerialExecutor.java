@@ -0,0 +1,159 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs tasks one at a time, in the order they were handed in, on a shared executor. Stands in for a
+ * single thread executor without keeping a thread of its own while there is nothing to run.
+ */
+class SerialExecutor implements Executor {
+    private final Executor executor;
+    private final ReentrantLock lock;
+    private final Condition idle;
+    private final ArrayDeque<Runnable> tasks;
+    private boolean running;
+    private boolean shutdown;
+
+    SerialExecutor(Executor executor) {
+        this.executor = executor;
+        this.lock = new ReentrantLock();
+        this.idle = lock.newCondition();
+        this.tasks = new ArrayDeque<>();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor is shut down.");
+            }
+            tasks.add(task);
+            if (running) {
+                return; // the running drain picks it up
+            }
+            running = true;
+        }
+        finally {
+            lock.unlock();
+        }
+
+        try {
+            executor.execute(this::drain);
+        }
+        catch (RejectedExecutionException e) {
+            lock.lock();
+            try {
+                tasks.clear();
+                running = false;
+                idle.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            lock.lock();
+            try {
+                task = tasks.poll();
+                if (task == null) {
+                    running = false;
+                    idle.signalAll();
+                    return;
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+
+            try {
+                task.run();
+            }
+            catch (RuntimeException e) {
+                // the tasks handle their own exceptions, one that gets away must not stop the ones after it
+            }
+        }
+    }
+
+    boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop taking tasks, the ones already handed in still run.
+     */
+    void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop taking tasks and drop the ones that have not started.
+     */
+    void shutdownNow() {
+        lock.lock();
+        try {
+            shutdown = true;
+            tasks.clear();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for the tasks handed in to finish.
+     * @return true if they finished, false if the timeout ran out first
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (running) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+}
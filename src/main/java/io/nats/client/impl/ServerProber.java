@@ -0,0 +1,181 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.Options;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Probes servers in parallel and orders them by how fast they answered, keeping a table of
+ * the round trip times seen. A probe is timed from opening the socket to reading the server's
+ * INFO line, which every server sends first, before any TLS upgrade.
+ *
+ * <p>Once the first probe answers, the others get as long again to answer. A server that
+ * takes more than twice as long as the fastest one is not worth waiting for.
+ */
+class ServerProber {
+    static final long FAILED = Long.MAX_VALUE;
+
+    interface Probe {
+        /**
+         * @return the nanoseconds it took the server to answer
+         */
+        long probe(String server, long timeoutNanos) throws Exception;
+    }
+
+    private final int maxParallel;
+    private final long timeoutNanos;
+    private final ExecutorService executor;
+    private final Probe probe;
+    private final Map<String, Long> rtts; // nanos, FAILED if the last probe failed
+
+    ServerProber(Options options, ExecutorService executor) {
+        this(options.getServerProbes(), options.getConnectionTimeout(), executor,
+                (server, timeoutNanos) -> probeInfo(options.createURIForServer(server), timeoutNanos));
+    }
+
+    ServerProber(int maxParallel, Duration timeout, ExecutorService executor, Probe probe) {
+        this.maxParallel = maxParallel;
+        this.timeoutNanos = timeout.toNanos();
+        this.executor = executor;
+        this.probe = probe;
+        this.rtts = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Probe up to the maximum number of servers from the front of the list and order the list
+     * by the answers: servers that answered, fastest first, then servers that were not probed or
+     * did not answer in time, by the time they took before, then servers whose probe failed.
+     * Servers that compare the same keep their order in the list.
+     */
+    List<String> order(List<String> servers) throws InterruptedException {
+        if (servers.size() < 2) {
+            return servers;
+        }
+        Map<String, Long> answered = probe(servers.subList(0, Math.min(maxParallel, servers.size())));
+
+        List<String> ordered = new ArrayList<>(servers);
+        ordered.sort(Comparator.<String>comparingInt(s -> rank(s, answered)).thenComparingLong(s -> rtt(s, answered)));
+        return ordered;
+    }
+
+    private int rank(String server, Map<String, Long> answered) {
+        Long rtt = answered.get(server);
+        if (rtt == null) {
+            return 1;
+        }
+        return rtt == FAILED ? 2 : 0;
+    }
+
+    private long rtt(String server, Map<String, Long> answered) {
+        Long rtt = answered.get(server);
+        if (rtt == null) {
+            rtt = rtts.get(server);
+        }
+        return rtt == null ? FAILED : rtt;
+    }
+
+    private Map<String, Long> probe(List<String> servers) throws InterruptedException {
+        CompletionService<Object[]> completions = new ExecutorCompletionService<>(executor);
+        List<Future<Object[]>> futures = new ArrayList<>();
+        for (String server : servers) {
+            futures.add(completions.submit(() -> {
+                try {
+                    return new Object[]{server, probe.probe(server, timeoutNanos)};
+                }
+                catch (Exception e) {
+                    return new Object[]{server, FAILED};
+                }
+            }));
+        }
+
+        Map<String, Long> answered = new HashMap<>();
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            for (int x = 0; x < futures.size(); x++) {
+                long wait = deadline - System.nanoTime();
+                Future<Object[]> done = wait > 0 ? completions.poll(wait, TimeUnit.NANOSECONDS) : null;
+                if (done == null) {
+                    break; // out of time, the rest have not answered
+                }
+                Object[] result = done.get();
+                String server = (String) result[0];
+                long rtt = (Long) result[1];
+                answered.put(server, rtt);
+                rtts.put(server, rtt);
+                if (rtt != FAILED && deadline - System.nanoTime() > rtt) {
+                    deadline = System.nanoTime() + rtt; // the first answer, give the others as long again
+                }
+            }
+        }
+        catch (ExecutionException e) {
+            // can't happen, the probe task catches everything
+        }
+        finally {
+            for (Future<Object[]> f : futures) {
+                f.cancel(true);
+            }
+        }
+        return answered;
+    }
+
+    /**
+     * Record that connecting to a server failed, so it is tried later next time
+     */
+    void recordFailure(String server) {
+        rtts.put(server, FAILED);
+    }
+
+    /**
+     * @return the last round trip time seen for each server probed, null for servers whose last probe failed
+     */
+    Map<String, Duration> getRttTable() {
+        Map<String, Duration> table = new HashMap<>();
+        rtts.forEach((server, rtt) -> table.put(server, rtt == FAILED ? null : Duration.ofNanos(rtt)));
+        return table;
+    }
+
+    static long probeInfo(URI uri, long timeoutNanos) throws IOException {
+        long start = System.nanoTime();
+        int timeoutMillis = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort()), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            InputStream in = socket.getInputStream();
+            byte[] op = new byte[4];
+            int read = 0;
+            while (read < op.length) {
+                int n = in.read(op, read, op.length - read);
+                if (n < 0) {
+                    throw new IOException("Server closed the connection before sending INFO");
+                }
+                read += n;
+            }
+            if (op[0] != 'I' || op[1] != 'N' || op[2] != 'F' || op[3] != 'O') {
+                throw new IOException("Server did not send INFO");
+            }
+            return System.nanoTime() - start;
+        }
+    }
+}
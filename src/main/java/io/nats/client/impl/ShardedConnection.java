@@ -0,0 +1,497 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.*;
+import io.nats.client.api.ServerInfo;
+import io.nats.client.support.LatencyHistogram;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A connection made of several connections to the same servers, each with its own socket, reader and
+ * writer, for applications that need more than one connection can move. Use
+ * {@link Nats#connectSharded(Options, int) Nats.connectSharded()} to create one.
+ *
+ * <p>Publishes and requests go out on the shard picked by a hash of the subject, so messages published to
+ * a subject keep their order. Publishes that don't need to keep their order can be spread over the shards
+ * in turn with {@link #publishUnordered(Message) publishUnordered()}. Subscriptions and dispatchers are
+ * spread over the shards in turn. A subscription lives on one shard, so it gets the messages for a subject
+ * in the order the server sends them, like any other subscription.
+ *
+ * <p>Statistics and metrics are the sums over the shards. Server information, the connected url and
+ * JetStream contexts come from the first shard. Subscriptions, dispatchers and messages report the shard
+ * they belong to as their connection.
+ */
+public class ShardedConnection implements Connection {
+    private final Options options;
+    private final List<Connection> shards;
+    private final AtomicInteger nextPublish;
+    private final AtomicInteger nextSubscribe;
+    private final Map<Dispatcher, Connection> dispatchers;
+
+    ShardedConnection(Options options, List<Connection> shards) {
+        this.options = options;
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.nextPublish = new AtomicInteger();
+        this.nextSubscribe = new AtomicInteger();
+        this.dispatchers = new ConcurrentHashMap<>();
+    }
+
+    static ShardedConnection connect(Options options, int shardCount) throws IOException, InterruptedException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A sharded connection needs at least one shard.");
+        }
+        if (shardCount > 1 && options.getReconnectOutboxDirectory() != null) {
+            // every shard would open the same directory and replay the same messages
+            throw new IllegalArgumentException("A reconnect outbox can't be shared by the shards of a sharded connection.");
+        }
+        List<Connection> shards = new ArrayList<>(shardCount);
+        try {
+            for (int x = 0; x < shardCount; x++) {
+                shards.add(NatsImpl.createConnection(options, false));
+            }
+        }
+        catch (IOException | InterruptedException | RuntimeException e) {
+            for (Connection shard : shards) {
+                shard.close();
+            }
+            throw e;
+        }
+        return new ShardedConnection(options, shards);
+    }
+
+    /**
+     * @return the number of connections
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * @param index the shard index, from 0 to the shard count - 1
+     * @return the underlying connection
+     */
+    public Connection getShard(int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * @param subject the subject
+     * @return the connection that publishes and requests on the subject go out on
+     */
+    public Connection shardFor(String subject) {
+        return shards.get((subject.hashCode() & Integer.MAX_VALUE) % shards.size());
+    }
+
+    /**
+     * Publish on the next shard in turn instead of the shard for the subject. Messages published this way
+     * can arrive in a different order than they were published in.
+     *
+     * @param message the message
+     */
+    public void publishUnordered(Message message) {
+        nextShard(nextPublish).publish(message);
+    }
+
+    /**
+     * Publish on the next shard in turn instead of the shard for the subject, see
+     * {@link #publishUnordered(Message) publishUnordered(Message)}.
+     *
+     * @param subject the subject to send the message to
+     * @param body the message body
+     */
+    public void publishUnordered(String subject, byte[] body) {
+        nextShard(nextPublish).publish(subject, body);
+    }
+
+    private Connection nextShard(AtomicInteger next) {
+        return shards.get((next.getAndIncrement() & Integer.MAX_VALUE) % shards.size());
+    }
+
+    @Override
+    public void publish(String subject, byte[] body) {
+        shardFor(subject).publish(subject, body);
+    }
+
+    @Override
+    public void publish(String subject, String replyTo, byte[] body) {
+        shardFor(subject).publish(subject, replyTo, body);
+    }
+
+    @Override
+    public void publish(Message message) {
+        shardFor(message.getSubject()).publish(message);
+    }
+
+    @Override
+    public CompletableFuture<Message> request(String subject, byte[] body) {
+        return shardFor(subject).request(subject, body);
+    }
+
+    @Override
+    public CompletableFuture<Message> request(Message message) {
+        return shardFor(message.getSubject()).request(message);
+    }
+
+    @Override
+    public Message request(String subject, byte[] body, Duration timeout) throws InterruptedException {
+        return shardFor(subject).request(subject, body, timeout);
+    }
+
+    @Override
+    public Message request(Message message, Duration timeout) throws InterruptedException {
+        return shardFor(message.getSubject()).request(message, timeout);
+    }
+
+    @Override
+    public CompletableFuture<Message> request(Message message, HedgePolicy policy) {
+        return shardFor(message.getSubject()).request(message, policy);
+    }
+
+    @Override
+    public Message request(Message message, HedgePolicy policy, Duration timeout) throws InterruptedException {
+        return shardFor(message.getSubject()).request(message, policy, timeout);
+    }
+
+    @Override
+    public Subscription subscribe(String subject) {
+        return nextShard(nextSubscribe).subscribe(subject);
+    }
+
+    @Override
+    public Subscription subscribe(String subject, String queueName) {
+        return nextShard(nextSubscribe).subscribe(subject, queueName);
+    }
+
+    @Override
+    public Dispatcher createDispatcher(MessageHandler handler) {
+        Connection shard = nextShard(nextSubscribe);
+        Dispatcher d = shard.createDispatcher(handler);
+        dispatchers.put(d, shard);
+        return d;
+    }
+
+    @Override
+    public Dispatcher createDispatcher() {
+        return createDispatcher(null);
+    }
+
+    @Override
+    public void closeDispatcher(Dispatcher dispatcher) {
+        Connection shard = dispatchers.remove(dispatcher);
+        if (shard == null) {
+            throw new IllegalArgumentException("Connection can only manage its own dispatchers");
+        }
+        shard.closeDispatcher(dispatcher);
+    }
+
+    @Override
+    public void flush(Duration timeout) throws TimeoutException, InterruptedException {
+        if (timeout == null || timeout.isZero()) {
+            for (Connection shard : shards) {
+                shard.flush(timeout);
+            }
+            return;
+        }
+
+        // one timeout for all of them, the shards were writing while the first flush waited
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Connection shard : shards) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("Timeout out waiting for the shards to flush.");
+            }
+            shard.flush(Duration.ofNanos(remaining));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> drain(Duration timeout) throws TimeoutException, InterruptedException {
+        List<CompletableFuture<Boolean>> drains = new ArrayList<>(shards.size());
+        for (Connection shard : shards) {
+            drains.add(shard.drain(timeout));
+        }
+        return CompletableFuture.allOf(drains.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> drains.stream().allMatch(CompletableFuture::join));
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        for (Connection shard : shards) {
+            shard.close();
+        }
+        dispatchers.clear();
+    }
+
+    /**
+     * @return {@link Status#CONNECTED CONNECTED} if every shard is connected, otherwise the status of the
+     * first shard that is not
+     */
+    @Override
+    public Status getStatus() {
+        for (Connection shard : shards) {
+            Status status = shard.getStatus();
+            if (status != Status.CONNECTED) {
+                return status;
+            }
+        }
+        return Status.CONNECTED;
+    }
+
+    @Override
+    public long getMaxPayload() {
+        long max = Long.MAX_VALUE;
+        for (Connection shard : shards) {
+            max = Math.min(max, shard.getMaxPayload());
+        }
+        return max;
+    }
+
+    @Override
+    public Collection<String> getServers() {
+        return shards.get(0).getServers();
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return new ShardedStatistics(shards);
+    }
+
+    @Override
+    public MetricsSnapshot getMetricsSnapshot() {
+        List<MetricsSnapshot.Metrics> subscriptions = new ArrayList<>();
+        Map<String, MetricsSnapshot.Metrics> prefixes = new LinkedHashMap<>();
+        MetricsSnapshot.Metrics overflow = null;
+        for (Connection shard : shards) {
+            MetricsSnapshot snapshot = shard.getMetricsSnapshot();
+            subscriptions.addAll(snapshot.getSubscriptions());
+            for (MetricsSnapshot.Metrics m : snapshot.getSubjectPrefixes()) {
+                prefixes.merge(m.getName(), m, ShardedConnection::sum);
+            }
+            if (snapshot.getSubjectOverflow() != null) {
+                overflow = overflow == null ? snapshot.getSubjectOverflow() : sum(overflow, snapshot.getSubjectOverflow());
+            }
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), subscriptions, new ArrayList<>(prefixes.values()), overflow);
+    }
+
+    private static MetricsSnapshot.Metrics sum(MetricsSnapshot.Metrics a, MetricsSnapshot.Metrics b) {
+        return new MetricsSnapshot.Metrics(a.getName(), a.getSid(), a.getQueueName(),
+                a.getMessages() + b.getMessages(), a.getBytes() + b.getBytes(),
+                a.getHandlerNanos() + b.getHandlerNanos(), a.getDropped() + b.getDropped());
+    }
+
+    @Override
+    public Options getOptions() {
+        return options;
+    }
+
+    @Override
+    public ServerInfo getServerInfo() {
+        return shards.get(0).getServerInfo();
+    }
+
+    @Override
+    public String getConnectedUrl() {
+        return shards.get(0).getConnectedUrl();
+    }
+
+    @Override
+    public String getLastError() {
+        for (Connection shard : shards) {
+            String error = shard.getLastError();
+            if (error != null && error.length() > 0) {
+                return error;
+            }
+        }
+        return shards.get(0).getLastError();
+    }
+
+    @Override
+    public String createInbox() {
+        return shards.get(0).createInbox();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        for (Connection shard : shards) {
+            shard.flushBuffer();
+        }
+    }
+
+    @Override
+    public JetStream jetStream() throws IOException {
+        return shards.get(0).jetStream();
+    }
+
+    @Override
+    public JetStream jetStream(JetStreamOptions options) throws IOException {
+        return shards.get(0).jetStream(options);
+    }
+
+    @Override
+    public JetStreamManagement jetStreamManagement() throws IOException {
+        return shards.get(0).jetStreamManagement();
+    }
+
+    @Override
+    public JetStreamManagement jetStreamManagement(JetStreamOptions options) throws IOException {
+        return shards.get(0).jetStreamManagement(options);
+    }
+
+    /**
+     * The statistics of all the shards added up, read when asked for.
+     */
+    static class ShardedStatistics implements Statistics {
+        private final List<Connection> shards;
+
+        ShardedStatistics(List<Connection> shards) {
+            this.shards = shards;
+        }
+
+        private long sum(ToLongFunction<Statistics> getter) {
+            long total = 0;
+            for (Connection shard : shards) {
+                total += getter.applyAsLong(shard.getStatistics());
+            }
+            return total;
+        }
+
+        private long max(ToLongFunction<Statistics> getter) {
+            long max = 0;
+            for (Connection shard : shards) {
+                max = Math.max(max, getter.applyAsLong(shard.getStatistics()));
+            }
+            return max;
+        }
+
+        private LatencyHistogram merge(Function<Statistics, LatencyHistogram> getter) {
+            LatencyHistogram merged = new LatencyHistogram();
+            for (Connection shard : shards) {
+                merged.add(getter.apply(shard.getStatistics()));
+            }
+            return merged.snapshot();
+        }
+
+        @Override
+        public long getInMsgs() {
+            return sum(Statistics::getInMsgs);
+        }
+
+        @Override
+        public long getOutMsgs() {
+            return sum(Statistics::getOutMsgs);
+        }
+
+        @Override
+        public long getInBytes() {
+            return sum(Statistics::getInBytes);
+        }
+
+        @Override
+        public long getOutBytes() {
+            return sum(Statistics::getOutBytes);
+        }
+
+        @Override
+        public long getReconnects() {
+            return sum(Statistics::getReconnects);
+        }
+
+        @Override
+        public long getDroppedCount() {
+            return sum(Statistics::getDroppedCount);
+        }
+
+        @Override
+        public long getCoalescedRequests() {
+            return sum(Statistics::getCoalescedRequests);
+        }
+
+        @Override
+        public long getRequestCacheHits() {
+            return sum(Statistics::getRequestCacheHits);
+        }
+
+        @Override
+        public LatencyHistogram getRequestLatency() {
+            return merge(Statistics::getRequestLatency);
+        }
+
+        @Override
+        public LatencyHistogram getPingLatency() {
+            return merge(Statistics::getPingLatency);
+        }
+
+        @Override
+        public LatencyHistogram getHandlerLatency() {
+            return merge(Statistics::getHandlerLatency);
+        }
+
+        @Override
+        public LatencyHistogram getOutgoingQueueLatency() {
+            return merge(Statistics::getOutgoingQueueLatency);
+        }
+
+        @Override
+        public LatencyHistogram getIncomingQueueLatency() {
+            return merge(Statistics::getIncomingQueueLatency);
+        }
+
+        @Override
+        public long getOutboxSpilled() {
+            return sum(Statistics::getOutboxSpilled);
+        }
+
+        @Override
+        public long getOutboxReplayed() {
+            return sum(Statistics::getOutboxReplayed);
+        }
+
+        @Override
+        public long getOutboxPending() {
+            return sum(Statistics::getOutboxPending);
+        }
+
+        @Override
+        public long getOutboxPendingBytes() {
+            return sum(Statistics::getOutboxPendingBytes);
+        }
+
+        @Override
+        public long getOutboxReplayLag() {
+            return max(Statistics::getOutboxReplayLag);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (int x = 0; x < shards.size(); x++) {
+                builder.append("### Shard ").append(x).append(" ###\n");
+                builder.append(shards.get(x).getStatistics()).append("\n");
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * The scheduler connections use when none is set in the options: a single daemon thread for the whole
+ * process, started the first time a connection needs it. It is never shut down. Connections only use it
+ * to time their work, which is handed to each connection's executor when it comes due.
+ */
+class SharedScheduler {
+    static final String THREAD_NAME = "Nats Shared Scheduler";
+
+    private static class Holder {
+        static final ScheduledExecutorService INSTANCE = create();
+    }
+
+    static ScheduledExecutorService get() {
+        return Holder.INSTANCE;
+    }
+
+    private static ScheduledExecutorService create() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, THREAD_NAME);
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.setRemoveOnCancelPolicy(true); // cancelled pings and cleanups of closed connections go right away
+        return scheduler;
+    }
+
+    private SharedScheduler() {} /* ensures cannot be constructed */
+}
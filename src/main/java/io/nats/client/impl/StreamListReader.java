@@ -14,6 +14,7 @@
 package io.nats.client.impl;
 
 import io.nats.client.api.StreamInfo;
+import io.nats.client.support.JsonNode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,9 +31,9 @@ class StreamListReader extends AbstractListReader {
     }
 
     @Override
-    void processItems(List<String> items) {
-        for (String item : items) {
-            streams.add(new StreamInfo(item));
+    void processObjects(List<JsonNode> objects) {
+        for (JsonNode object : objects) {
+            streams.add(new StreamInfo(object));
         }
     }
 
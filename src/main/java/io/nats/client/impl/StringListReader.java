@@ -30,7 +30,7 @@ abstract class StringListReader extends AbstractListReader {
     }
 
     @Override
-    void processItems(List<String> items) {
+    void processStrings(List<String> items) {
         strings.addAll(items);
     }
 
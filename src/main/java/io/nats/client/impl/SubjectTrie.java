@@ -0,0 +1,213 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A trie of subjects, which may contain the {@code *} and {@code >} wildcards, each holding values.
+ * Besides matching a subject against the patterns, the trie can find the patterns that cover a pattern,
+ * meaning every subject matched by the one is matched by the other, and the patterns a pattern covers.
+ * Not thread safe.
+ */
+class SubjectTrie<T> {
+    private static final String STAR = "*";
+    private static final String GT = ">";
+
+    private final Node<T> root = new Node<>();
+    private int size;
+
+    private static class Node<T> {
+        final Map<String, Node<T>> children = new HashMap<>();
+        final List<T> values = new ArrayList<>();
+
+        boolean isEmpty() {
+            return children.isEmpty() && values.isEmpty();
+        }
+    }
+
+    void add(String pattern, T value) {
+        Node<T> node = root;
+        for (String token : tokenize(pattern)) {
+            node = node.children.computeIfAbsent(token, t -> new Node<>());
+        }
+        node.values.add(value);
+        size++;
+    }
+
+    /**
+     * @return true if the value was found under the pattern and removed
+     */
+    boolean remove(String pattern, T value) {
+        String[] tokens = tokenize(pattern);
+        List<Node<T>> path = new ArrayList<>(tokens.length + 1);
+        Node<T> node = root;
+        path.add(node);
+        for (String token : tokens) {
+            node = node.children.get(token);
+            if (node == null) {
+                return false;
+            }
+            path.add(node);
+        }
+        if (!node.values.remove(value)) {
+            return false;
+        }
+        size--;
+
+        // prune the nodes left empty, from the leaf up
+        for (int i = tokens.length; i > 0 && path.get(i).isEmpty(); i--) {
+            path.get(i - 1).children.remove(tokens[i - 1]);
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Hand the values of every pattern that matches the subject to the consumer.
+     * The subject is expected to be a literal subject, as found on a message.
+     */
+    void match(String subject, Consumer<T> consumer) {
+        covering(subject, consumer);
+    }
+
+    /**
+     * Hand the values of every pattern that covers the pattern, including the pattern itself, to the consumer.
+     */
+    void covering(String pattern, Consumer<T> consumer) {
+        covering(root, tokenize(pattern), 0, consumer);
+    }
+
+    private static <T> void covering(Node<T> node, String[] tokens, int index, Consumer<T> consumer) {
+        if (index == tokens.length) {
+            node.values.forEach(consumer);
+            return;
+        }
+
+        // > covers whatever is left, as long as there is something left
+        Node<T> gt = node.children.get(GT);
+        if (gt != null) {
+            gt.values.forEach(consumer);
+        }
+
+        String token = tokens[index];
+        if (GT.equals(token)) {
+            return; // only > covers >
+        }
+
+        // * covers a literal token or a *
+        Node<T> star = node.children.get(STAR);
+        if (star != null) {
+            covering(star, tokens, index + 1, consumer);
+        }
+
+        if (!STAR.equals(token)) {
+            Node<T> literal = node.children.get(token);
+            if (literal != null) {
+                covering(literal, tokens, index + 1, consumer);
+            }
+        }
+    }
+
+    /**
+     * Hand the values of every pattern the pattern covers, including the pattern itself, to the consumer.
+     */
+    void coveredBy(String pattern, Consumer<T> consumer) {
+        coveredBy(root, tokenize(pattern), 0, consumer);
+    }
+
+    private static <T> void coveredBy(Node<T> node, String[] tokens, int index, Consumer<T> consumer) {
+        if (index == tokens.length) {
+            node.values.forEach(consumer);
+            return;
+        }
+
+        String token = tokens[index];
+        if (GT.equals(token)) {
+            // everything with at least one more token
+            node.children.values().forEach(child -> all(child, consumer));
+        }
+        else if (STAR.equals(token)) {
+            // a * covers every single token but >
+            node.children.forEach((t, child) -> {
+                if (!GT.equals(t)) {
+                    coveredBy(child, tokens, index + 1, consumer);
+                }
+            });
+        }
+        else {
+            Node<T> literal = node.children.get(token);
+            if (literal != null) {
+                coveredBy(literal, tokens, index + 1, consumer);
+            }
+        }
+    }
+
+    private static <T> void all(Node<T> node, Consumer<T> consumer) {
+        node.values.forEach(consumer);
+        node.children.values().forEach(child -> all(child, consumer));
+    }
+
+    /**
+     * @return true if every subject matched by the pattern is also matched by the covering pattern
+     */
+    static boolean covers(String covering, String pattern) {
+        String[] c = tokenize(covering);
+        String[] p = tokenize(pattern);
+        for (int i = 0; i < c.length; i++) {
+            if (GT.equals(c[i])) {
+                return p.length > i;
+            }
+            if (i == p.length || GT.equals(p[i])) {
+                return false;
+            }
+            if (!STAR.equals(c[i]) && !c[i].equals(p[i])) {
+                return false;
+            }
+        }
+        return c.length == p.length;
+    }
+
+    static String[] tokenize(String subject) {
+        int count = 1;
+        for (int i = 0; i < subject.length(); i++) {
+            if (subject.charAt(i) == '.') {
+                count++;
+            }
+        }
+        String[] tokens = new String[count];
+        int start = 0;
+        int t = 0;
+        for (int i = 0; i < subject.length(); i++) {
+            if (subject.charAt(i) == '.') {
+                tokens[t++] = subject.substring(start, i);
+                start = i + 1;
+            }
+        }
+        tokens[t] = subject.substring(start);
+        return tokens;
+    }
+}
@@ -76,6 +76,7 @@ public interface ApiConstants {
     String MAX_STORAGE      = "max_storage";
     String MAX_STREAMS      = "max_streams";
     String MEMORY           = "memory";
+    String MESSAGE          = "message";
     String MESSAGES         = "messages";
     String MIRROR           = "mirror";
     String NAME             = "name";
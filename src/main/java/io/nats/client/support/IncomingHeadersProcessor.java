@@ -15,10 +15,15 @@ package io.nats.client.support;
 
 import io.nats.client.impl.Headers;
 
+import java.util.Arrays;
+
 import static io.nats.client.support.NatsConstants.*;
 
 public class IncomingHeadersProcessor {
 
+    private static final String KEY_INVALID_CHARACTER = "Header key has invalid character: ";
+    private static final String VALUE_INVALID_CHARACTERS = "Header value has invalid character: ";
+
     private final int serializedLength;
     private Headers headers;
     private Status inlineStatus;
@@ -52,7 +57,7 @@ public class IncomingHeadersProcessor {
         }
 
         if (token.isType(TokenType.CRLF)) {
-            initHeader(serialized, serializedLength, token, hadStatus);
+            initHeader(serialized, serializedLength, token.getEnd() + 1, hadStatus);
         }
         else {
             throw new IllegalArgumentException(INVALID_HEADER_COMPOSITION);
@@ -71,33 +76,93 @@ public class IncomingHeadersProcessor {
         return inlineStatus;
     }
 
-    private void initHeader(byte[] serialized, int len, Token tCrlf, boolean hadStatus) {
-        // REGULAR HEADER
-        Token peek = new Token(serialized, len, tCrlf, null);
-        while (peek.isType(TokenType.TEXT)) {
-            Token tKey = new Token(serialized, len, tCrlf, TokenType.KEY);
-            Token tVal = new Token(serialized, len, tKey, null);
-            if (tVal.isType(TokenType.SPACE)) {
-                tVal = new Token(serialized, len, tVal, null);
+    /**
+     * Check the header lines in one pass, noting where each key and value starts and ends.
+     * The keys and values are only made into strings when someone asks for them.
+     */
+    private void initHeader(byte[] serialized, int len, int cur, boolean hadStatus) {
+        int[] index = new int[16];
+        int lines = 0;
+        while (true) {
+            if (cur >= len || serialized[cur] == SP) {
+                throw new IllegalArgumentException(INVALID_HEADER_COMPOSITION);
+            }
+            if (serialized[cur] == CR) {
+                mustBeCrlf(serialized, len, cur);
+                break;
+            }
+
+            int keyStart = cur;
+            while (cur < len && serialized[cur] != COLON) {
+                cur++;
             }
-            if (tVal.isType(TokenType.TEXT)) {
-                tCrlf = new Token(serialized, len, tVal, TokenType.CRLF);
+            if (cur >= len) {
+                throw new IllegalArgumentException(INVALID_HEADER_COMPOSITION);
             }
-            else {
-                tVal.mustBe(TokenType.CRLF);
-                tCrlf = tVal;
+            int keyEnd = cur;
+
+            int valueStart = ++cur;
+            while (cur < len && serialized[cur] != CR) {
+                cur++;
             }
-            if (headers == null) {
-                headers = new Headers();
+            mustBeCrlf(serialized, len, cur);
+            int valueEnd = cur;
+            cur += 2;
+
+            // trim like String.trim
+            while (keyStart < keyEnd && (serialized[keyStart] & 0xFF) <= SP) keyStart++;
+            while (keyEnd > keyStart && (serialized[keyEnd - 1] & 0xFF) <= SP) keyEnd--;
+            while (valueStart < valueEnd && (serialized[valueStart] & 0xFF) <= SP) valueStart++;
+            while (valueEnd > valueStart && (serialized[valueEnd - 1] & 0xFF) <= SP) valueEnd--;
+            checkKey(serialized, keyStart, keyEnd);
+            checkValue(serialized, valueStart, valueEnd);
+
+            if (index.length < (lines + 1) * 4) {
+                index = Arrays.copyOf(index, index.length * 2);
             }
-            headers.add(tKey.getValue(), tVal.getValue());
-            peek = new Token(serialized, len, tCrlf, null);
+            int i = lines * 4;
+            index[i] = keyStart;
+            index[i + 1] = keyEnd;
+            index[i + 2] = valueStart;
+            index[i + 3] = valueEnd;
+            lines++;
+        }
+
+        if (lines == 0) {
+            if (!hadStatus) {
+                throw new IllegalArgumentException(INVALID_HEADER_COMPOSITION);
+            }
+            return;
+        }
+        // bytes with a status line are not sent again as they are, the status is not a header
+        headers = Headers.fromSerialized(serialized, index, lines, !hadStatus);
+    }
+
+    private static void mustBeCrlf(byte[] serialized, int len, int cur) {
+        if (cur + 1 >= len || serialized[cur] != CR || serialized[cur + 1] != LF) {
+            throw new IllegalArgumentException(INVALID_HEADER_COMPOSITION);
         }
-        peek.mustBe(TokenType.CRLF);
+    }
 
-        if ((headers == null || headers.size() == 0) && !hadStatus) {
+    private static void checkKey(byte[] serialized, int start, int end) {
+        if (start == end) {
             throw new IllegalArgumentException(INVALID_HEADER_COMPOSITION);
         }
+        for (int x = start; x < end; x++) {
+            int c = serialized[x] & 0xFF;
+            if (c < 33 || c > 126) {
+                throw new IllegalArgumentException(KEY_INVALID_CHARACTER + "'" + (char) c + "'");
+            }
+        }
+    }
+
+    private static void checkValue(byte[] serialized, int start, int end) {
+        for (int x = start; x < end; x++) {
+            int c = serialized[x] & 0xFF;
+            if ((c < 32 && c != 9) || c > 126) {
+                throw new IllegalArgumentException(VALUE_INVALID_CHARACTERS + c);
+            }
+        }
     }
 
     private Token initStatus(byte[] serialized, int len, Token tSpace) {
@@ -0,0 +1,190 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.support;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import static io.nats.client.support.JsonReader.*;
+
+/**
+ * A json object read by the {@link JsonReader}. Fields are looked up by name and decoded
+ * only when read. The read methods follow the {@link JsonUtils} read methods, so a field that
+ * is missing or has a value of the wrong type gives the same default.
+ */
+public final class JsonNode {
+    /**
+     * An object with no fields.
+     */
+    public static final JsonNode EMPTY = JsonReader.parse(JsonUtils.EMPTY_JSON.getBytes(StandardCharsets.US_ASCII));
+
+    private final JsonReader reader;
+    private final int entry;
+
+    JsonNode(JsonReader reader, int entry) {
+        this.reader = reader;
+        this.entry = entry;
+    }
+
+    public boolean has(String field) {
+        return reader.find(entry, field) != -1;
+    }
+
+    public String readString(String field) {
+        return readString(field, null);
+    }
+
+    public String readString(String field, String dflt) {
+        int value = find(field, STRING);
+        return value == -1 ? dflt : reader.string(value);
+    }
+
+    public byte[] readBytes(String field) {
+        int value = find(field, STRING);
+        return value == -1 ? null : reader.string(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public byte[] readBase64(String field) {
+        int value = find(field, STRING);
+        return value == -1 ? null
+                : Base64.getDecoder().decode(Arrays.copyOfRange(reader.json, reader.start(value), reader.end(value)));
+    }
+
+    public boolean readBoolean(String field) {
+        int value = reader.find(entry, field);
+        return value != -1 && reader.type(value) == TRUE;
+    }
+
+    public int readInt(String field, int dflt) {
+        int value = find(field, NUMBER);
+        return value == -1 ? dflt : (int)reader.number(value);
+    }
+
+    public void readInt(String field, IntConsumer c) {
+        int value = find(field, NUMBER);
+        if (value != -1) {
+            c.accept((int)reader.number(value));
+        }
+    }
+
+    public long readLong(String field, long dflt) {
+        int value = find(field, NUMBER);
+        return value == -1 ? dflt : reader.number(value);
+    }
+
+    public void readLong(String field, LongConsumer c) {
+        int value = find(field, NUMBER);
+        if (value != -1) {
+            c.accept(reader.number(value));
+        }
+    }
+
+    public ZonedDateTime readDate(String field) {
+        int value = find(field, STRING);
+        return value == -1 ? null : DateTimeUtils.parseDateTime(reader.string(value));
+    }
+
+    public Duration readNanos(String field, Duration dflt) {
+        int value = find(field, NUMBER);
+        return value == -1 ? dflt : Duration.ofNanos(reader.number(value));
+    }
+
+    public void readNanos(String field, Consumer<Duration> c) {
+        int value = find(field, NUMBER);
+        if (value != -1) {
+            c.accept(Duration.ofNanos(reader.number(value)));
+        }
+    }
+
+    /**
+     * Get an object field. Returns an empty object if not found.
+     * @param field the field name
+     * @return the object
+     */
+    public JsonNode getObject(String field) {
+        return getObject(field, EMPTY);
+    }
+
+    public JsonNode getObject(String field, JsonNode dflt) {
+        int value = find(field, OBJECT);
+        return value == -1 ? dflt : new JsonNode(reader, value);
+    }
+
+    /**
+     * Get the objects in an array field. Returns an empty list if not found.
+     * Anything in the array that is not an object is skipped.
+     * @param field the field name
+     * @return the objects
+     */
+    public List<JsonNode> getObjectList(String field) {
+        int array = find(field, ARRAY);
+        if (array == -1) {
+            return Collections.emptyList();
+        }
+        List<JsonNode> list = new ArrayList<>();
+        for (int x = array + 1; x < reader.next(array); x = reader.next(x)) {
+            if (reader.type(x) == OBJECT) {
+                list.add(new JsonNode(reader, x));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Get the strings in an array field. Returns an empty list if not found.
+     * Empty strings and anything in the array that is not a string are skipped.
+     * @param field the field name
+     * @return the strings
+     */
+    public List<String> getStringList(String field) {
+        List<String> list = new ArrayList<>();
+        int array = find(field, ARRAY);
+        if (array != -1) {
+            for (int x = array + 1; x < reader.next(array); x = reader.next(x)) {
+                if (reader.type(x) == STRING && reader.end(x) > reader.start(x)) {
+                    list.add(reader.string(x));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return the json text of this object, as it was read
+     */
+    public String toJson() {
+        int start = reader.start(entry);
+        return new String(reader.json, start, reader.end(entry) - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    private int find(String field, int type) {
+        int value = reader.find(entry, field);
+        return value == -1 || reader.type(value) != type ? -1 : value;
+    }
+}
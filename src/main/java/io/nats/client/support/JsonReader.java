@@ -0,0 +1,343 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A single pass, allocation light json reader that works directly on the bytes of a document.
+ *
+ * <p>The document is tokenized once into a flat table of ints, the tape. Every value gets an entry
+ * with its type and where it is in the bytes, and every object or array entry also knows where its
+ * contents end, so finding a field steps over whole values instead of rescanning text. Nothing is
+ * decoded until it is read, and reading a number or matching a field name does not allocate.
+ *
+ * <p>The reader is as forgiving as the regular expressions it replaces: trailing commas are accepted
+ * and a malformed document keeps everything that was read before the problem.
+ */
+public final class JsonReader {
+    static final int OBJECT = 1;
+    static final int ARRAY = 2;
+    static final int STRING = 3;
+    static final int NUMBER = 4;
+    static final int TRUE = 5;
+    static final int FALSE = 6;
+    static final int NULL = 7;
+    static final int TYPE_MASK = 0x0F;
+    static final int ESCAPED = 0x10; // a string containing a backslash escape
+
+    // each entry is type, start, end and the index of the entry after it
+    private static final int ENTRY_SIZE = 4;
+    private static final int START = 1;
+    private static final int END = 2;
+    private static final int NEXT = 3;
+
+    private static final byte[] TRUE_BYTES = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE_BYTES = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_BYTES = "null".getBytes(StandardCharsets.US_ASCII);
+
+    final byte[] json;
+    private int[] tape;
+    private int entries;
+
+    private int[] open;
+    private int depth;
+
+    private JsonReader(byte[] json, int length) {
+        this.json = json;
+        this.tape = new int[ENTRY_SIZE * Math.max(8, length / 8)];
+        this.open = new int[8];
+    }
+
+    /**
+     * Read a json object.
+     * @param json the json bytes, UTF-8 encoded
+     * @return the first object in the json, an empty object if the json is null or has no object
+     */
+    public static JsonNode parse(byte[] json) {
+        return json == null ? JsonNode.EMPTY : parse(json, 0, json.length);
+    }
+
+    /**
+     * Read a json object from part of an array.
+     * @param json the json bytes, UTF-8 encoded
+     * @param offset where the object starts
+     * @param length the number of bytes
+     * @return the first object in the bytes, an empty object if there is no object
+     */
+    public static JsonNode parse(byte[] json, int offset, int length) {
+        JsonReader reader = new JsonReader(json, length);
+        reader.read(offset, offset + length);
+        return reader.entries == 0 ? JsonNode.EMPTY : new JsonNode(reader, 0);
+    }
+
+    /**
+     * Read a json object.
+     * @param json the json string
+     * @return the first object in the json, an empty object if the json is null or has no object
+     */
+    public static JsonNode parse(String json) {
+        return json == null ? JsonNode.EMPTY : parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // TOKENIZING
+    // ----------------------------------------------------------------------------------------------------
+    private void read(int pos, int end) {
+        // the document starts at the first object, i.e. after the INFO of a server info line
+        while (pos < end && json[pos] != '{') {
+            pos++;
+        }
+        if (pos == end) {
+            return;
+        }
+
+        pos = value(pos, end);
+        boolean afterValue = false;
+        while (depth > 0 && pos >= 0) {
+            pos = skipWhitespace(pos, end);
+            if (pos >= end) {
+                break;
+            }
+            int container = open[depth - 1];
+            boolean inObject = type(container) == OBJECT;
+            byte b = json[pos];
+
+            if (b == (inObject ? '}' : ']')) {
+                // also covers empty containers and a trailing comma
+                close(container, pos + 1);
+                pos++;
+                afterValue = true;
+            }
+            else if (afterValue) {
+                if (b != ',') {
+                    break;
+                }
+                pos++;
+                afterValue = false;
+            }
+            else {
+                if (inObject) {
+                    if (b != '"' || (pos = string(pos, end)) < 0) {
+                        break;
+                    }
+                    pos = skipWhitespace(pos, end);
+                    if (pos >= end || json[pos] != ':') {
+                        break;
+                    }
+                    pos = skipWhitespace(pos + 1, end);
+                    if (pos >= end) {
+                        break;
+                    }
+                }
+                int depthBefore = depth;
+                pos = value(pos, end);
+                afterValue = depth == depthBefore;
+            }
+        }
+
+        // whatever is still open was cut off or malformed, keep what was read
+        while (depth > 0) {
+            close(open[depth - 1], end);
+        }
+    }
+
+    private int value(int pos, int end) {
+        byte b = json[pos];
+        switch (b) {
+            case '{':
+                push(add(OBJECT, pos, pos));
+                return pos + 1;
+            case '[':
+                push(add(ARRAY, pos, pos));
+                return pos + 1;
+            case '"':
+                return string(pos, end);
+            case 't':
+                return literal(TRUE, TRUE_BYTES, pos, end);
+            case 'f':
+                return literal(FALSE, FALSE_BYTES, pos, end);
+            case 'n':
+                return literal(NULL, NULL_BYTES, pos, end);
+        }
+        if (b == '-' || (b >= '0' && b <= '9')) {
+            int x = pos + 1;
+            while (x < end && isNumberPart(json[x])) {
+                x++;
+            }
+            add(NUMBER, pos, x);
+            return x;
+        }
+        return -1;
+    }
+
+    private int string(int pos, int end) {
+        int type = STRING;
+        int x = pos + 1;
+        while (x < end) {
+            byte b = json[x];
+            if (b == '"') {
+                add(type, pos + 1, x);
+                return x + 1;
+            }
+            if (b == '\\') {
+                type = STRING | ESCAPED;
+                x++;
+            }
+            x++;
+        }
+        return -1;
+    }
+
+    private int literal(int type, byte[] expected, int pos, int end) {
+        if (end - pos < expected.length) {
+            return -1;
+        }
+        for (int x = 0; x < expected.length; x++) {
+            if (json[pos + x] != expected[x]) {
+                return -1;
+            }
+        }
+        add(type, pos, pos + expected.length);
+        return pos + expected.length;
+    }
+
+    private static boolean isNumberPart(byte b) {
+        return (b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '-' || b == '+';
+    }
+
+    private int skipWhitespace(int pos, int end) {
+        while (pos < end) {
+            byte b = json[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private int add(int type, int start, int end) {
+        int at = entries * ENTRY_SIZE;
+        if (at == tape.length) {
+            tape = Arrays.copyOf(tape, tape.length * 2);
+        }
+        tape[at] = type;
+        tape[at + START] = start;
+        tape[at + END] = end;
+        tape[at + NEXT] = entries + 1;
+        return entries++;
+    }
+
+    private void push(int entry) {
+        if (depth == open.length) {
+            open = Arrays.copyOf(open, depth * 2);
+        }
+        open[depth++] = entry;
+    }
+
+    private void close(int entry, int end) {
+        int at = entry * ENTRY_SIZE;
+        tape[at + END] = end;
+        tape[at + NEXT] = entries;
+        depth--;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // TAPE ACCESS
+    // ----------------------------------------------------------------------------------------------------
+    int type(int entry) {
+        return tape[entry * ENTRY_SIZE] & TYPE_MASK;
+    }
+
+    boolean isEscaped(int entry) {
+        return (tape[entry * ENTRY_SIZE] & ESCAPED) != 0;
+    }
+
+    int start(int entry) {
+        return tape[entry * ENTRY_SIZE + START];
+    }
+
+    int end(int entry) {
+        return tape[entry * ENTRY_SIZE + END];
+    }
+
+    int next(int entry) {
+        return tape[entry * ENTRY_SIZE + NEXT];
+    }
+
+    /**
+     * Find a field of an object
+     * @return the entry of the field's value, -1 if the object does not have the field
+     */
+    int find(int object, String field) {
+        int last = next(object);
+        int key = object + 1;
+        while (key + 1 < last) {
+            if (matches(key, field)) {
+                return key + 1;
+            }
+            key = next(key + 1);
+        }
+        return -1;
+    }
+
+    private boolean matches(int key, String field) {
+        int start = start(key);
+        int len = end(key) - start;
+        if (len != field.length()) {
+            return false;
+        }
+        for (int x = 0; x < len; x++) {
+            if (json[start + x] != field.charAt(x)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String string(int entry) {
+        int start = start(entry);
+        String s = new String(json, start, end(entry) - start, StandardCharsets.UTF_8);
+        return isEscaped(entry) ? JsonUtils.decode(s) : s;
+    }
+
+    long number(int entry) {
+        int start = start(entry);
+        int end = end(entry);
+        int x = start;
+        boolean negative = json[x] == '-';
+        if (negative) {
+            x++;
+        }
+        if (end - x > 18) {
+            return Long.parseLong(ascii(start, end)); // might not fit, let the jdk decide
+        }
+        long value = 0;
+        for (; x < end; x++) {
+            int digit = json[x] - '0';
+            if (digit < 0 || digit > 9) {
+                return (long)Double.parseDouble(ascii(start, end)); // a fraction or exponent
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    String ascii(int start, int end) {
+        return new String(json, start, end - start, StandardCharsets.US_ASCII);
+    }
+}
@@ -449,6 +449,12 @@ public abstract class JsonUtils {
                     case '\\':
                         ch = '\\';
                         break;
+                    case '"':
+                        ch = '"';
+                        break;
+                    case '/':
+                        ch = '/';
+                        break;
                     case 'b':
                         ch = '\b';
                         break;
@@ -0,0 +1,256 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, log-linear histogram of nanosecond durations.
+ *
+ * <p>Each power of two is split into {@value #SUB_BUCKETS} linear sub buckets, so any recorded
+ * value is reported within about 6% of its real value. Recording is lock free and does not allocate,
+ * so it is safe to call on the hot path from any thread. Reads are not atomic with respect to
+ * concurrent recording, which is fine for the percentile estimates this is used for.
+ *
+ * <p>A histogram recorded into by many threads at once can be split into shards. Each thread records
+ * into the shard picked by its id, so threads don't fight over the same counts, and the shards are
+ * merged when read.
+ *
+ * <p>A {@link #snapshot() snapshot} is an immutable copy of the counts at the time it was taken,
+ * which is what statistics hand out so callers can neither see later values nor change the live counts.
+ */
+public class LatencyHistogram {
+    static final int SUB_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int MAX_EXPONENT = 44; // 2^44 nanos is almost 5 hours, anything longer is clamped
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+    static final long MAX_TRACKABLE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray[] shards;
+    private final int shardMask;
+    private final boolean readOnly;
+
+    public LatencyHistogram() {
+        this(1);
+    }
+
+    /**
+     * Create a histogram split into shards
+     * @param shards the number of shards, rounded up to a power of 2
+     */
+    public LatencyHistogram(int shards) {
+        int count = shards <= 1 ? 1 : Integer.highestOneBit(shards - 1) << 1;
+        this.shards = new AtomicLongArray[count];
+        for (int x = 0; x < count; x++) {
+            this.shards[x] = new AtomicLongArray(BUCKETS);
+        }
+        this.shardMask = count - 1;
+        this.readOnly = false;
+    }
+
+    private LatencyHistogram(long[] counts) {
+        this.shards = new AtomicLongArray[] { new AtomicLongArray(counts) };
+        this.shardMask = 0;
+        this.readOnly = true;
+    }
+
+    /**
+     * Take an immutable copy of the recorded values
+     * @return the snapshot, which throws UnsupportedOperationException on record, add and reset
+     */
+    public LatencyHistogram snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int x = 0; x < BUCKETS; x++) {
+            counts[x] = count(x);
+        }
+        return new LatencyHistogram(counts);
+    }
+
+    /**
+     * @return true if this is a snapshot and cannot be changed
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Record a duration
+     * @param nanos the duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        checkWritable();
+        AtomicLongArray shard = shardMask == 0 ? shards[0] : shards[(int)Thread.currentThread().getId() & shardMask];
+        shard.incrementAndGet(bucketFor(nanos));
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int getShards() {
+        return shards.length;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        long total = 0;
+        for (int x = 0; x < BUCKETS; x++) {
+            total += count(x);
+        }
+        return total;
+    }
+
+    /**
+     * Get the value at or below which the given percentage of recorded values fall.
+     * @param percentile the percentile, between 0 and 100
+     * @return the value in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long target = target(total, percentile);
+        long seen = 0;
+        for (int x = 0; x < BUCKETS; x++) {
+            seen += count(x);
+            if (seen >= target) {
+                return highestValueIn(x);
+            }
+        }
+        return getMax(); // values were reset while reading
+    }
+
+    /**
+     * Get several percentiles from a single consistent pass over the counts.
+     * @param percentiles the percentiles, each between 0 and 100
+     * @return the values in nanoseconds, in the same order as the percentiles
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int x = 0; x < BUCKETS; x++) {
+            snapshot[x] = count(x);
+            total += snapshot[x];
+        }
+        long[] values = new long[percentiles.length];
+        for (int x = 0; x < percentiles.length; x++) {
+            values[x] = valueAtPercentile(snapshot, total, percentiles[x]);
+        }
+        return values;
+    }
+
+    /**
+     * @return the highest recorded value in nanoseconds, at bucket resolution, 0 if nothing has been recorded
+     */
+    public long getMax() {
+        for (int x = BUCKETS - 1; x >= 0; x--) {
+            if (count(x) > 0) {
+                return highestValueIn(x);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Add the values recorded in another histogram to this one, for instance to combine
+     * the histograms of several connections.
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        checkWritable();
+        for (int x = 0; x < BUCKETS; x++) {
+            long count = other.count(x);
+            if (count > 0) {
+                shards[0].addAndGet(x, count);
+            }
+        }
+    }
+
+    /**
+     * Clear all recorded values.
+     */
+    public void reset() {
+        checkWritable();
+        for (AtomicLongArray shard : shards) {
+            for (int x = 0; x < BUCKETS; x++) {
+                shard.set(x, 0);
+            }
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Latency histogram snapshots are read only.");
+        }
+    }
+
+    private long count(int bucket) {
+        long count = 0;
+        for (AtomicLongArray shard : shards) {
+            count += shard.get(bucket);
+        }
+        return count;
+    }
+
+    private static long valueAtPercentile(long[] snapshot, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = target(total, percentile);
+        long seen = 0;
+        for (int x = 0; x < snapshot.length; x++) {
+            seen += snapshot[x];
+            if (seen >= target) {
+                return highestValueIn(x);
+            }
+        }
+        return highestValueIn(snapshot.length - 1);
+    }
+
+    private static long target(long total, double percentile) {
+        double p = Math.min(Math.max(percentile, 0), 100);
+        return Math.max(1, (long)Math.ceil(p / 100.0 * total));
+    }
+
+    static int bucketFor(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return nanos < 0 ? 0 : (int)nanos;
+        }
+        if (nanos > MAX_TRACKABLE) {
+            nanos = MAX_TRACKABLE;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int)(nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        return lowestValueIn(bucket) + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
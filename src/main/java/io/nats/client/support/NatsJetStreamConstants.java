@@ -64,4 +64,5 @@ public interface NatsJetStreamConstants {
     String EXPECTED_STREAM_HDR = "Nats-Expected-Stream";
     String EXPECTED_LAST_SEQ_HDR = "Nats-Expected-Last-Sequence";
     String EXPECTED_LAST_MSG_ID_HDR = "Nats-Expected-Last-Msg-Id";
+    String CONSUMER_STALLED_HDR = "Nats-Consumer-Stalled";
 }
@@ -13,11 +13,13 @@ public class NatsRequestCompletableFuture extends CompletableFuture<Message> {
 
     private final boolean cancelOn503;
     private final long timeOutAfter;
+    private final long startNanos;
     private boolean wasCancelledClosing;
     private boolean wasCancelledTimedOut;
 
     public NatsRequestCompletableFuture(boolean cancelOn503, Duration timeout) {
         this.cancelOn503 = cancelOn503;
+        this.startNanos = System.nanoTime();
         if (timeout == null) {
             timeOutAfter = System.currentTimeMillis() + SAFE_TO_CONSIDER_ORPHANED;
         }
@@ -40,6 +42,10 @@ public class NatsRequestCompletableFuture extends CompletableFuture<Message> {
         return cancelOn503;
     }
 
+    public long getStartNanos() {
+        return startNanos;
+    }
+
     public boolean hasExceededTimeout() {
         return System.currentTimeMillis() > timeOutAfter;
     }
@@ -92,6 +92,10 @@ public class Token {
         return type == expected;
     }
 
+    public int getEnd() {
+        return end;
+    }
+
     public boolean hasValue() {
         return hasValue;
     }
@@ -0,0 +1,72 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client;
+
+import io.nats.client.utils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgePolicyTests extends TestBase {
+    @Test
+    public void testBuilder() {
+        HedgePolicy hp = HedgePolicy.builder().build();
+        assertEquals(HedgePolicy.DEFAULT_PERCENTILE, hp.getPercentile());
+        assertEquals(HedgePolicy.DEFAULT_INITIAL_DELAY, hp.getInitialDelay());
+        assertEquals(HedgePolicy.DEFAULT_MIN_DELAY, hp.getMinDelay());
+        assertEquals(HedgePolicy.DEFAULT_MAX_DELAY, hp.getMaxDelay());
+        assertEquals(HedgePolicy.DEFAULT_MIN_SAMPLES, hp.getMinSamples());
+        assertEquals(HedgePolicy.DEFAULT_MAX_HEDGES, hp.getMaxHedges());
+        assertTrue(hp.getAlternateSubjects().isEmpty());
+        assertEquals(SUBJECT, hp.getHedgeSubject(SUBJECT, 1));
+
+        hp = HedgePolicy.builder()
+                .percentile(99)
+                .initialDelay(Duration.ofMillis(5))
+                .minDelay(Duration.ofMillis(2))
+                .maxDelay(Duration.ofMillis(200))
+                .minSamples(7)
+                .maxHedges(3)
+                .alternateSubjects("alt1", "alt2")
+                .build();
+        assertEquals(99, hp.getPercentile());
+        assertEquals(Duration.ofMillis(5), hp.getInitialDelay());
+        assertEquals(Duration.ofMillis(2), hp.getMinDelay());
+        assertEquals(Duration.ofMillis(200), hp.getMaxDelay());
+        assertEquals(7, hp.getMinSamples());
+        assertEquals(3, hp.getMaxHedges());
+        assertEquals("alt1", hp.getHedgeSubject(SUBJECT, 1));
+        assertEquals("alt2", hp.getHedgeSubject(SUBJECT, 2));
+        assertEquals("alt1", hp.getHedgeSubject(SUBJECT, 3));
+        assertNotNull(hp.toString());
+
+        hp = HedgePolicy.builder().initialDelay(null).minDelay(null).maxDelay(null).alternateSubjects((String[])null).build();
+        assertEquals(HedgePolicy.DEFAULT_INITIAL_DELAY, hp.getInitialDelay());
+        assertEquals(HedgePolicy.DEFAULT_MIN_DELAY, hp.getMinDelay());
+        assertEquals(HedgePolicy.DEFAULT_MAX_DELAY, hp.getMaxDelay());
+        assertTrue(hp.getAlternateSubjects().isEmpty());
+    }
+
+    @Test
+    public void testBuilderValidation() {
+        assertThrows(IllegalArgumentException.class, () -> HedgePolicy.builder().percentile(0));
+        assertThrows(IllegalArgumentException.class, () -> HedgePolicy.builder().percentile(101));
+        assertThrows(IllegalArgumentException.class, () -> HedgePolicy.builder().maxHedges(0));
+        assertThrows(IllegalArgumentException.class, () -> HedgePolicy.builder().alternateSubjects("has space"));
+        assertThrows(IllegalArgumentException.class,
+                () -> HedgePolicy.builder().minDelay(Duration.ofSeconds(2)).maxDelay(Duration.ofSeconds(1)).build());
+    }
+}
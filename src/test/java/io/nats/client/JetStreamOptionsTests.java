@@ -45,6 +45,18 @@ public class JetStreamOptionsTests extends TestBase {
         assertTrue(jso.isPublishNoAck());
     }
 
+    @Test
+    public void testLookupCacheTtl() {
+        assertEquals(Duration.ZERO, JetStreamOptions.defaultOptions().getLookupCacheTtl());
+        assertEquals(Duration.ZERO, JetStreamOptions.builder().lookupCacheTtl(null).build().getLookupCacheTtl());
+
+        JetStreamOptions jso = JetStreamOptions.builder().lookupCacheTtl(Duration.ofSeconds(30)).build();
+        assertEquals(Duration.ofSeconds(30), jso.getLookupCacheTtl());
+        assertEquals(Duration.ofSeconds(30), JetStreamOptions.builder(jso).build().getLookupCacheTtl());
+
+        assertEquals(Duration.ZERO, JetStreamOptions.builder().lookupCacheTtl(Duration.ofSeconds(-1)).build().getLookupCacheTtl());
+    }
+
 
     @Test
     public void testInvalidPrefix() {
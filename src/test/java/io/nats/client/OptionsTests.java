@@ -22,6 +22,7 @@ import javax.net.ssl.SSLContext;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Base64;
 import java.util.Collection;
@@ -29,6 +30,7 @@ import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -155,6 +157,116 @@ public class OptionsTests {
         assertEquals(Duration.ofMillis(606), o.getReconnectJitterTls(), "chained cleanup jitter tls");
     }
 
+    @Test
+    public void testRequestCoalescingOptions() {
+        Options o = new Options.Builder().build();
+        assertFalse(o.isRequestCoalescing(), "default request coalescing");
+        assertEquals(Duration.ZERO, o.getRequestReplyCacheTtl(), "default request cache ttl");
+        assertEquals(Options.DEFAULT_REQUEST_REPLY_CACHE_SIZE, o.getRequestReplyCacheSize(), "default request cache size");
+
+        o = new Options.Builder().requestCoalescing().requestReplyCache(Duration.ofMillis(250), 10).build();
+        assertTrue(o.isRequestCoalescing(), "chained request coalescing");
+        assertEquals(Duration.ofMillis(250), o.getRequestReplyCacheTtl(), "chained request cache ttl");
+        assertEquals(10, o.getRequestReplyCacheSize(), "chained request cache size");
+
+        Properties props = new Properties();
+        props.setProperty(Options.PROP_REQUEST_COALESCING, "true");
+        props.setProperty(Options.PROP_REQUEST_REPLY_CACHE_TTL, "500");
+        props.setProperty(Options.PROP_REQUEST_REPLY_CACHE_SIZE, "20");
+        o = new Options.Builder(props).build();
+        assertTrue(o.isRequestCoalescing(), "property request coalescing");
+        assertEquals(Duration.ofMillis(500), o.getRequestReplyCacheTtl(), "property request cache ttl");
+        assertEquals(20, o.getRequestReplyCacheSize(), "property request cache size");
+    }
+
+    @Test
+    public void testMetricsOptions() {
+        Options o = new Options.Builder().build();
+        assertFalse(o.isSubscriptionMetrics(), "default subscription metrics");
+        assertEquals(0, o.getSubjectMetricsTokens(), "default subject metrics tokens");
+        assertEquals(Options.DEFAULT_SUBJECT_METRICS_MAX_PREFIXES, o.getSubjectMetricsMaxPrefixes(), "default subject metrics max");
+
+        o = new Options.Builder().subscriptionMetrics().subjectMetrics(2, 50).build();
+        assertTrue(o.isSubscriptionMetrics(), "chained subscription metrics");
+        assertEquals(2, o.getSubjectMetricsTokens(), "chained subject metrics tokens");
+        assertEquals(50, o.getSubjectMetricsMaxPrefixes(), "chained subject metrics max");
+
+        Properties props = new Properties();
+        props.setProperty(Options.PROP_SUBSCRIPTION_METRICS, "true");
+        props.setProperty(Options.PROP_SUBJECT_METRICS_TOKENS, "3");
+        props.setProperty(Options.PROP_SUBJECT_METRICS_MAX_PREFIXES, "100");
+        o = new Options.Builder(props).build();
+        assertTrue(o.isSubscriptionMetrics(), "property subscription metrics");
+        assertEquals(3, o.getSubjectMetricsTokens(), "property subject metrics tokens");
+        assertEquals(100, o.getSubjectMetricsMaxPrefixes(), "property subject metrics max");
+    }
+
+    @Test
+    public void testReconnectOutboxOptions() {
+        Options o = new Options.Builder().build();
+        assertNull(o.getReconnectOutboxDirectory(), "default reconnect outbox");
+        assertEquals(Options.DEFAULT_RECONNECT_OUTBOX_MAX_BYTES, o.getReconnectOutboxMaxBytes(), "default reconnect outbox max");
+
+        o = new Options.Builder().reconnectOutbox(Paths.get("outbox"), -1).build();
+        assertEquals(Paths.get("outbox"), o.getReconnectOutboxDirectory(), "chained reconnect outbox");
+        assertEquals(-1, o.getReconnectOutboxMaxBytes(), "chained reconnect outbox max");
+
+        Properties props = new Properties();
+        props.setProperty(Options.PROP_RECONNECT_OUTBOX_DIR, "/tmp/outbox");
+        props.setProperty(Options.PROP_RECONNECT_OUTBOX_MAX_BYTES, "1024");
+        o = new Options.Builder(props).build();
+        assertEquals(Paths.get("/tmp/outbox"), o.getReconnectOutboxDirectory(), "property reconnect outbox");
+        assertEquals(1024, o.getReconnectOutboxMaxBytes(), "property reconnect outbox max");
+    }
+
+    @Test
+    public void testServerProbingOptions() {
+        Options o = new Options.Builder().build();
+        assertEquals(0, o.getServerProbes(), "default server probes");
+
+        o = new Options.Builder().serverProbing(3).build();
+        assertEquals(3, o.getServerProbes(), "chained server probes");
+
+        o = new Options.Builder().serverProbing(-1).build();
+        assertEquals(0, o.getServerProbes(), "negative server probes");
+
+        Properties props = new Properties();
+        props.setProperty(Options.PROP_SERVER_PROBES, "2");
+        o = new Options.Builder(props).build();
+        assertEquals(2, o.getServerProbes(), "property server probes");
+    }
+
+    @Test
+    public void testLocalRoutingOptions() {
+        Options o = new Options.Builder().build();
+        assertFalse(o.isLocalRouting(), "default local routing");
+
+        o = new Options.Builder().localRouting().build();
+        assertTrue(o.isLocalRouting(), "chained local routing");
+
+        Properties props = new Properties();
+        props.setProperty(Options.PROP_LOCAL_ROUTING, "true");
+        o = new Options.Builder(props).build();
+        assertTrue(o.isLocalRouting(), "property local routing");
+    }
+
+    @Test
+    public void testLocalDeliveryOptions() {
+        Options o = new Options.Builder().build();
+        assertFalse(o.isLocalDelivery(), "default local delivery");
+
+        o = new Options.Builder().localDelivery().build();
+        assertTrue(o.isLocalDelivery(), "chained local delivery");
+        assertFalse(o.isNoEcho(), "local delivery leaves no echo alone");
+        assertTrue(o.buildProtocolConnectOptionsString("nats://localhost:4222", false, null).toString()
+                .contains("\"echo\":false"), "local delivery turns off echo");
+
+        Properties props = new Properties();
+        props.setProperty(Options.PROP_LOCAL_DELIVERY, "true");
+        o = new Options.Builder(props).build();
+        assertTrue(o.isLocalDelivery(), "property local delivery");
+    }
+
     @Test
     public void testChainedErrorHandler() {
         TestHandler handler = new TestHandler();
@@ -582,6 +694,19 @@ public class OptionsTests {
         assertEquals(exec, options.getExecutor());
     }
     
+    @Test
+    public void testSetScheduler() {
+        assertNull(new Options.Builder().build().getScheduler(), "default scheduler is the shared one");
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            Options options = new Options.Builder().scheduler(scheduler).build();
+            assertEquals(scheduler, options.getScheduler());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
     @Test
     public void testDefaultExecutor() throws Exception {
         Options options = new Options.Builder().connectionName("test").build();
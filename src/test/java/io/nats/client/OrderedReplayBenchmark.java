@@ -0,0 +1,114 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client;
+
+import io.nats.client.api.AckPolicy;
+import io.nats.client.api.ConsumerConfiguration;
+import io.nats.client.api.StorageType;
+import io.nats.client.api.StreamConfiguration;
+
+import java.text.NumberFormat;
+import java.time.Duration;
+
+/**
+ * Replays a stream on a local JetStream enabled server, once with an ordered consumer and once
+ * with a plain ephemeral push consumer that does not ack, and reports the messages read per second.
+ * Arguments, all optional: message count, message size, server url.
+ */
+public class OrderedReplayBenchmark {
+    static final String STREAM = "replay-bench";
+    static final String SUBJECT = "replay.bench";
+
+    public static void main(String[] args) {
+        int total = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int messageSize = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        String url = args.length > 2 ? args[2] : Options.DEFAULT_URL;
+
+        System.out.println("###");
+        System.out.printf("### Running replay benchmark with %s %s byte messages.\n",
+                NumberFormat.getInstance().format(total),
+                NumberFormat.getInstance().format(messageSize));
+        System.out.println("###");
+
+        try (Connection nc = Nats.connect(new Options.Builder().server(url).turnOnAdvancedStats().build())) {
+            load(nc, total, messageSize);
+
+            replay(nc, "Ordered consumer", total, PushSubscribeOptions.builder().ordered(true).build());
+
+            ConsumerConfiguration plain = ConsumerConfiguration.builder().ackPolicy(AckPolicy.None).build();
+            replay(nc, "Plain push consumer", total, PushSubscribeOptions.builder().configuration(plain).build());
+
+            nc.jetStreamManagement().deleteStream(STREAM);
+
+            System.out.println("###");
+            System.out.println("### Overall Statistics");
+            System.out.println();
+            System.out.print(nc.getStatistics().toString());
+        } catch (Exception ex) {
+            System.out.println("Exception running benchmark.");
+            ex.printStackTrace();
+        }
+    }
+
+    static void load(Connection nc, int total, int messageSize) throws Exception {
+        JetStreamManagement jsm = nc.jetStreamManagement();
+        try {
+            jsm.deleteStream(STREAM);
+        } catch (JetStreamApiException e) {
+            // didn't exist
+        }
+        jsm.addStream(StreamConfiguration.builder()
+                .name(STREAM)
+                .subjects(SUBJECT)
+                .storageType(StorageType.Memory)
+                .build());
+
+        byte[] body = new byte[messageSize];
+        long start = System.nanoTime();
+        try (JetStreamPublisher publisher = nc.jetStream().publisher(JetStreamPublisherOptions.builder().maxInFlight(1000).build())) {
+            for (int i = 0; i < total; i++) {
+                publisher.publish(SUBJECT, body);
+            }
+            publisher.flushAcks(Duration.ofSeconds(30));
+        }
+        report("Loaded stream", System.nanoTime() - start, total);
+    }
+
+    static void replay(Connection nc, String label, int total, PushSubscribeOptions options) throws Exception {
+        long start = System.nanoTime();
+        JetStreamSubscription sub = nc.jetStream().subscribe(SUBJECT, options);
+        int read = 0;
+        while (read < total) {
+            Message m = sub.nextMessage(Duration.ofSeconds(10));
+            if (m == null) {
+                System.out.printf("### %s stopped after %s messages.\n", label, NumberFormat.getInstance().format(read));
+                break;
+            }
+            if (!m.isStatusMessage()) {
+                read++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sub.unsubscribe();
+        report(label, elapsed, read);
+    }
+
+    static void report(String label, long elapsed, int count) {
+        System.out.printf("### %s: %s messages in %s ms, %s msg/sec.\n", label,
+                NumberFormat.getInstance().format(count),
+                NumberFormat.getInstance().format(elapsed / 1_000_000L),
+                NumberFormat.getInstance().format(1_000_000_000L * count / Math.max(1, elapsed)));
+    }
+}
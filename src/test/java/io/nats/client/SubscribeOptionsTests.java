@@ -13,10 +13,13 @@
 
 package io.nats.client;
 
+import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
 import io.nats.client.utils.TestBase;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SubscribeOptionsTests extends TestBase {
@@ -56,10 +59,59 @@ public class SubscribeOptionsTests extends TestBase {
         PullSubscribeOptions so = builder.build();
         assertEquals(STREAM, so.getStream());
         assertEquals(DURABLE, so.getDurable());
+        assertNull(so.getPrefetchOptions());
+
+        PullPrefetchOptions ppo = PullPrefetchOptions.builder().build();
+        assertSame(ppo, builder.prefetch(ppo).build().getPrefetchOptions());
 
         assertNotNull(so.toString()); // COVERAGE
     }
 
+    @Test
+    public void testAckBatching() {
+        assertNull(PushSubscribeOptions.builder().build().getAckBatchOptions());
+        assertNull(PullSubscribeOptions.builder().durable(DURABLE).build().getAckBatchOptions());
+
+        AckBatchOptions abo = AckBatchOptions.builder().build();
+        assertEquals(AckBatchOptions.DEFAULT_MAX_ACKS, abo.getMaxAcks());
+        assertEquals(AckBatchOptions.DEFAULT_MAX_DELAY, abo.getMaxDelay());
+
+        abo = AckBatchOptions.builder().maxAcks(10).maxDelay(Duration.ofMillis(5)).build();
+        assertEquals(10, abo.getMaxAcks());
+        assertEquals(Duration.ofMillis(5), abo.getMaxDelay());
+        assertEquals(AckBatchOptions.DEFAULT_MAX_DELAY, AckBatchOptions.builder().maxDelay(null).build().getMaxDelay());
+
+        assertSame(abo, PushSubscribeOptions.builder().ackBatching(abo).build().getAckBatchOptions());
+        assertSame(abo, PullSubscribeOptions.builder().durable(DURABLE).ackBatching(abo).build().getAckBatchOptions());
+
+        assertThrows(IllegalArgumentException.class, () -> AckBatchOptions.builder().maxAcks(0));
+        assertThrows(IllegalArgumentException.class, () -> AckBatchOptions.builder().maxDelay(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> AckBatchOptions.builder().maxDelay(Duration.ofMillis(-1)));
+
+        assertNotNull(abo.toString()); // COVERAGE
+    }
+
+    @Test
+    public void testOrdered() {
+        assertFalse(PushSubscribeOptions.builder().build().isOrdered());
+
+        PushSubscribeOptions so = PushSubscribeOptions.builder().ordered(true).build();
+        assertTrue(so.isOrdered());
+        ConsumerConfiguration cc = so.getConsumerConfiguration();
+        assertEquals(AckPolicy.None, cc.getAckPolicy());
+        assertTrue(cc.getFlowControl());
+        assertEquals(PushSubscribeOptions.DEFAULT_ORDERED_HEARTBEAT, cc.getIdleHeartbeat());
+
+        cc = ConsumerConfiguration.builder().idleHeartbeat(Duration.ofSeconds(1)).build();
+        so = PushSubscribeOptions.builder().ordered(true).configuration(cc).build();
+        assertEquals(Duration.ofSeconds(1), so.getConsumerConfiguration().getIdleHeartbeat());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PushSubscribeOptions.builder().ordered(true).durable(DURABLE).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> PushSubscribeOptions.builder().ordered(true).deliverSubject(DELIVER).build());
+    }
+
     @Test
     public void testPushFieldValidation() {
         PushSubscribeOptions.Builder builder = PushSubscribeOptions.builder();
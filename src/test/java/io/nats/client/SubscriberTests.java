@@ -13,6 +13,8 @@
 
 package io.nats.client;
 
+import io.nats.client.impl.Headers;
+import io.nats.client.impl.NatsMessage;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
@@ -61,6 +63,87 @@ public class SubscriberTests {
         }
     }
 
+    @Test
+    public void testLocalRouting() throws IOException, InterruptedException, TimeoutException {
+        try (NatsTestServer ts = new NatsTestServer(false);
+                    Connection nc = Nats.connect(new Options.Builder().server(ts.getURI()).localRouting().build())) {
+            standardConnectionWait(nc);
+
+            Subscription bar = nc.subscribe("foo.bar");
+            Subscription star = nc.subscribe("foo.*");
+            Subscription gt = nc.subscribe("foo.>");
+            Subscription queue = nc.subscribe("foo.bar", "q");
+            nc.flush(Duration.ofSeconds(1)); // lets the interests settle
+
+            nc.publish("foo.bar", new byte[16]);
+            nc.publish("foo.baz.qux", new byte[16]);
+
+            // each subscription gets its own copy, exactly once
+            for (Subscription sub : new Subscription[] {bar, star, gt, queue}) {
+                Message msg = sub.nextMessage(Duration.ofMillis(500));
+                assertEquals("foo.bar", msg.getSubject());
+                assertEquals(sub, msg.getSubscription());
+                assertEquals(16, msg.getData().length);
+            }
+            assertEquals("foo.baz.qux", gt.nextMessage(Duration.ofMillis(500)).getSubject());
+            assertNull(bar.nextMessage(Duration.ofMillis(100)));
+            assertNull(star.nextMessage(Duration.ofMillis(100)));
+            assertNull(gt.nextMessage(Duration.ofMillis(100)));
+
+            // once the wide subscription goes, the narrow ones still get their messages
+            gt.unsubscribe();
+            nc.flush(Duration.ofSeconds(1));
+            nc.publish("foo.bar", new byte[16]);
+            assertNotNull(bar.nextMessage(Duration.ofMillis(500)));
+            assertNotNull(star.nextMessage(Duration.ofMillis(500)));
+            assertNull(bar.nextMessage(Duration.ofMillis(100)));
+        }
+    }
+
+    @Test
+    public void testLocalDelivery() throws IOException, InterruptedException, TimeoutException {
+        try (NatsTestServer ts = new NatsTestServer(false);
+                    Connection nc = Nats.connect(new Options.Builder().server(ts.getURI()).localDelivery().build());
+                    Connection other = Nats.connect(ts.getURI())) {
+            standardConnectionWait(nc);
+            standardConnectionWait(other);
+
+            Subscription local = nc.subscribe("foo.*");
+            Subscription queue = nc.subscribe("foo.bar", "q");
+            Subscription remote = other.subscribe("foo.bar");
+            nc.flush(Duration.ofSeconds(1));
+            other.flush(Duration.ofSeconds(1));
+
+            byte[] data = new byte[] {1, 2, 3};
+            Headers headers = new Headers().add("key", "value");
+            nc.publish(NatsMessage.builder().subject("foo.bar").replyTo("reply").headers(headers).data(data).build());
+            data[0] = 9; // the publisher is free to reuse its array
+            headers.put("key", "changed");
+
+            // delivered once, straight from the publish, not echoed by the server
+            Message msg = local.nextMessage(Duration.ofMillis(500));
+            assertEquals("foo.bar", msg.getSubject());
+            assertEquals("reply", msg.getReplyTo());
+            assertEquals(local, msg.getSubscription());
+            assertArrayEquals(new byte[] {1, 2, 3}, msg.getData());
+            assertEquals("value", msg.getHeaders().get("key").get(0));
+            assertNull(local.nextMessage(Duration.ofMillis(200)));
+
+            // the queue group is the server's, which does not echo
+            assertNull(queue.nextMessage(Duration.ofMillis(200)));
+            assertNotNull(remote.nextMessage(Duration.ofMillis(500)));
+
+            // messages from other connections still come through the server
+            other.publish("foo.baz", new byte[16]);
+            assertEquals("foo.baz", local.nextMessage(Duration.ofMillis(500)).getSubject());
+            assertEquals("foo.bar", queue.getSubject());
+
+            local.unsubscribe();
+            nc.publish("foo.bar", new byte[16]);
+            assertNotNull(remote.nextMessage(Duration.ofMillis(500)));
+        }
+    }
+
     @Test
     public void testMessageFromSubscriptionContainsConnection() throws IOException, InterruptedException {
         try (NatsTestServer ts = new NatsTestServer(false);
@@ -35,6 +35,12 @@ public class ApiResponseTests {
         assertNull(jsApiResp.getError());
     }
 
+    @Test
+    public void testGetJson() {
+        String json = "{\"type\":\"io.nats.jetstream.api.v1.consumer_info_response\",\"name\":\"foo\"}";
+        assertEquals(json, new TestApiResponse(json).getJson());
+    }
+
     @Test
     public void testErrorResponse() {
         String text = dataAsString("ErrorResponses.json.txt");
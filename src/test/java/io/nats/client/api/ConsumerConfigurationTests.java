@@ -14,12 +14,14 @@
 package io.nats.client.api;
 
 import io.nats.client.support.DateTimeUtils;
+import io.nats.client.support.JsonReader;
 import io.nats.client.utils.TestBase;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
 
+import static io.nats.client.support.ApiConstants.CONFIG;
 import static io.nats.client.utils.ResourceUtils.dataAsString;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -67,7 +69,7 @@ public class ConsumerConfigurationTests extends TestBase {
         assertNotNull(ccr.getConfig());
 
         String json = ccr.toJson();
-        c = new ConsumerConfiguration(json);
+        c = new ConsumerConfiguration(JsonReader.parse(json).getObject(CONFIG));
         assertEquals(AckPolicy.Explicit, c.getAckPolicy());
         assertEquals(Duration.ofSeconds(99), c.getAckWait());
         assertEquals(Duration.ofSeconds(66), c.getIdleHeartbeat());
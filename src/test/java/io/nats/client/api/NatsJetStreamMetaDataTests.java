@@ -39,6 +39,9 @@ public class NatsJetStreamMetaDataTests extends JetStreamTestBase {
         assertEquals(2020, jsmd.timestamp().getYear());
         assertEquals(6, jsmd.timestamp().getMinute());
         assertEquals(113260000, jsmd.timestamp().getNano());
+        assertEquals(1605139610113260000L, jsmd.timestampNanos());
+        assertEquals(jsmd.timestampNanos(), jsmd.timestamp().toInstant().getEpochSecond() * 1_000_000_000L + jsmd.timestamp().getNano());
+        assertSame(jsmd.timestamp(), jsmd.timestamp());
         assertEquals(-1, jsmd.pendingCount());
 
         jsmd = getJsMessage(JS_REPLY_TO + ".555").metaData();
@@ -63,5 +66,14 @@ public class NatsJetStreamMetaDataTests extends JetStreamTestBase {
 
         assertThrows(IllegalArgumentException.class,
                 () -> new NatsJetStreamMetaData(new NatsMessage("sub", null, new byte[0])));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new NatsJetStreamMetaData(getJsMessage("$JS.ACK.stream.consumer.1.x.3.1605139610113260000")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new NatsJetStreamMetaData(getJsMessage("$JS.ACK.stream.consumer.1..3.1605139610113260000")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new NatsJetStreamMetaData(getJsMessage("$JS.ACKX.stream.consumer.1.2.3.1605139610113260000")));
     }
 }
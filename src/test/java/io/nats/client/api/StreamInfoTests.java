@@ -14,6 +14,7 @@
 package io.nats.client.api;
 
 import io.nats.client.support.DateTimeUtils;
+import io.nats.client.support.JsonReader;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
@@ -121,7 +122,7 @@ public class StreamInfoTests {
         assertNull(si.getMirrorInfo());
         assertNull(si.getSourceInfos());
 
-        List<Replica> replicas = Replica.optionalListOf(EMPTY_JSON);
+        List<Replica> replicas = Replica.optionalListOf(JsonReader.parse(EMPTY_JSON));
         assertNull(replicas);
     }
 
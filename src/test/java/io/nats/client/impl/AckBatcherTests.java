@@ -0,0 +1,151 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.AckBatchOptions;
+import io.nats.client.api.AckPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AckBatcherTests {
+
+    private final List<String> sent = new ArrayList<>();
+    private final List<Runnable> timers = new ArrayList<>();
+    private final NatsStatistics stats = new NatsStatistics(false);
+
+    private AckBatcher batcher(int maxAcks) {
+        AckBatchOptions abo = AckBatchOptions.builder().maxAcks(maxAcks).maxDelay(Duration.ofMillis(10)).build();
+        return new AckBatcher(abo, true, stats, sent::addAll, (task, nanos) -> timers.add(task));
+    }
+
+    private AckBatcher pipeliner(int maxAcks) {
+        AckBatchOptions abo = AckBatchOptions.builder().maxAcks(maxAcks).maxDelay(Duration.ofMillis(10)).build();
+        return new AckBatcher(abo, false, stats, replies -> sent.add(String.join(",", replies)), (task, nanos) -> timers.add(task));
+    }
+
+    @Test
+    public void testNoBatcherUnlessThereAreAcks() {
+        AckBatchOptions abo = AckBatchOptions.builder().build();
+        assertNull(AckBatcher.create(null, null, AckPolicy.All));
+        assertNull(AckBatcher.create(null, null, AckPolicy.Explicit));
+        assertNull(AckBatcher.create(null, abo, AckPolicy.None));
+    }
+
+    @Test
+    public void testPipelineSendsEveryAckInOrder() {
+        AckBatcher ab = pipeliner(3);
+        ab.ack("r2", 2);
+        ab.ack("r3", 3);
+        assertTrue(sent.isEmpty());
+        ab.ack("r1", 1); // every ack is sent, in the order acked
+        assertEquals(Arrays.asList("r2,r3,r1"), sent);
+        assertEquals(0, ab.pendingCount());
+        assertEquals(3, ab.getAckLag().getCount());
+
+        ab.ack("r4", 4);
+        timers.get(0).run(); // the timer of the window that filled up does nothing
+        assertEquals(1, ab.pendingCount());
+        timers.get(1).run();
+        assertEquals(Arrays.asList("r2,r3,r1", "r4"), sent);
+        assertEquals(0, stats.getAcksCoalesced());
+    }
+
+    @Test
+    public void testCoalesceSendsHighestSequence() {
+        AckBatcher ab = batcher(3);
+        ab.ack("r2", 2);
+        ab.ack("r3", 3);
+        assertTrue(sent.isEmpty());
+        assertEquals(2, ab.pendingCount());
+        ab.ack("r1", 1); // out of order, does not replace the highest
+        assertEquals(Arrays.asList("r3"), sent);
+        assertEquals(0, ab.pendingCount());
+        assertEquals(2, stats.getAcksCoalesced());
+        assertEquals(3, ab.getAckLag().getCount());
+    }
+
+    @Test
+    public void testTimerSendsItsWindowOnly() {
+        AckBatcher ab = batcher(10);
+        ab.ack("r1", 1);
+        assertEquals(1, timers.size()); // only the first ack in a window starts the timer
+        ab.ack("r2", 2);
+        assertEquals(1, timers.size());
+
+        timers.get(0).run();
+        assertEquals(Arrays.asList("r2"), sent);
+
+        ab.ack("r3", 3);
+        assertEquals(2, timers.size());
+        ab.flush();
+        assertEquals(Arrays.asList("r2", "r3"), sent);
+
+        // a timer for a window that was already sent does nothing
+        ab.ack("r4", 4);
+        timers.get(1).run();
+        assertEquals(1, ab.pendingCount());
+        timers.get(2).run();
+        assertEquals(Arrays.asList("r2", "r3", "r4"), sent);
+        assertEquals(1, stats.getAcksCoalesced());
+    }
+
+    @Test
+    public void testSendsOutsideTheLock() throws Exception {
+        AckBatchOptions abo = AckBatchOptions.builder().maxAcks(10).build();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AckBatcher ab = new AckBatcher(abo, true, stats,
+                replies -> {
+                    sending.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                },
+                (task, nanos) -> timers.add(task));
+        ab.ack("r1", 1);
+        Thread t = new Thread(ab::flush);
+        t.start();
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // the publish is blocked, acking must not be
+        ab.ack("r2", 2);
+        assertEquals(1, ab.pendingCount());
+        release.countDown();
+        t.join(5000);
+    }
+
+    @Test
+    public void testFlushEmptyAndTimerSwallowsSendFailure() {
+        AckBatchOptions abo = AckBatchOptions.builder().maxAcks(10).build();
+        AckBatcher ab = new AckBatcher(abo, true, stats,
+                replies -> { throw new IllegalStateException("Connection is Closed"); },
+                (task, nanos) -> timers.add(task));
+        ab.flush(); // nothing held, nothing sent
+        ab.ack("r1", 1);
+        timers.get(0).run();
+        assertEquals(0, ab.pendingCount());
+    }
+}
@@ -0,0 +1,270 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskOutboxTests {
+
+    @Test
+    public void testAppendAndTakeInOrder() throws Exception {
+        inTempDirectory(dir -> {
+            NatsStatistics stats = new NatsStatistics(false);
+            DiskOutbox box = new DiskOutbox(dir, -1, 256, stats);
+            assertFalse(box.hasPending());
+            assertFalse(box.appendIfPending(message(0)));
+            assertNull(box.take());
+
+            for (int x = 0; x < 20; x++) {
+                assertTrue(x == 0 ? box.append(message(x)) : box.appendIfPending(message(x)));
+            }
+            assertEquals(20, box.getPending());
+            assertEquals(20, stats.getOutboxPending());
+            assertEquals(box.getPendingBytes(), stats.getOutboxPendingBytes());
+            assertTrue(box.getSegmentCount() > 1, "small segments roll over");
+
+            for (int x = 0; x < 20; x++) {
+                assertMessage(x, box.take());
+            }
+            assertNull(box.take());
+            assertEquals(20, stats.getOutboxSpilled());
+            assertEquals(20, stats.getOutboxReplayed());
+            assertEquals(0, stats.getOutboxPending());
+            assertEquals(0, stats.getOutboxPendingBytes());
+            assertEquals(0, box.getSegmentCount());
+            assertEquals(0, segmentFiles(dir));
+            box.close();
+        });
+    }
+
+    @Test
+    public void testMessageParts() throws Exception {
+        inTempDirectory(dir -> {
+            DiskOutbox box = new DiskOutbox(dir, -1, 1024, new NatsStatistics(false));
+            Headers headers = new Headers().add("key", "value");
+            NatsMessage utf8 = new NatsMessage("subject", "reply", headers, "data".getBytes());
+            utf8.utf8mode = true;
+            box.append(utf8);
+            box.append(new NatsMessage("subject", null, null, null));
+            box.append(new NatsMessage("subject", null, null, new byte[2048])); // bigger than a segment
+
+            NatsMessage msg = box.take();
+            assertEquals("subject", msg.getSubject());
+            assertEquals("reply", msg.getReplyTo());
+            assertTrue(msg.isUtf8mode());
+            assertEquals(headers, msg.getHeaders());
+            assertArrayEquals("data".getBytes(), msg.getData());
+
+            msg = box.take();
+            assertNull(msg.getReplyTo());
+            assertFalse(msg.hasHeaders());
+            assertEquals(0, msg.getData().length);
+
+            assertEquals(2048, box.take().getData().length);
+            box.close();
+        });
+    }
+
+    @Test
+    public void testMaxBytes() throws Exception {
+        inTempDirectory(dir -> {
+            // each of these records is 39 bytes
+            DiskOutbox box = new DiskOutbox(dir, 100, 1024, new NatsStatistics(false));
+            assertTrue(box.append(message(0)));
+            assertTrue(box.append(message(1)));
+            assertFalse(box.append(message(2)));
+            assertEquals(2, box.getPending());
+            assertMessage(0, box.take());
+            assertTrue(box.append(message(2)));
+            box.close();
+        });
+    }
+
+    @Test
+    public void testRecoverAfterClose() throws Exception {
+        inTempDirectory(dir -> {
+            DiskOutbox box = new DiskOutbox(dir, -1, 256, new NatsStatistics(false));
+            for (int x = 0; x < 10; x++) {
+                box.append(message(x));
+            }
+            assertMessage(0, box.take());
+            assertMessage(1, box.take());
+            box.close();
+            assertTrue(segmentFiles(dir) > 0);
+
+            NatsStatistics stats = new NatsStatistics(false);
+            box = new DiskOutbox(dir, -1, 256, stats);
+            assertEquals(8, box.getPending());
+            assertEquals(8, stats.getOutboxPending());
+            box.appendIfPending(message(10));
+            for (int x = 2; x <= 10; x++) {
+                assertMessage(x, box.take());
+            }
+            assertNull(box.take());
+            box.close();
+            assertEquals(0, segmentFiles(dir));
+        });
+    }
+
+    @Test
+    public void testPartlyWrittenRecordIsIgnored() throws Exception {
+        inTempDirectory(dir -> {
+            DiskOutbox box = new DiskOutbox(dir, -1, 1024, new NatsStatistics(false));
+            box.append(message(0));
+            box.close();
+
+            // a record whose length was never written looks like the end of the segment
+            Path file;
+            try (Stream<Path> files = Files.list(dir)) {
+                file = files.findFirst().orElseThrow(IllegalStateException::new);
+            }
+            try (FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+                ByteBuffer bb = ByteBuffer.allocate(4);
+                channel.read(bb, 0);
+                bb.flip();
+                int next = 4 + bb.getInt();
+                channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 1, 2, 3}), next);
+            }
+
+            box = new DiskOutbox(dir, -1, 1024, new NatsStatistics(false));
+            assertEquals(1, box.getPending());
+            assertMessage(0, box.take());
+            assertNull(box.take());
+            box.close();
+        });
+    }
+
+    @Test
+    public void testPeekStaysPendingUntilCommit() throws Exception {
+        inTempDirectory(dir -> {
+            DiskOutbox box = new DiskOutbox(dir, -1, 1024, new NatsStatistics(false));
+            box.append(message(0));
+            assertMessage(0, box.peek());
+            assertMessage(0, box.peek()); // the same one until it is committed
+            assertTrue(box.hasPending());
+
+            // the last record is not taken yet, so a new one still has to go behind it
+            assertTrue(box.appendIfPending(message(1)));
+            box.commit();
+            assertEquals(1, box.getPending());
+            box.commit(); // nothing peeked, nothing taken
+            assertEquals(1, box.getPending());
+            assertMessage(1, box.take());
+            assertFalse(box.hasPending());
+            box.close();
+        });
+    }
+
+    @Test
+    public void testPublishingWhileTheReplayEnds() throws Exception {
+        inTempDirectory(dir -> {
+            for (int round = 0; round < 20; round++) {
+                DiskOutbox box = new DiskOutbox(dir, -1, 4096, new NatsStatistics(false));
+                int replayed = 50;
+                int published = 200;
+                for (int x = 0; x < replayed; x++) {
+                    box.append(message(x));
+                }
+
+                // the same steps as the connection, queueing stands in for the outgoing queue
+                List<NatsMessage> queue = Collections.synchronizedList(new ArrayList<>());
+                Thread replay = new Thread(() -> {
+                    try {
+                        NatsMessage msg;
+                        while ((msg = box.peek()) != null) {
+                            queue.add(msg);
+                            box.commit();
+                        }
+                    }
+                    catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                Thread publish = new Thread(() -> {
+                    try {
+                        for (int x = replayed; x < replayed + published; x++) {
+                            NatsMessage msg = message(x);
+                            if (!(box.hasPending() && box.appendIfPending(msg))) {
+                                queue.add(msg);
+                            }
+                        }
+                    }
+                    catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                replay.start();
+                publish.start();
+                replay.join();
+                publish.join();
+
+                // once the replay found the outbox empty nothing else could go to disk
+                assertNull(box.take());
+                assertEquals(replayed + published, queue.size());
+                for (int x = 0; x < queue.size(); x++) {
+                    assertMessage(x, queue.get(x));
+                }
+                box.close();
+            }
+        });
+    }
+
+    interface InDirectory {
+        void test(Path dir) throws Exception;
+    }
+
+    private static void inTempDirectory(InDirectory test) throws Exception {
+        Path dir = Files.createTempDirectory("nats_java_outbox");
+        try {
+            test.test(dir);
+        }
+        finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static long segmentFiles(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private static NatsMessage message(int x) {
+        return new NatsMessage("subject." + x, null, null, ("data" + x).getBytes(UTF_8));
+    }
+
+    private static void assertMessage(int x, NatsMessage msg) {
+        assertNotNull(msg);
+        assertEquals("subject." + x, msg.getSubject());
+        assertEquals("data" + x, new String(msg.getData(), UTF_8));
+    }
+}
@@ -0,0 +1,87 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.support.IncomingHeadersProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeaderTemplateTests {
+
+    @Test
+    public void testFill() {
+        HeaderTemplate template = HeaderTemplate.builder()
+                .add("tenant", "acme")
+                .slot("trace")
+                .add("schema", "v1", null, "v2")
+                .slot("seq")
+                .build();
+        assertEquals(Arrays.asList("trace", "seq"), template.getSlots());
+
+        Headers filled = template.fill("abc", "42");
+        assertTrue(filled.isFrozen());
+        assertFalse(filled.isDirty());
+        Headers expected = new Headers()
+                .add("tenant", "acme")
+                .add("schema", "v1", "v2")
+                .add("trace", "abc")
+                .add("seq", "42");
+        assertEquals(expected, filled);
+        assertEquals(expected.serializedLength(), filled.serializedLength());
+        assertEquals(Collections.singletonList("abc"), filled.get("trace"));
+        assertEquals(Arrays.asList("v1", "v2"), filled.getIgnoreCase("SCHEMA"));
+        assertThrows(UnsupportedOperationException.class, () -> filled.add("x", "y"));
+
+        // the bytes parse back to the same headers
+        assertEquals(expected, new IncomingHeadersProcessor(filled.getSerialized()).getHeaders());
+
+        // null leaves the slot out, empty is a value
+        Headers partial = template.fill(null, "");
+        assertNull(partial.get("trace"));
+        assertEquals(Collections.singletonList(""), partial.get("seq"));
+        assertEquals(new Headers().add("tenant", "acme").add("schema", "v1", "v2").add("seq", ""), partial);
+
+        // the message uses the bytes as they are
+        NatsMessage msg = new NatsMessage("subject", null, filled, null);
+        byte[] buffer = new byte[filled.serializedLength()];
+        msg.serializeHeaders(buffer, 0);
+        assertTrue(msg.hasHeaders());
+        assertArrayEquals(filled.getSerialized(), buffer);
+    }
+
+    @Test
+    public void testNoSlots() {
+        HeaderTemplate template = HeaderTemplate.builder().add("k", "v").build();
+        assertEquals(new Headers().add("k", "v"), template.fill());
+        assertEquals(new Headers().add("k", "v"), template.fill((String[]) null));
+        assertTrue(HeaderTemplate.builder().slot("k").build().fill((String) null).isEmpty());
+    }
+
+    @Test
+    public void testInvalid() {
+        HeaderTemplate template = HeaderTemplate.builder().slot("k").build();
+        assertThrows(IllegalArgumentException.class, template::fill);
+        assertThrows(IllegalArgumentException.class, () -> template.fill("a", "b"));
+        assertThrows(IllegalArgumentException.class, () -> template.fill("a\r\nb"));
+        assertThrows(IllegalArgumentException.class, () -> HeaderTemplate.builder().slot("k:"));
+        assertThrows(IllegalArgumentException.class, () -> HeaderTemplate.builder().slot(null));
+        assertThrows(IllegalArgumentException.class, () -> HeaderTemplate.builder().add("k", "\n"));
+        assertThrows(IllegalArgumentException.class, () -> HeaderTemplate.builder().add("", "v"));
+    }
+}
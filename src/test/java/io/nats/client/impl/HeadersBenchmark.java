@@ -0,0 +1,70 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import java.text.NumberFormat;
+
+import static io.nats.client.support.NatsConstants.EMPTY_BODY;
+
+/**
+ * Compares publishing the same headers over and over, as publish does it: copy the headers
+ * into the message, then serialize them into the writer's buffer.
+ */
+public class HeadersBenchmark {
+    public static void main(String args[]) {
+        int warmup = 1_000_000;
+        int msgCount = 10_000_000;
+
+        Headers headers = new Headers()
+                .add("Nats-Msg-Id", "8HRAMaDgB0ZcTSzmfeSlJL")
+                .add("Nats-Expected-Stream", "orders")
+                .add("Content-Type", "application/json")
+                .add("Trace", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+        Headers frozen = headers.freeze();
+        byte[] buffer = new byte[1024];
+
+        System.out.printf("### Running benchmarks with %s messages.\n", NumberFormat.getInstance().format(msgCount));
+
+        run(headers, buffer, warmup);
+        run(frozen, buffer, warmup);
+
+        long start = System.nanoTime();
+        run(headers, buffer, msgCount);
+        report("regular", msgCount, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        run(frozen, buffer, msgCount);
+        report("frozen", msgCount, System.nanoTime() - start);
+    }
+
+    private static int run(Headers headers, byte[] buffer, int count) {
+        int total = 0;
+        for (int j = 0; j < count; j++) {
+            Headers h = headers.isFrozen() ? headers : new Headers(headers);
+            NatsMessage msg = new NatsMessage("subject", null, h, EMPTY_BODY);
+            total += msg.serializeHeaders(buffer, 0);
+        }
+        return total;
+    }
+
+    private static void report(String label, int msgCount, long nanos) {
+        System.out.printf("\n### Total time to publish %s messages with %s headers was %s ms\n\t%f ns/op\n\t%s op/sec\n",
+                NumberFormat.getInstance().format(msgCount),
+                label,
+                NumberFormat.getInstance().format(nanos / 1_000_000L),
+                ((double) nanos) / ((double) (msgCount)),
+                NumberFormat.getInstance().format(((double)(1_000_000_000L * msgCount))/((double) nanos)));
+    }
+}
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -437,7 +439,8 @@ public class HeadersTests {
         IncomingHeadersProcessor incomingHeadersProcessor = new IncomingHeadersProcessor(serialized);
         Headers headers2 = incomingHeadersProcessor.getHeaders();
         assertNotNull(headers2);
-        validateDirtyAndLength(headers2);
+        validateNotDirtyAndLength(headers2); // incoming headers keep their original bytes
+        assertSame(serialized, headers2.getSerialized());
 
         assertEquals(headers1.size(), headers2.size());
         assertTrue(headers2.containsKey(KEY1));
@@ -451,6 +454,48 @@ public class HeadersTests {
         assertTrue(headers2.get(KEY3).contains(EMPTY));
     }
 
+    @Test
+    public void concurrentReadsOfIncomingHeaders() throws InterruptedException {
+        Headers headers1 = new Headers();
+        headers1.add(KEY1, VAL1);
+        headers1.add(KEY1, VAL3);
+        headers1.add(KEY2, VAL2);
+        byte[] serialized = headers1.getSerialized();
+
+        // size and keySet move the headers into the maps while get reads the bytes
+        AtomicInteger failures = new AtomicInteger();
+        for (int round = 0; round < 200; round++) {
+            Headers headers2 = new IncomingHeadersProcessor(serialized).getHeaders();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                boolean walk = t % 2 == 0;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        boolean ok = walk
+                                ? headers2.size() == 2 && headers2.keySet().size() == 2
+                                : headers2.get(KEY1).size() == 2 && headers2.containsKey(KEY2);
+                        if (!ok) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(headers1, headers2);
+        }
+        assertEquals(0, failures.get());
+    }
+
     @Test
     public void constructHeadersWithInvalidBytes() {
         assertThrows(IllegalArgumentException.class, () -> new IncomingHeadersProcessor(null));
@@ -481,6 +526,98 @@ public class HeadersTests {
         assertValidHeader("NATS/1.0\r\nks1: \r\n\r\n", "ks1", EMPTY);
     }
 
+    @Test
+    public void incomingHeadersAreReadOnDemand() {
+        byte[] bytes = "NATS/1.0\r\nk1: v1\r\nK2:v2\r\nk1:v3 \r\n\r\n".getBytes();
+        Headers headers = new IncomingHeadersProcessor(bytes).getHeaders();
+        assertFalse(headers.isEmpty());
+        assertEquals(Arrays.asList("v1", "v3"), headers.get("k1"));
+        assertNull(headers.get("k2"));
+        assertEquals(Collections.singletonList("v2"), headers.getIgnoreCase("k2"));
+        assertTrue(headers.containsKeyIgnoreCase("K1"));
+        assertFalse(headers.containsKey("k3"));
+
+        // unchanged, the original bytes are what is sent
+        assertSame(bytes, headers.getSerialized());
+        assertEquals(bytes.length, headers.serializedLength());
+        Headers copy = new Headers(headers);
+        assertSame(bytes, copy.getSerialized());
+        assertEquals(headers, new Headers().add("k1", "v1", "v3").add("K2", "v2"));
+
+        // a change is serialized again and does not affect the copy
+        copy.add("k3", "v4");
+        assertTrue(copy.isDirty());
+        validateDirtyAndLength(copy.add("k4", "v5"));
+        assertEquals(4, copy.size());
+        assertEquals(2, headers.size());
+        assertSame(bytes, headers.getSerialized());
+
+        // a status is not a header, so those bytes are not reused
+        headers = new IncomingHeadersProcessor("NATS/1.0 503\r\nfoo:bar\r\n\r\n".getBytes()).getHeaders();
+        validateDirtyAndLength(headers);
+
+        assertThrows(IllegalArgumentException.class, () -> new IncomingHeadersProcessor("NATS/1.0\r\nk 1:v1\r\n\r\n".getBytes()));
+        assertThrows(IllegalArgumentException.class, () -> new IncomingHeadersProcessor("NATS/1.0\r\n:v1\r\n\r\n".getBytes()));
+    }
+
+    @Test
+    public void frozenHeadersCannotChange() {
+        Headers headers = new Headers().add(KEY1, VAL1, VAL2).add(KEY2, VAL3);
+        Headers frozen = headers.freeze();
+        assertTrue(frozen.isFrozen());
+        assertFalse(headers.isFrozen());
+        assertSame(frozen, frozen.freeze());
+        assertEquals(headers, frozen);
+        assertEquals(headers.hashCode(), frozen.hashCode());
+        assertArrayEquals(headers.getSerialized(), frozen.getSerialized());
+        assertEquals(headers.serializedLength(), frozen.serializedLength());
+        assertEquals(Arrays.asList(VAL1, VAL2), frozen.get(KEY1));
+        assertEquals(Collections.singletonList(VAL3), frozen.getIgnoreCase(KEY2_OTHER));
+        assertEquals(2, frozen.size());
+        assertEquals(headers.keySet(), frozen.keySet());
+
+        assertThrows(UnsupportedOperationException.class, () -> frozen.add(KEY3, VAL4));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.put(KEY1, VAL4));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.remove(KEY1));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.remove(Collections.singletonList(KEY1)));
+        assertThrows(UnsupportedOperationException.class, frozen::clear);
+
+        // changing the original does not change the frozen headers
+        headers.add(KEY3, VAL4);
+        assertEquals(2, frozen.size());
+        assertNull(frozen.get(KEY3));
+
+        // a copy can be changed
+        Headers copy = new Headers(frozen);
+        assertFalse(copy.isFrozen());
+        copy.add(KEY3, VAL4);
+        assertEquals(headers, copy);
+        assertEquals(2, frozen.size());
+
+        // incoming headers that were not changed keep their bytes
+        byte[] bytes = "NATS/1.0\r\nk1:v1\r\n\r\n".getBytes();
+        Headers incoming = new IncomingHeadersProcessor(bytes).getHeaders().freeze();
+        assertSame(bytes, incoming.getSerialized());
+        assertEquals(Collections.singletonList("v1"), incoming.get("k1"));
+    }
+
+    @Test
+    public void serializeToMatchesGetSerialized() {
+        Headers headers = new Headers().add(KEY1, VAL1, VAL2).add(KEY2, EMPTY);
+        byte[] expected = new Headers(headers).getSerialized();
+        for (Headers h : Arrays.asList(headers, headers.freeze(), new IncomingHeadersProcessor(expected).getHeaders())) {
+            byte[] buffer = new byte[expected.length + 3];
+            assertEquals(expected.length + 2, h.serializeTo(buffer, 2));
+            assertArrayEquals(expected, Arrays.copyOfRange(buffer, 2, expected.length + 2));
+        }
+
+        NatsMessage msg = new NatsMessage("subject", null, headers.freeze(), null);
+        byte[] buffer = new byte[expected.length];
+        assertEquals(expected.length, msg.serializeHeaders(buffer, 0));
+        assertArrayEquals(expected, buffer);
+        assertEquals(0, new NatsMessage("subject", null, null, null).serializeHeaders(buffer, 0));
+    }
+
     @Test
     public void constructStatusWithValidBytes() {
         assertValidStatus("NATS/1.0 503\r\n", 503, "No Responders Available For Request"); // status made message
@@ -0,0 +1,118 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.Options;
+import io.nats.client.support.IncomingHeadersProcessor;
+import io.nats.client.support.NatsJetStreamConstants;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeartbeatMonitorTests {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final List<Runnable> timers = new ArrayList<>();
+    private final List<Long> alarms = new ArrayList<>();
+    private long now;
+
+    private HeartbeatMonitor monitor() {
+        return new HeartbeatMonitor(INTERVAL, (task, nanos) -> timers.add(task), alarms::add, () -> now);
+    }
+
+    private void runLatestTimer() {
+        timers.remove(timers.size() - 1).run();
+    }
+
+    @Test
+    public void testAlarmOnceUntilActivity() {
+        HeartbeatMonitor hm = monitor();
+        hm.start();
+        assertEquals(1, timers.size());
+
+        // activity keeps it quiet
+        now += INTERVAL;
+        runLatestTimer();
+        assertTrue(alarms.isEmpty());
+        assertEquals(1, timers.size());
+
+        now += INTERVAL * HeartbeatMonitor.ALARM_INTERVALS;
+        runLatestTimer();
+        assertEquals(1, alarms.size());
+        assertEquals(INTERVAL * (HeartbeatMonitor.ALARM_INTERVALS + 1), (long)alarms.get(0));
+
+        // still stalled, but the alarm was already raised
+        now += INTERVAL;
+        runLatestTimer();
+        assertEquals(1, alarms.size());
+
+        // activity resets the alarm, so a second stall raises it again
+        hm.activity();
+        now += INTERVAL;
+        runLatestTimer();
+        assertEquals(1, alarms.size());
+        now += INTERVAL * HeartbeatMonitor.ALARM_INTERVALS;
+        runLatestTimer();
+        assertEquals(2, alarms.size());
+    }
+
+    @Test
+    public void testStop() {
+        HeartbeatMonitor hm = monitor();
+        hm.start();
+        hm.stop();
+        now += INTERVAL * HeartbeatMonitor.ALARM_INTERVALS * 2;
+        runLatestTimer();
+        assertTrue(alarms.isEmpty());
+        assertTrue(timers.isEmpty());
+    }
+
+    @Test
+    public void testStalledHeartbeatIsAnswered() {
+        List<String> published = new ArrayList<>();
+        NatsConnection nc = new NatsConnection(new Options.Builder().build()) {
+            @Override
+            public void publish(String subject, byte[] body) {
+                published.add(subject);
+            }
+        };
+        NatsJetStreamSubscription sub = new NatsJetStreamSubscription("1", "deliver", null, nc, null);
+
+        // a plain heartbeat is dropped without a reply
+        assertTrue(sub.arrived(heartbeat(null)));
+        assertTrue(published.isEmpty());
+
+        // a stalled consumer is waiting on a flow control reply, which is sent before the heartbeat is dropped
+        assertTrue(sub.arrived(heartbeat("$JS.FC.stream.consumer.1")));
+        assertEquals(1, published.size());
+        assertEquals("$JS.FC.stream.consumer.1", published.get(0));
+    }
+
+    private static NatsMessage heartbeat(String stalledReply) {
+        String serialized = "NATS/1.0 100 Idle Heartbeat\r\n"
+                + (stalledReply == null ? "" : NatsJetStreamConstants.CONSUMER_STALLED_HDR + ": " + stalledReply + "\r\n")
+                + "\r\n";
+        IncomingHeadersProcessor ihp = new IncomingHeadersProcessor(serialized.getBytes(StandardCharsets.US_ASCII));
+        NatsMessage msg = new NatsMessage.StatusMessage(ihp.getStatus());
+        msg.headers = ihp.getHeaders();
+        return msg;
+    }
+}
@@ -24,7 +24,9 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -186,6 +188,66 @@ public class JetStreamGeneralTests extends JetStreamTestBase {
         });
     }
 
+    @Test
+    public void testSubscribeAll() throws Exception {
+        runInJsServer(nc -> {
+            JetStream js = nc.jetStream();
+            createMemoryStream(nc, STREAM, subject(1), subject(2), subject(3));
+            for (int x = 1; x <= 3; x++) {
+                jsPublish(js, subject(x), 1);
+            }
+
+            Map<String, SubscribeOptions> options = new LinkedHashMap<>();
+            options.put(subject(1), null);
+            options.put(subject(2), PushSubscribeOptions.builder().durable(durable(2)).build());
+            options.put(subject(3), PullSubscribeOptions.builder().durable(durable(3)).build());
+            List<JetStreamSubscription> subs = js.subscribeAll(options);
+            assertEquals(3, subs.size());
+            assertEquals(subject(1), subs.get(0).getSubject());
+            assertNotNull(subs.get(0).nextMessage(DEFAULT_TIMEOUT));
+            assertNotNull(subs.get(1).nextMessage(DEFAULT_TIMEOUT));
+            subs.get(2).pull(1);
+            assertNotNull(subs.get(2).nextMessage(DEFAULT_TIMEOUT));
+
+            // the durables exist now, subscribing again reuses them
+            for (JetStreamSubscription sub : subs) {
+                sub.unsubscribe();
+            }
+            options.remove(subject(1));
+            subs = js.subscribeAll(options);
+            assertEquals(2, subs.size());
+            assertEquals(durable(2), subs.get(0).getConsumerInfo().getName());
+
+            // one bad subject fails the whole batch
+            Map<String, SubscribeOptions> bad = new LinkedHashMap<>();
+            bad.put(subject(1), null);
+            bad.put("no-stream-here", null);
+            assertThrows(IllegalStateException.class, () -> js.subscribeAll(bad));
+            assertThrows(IllegalArgumentException.class, () -> js.subscribeAll(null));
+        });
+    }
+
+    @Test
+    public void testLookupCache() throws Exception {
+        runInJsServer(nc -> {
+            JetStreamOptions jso = JetStreamOptions.builder().lookupCacheTtl(Duration.ofMinutes(1)).build();
+            JetStream js = nc.jetStream(jso);
+            JetStreamManagement jsm = nc.jetStreamManagement(jso);
+            createTestStream(jsm);
+            jsPublish(js);
+
+            PushSubscribeOptions pso = PushSubscribeOptions.builder().durable(DURABLE).build();
+            js.subscribe(SUBJECT, pso).unsubscribe();
+            js.subscribe(SUBJECT, pso).unsubscribe();
+
+            // deleting through the context drops what it remembered
+            jsm.deleteStream(STREAM);
+            createMemoryStream(jsm, stream(2), SUBJECT);
+            JetStreamSubscription sub = js.subscribe(SUBJECT, pso);
+            assertEquals(stream(2), sub.getConsumerInfo().getStreamName());
+        });
+    }
+
     @Test
     public void testNoMatchingStreams() throws Exception {
         runInJsServer(nc -> {
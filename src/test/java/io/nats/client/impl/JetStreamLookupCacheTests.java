@@ -0,0 +1,81 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.api.ConsumerInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JetStreamLookupCacheTests {
+
+    @Test
+    public void testLookups() {
+        JetStreamLookupCache cache = new JetStreamLookupCache(Duration.ofMinutes(1));
+        assertTrue(cache.isEnabled());
+        assertNull(cache.getStream("foo"));
+        assertNull(cache.getConsumer("strm", "dur"));
+
+        cache.putStream("foo", "strm");
+        cache.putStream("bar", "strm");
+        cache.putStream("baz", "other");
+        cache.putConsumer("strm", consumerInfo("dur"));
+        cache.putConsumer("other", consumerInfo("dur"));
+        assertEquals("strm", cache.getStream("foo"));
+        assertEquals("dur", cache.getConsumer("strm", "dur").getName());
+        assertEquals(5, cache.size());
+
+        cache.invalidateConsumer("strm", "dur");
+        assertNull(cache.getConsumer("strm", "dur"));
+        assertNotNull(cache.getConsumer("other", "dur"));
+
+        cache.putConsumer("strm", consumerInfo("dur"));
+        cache.invalidateStream("strm");
+        assertNull(cache.getStream("foo"));
+        assertNull(cache.getStream("bar"));
+        assertNull(cache.getConsumer("strm", "dur"));
+        assertEquals("other", cache.getStream("baz"));
+        assertNotNull(cache.getConsumer("other", "dur"));
+    }
+
+    @Test
+    public void testExpires() throws Exception {
+        JetStreamLookupCache cache = new JetStreamLookupCache(Duration.ofMillis(50));
+        cache.putStream("foo", "strm");
+        cache.putConsumer("strm", consumerInfo("dur"));
+        assertEquals("strm", cache.getStream("foo"));
+        Thread.sleep(100);
+        assertNull(cache.getStream("foo"));
+        assertNull(cache.getConsumer("strm", "dur"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDisabled() {
+        for (Duration ttl : new Duration[] {null, Duration.ZERO}) {
+            JetStreamLookupCache cache = new JetStreamLookupCache(ttl);
+            assertFalse(cache.isEnabled());
+            cache.putStream("foo", "strm");
+            cache.putConsumer("strm", consumerInfo("dur"));
+            assertNull(cache.getStream("foo"));
+            assertEquals(0, cache.size());
+        }
+    }
+
+    private static ConsumerInfo consumerInfo(String name) {
+        return new ConsumerInfo("{\"name\":\"" + name + "\",\"config\":{\"durable_name\":\"" + name + "\"}}");
+    }
+}
@@ -21,8 +21,8 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -348,9 +348,21 @@ public class JetStreamManagementTests extends JetStreamTestBase {
             addConsumers(jsm, STREAM, 500, "B", null); // getConsumerNames pages at 1024
             List<String> names = jsm.getConsumerNames(STREAM);
             assertEquals(1100, names.size());
+
+            assertEquals(1100, countDistinct(jsm.getConsumersIterator(STREAM), ConsumerInfo::getName));
+            assertEquals(1100, countDistinct(jsm.getConsumerNamesIterator(STREAM), n -> n));
+            assertThrows(JetStreamApiException.class, () -> jsm.getConsumersIterator(stream(9)));
         });
     }
 
+    private <T> int countDistinct(Iterator<T> iterator, Function<T, String> name) {
+        Set<String> names = new HashSet<>();
+        while (iterator.hasNext()) {
+            names.add(name.apply(iterator.next()));
+        }
+        return names.size();
+    }
+
     private List<ConsumerInfo> addConsumers(JetStreamManagement jsm, String stream, int count, String durableVary, String filterSubject) throws IOException, JetStreamApiException {
         List<ConsumerInfo> consumers = new ArrayList<>();
         for (int x = 1; x <= count; x++) {
@@ -382,6 +394,9 @@ public class JetStreamManagementTests extends JetStreamTestBase {
 
             List<String> names = jsm.getStreamNames();
             assertEquals(1100, names.size());
+
+            assertEquals(1100, countDistinct(jsm.getStreamsIterator(), si -> si.getConfiguration().getName()));
+            assertEquals(1100, countDistinct(jsm.getStreamNamesIterator(), n -> n));
         });
     }
 
@@ -26,7 +26,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import static io.nats.client.support.NatsJetStreamConstants.MSG_ID_HDR;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class JetStreamPubTests extends JetStreamTestBase {
@@ -281,4 +284,179 @@ public class JetStreamPubTests extends JetStreamTestBase {
             assertEquals(data2, new String(m.getData()));
         });
     }
+
+    @Test
+    public void testPublisher() throws Exception {
+        runInJsServer(nc -> {
+            createTestStream(nc);
+            JetStream js = nc.jetStream();
+
+            JetStreamPublisherOptions jspo = JetStreamPublisherOptions.builder().maxInFlight(3).build();
+            try (JetStreamPublisher publisher = js.publisher(jspo)) {
+                List<CompletableFuture<PublishAck>> futures = new ArrayList<>();
+                for (int x = 1; x <= 20; x++) {
+                    futures.add(publisher.publish(SUBJECT, dataBytes(x)));
+                    assertTrue(publisher.getInFlight() <= 3);
+                }
+                futures.add(publisher.publish(NatsMessage.builder().subject(SUBJECT).data(dataBytes(21)).build()));
+                futures.add(publisher.publish(SUBJECT, dataBytes(22), PublishOptions.builder().expectedStream(STREAM).build()));
+
+                publisher.flushAcks(Duration.ofSeconds(5));
+                assertEquals(0, publisher.getInFlight());
+                assertEquals(0, publisher.getInFlightBytes());
+
+                List<Long> seqnos = new ArrayList<>();
+                for (long x = 1; x <= 22; x++) {
+                    seqnos.add(x);
+                }
+                for (CompletableFuture<PublishAck> future : futures) {
+                    assertTrue(future.isDone());
+                    assertContainsPublishAck(future.get(), seqnos);
+                }
+                assertEquals(0, seqnos.size());
+
+                // errors come back on the future and free the window
+                ExecutionException ee = assertThrows(ExecutionException.class, publisher.publish(subject(999), null)::get);
+                assertTrue(ee.getCause() instanceof IOException);
+                PublishOptions pox = PublishOptions.builder().expectedLastMsgId(messageId(999)).build();
+                ee = assertThrows(ExecutionException.class, publisher.publish(SUBJECT, null, pox)::get);
+                assertTrue(ee.getCause() instanceof JetStreamApiException);
+                publisher.flushAcks(Duration.ofSeconds(5));
+                assertEquals(0, publisher.getInFlight());
+            }
+        });
+    }
+
+    @Test
+    public void testPublisherByteWindowAndTimeouts() throws Exception {
+        runInJsServer(nc -> {
+            JetStream js = nc.jetStream();
+
+            // a plain subscriber that never replies, so acks never arrive
+            nc.subscribe("publisher.blackhole");
+            nc.flush(Duration.ofSeconds(1));
+
+            JetStreamPublisherOptions jspo = JetStreamPublisherOptions.builder()
+                    .maxInFlightBytes(10)
+                    .ackTimeout(Duration.ofMillis(200))
+                    .maxWait(Duration.ofMillis(50))
+                    .build();
+            JetStreamPublisher publisher = js.publisher(jspo);
+
+            CompletableFuture<PublishAck> first = publisher.publish("publisher.blackhole", new byte[8]);
+            assertEquals(8, publisher.getInFlightBytes());
+            assertThrows(IOException.class, () -> publisher.publish("publisher.blackhole", new byte[8]));
+            assertThrows(TimeoutException.class, () -> publisher.flushAcks(Duration.ofMillis(10)));
+
+            // the ack never comes, so the sweep fails it and frees the window
+            ExecutionException ee = assertThrows(ExecutionException.class, () -> first.get(2, TimeUnit.SECONDS));
+            assertTrue(ee.getCause() instanceof IOException);
+            assertEquals(0, publisher.getInFlight());
+
+            // bigger than the window is fine when nothing else is in flight
+            CompletableFuture<PublishAck> big = publisher.publish("publisher.blackhole", new byte[100]);
+            publisher.close();
+            ee = assertThrows(ExecutionException.class, big::get);
+            assertTrue(ee.getCause() instanceof IOException);
+            assertThrows(IllegalStateException.class, () -> publisher.publish("publisher.blackhole", null));
+        });
+    }
+
+    @Test
+    public void testPublisherAutoMessageId() throws Exception {
+        runInJsServer(nc -> {
+            createTestStream(nc);
+            JetStream js = nc.jetStream();
+            JetStreamSubscription sub = js.subscribe(SUBJECT);
+
+            JetStreamPublisherOptions jspo = JetStreamPublisherOptions.builder().autoMessageId(true).build();
+            try (JetStreamPublisher publisher = js.publisher(jspo)) {
+                publisher.publish(SUBJECT, dataBytes(1));
+                publisher.publish(NatsMessage.builder().subject(SUBJECT).headers(new Headers().add("foo", "bar")).build());
+                publisher.publish(SUBJECT, dataBytes(3), PublishOptions.builder().messageId(messageId(3)).build());
+                publisher.publish(SUBJECT, dataBytes(4), PublishOptions.builder().expectedStream(STREAM).build());
+                publisher.flushAcks(Duration.ofSeconds(5));
+                String prefix = ((NatsJetStreamPublisher) publisher).messageId(1);
+                prefix = prefix.substring(0, prefix.length() - 1);
+
+                assertEquals(prefix + 1, sub.nextMessage(DEFAULT_TIMEOUT).getHeaders().get(MSG_ID_HDR).get(0));
+                Message m = sub.nextMessage(DEFAULT_TIMEOUT);
+                assertEquals(prefix + 2, m.getHeaders().get(MSG_ID_HDR).get(0));
+                assertEquals("bar", m.getHeaders().get("foo").get(0));
+                assertEquals(messageId(3), sub.nextMessage(DEFAULT_TIMEOUT).getHeaders().get(MSG_ID_HDR).get(0));
+                assertEquals(prefix + 4, sub.nextMessage(DEFAULT_TIMEOUT).getHeaders().get(MSG_ID_HDR).get(0));
+            }
+        });
+    }
+
+    @Test
+    public void testPublisherAutoMessageIdWithFrozenHeaders() throws Exception {
+        runInJsServer(nc -> {
+            createTestStream(nc);
+            JetStream js = nc.jetStream();
+            JetStreamSubscription sub = js.subscribe(SUBJECT);
+
+            Headers frozen = new Headers().add("foo", "bar").freeze();
+            HeaderTemplate template = HeaderTemplate.builder().add("foo", "bar").slot("baz").build();
+            JetStreamPublisherOptions jspo = JetStreamPublisherOptions.builder().autoMessageId(true).build();
+            try (JetStreamPublisher publisher = js.publisher(jspo)) {
+                publisher.publish(NatsMessage.builder().subject(SUBJECT).headers(frozen).build());
+                publisher.publish(NatsMessage.builder().subject(SUBJECT).headers(template.fill("qux")).build());
+                publisher.flushAcks(Duration.ofSeconds(5));
+                String prefix = ((NatsJetStreamPublisher) publisher).messageId(1);
+                prefix = prefix.substring(0, prefix.length() - 1);
+
+                Message m = sub.nextMessage(DEFAULT_TIMEOUT);
+                assertEquals(prefix + 1, m.getHeaders().get(MSG_ID_HDR).get(0));
+                assertEquals("bar", m.getHeaders().get("foo").get(0));
+                m = sub.nextMessage(DEFAULT_TIMEOUT);
+                assertEquals(prefix + 2, m.getHeaders().get(MSG_ID_HDR).get(0));
+                assertEquals("qux", m.getHeaders().get("baz").get(0));
+            }
+
+            // the shared headers are left as they were
+            assertNull(frozen.get(MSG_ID_HDR));
+            assertEquals(1, frozen.size());
+        });
+    }
+
+    @Test
+    public void testPublisherRetriesWithTheSameId() throws Exception {
+        runInJsServer(nc -> {
+            JetStream js = nc.jetStream();
+
+            // a plain subscriber that never replies, so every ack times out
+            Subscription blackhole = nc.subscribe("publisher.blackhole");
+            nc.flush(Duration.ofSeconds(1));
+
+            JetStreamPublisherOptions jspo = JetStreamPublisherOptions.builder()
+                    .autoMessageId(true)
+                    .maxRetries(2)
+                    .ackTimeout(Duration.ofMillis(100))
+                    .build();
+            try (JetStreamPublisher publisher = js.publisher(jspo)) {
+                CompletableFuture<PublishAck> future = publisher.publish("publisher.blackhole", dataBytes(1));
+                ExecutionException ee = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertTrue(ee.getCause() instanceof IOException);
+
+                String id = ((NatsJetStreamPublisher) publisher).messageId(1);
+                for (int x = 0; x < 3; x++) {
+                    Message m = blackhole.nextMessage(DEFAULT_TIMEOUT);
+                    assertEquals(id, m.getHeaders().get(MSG_ID_HDR).get(0));
+                    assertEquals(data(1), new String(m.getData()));
+                }
+                assertNull(blackhole.nextMessage(Duration.ofMillis(100)));
+                assertEquals(2, ((NatsStatistics) nc.getStatistics()).getPublishRetries());
+            }
+        });
+    }
+
+    @Test
+    public void testPublisherParseSeq() {
+        assertEquals(1, NatsJetStreamPublisher.parseSeq("_INBOX.abc.1"));
+        assertEquals(1234567890L, NatsJetStreamPublisher.parseSeq("_INBOX.abc.1234567890"));
+        assertEquals(-1, NatsJetStreamPublisher.parseSeq("_INBOX.abc."));
+        assertEquals(-1, NatsJetStreamPublisher.parseSeq("_INBOX.abc.x1"));
+        assertEquals(-1, NatsJetStreamPublisher.parseSeq("123"));
+    }
 }
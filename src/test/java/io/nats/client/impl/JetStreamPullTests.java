@@ -13,9 +13,11 @@
 
 package io.nats.client.impl;
 
+import io.nats.client.Dispatcher;
 import io.nats.client.JetStream;
 import io.nats.client.JetStreamSubscription;
 import io.nats.client.Message;
+import io.nats.client.PullPrefetchOptions;
 import io.nats.client.PullSubscribeOptions;
 import io.nats.client.api.ConsumerConfiguration;
 import org.junit.jupiter.api.Test;
@@ -23,6 +25,8 @@ import org.junit.jupiter.api.Test;
 import java.time.Duration;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -454,6 +458,66 @@ public class JetStreamPullTests extends JetStreamTestBase {
         });
     }
 
+    @Test
+    public void testPrefetch() throws Exception {
+        runInJsServer(nc -> {
+            JetStream js = nc.jetStream();
+            createMemoryStream(nc, STREAM, SUBJECT);
+            jsPublish(js, SUBJECT, "A", 50);
+
+            PullSubscribeOptions options = PullSubscribeOptions.builder()
+                    .durable(DURABLE)
+                    .prefetch(PullPrefetchOptions.builder().maxMessages(20).lowWaterMark(5).build())
+                    .build();
+
+            JetStreamSubscription sub = js.subscribe(SUBJECT, options);
+            assertThrows(IllegalStateException.class, () -> sub.pull(1));
+
+            // more than max messages arrive without asking again
+            Iterator<Message> it = sub.prefetchIterator();
+            for (int x = 1; x <= 50; x++) {
+                assertTrue(it.hasNext());
+                Message m = it.next();
+                assertEquals("A" + x, new String(m.getData()));
+                m.ack();
+            }
+            assertNull(sub.nextMessage(Duration.ofMillis(500)));
+
+            jsPublish(js, SUBJECT, "B", 1);
+            Message m = sub.nextMessage(Duration.ofSeconds(1));
+            assertNotNull(m);
+            assertEquals("B1", new String(m.getData()));
+            m.ack();
+
+            sub.unsubscribe();
+            assertFalse(it.hasNext());
+        });
+    }
+
+    @Test
+    public void testPrefetchHandler() throws Exception {
+        runInJsServer(nc -> {
+            JetStream js = nc.jetStream();
+            createMemoryStream(nc, STREAM, SUBJECT);
+            jsPublish(js, SUBJECT, "A", 50);
+
+            PullSubscribeOptions options = PullSubscribeOptions.builder()
+                    .durable(DURABLE)
+                    .prefetch(PullPrefetchOptions.builder().maxMessages(10).build())
+                    .build();
+
+            CountDownLatch latch = new CountDownLatch(50);
+            Dispatcher d = nc.createDispatcher(null);
+            js.subscribe(SUBJECT, d, m -> {
+                assertFalse(m.isStatusMessage());
+                m.ack();
+                latch.countDown();
+            }, options);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        });
+    }
+
 //    @Test
     public void testAckSync() throws Exception {
         runInJsServer(nc -> {
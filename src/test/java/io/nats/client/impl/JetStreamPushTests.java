@@ -14,6 +14,7 @@
 package io.nats.client.impl;
 
 import io.nats.client.*;
+import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
 import io.nats.client.api.ConsumerInfo;
 import org.junit.jupiter.api.Test;
@@ -23,6 +24,9 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -246,6 +250,34 @@ public class JetStreamPushTests extends JetStreamTestBase {
         });
     }
 
+    @Test
+    public void testExplicitAckBatching() throws Exception {
+        runInJsServer(nc -> {
+            JetStream js = nc.jetStream();
+            createMemoryStream(nc, STREAM, SUBJECT);
+            jsPublish(js, SUBJECT, 10);
+
+            ConsumerConfiguration cc = ConsumerConfiguration.builder().ackPolicy(AckPolicy.Explicit).build();
+            AckBatchOptions abo = AckBatchOptions.builder().maxAcks(4).maxDelay(Duration.ofSeconds(10)).build();
+            PushSubscribeOptions pso = PushSubscribeOptions.builder().configuration(cc).ackBatching(abo).build();
+            JetStreamSubscription sub = js.subscribe(SUBJECT, pso);
+
+            for (int x = 0; x < 10; x++) {
+                Message message = sub.nextMessage(Duration.ofSeconds(1));
+                assertNotNull(message);
+                message.ack();
+            }
+
+            // two full windows have gone out, the last two acks are held until the flush
+            sub.flushAcks(Duration.ofSeconds(1));
+            ConsumerInfo ci = sub.getConsumerInfo();
+            assertEquals(0, ci.getNumAckPending());
+            assertEquals(10, ci.getAckFloor().getStreamSequence());
+            assertEquals(10, sub.getAckLag().getCount());
+            assertEquals(0, ((NatsStatistics) nc.getStatistics()).getAcksCoalesced());
+        });
+    }
+
     @Test
     public void testGetConsumerInfo() throws Exception {
         runInJsServer(nc -> {
@@ -265,7 +297,17 @@ public class JetStreamPushTests extends JetStreamTestBase {
 
     @Test
     public void testHeartbeat() throws Exception {
-        runInJsServer(nc -> {
+        CountDownLatch alarm = new CountDownLatch(1);
+        ErrorListener el = new ErrorListener() {
+            public void errorOccurred(Connection conn, String error) {}
+            public void exceptionOccurred(Connection conn, Exception exp) {}
+            public void slowConsumerDetected(Connection conn, Consumer consumer) {}
+            public void heartbeatAlarm(Connection conn, JetStreamSubscription sub, Duration sinceLastActivity) {
+                alarm.countDown();
+            }
+        };
+
+        runInServer(false, true, new Options.Builder().errorListener(el), nc -> {
             // Create our JetStream context to receive JetStream messages.
             JetStream js = nc.jetStream();
 
@@ -273,6 +315,7 @@ public class JetStreamPushTests extends JetStreamTestBase {
             createMemoryStream(nc, STREAM, SUBJECT);
 
             ConsumerConfiguration cc = ConsumerConfiguration.builder()
+                    .durable(DURABLE)
                     .idleHeartbeat(Duration.ofMillis(250))
                     .build();
             PushSubscribeOptions pso = PushSubscribeOptions.builder().configuration(cc).build();
@@ -280,17 +323,13 @@ public class JetStreamPushTests extends JetStreamTestBase {
             JetStreamSubscription sub = js.subscribe(SUBJECT, pso);
             nc.flush(Duration.ofSeconds(1)); // flush outgoing communication with/to the server
 
-            int count = 0;
-            long now = System.currentTimeMillis();
-            long elapsed = System.currentTimeMillis() - now;
-            while (elapsed < 3000) {
-                Message m = sub.nextMessage(Duration.ofMillis(100));
-                if (m != null && m.isStatusMessage() && m.getStatus().isHeartbeat()) {
-                    count++;
-                }
-                elapsed = System.currentTimeMillis() - now;
-            }
-            assertTrue(count > 8);
+            // heartbeats keep the alarm quiet and never reach the application
+            assertNull(sub.nextMessage(Duration.ofMillis(2000)));
+            assertEquals(1, alarm.getCount());
+
+            // once the consumer is gone the heartbeats stop
+            nc.jetStreamManagement().deleteConsumer(STREAM, DURABLE);
+            assertTrue(alarm.await(3, TimeUnit.SECONDS));
         });
     }
 
@@ -309,14 +348,13 @@ public class JetStreamPushTests extends JetStreamTestBase {
                     .build();
             PushSubscribeOptions pso = PushSubscribeOptions.builder().configuration(cc).build();
 
-            // This is configured so the subscriber ends up being considered slow
             JetStreamSubscription sub = js.subscribe(SUBJECT, pso);
             nc.flush(Duration.ofSeconds(5));
-            sub.setPendingLimits(Consumer.DEFAULT_MAX_MESSAGES, 1024);
 
-            // publish more message data than the subscriber will handle
+            // publish enough message data that the server asks for flow control
             byte[] data = new byte[1024];
-            for (int x = 1; x <= 100; x++) {
+            int total = 1000;
+            for (int x = 1; x <= total; x++) {
                 Message msg = NatsMessage.builder()
                         .subject(SUBJECT)
                         .data(data)
@@ -324,20 +362,83 @@ public class JetStreamPushTests extends JetStreamTestBase {
                 js.publish(msg);
             }
 
-            // sleep to let the messages back up
-            sleep(1000);
+            // the flow control requests are answered for us, so everything arrives without a status
+            for (int x = 1; x <= total; x++) {
+                Message m = sub.nextMessage(Duration.ofSeconds(2));
+                assertNotNull(m);
+                assertFalse(m.isStatusMessage());
+                assertEquals(x, m.metaData().streamSequence());
+            }
+        });
+    }
+
+    @Test
+    public void testFlowControlHandler() throws Exception {
+        runInJsServer(nc -> {
+            JetStream js = nc.jetStream();
+            createMemoryStream(nc, STREAM, SUBJECT);
+
+            ConsumerConfiguration cc = ConsumerConfiguration.builder()
+                    .flowControl(true)
+                    .idleHeartbeat(Duration.ofMillis(250))
+                    .build();
+            PushSubscribeOptions pso = PushSubscribeOptions.builder().configuration(cc).build();
 
-            int count = 0;
-            long now = System.currentTimeMillis();
-            long elapsed = System.currentTimeMillis() - now;
-            while (elapsed < 3000 && count < 1) {
-                Message m = sub.nextMessage(Duration.ofMillis(100));
-                if (m != null && m.isStatusMessage() && m.getStatus().isFlowControl()) {
-                    count++;
+            int total = 1000;
+            CountDownLatch latch = new CountDownLatch(total);
+            AtomicInteger statuses = new AtomicInteger();
+            Dispatcher d = nc.createDispatcher(null);
+            js.subscribe(SUBJECT, d, m -> {
+                if (m.isStatusMessage()) {
+                    statuses.incrementAndGet();
+                }
+                else {
+                    latch.countDown();
                 }
-                elapsed = System.currentTimeMillis() - now;
+            }, false, pso);
+
+            byte[] data = new byte[1024];
+            for (int x = 1; x <= total; x++) {
+                js.publish(NatsMessage.builder().subject(SUBJECT).data(data).build());
+            }
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            sleep(1000); // let some heartbeats arrive
+            assertEquals(0, statuses.get());
+        });
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        runInJsServer(nc -> {
+            JetStream js = nc.jetStream();
+            createMemoryStream(nc, STREAM, SUBJECT);
+            jsPublish(js, SUBJECT, 1, 100);
+
+            PushSubscribeOptions pso = PushSubscribeOptions.builder().ordered(true).build();
+            assertThrows(IllegalArgumentException.class, () -> js.subscribe(SUBJECT, QUEUE, pso));
+
+            JetStreamSubscription sub = js.subscribe(SUBJECT, pso);
+            for (int x = 1; x <= 50; x++) {
+                Message m = sub.nextMessage(Duration.ofSeconds(1));
+                assertNotNull(m);
+                assertEquals(x, m.metaData().streamSequence());
+            }
+
+            // losing the consumer replaces it, starting after the last message read
+            String first = sub.getConsumerInfo().getName();
+            OrderedConsumer oc = ((NatsJetStreamSubscription) sub).getOrderedConsumer();
+            oc.stalled();
+
+            // what was already let through is still read, then the replacement carries on
+            jsPublish(js, SUBJECT, 101, 10);
+            for (int x = 51; x <= 110; x++) {
+                Message m = sub.nextMessage(Duration.ofSeconds(2));
+                assertNotNull(m);
+                assertEquals(x, m.metaData().streamSequence());
             }
-            assertTrue(count > 0);
+            assertNotEquals(first, sub.getConsumerInfo().getName());
+            assertNull(sub.nextMessage(Duration.ofMillis(500)));
         });
     }
 }
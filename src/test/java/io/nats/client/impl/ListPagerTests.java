@@ -0,0 +1,115 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.JetStreamApiException;
+import io.nats.client.Message;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListPagerTests extends JetStreamTestBase {
+
+    private static final Function<ListRequestEngine, List<String>> NAMES = engine -> {
+        StreamNamesReader snr = new StreamNamesReader();
+        snr.process(engine);
+        return snr.getStrings();
+    };
+
+    @Test
+    public void testRequestsAhead() throws Exception {
+        List<Integer> offsets = new ArrayList<>();
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        ListPager<String> pager = new ListPager<>(offset -> {
+            offsets.add(offset);
+            CompletableFuture<Message> f = new CompletableFuture<>();
+            futures.add(f);
+            if (offset == 0) {
+                f.complete(page(10, 0, 3));
+            }
+            return f;
+        }, NAMES, Duration.ofSeconds(1), 2);
+
+        pager.start();
+        // after the first page the next two are in flight before anything is read
+        assertEquals(3, offsets.size());
+        assertEquals(3, (int) offsets.get(1));
+        assertEquals(6, (int) offsets.get(2));
+        assertEquals(2, pager.inFlightCount());
+
+        // the pages can arrive in any order
+        futures.get(2).complete(page(10, 6, 3));
+        futures.get(1).complete(page(10, 3, 3));
+        for (int x = 0; x < 6; x++) {
+            assertEquals("s" + x, pager.next());
+        }
+        assertEquals(9, (int) offsets.get(3));
+        futures.get(3).complete(page(10, 9, 3));
+        List<String> rest = pager.toList();
+        assertEquals(4, rest.size());
+        assertEquals("s9", rest.get(3));
+        assertFalse(pager.hasNext());
+        assertEquals(4, offsets.size());
+    }
+
+    @Test
+    public void testSinglePage() throws Exception {
+        List<Integer> offsets = new ArrayList<>();
+        ListPager<String> pager = new ListPager<>(offset -> {
+            offsets.add(offset);
+            return CompletableFuture.completedFuture(page(2, 0, 256));
+        }, NAMES, Duration.ofSeconds(1), 4).start();
+        assertEquals(2, pager.toList().size());
+        assertEquals(1, offsets.size());
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        Message error = getDataMessage("{\"error\":{\"code\":404,\"description\":\"stream not found\"}}");
+        assertThrows(JetStreamApiException.class, () -> new ListPager<>(
+                offset -> CompletableFuture.completedFuture(error), NAMES, Duration.ofSeconds(1), 4).start());
+
+        // a later page that does not come back
+        ListPager<String> pager = new ListPager<>(offset -> offset == 0
+                ? CompletableFuture.completedFuture(page(6, 0, 3))
+                : new CompletableFuture<>(), NAMES, Duration.ofMillis(50), 4).start();
+        for (int x = 0; x < 3; x++) {
+            pager.next();
+        }
+        assertThrows(UncheckedIOException.class, pager::hasNext);
+        assertEquals(0, pager.inFlightCount());
+        assertFalse(pager.hasNext());
+    }
+
+    private static Message page(int total, int offset, int limit) {
+        StringBuilder sb = new StringBuilder("{\"total\":").append(total)
+                .append(",\"offset\":").append(offset)
+                .append(",\"limit\":").append(limit)
+                .append(",\"streams\":[");
+        for (int x = offset; x < Math.min(total, offset + limit); x++) {
+            if (x > offset) {
+                sb.append(',');
+            }
+            sb.append("\"s").append(x).append('"');
+        }
+        return getDataMessage(sb.append("]}").toString());
+    }
+}
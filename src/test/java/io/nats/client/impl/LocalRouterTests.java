@@ -0,0 +1,193 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.Options;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalRouterTests {
+
+    static class FakeWire implements LocalRouter.Wire {
+        int sid;
+        final Map<String, String> subscribed = new LinkedHashMap<>(); // sid to subject, what the server has
+        final List<CompletableFuture<Boolean>> pings = new ArrayList<>();
+        final List<NatsSubscription> delivered = new ArrayList<>();
+
+        @Override
+        public String nextSid() {
+            return "i" + (++sid);
+        }
+
+        @Override
+        public void subscribe(String sid, String subject) {
+            subscribed.put(sid, subject);
+        }
+
+        @Override
+        public void unsubscribe(String sid) {
+            subscribed.remove(sid);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> ping() {
+            CompletableFuture<Boolean> pong = new CompletableFuture<>();
+            pings.add(pong);
+            return pong;
+        }
+
+        @Override
+        public void deliver(NatsSubscription sub, NatsMessage msg) {
+            delivered.add(sub);
+        }
+
+        String sidFor(String subject) {
+            for (Map.Entry<String, String> e : subscribed.entrySet()) {
+                if (e.getValue().equals(subject)) {
+                    return e.getKey();
+                }
+            }
+            return null;
+        }
+
+        void pong(boolean ok) {
+            pings.remove(0).complete(ok);
+        }
+
+        // what the server would send: the message once for every interest that matches it
+        List<NatsSubscription> publish(LocalRouter router, String subject) {
+            delivered.clear();
+            for (Map.Entry<String, String> e : new ArrayList<>(subscribed.entrySet())) {
+                if (SubjectTrie.covers(e.getValue(), subject)) {
+                    assertTrue(router.deliver(message(e.getKey(), subject)));
+                }
+            }
+            return new ArrayList<>(delivered);
+        }
+    }
+
+    @Test
+    public void testSharesInterest() {
+        NatsConnection nc = new NatsConnection(new Options.Builder().build());
+        FakeWire wire = new FakeWire();
+        LocalRouter router = new LocalRouter(wire);
+
+        NatsSubscription bar1 = sub(nc, "1", "foo.bar");
+        NatsSubscription bar2 = sub(nc, "2", "foo.bar");
+        router.add(bar1);
+        router.add(bar2);
+        assertEquals(1, wire.subscribed.size());
+        assertEquals(0, wire.pings.size());
+        assertEquals(2, wire.publish(router, "foo.bar").size());
+
+        // the wildcard gets its own interest, the narrow one keeps its routes until the pong
+        NatsSubscription star = sub(nc, "3", "foo.*");
+        router.add(star);
+        assertEquals(2, wire.subscribed.size());
+        assertEquals(1, wire.pings.size());
+        List<NatsSubscription> got = wire.publish(router, "foo.bar");
+        assertEquals(3, got.size());
+        assertTrue(got.contains(bar1) && got.contains(bar2) && got.contains(star));
+
+        wire.pong(true);
+        assertEquals(1, wire.subscribed.size());
+        assertEquals("foo.*", wire.subscribed.values().iterator().next());
+        assertEquals(1, router.getInterestCount());
+        assertEquals(3, wire.publish(router, "foo.bar").size());
+        assertEquals(1, wire.publish(router, "foo.baz").size());
+
+        // a subscription under the wildcard joins it without a SUB
+        router.add(sub(nc, "4", "foo.baz"));
+        assertEquals(1, wire.subscribed.size());
+        assertEquals(0, wire.pings.size());
+        assertEquals(2, wire.publish(router, "foo.baz").size());
+        assertEquals(0, wire.publish(router, "bar").size());
+    }
+
+    @Test
+    public void testRemovingWildcardRestoresNarrowInterest() {
+        NatsConnection nc = new NatsConnection(new Options.Builder().build());
+        FakeWire wire = new FakeWire();
+        LocalRouter router = new LocalRouter(wire);
+
+        NatsSubscription gt = sub(nc, "1", "foo.>");
+        NatsSubscription bar = sub(nc, "2", "foo.bar");
+        router.add(gt);
+        router.add(bar);
+        assertEquals(1, wire.subscribed.size());
+
+        router.remove(gt);
+        assertEquals(2, wire.subscribed.size());
+        assertNotNull(wire.sidFor("foo.bar"));
+        assertEquals(1, wire.pings.size());
+
+        // until the pong the route stays with the old interest, delivered once either way
+        assertEquals(1, wire.publish(router, "foo.bar").size());
+        wire.pong(true);
+        assertEquals(1, wire.subscribed.size());
+        assertEquals(1, wire.publish(router, "foo.bar").size());
+        assertEquals(0, wire.publish(router, "foo.baz").size());
+
+        router.remove(bar);
+        assertEquals(0, wire.subscribed.size());
+        assertEquals(0, router.getInterestCount());
+        assertEquals(0, router.getRouteCount());
+    }
+
+    @Test
+    public void testFailedPingMovesNothing() {
+        NatsConnection nc = new NatsConnection(new Options.Builder().build());
+        FakeWire wire = new FakeWire();
+        LocalRouter router = new LocalRouter(wire);
+
+        router.add(sub(nc, "1", "foo.bar"));
+        router.add(sub(nc, "2", "foo.*"));
+        wire.pong(false);
+        assertEquals(2, wire.subscribed.size());
+        assertEquals(2, wire.publish(router, "foo.bar").size());
+
+        // the connection tries again once it is back
+        router.resubscribed();
+        assertEquals(1, wire.pings.size());
+        wire.pong(true);
+        assertEquals(1, wire.subscribed.size());
+        assertEquals(2, wire.publish(router, "foo.bar").size());
+    }
+
+    @Test
+    public void testUnknownSid() {
+        LocalRouter router = new LocalRouter(new FakeWire());
+        assertFalse(router.deliver(message("99", "foo")));
+    }
+
+    private static NatsSubscription sub(NatsConnection nc, String sid, String subject) {
+        NatsSubscription sub = new NatsSubscription(sid, subject, null, nc, null);
+        sub.setLocallyRouted();
+        return sub;
+    }
+
+    private static NatsMessage message(String sid, String subject) {
+        NatsMessage.InternalMessageFactory factory = new NatsMessage.InternalMessageFactory(sid, subject, null, 0, false);
+        factory.setData(new byte[0]);
+        return factory.getMessage();
+    }
+}
@@ -14,6 +14,7 @@
 package io.nats.client.impl;
 
 import io.nats.client.impl.NatsMessage.ProtocolMessage;
+import io.nats.client.support.LatencyHistogram;
 import org.junit.jupiter.api.Test;
 
 import java.io.UnsupportedEncodingException;
@@ -49,6 +50,24 @@ public class MessageQueueTests {
         });
     }
 
+    @Test
+    public void testQueueTime() throws InterruptedException {
+        LatencyHistogram queueTime = new LatencyHistogram();
+        MessageQueue q = new MessageQueue(true, queueTime);
+        q.push(new ProtocolMessage(ONE));
+        Thread.sleep(20);
+        q.popNow();
+        assertEquals(1, queueTime.getCount());
+        assertTrue(queueTime.getMax() >= TimeUnit.MILLISECONDS.toNanos(20));
+
+        q.push(new ProtocolMessage(ONE));
+        q.push(new ProtocolMessage(TWO));
+        q.push(new ProtocolMessage(THREE));
+        NatsMessage msg = q.accumulate(1000, 100, null);
+        assertNotNull(msg.next);
+        assertEquals(4, queueTime.getCount());
+    }
+
     @Test
     public void testPushPop() throws InterruptedException {
         MessageQueue q = new MessageQueue(false);
@@ -0,0 +1,143 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.Dispatcher;
+import io.nats.client.MetricsSnapshot;
+import io.nats.client.Options;
+import io.nats.client.Subscription;
+import io.nats.client.utils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTests extends TestBase {
+
+    @Test
+    public void testPrefixOf() {
+        assertEquals("a", MetricsRegistry.prefixOf("a.b.c", 1));
+        assertEquals("a.b", MetricsRegistry.prefixOf("a.b.c", 2));
+        assertEquals("a.b.c", MetricsRegistry.prefixOf("a.b.c", 3));
+        assertEquals("a.b.c", MetricsRegistry.prefixOf("a.b.c", 4));
+        assertEquals("abc", MetricsRegistry.prefixOf("abc", 2));
+    }
+
+    @Test
+    public void testPrefixCardinalityLimit() {
+        MetricsRegistry registry = new MetricsRegistry(false, 1, 2);
+        registry.prefixCounters("a.x").received(10);
+        registry.prefixCounters("b.x").received(10);
+        registry.prefixCounters("c.x").received(10);
+        registry.prefixCounters("d.x").received(10);
+        registry.prefixCounters("a.y").received(10);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertTrue(snapshot.getSubscriptions().isEmpty());
+        assertEquals(2, snapshot.getSubjectPrefixes().size());
+        Map<String, MetricsSnapshot.Metrics> byName = new HashMap<>();
+        for (MetricsSnapshot.Metrics m : snapshot.getSubjectPrefixes()) {
+            byName.put(m.getName(), m);
+        }
+        assertEquals(2, byName.get("a").getMessages());
+        assertEquals(20, byName.get("a").getBytes());
+        assertEquals(1, byName.get("b").getMessages());
+        assertEquals(2, snapshot.getSubjectOverflow().getMessages());
+        assertNull(snapshot.getSubjectOverflow().getName());
+    }
+
+    @Test
+    public void testSubjectCache() {
+        MetricsRegistry registry = new MetricsRegistry(false, 1, 2, 2);
+        MetricsRegistry.Counters ax = registry.prefixCounters("a.x");
+        assertSame(ax, registry.prefixCounters(new String("a.x")));
+        assertSame(ax, registry.prefixCounters("a.y"));
+        assertEquals(2, registry.cachedSubjectCount());
+
+        // past the cache limit the prefix is still found, just not cached
+        assertSame(ax, registry.prefixCounters("a.z"));
+        registry.prefixCounters("b.x");
+        MetricsRegistry.Counters overflow = registry.prefixCounters("c.x");
+        assertSame(overflow, registry.prefixCounters("d.x"));
+        assertEquals(2, registry.cachedSubjectCount());
+        assertEquals(2, registry.snapshot().getSubjectPrefixes().size());
+    }
+
+    @Test
+    public void testNotCreatedWhenOff() {
+        assertNull(MetricsRegistry.create(new Options.Builder().build()));
+        assertNotNull(MetricsRegistry.create(new Options.Builder().subscriptionMetrics().build()));
+        assertNotNull(MetricsRegistry.create(new Options.Builder().subjectMetrics(1, 10).build()));
+    }
+
+    @Test
+    public void testSubscriptionAndSubjectMetrics() throws Exception {
+        Options.Builder builder = new Options.Builder().subscriptionMetrics().subjectMetrics(1, 10);
+        runInServer(builder, nc -> {
+            CountDownLatch latch = new CountDownLatch(3);
+            Dispatcher d = nc.createDispatcher();
+            Subscription dsub = d.subscribe("orders.*", "q", msg -> latch.countDown());
+            Subscription sync = nc.subscribe("audit.>");
+
+            nc.publish("orders.new", new byte[10]);
+            nc.publish("orders.paid", new byte[10]);
+            nc.publish("orders.shipped", new byte[10]);
+            nc.publish("audit.login", new byte[5]);
+            nc.flush(Duration.ofSeconds(1));
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            assertNotNull(sync.nextMessage(Duration.ofSeconds(1)));
+
+            MetricsSnapshot snapshot = nc.getMetricsSnapshot();
+            assertEquals(2, snapshot.getSubscriptions().size());
+            for (MetricsSnapshot.Metrics m : snapshot.getSubscriptions()) {
+                if (m.getName().equals("orders.*")) {
+                    assertEquals("q", m.getQueueName());
+                    assertEquals(3, m.getMessages());
+                    assertTrue(m.getBytes() >= 30);
+                    assertTrue(m.getHandlerNanos() > 0);
+                }
+                else {
+                    assertEquals("audit.>", m.getName());
+                    assertEquals(1, m.getMessages());
+                    assertEquals(0, m.getHandlerNanos());
+                }
+                assertEquals(0, m.getDropped());
+            }
+
+            assertEquals(2, snapshot.getSubjectPrefixes().size());
+            assertEquals(0, snapshot.getSubjectOverflow().getMessages());
+
+            // metrics go away with the subscription
+            d.unsubscribe(dsub);
+            sync.unsubscribe();
+            assertTrue(nc.getMetricsSnapshot().getSubscriptions().isEmpty());
+        });
+    }
+
+    @Test
+    public void testSnapshotWhenOff() throws Exception {
+        runInServer(nc -> {
+            nc.subscribe(SUBJECT);
+            MetricsSnapshot snapshot = nc.getMetricsSnapshot();
+            assertTrue(snapshot.getSubscriptions().isEmpty());
+            assertTrue(snapshot.getSubjectPrefixes().isEmpty());
+            assertNull(snapshot.getSubjectOverflow());
+        });
+    }
+}
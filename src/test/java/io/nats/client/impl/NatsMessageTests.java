@@ -54,6 +54,25 @@ public class NatsMessageTests {
         assertEquals(protocol.getBytes(StandardCharsets.UTF_8).length + body.length + 4, msg.getSizeInBytes(), "Size is correct");
     }
 
+    @Test
+    public void testSerializedHeaders() {
+        Headers h = new Headers().add("Nats-Msg-Id", "abc-1");
+        byte[] serialized = h.getSerialized();
+        NatsMessage msg = NatsMessage.withSerializedHeaders("subj", "reply", serialized, new byte[10]);
+        NatsMessage same = new NatsMessage("subj", "reply", h, new byte[10]);
+
+        assertTrue(msg.hasHeaders());
+        assertSame(serialized, msg.getSerializedHeader());
+        assertByteArraysEqual(same.getProtocolBytes(), msg.getProtocolBytes());
+        assertEquals(same.getSizeInBytes(), msg.getSizeInBytes());
+
+        // asking for the headers parses them, after which they can be changed
+        assertEquals("abc-1", msg.getHeaders().get("Nats-Msg-Id").get(0));
+        msg.getHeaders().add("foo", "bar");
+        assertEquals(new String(msg.getHeaders().getSerialized()), new String(msg.getSerializedHeader()));
+        assertTrue(msg.getSizeInBytes() > same.getSizeInBytes());
+    }
+
     @Test
     public void testCustomMaxControlLine() {
         assertThrows(IllegalArgumentException.class, () -> {
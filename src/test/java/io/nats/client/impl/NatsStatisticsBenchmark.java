@@ -0,0 +1,131 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.Connection;
+import io.nats.client.Nats;
+import io.nats.client.Options;
+import io.nats.client.support.LatencyHistogram;
+
+import java.text.NumberFormat;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compares publish throughput with statistics off, with the default statistics and with advanced
+ * statistics, from several threads at once.
+ *
+ * <p>Without arguments only the statistics a publish records are timed, which shows contention
+ * on the counters without the network in the way. Pass a server url to also publish for real,
+ * with and without advanced statistics turned on.
+ */
+public class NatsStatisticsBenchmark {
+    static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    static final int MSGS_PER_THREAD = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("Running benchmarks with %s threads, %s messages each.\n",
+                THREADS, NumberFormat.getInstance().format(MSGS_PER_THREAD));
+
+        // warm up
+        recordOnly(null);
+        recordOnly(new NatsStatistics(true));
+
+        report("Publish path, stats off", recordOnly(null));
+        report("Publish path, default stats", recordOnly(new NatsStatistics(false)));
+        report("Publish path, advanced stats", recordOnly(new NatsStatistics(true)));
+
+        if (args.length > 0) {
+            int msgs = MSGS_PER_THREAD / 10;
+            report("Publish to server, default stats", publish(new Options.Builder().server(args[0]).build(), msgs), msgs);
+            report("Publish to server, advanced stats", publish(new Options.Builder().server(args[0]).turnOnAdvancedStats().build(), msgs), msgs);
+        }
+    }
+
+    // Records what a publish records, from the publishing thread and the writer
+    static long recordOnly(NatsStatistics stats) throws InterruptedException {
+        LatencyHistogram queueTime = stats == null ? null : stats.outgoingQueueTracker();
+        return runThreads(() -> {
+            long blackhole = 0;
+            for (int i = 0; i < MSGS_PER_THREAD; i++) {
+                if (stats == null) {
+                    blackhole += i;
+                    continue;
+                }
+                stats.incrementOutMsgs();
+                stats.incrementOutBytes(64);
+                stats.registerWrite(64);
+                if (queueTime != null) {
+                    queueTime.record(i & 0xFFFF);
+                }
+            }
+            return blackhole;
+        });
+    }
+
+    static long publish(Options options, int msgs) throws Exception {
+        try (Connection nc = Nats.connect(options)) {
+            byte[] payload = new byte[64];
+            long elapsed = runThreads(() -> {
+                for (int i = 0; i < msgs; i++) {
+                    nc.publish("stats.bench", payload);
+                }
+                return 0;
+            });
+            nc.flush(Duration.ofSeconds(30));
+            return elapsed;
+        }
+    }
+
+    interface Work {
+        long run() throws Exception;
+    }
+
+    static long runThreads(Work work) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    work.run();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    static void report(String name, long nanos) {
+        report(name, nanos, MSGS_PER_THREAD);
+    }
+
+    static void report(String name, long nanos, int msgsPerThread) {
+        long total = (long) THREADS * msgsPerThread;
+        System.out.printf("\n%s: %s ms, %s ns/op\n", name,
+                NumberFormat.getInstance().format(nanos / 1_000_000L),
+                NumberFormat.getInstance().format(((double) nanos) / total));
+        System.out.printf("\tor %s op/s\n",
+                NumberFormat.getInstance().format(1_000_000_000L * ((double) total) / nanos));
+    }
+}
@@ -49,9 +49,59 @@ public class NatsStatisticsTests {
             assertTrue(str.length() > 0);
             assertTrue(str.contains("### Connection ###"));
             assertTrue(str.contains("Socket Writes"));
+            assertTrue(str.contains("### Latency ###"));
         }
     }
 
+    @Test
+    public void testLatencyStats() throws Exception {
+        try (NatsTestServer ts = new NatsTestServer();
+                Connection nc = Nats.connect(new Options.Builder()
+                                                .server(ts.getURI())
+                                                .turnOnAdvancedStats()
+                                                .build())) {
+            Dispatcher d = nc.createDispatcher((msg) -> {
+                nc.publish(msg.getReplyTo(), new byte[16]);
+            });
+            d.subscribe("subject");
+            nc.flush(Duration.ofMillis(500));
+
+            for (int x = 0; x < 10; x++) {
+                assertNotNull(nc.request("subject", new byte[8], Duration.ofMillis(500)));
+            }
+
+            Statistics stats = nc.getStatistics();
+            assertEquals(10, stats.getRequestLatency().getCount());
+            assertTrue(stats.getRequestLatency().getValueAtPercentile(50) > 0);
+            assertTrue(stats.getPingLatency().getCount() > 0);
+            assertTrue(stats.getHandlerLatency().getCount() >= 10);
+            assertTrue(stats.getOutgoingQueueLatency().getCount() >= 20);
+            assertTrue(stats.getIncomingQueueLatency().getCount() >= 20);
+        }
+    }
+
+    @Test
+    public void testLatencyNotTrackedByDefault() throws Exception {
+        NatsStatistics stats = new NatsStatistics(false);
+        stats.registerRequestLatency(1000);
+        stats.registerPingLatency(1000);
+        stats.registerHandlerLatency(1000);
+        assertNull(stats.outgoingQueueTracker());
+        assertNull(stats.incomingQueueTracker());
+        assertEquals(0, stats.getRequestLatency().getCount());
+        assertEquals(0, stats.getPingLatency().getCount());
+        assertEquals(0, stats.getHandlerLatency().getCount());
+        assertFalse(stats.toString().contains("### Latency ###"));
+
+        stats = new NatsStatistics(true);
+        stats.registerRequestLatency(1000);
+        stats.outgoingQueueTracker().record(1000);
+        assertEquals(1, stats.getOutgoingQueueLatency().getCount());
+        assertTrue(stats.getOutgoingQueueLatency().isReadOnly());
+        assertEquals(1, stats.getRequestLatency().getCount());
+        assertTrue(stats.toString().contains("Request Round Trip"));
+    }
+
     @Test
     public void testInOutOKRequestStats() throws Exception {
         try (NatsTestServer ts = new NatsTestServer(false)) {
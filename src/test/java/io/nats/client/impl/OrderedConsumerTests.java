@@ -0,0 +1,82 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.api.ConsumerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderedConsumerTests extends JetStreamTestBase {
+
+    private final List<Runnable> recreates = new ArrayList<>();
+
+    private OrderedConsumer orderedConsumer() {
+        return new OrderedConsumer(null, null, null, STREAM, ConsumerConfiguration.builder().build(), recreates::add);
+    }
+
+    private NatsMessage msg(String consumer, long streamSeq, long consumerSeq) {
+        return getJsMessage("$JS.ACK." + STREAM + "." + consumer + ".1." + streamSeq + "." + consumerSeq + ".1605139610113260000");
+    }
+
+    @Test
+    public void testGapRetiresConsumer() {
+        OrderedConsumer oc = orderedConsumer();
+
+        // the first consumer is picked up from its first message
+        assertFalse(oc.drop(msg("c1", 10, 1)));
+        assertFalse(oc.drop(msg("c1", 11, 2)));
+        assertEquals(11, oc.getLastStreamSequence());
+
+        // a message from some other consumer is not ours
+        assertTrue(oc.drop(msg("other", 12, 3)));
+
+        // consumer sequence 3 was missed
+        assertTrue(oc.drop(msg("c1", 13, 4)));
+        assertEquals(1, recreates.size());
+        assertEquals(11, oc.getLastStreamSequence());
+
+        // the rest of the retired consumer is dropped, without asking for another
+        assertTrue(oc.drop(msg("c1", 14, 5)));
+        assertEquals(1, recreates.size());
+
+        // the replacement starts over at consumer sequence 1
+        assertFalse(oc.drop(msg("c2", 12, 1)));
+        assertFalse(oc.drop(msg("c2", 13, 2)));
+        assertEquals(13, oc.getLastStreamSequence());
+        assertTrue(oc.drop(msg("c1", 15, 6)));
+    }
+
+    @Test
+    public void testStalledRetiresConsumer() {
+        OrderedConsumer oc = orderedConsumer();
+        assertFalse(oc.drop(msg("c1", 1, 1)));
+        oc.stalled();
+        assertEquals(1, recreates.size());
+        assertTrue(oc.drop(msg("c1", 2, 2)));
+        assertFalse(oc.drop(msg("c2", 2, 1)));
+    }
+
+    @Test
+    public void testOtherMessagesPass() {
+        OrderedConsumer oc = orderedConsumer();
+        assertFalse(oc.drop(getJsMessage("not.js")));
+        assertFalse(oc.drop(new NatsMessage("subj", null, (byte[]) null)));
+        assertTrue(recreates.isEmpty());
+    }
+}
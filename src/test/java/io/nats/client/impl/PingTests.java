@@ -22,7 +22,11 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -103,6 +107,71 @@ public class PingTests {
         }
     }
 
+    @Test
+    public void testPingTimerOnInjectedScheduler() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (NatsTestServer ts = new NatsTestServer(false)) {
+            Options options = new Options.Builder().server(ts.getURI()).pingInterval(Duration.ofMillis(5))
+                    .scheduler(scheduler).build();
+            NatsConnection nc1 = (NatsConnection) Nats.connect(options);
+            NatsConnection nc2 = (NatsConnection) Nats.connect(options);
+
+            try {
+                Thread.sleep(200); // both connections ping on the one scheduler thread
+                assertTrue(nc1.getNatsStatistics().getPings() > 10, "got pings");
+                assertTrue(nc2.getNatsStatistics().getPings() > 10, "got pings");
+            } finally {
+                nc1.close();
+                nc2.close();
+            }
+
+            // the connections leave the scheduler running, it is not theirs
+            assertFalse(scheduler.isShutdown());
+            long pings = nc1.getNatsStatistics().getPings();
+            Thread.sleep(50);
+            assertTrue(nc1.getNatsStatistics().getPings() == pings, "no pings after close");
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testScheduledWorkRunsOffTheSchedulerAndIsCancelledOnClose() throws Exception {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        try (NatsTestServer ts = new NatsTestServer(false)) {
+            Options options = new Options.Builder().server(ts.getURI()).scheduler(scheduler).build();
+            NatsConnection nc = (NatsConnection) Nats.connect(options);
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch second = new CountDownLatch(1);
+            try {
+                // a task that blocks must not hold up the next one
+                nc.scheduleOnce(() -> {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, 0);
+                assertTrue(blocked.await(5, TimeUnit.SECONDS));
+                nc.scheduleOnce(second::countDown, 0);
+                assertTrue(second.await(5, TimeUnit.SECONDS));
+
+                nc.scheduleOnce(() -> {}, TimeUnit.HOURS.toNanos(1));
+            } finally {
+                release.countDown();
+                nc.close();
+            }
+
+            // the ping, the cleanup and the one off task were all cancelled
+            assertTrue(scheduler.getQueue().isEmpty());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
     @Test
     public void testPingFailsWhenClosed() throws Exception {
         try (NatsServerProtocolMock ts = new NatsServerProtocolMock(ExitAt.NO_EXIT)) {
@@ -0,0 +1,79 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nats.client.impl.AckType.AckAck;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PublishBatchTests {
+
+    @Test
+    public void testLines() {
+        List<NatsMessage> sent = new ArrayList<>();
+        PublishBatch batch = new PublishBatch(1024, 1024, sent::add);
+        batch.add("r1", AckAck.bytes);
+        batch.add("r2", AckAck.bytes);
+        assertTrue(sent.isEmpty());
+        batch.flush();
+        batch.flush(); // nothing left, nothing sent
+
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0).isProtocol());
+        assertEquals("PUB r1 4\r\n+ACK\r\nPUB r2 4\r\n+ACK", new String(sent.get(0).getProtocolBytes(), UTF_8));
+        assertEquals(2, batch.getCount());
+        assertEquals(1, batch.getMessages());
+    }
+
+    @Test
+    public void testSplitsAtMaxBytes() {
+        List<NatsMessage> sent = new ArrayList<>();
+        PublishBatch batch = new PublishBatch(256, 1024, sent::add);
+        int count = 1000;
+        for (int x = 0; x < count; x++) {
+            batch.add("reply." + x, AckAck.bytes);
+        }
+        batch.flush();
+
+        assertEquals(count, batch.getCount());
+        assertEquals(sent.size(), batch.getMessages());
+        assertTrue(sent.size() > 1 && sent.size() < count / 5, "a few messages, not one each");
+
+        // every publish is there once, in order, and no message is bigger than the buffer
+        StringBuilder all = new StringBuilder();
+        for (NatsMessage m : sent) {
+            assertTrue(m.getProtocolBytes().length + 2 <= 256 + 32);
+            all.append(new String(m.getProtocolBytes(), UTF_8)).append("\r\n");
+        }
+        String[] lines = all.toString().split("\r\n");
+        assertEquals(count * 2, lines.length);
+        for (int x = 0; x < count; x++) {
+            assertEquals("PUB reply." + x + " 4", lines[x * 2]);
+            assertEquals("+ACK", lines[x * 2 + 1]);
+        }
+    }
+
+    @Test
+    public void testControlLineTooLong() {
+        PublishBatch batch = new PublishBatch(1024, 16, m -> {});
+        batch.add("short", AckAck.bytes);
+        assertThrows(IllegalArgumentException.class, () -> batch.add("a.much.longer.subject", AckAck.bytes));
+    }
+}
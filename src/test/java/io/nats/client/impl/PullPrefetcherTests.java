@@ -0,0 +1,160 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.Message;
+import io.nats.client.PullPrefetchOptions;
+import io.nats.client.support.Status;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PullPrefetcherTests {
+
+    private final List<Integer> pulls = new ArrayList<>();
+    private final List<Runnable> timers = new ArrayList<>();
+    private long pendingBytes;
+
+    private PullPrefetcher prefetcher(PullPrefetchOptions options) {
+        return new PullPrefetcher(options, pulls::add, () -> pendingBytes, (task, nanos) -> timers.add(task));
+    }
+
+    private static Message jsMessage() {
+        return new NatsJetStreamMessage();
+    }
+
+    private static Message statusMessage() {
+        return new NatsMessage.StatusMessage(new Status(408, "Request Timeout"));
+    }
+
+    private void read(PullPrefetcher pp, int count) {
+        for (int x = 0; x < count; x++) {
+            pp.read(jsMessage());
+        }
+    }
+
+    @Test
+    public void testTopsUpAtLowWaterMark() {
+        PullPrefetcher pp = prefetcher(PullPrefetchOptions.builder().maxMessages(10).lowWaterMark(4).build());
+        pp.start();
+        assertEquals(Arrays.asList(10), pulls);
+        assertEquals(10, pp.outstanding());
+        assertEquals(1, timers.size());
+
+        read(pp, 5);
+        assertEquals(1, pulls.size());
+        assertEquals(5, pp.outstanding());
+
+        read(pp, 1);
+        assertEquals(Arrays.asList(10, 6), pulls);
+        assertEquals(10, pp.outstanding());
+        assertEquals(2, pp.openRequests());
+        assertEquals(1, timers.size()); // the pending expiry covers the new request too
+
+        // the first request is filled, then reads count against the next
+        read(pp, 4);
+        assertEquals(1, pp.openRequests());
+        assertEquals(6, pp.outstanding());
+    }
+
+    @Test
+    public void testLargeMaxIsSplitIntoPullSizes() {
+        PullPrefetcher pp = prefetcher(PullPrefetchOptions.builder().maxMessages(600).build());
+        pp.start();
+        assertEquals(Arrays.asList(256, 256, 88), pulls);
+        assertEquals(600, pp.outstanding());
+    }
+
+    @Test
+    public void testStatusEndsOldestRequest() {
+        PullPrefetcher pp = prefetcher(PullPrefetchOptions.builder().maxMessages(10).lowWaterMark(2).build());
+        pp.start();
+        read(pp, 3);
+        pp.read(statusMessage()); // the first request expired with 7 still to come
+        assertEquals(Arrays.asList(10, 10), pulls);
+        assertEquals(10, pp.outstanding());
+        assertEquals(1, pp.openRequests());
+    }
+
+    @Test
+    public void testMaxBytesHoldsBack() {
+        PullPrefetcher pp = prefetcher(PullPrefetchOptions.builder().maxMessages(10).lowWaterMark(4).maxBytes(1000).build());
+        pp.start();
+        pendingBytes = 1000;
+        read(pp, 8);
+        assertEquals(1, pulls.size());
+
+        pendingBytes = 10;
+        read(pp, 1);
+        assertEquals(Arrays.asList(10, 9), pulls);
+    }
+
+    @Test
+    public void testOneExpiryTimerAtATime() {
+        PullPrefetcher pp = prefetcher(PullPrefetchOptions.builder().maxMessages(10).lowWaterMark(8).build());
+        pp.start();
+        for (int x = 0; x < 5; x++) {
+            read(pp, 2);
+        }
+        assertEquals(6, pulls.size());
+        assertEquals(1, timers.size());
+
+        // nothing has expired yet, so the timer moves on to the oldest open request
+        timers.get(0).run();
+        assertEquals(2, timers.size());
+
+        // once every request is done there is nothing to wait for
+        pp.stop();
+        timers.get(1).run();
+        assertEquals(2, timers.size());
+    }
+
+    @Test
+    public void testStop() {
+        PullPrefetcher pp = prefetcher(PullPrefetchOptions.builder().maxMessages(10).build());
+        pp.start();
+        pp.stop();
+        assertEquals(0, pp.outstanding());
+        timers.get(0).run();
+        read(pp, 10);
+        assertEquals(1, pulls.size());
+    }
+
+    @Test
+    public void testOptions() {
+        PullPrefetchOptions ppo = PullPrefetchOptions.builder().build();
+        assertEquals(PullPrefetchOptions.DEFAULT_MAX_MESSAGES, ppo.getMaxMessages());
+        assertEquals(PullPrefetchOptions.DEFAULT_MAX_MESSAGES / 4, ppo.getLowWaterMark());
+        assertEquals(0, ppo.getMaxBytes());
+        assertEquals(PullPrefetchOptions.DEFAULT_EXPIRES_IN, ppo.getExpiresIn());
+
+        ppo = PullPrefetchOptions.builder().maxMessages(100).lowWaterMark(0).maxBytes(-1).expiresIn(Duration.ofSeconds(1)).build();
+        assertEquals(100, ppo.getMaxMessages());
+        assertEquals(0, ppo.getLowWaterMark());
+        assertEquals(0, ppo.getMaxBytes());
+        assertEquals(Duration.ofSeconds(1), ppo.getExpiresIn());
+        assertNotNull(ppo.toString()); // COVERAGE
+
+        assertThrows(IllegalArgumentException.class, () -> PullPrefetchOptions.builder().maxMessages(0));
+        assertThrows(IllegalArgumentException.class, () -> PullPrefetchOptions.builder().lowWaterMark(-1));
+        assertThrows(IllegalArgumentException.class, () -> PullPrefetchOptions.builder().expiresIn(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> PullPrefetchOptions.builder().maxMessages(10).lowWaterMark(10).build());
+    }
+}
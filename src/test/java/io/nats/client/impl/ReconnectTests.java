@@ -20,6 +20,8 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
@@ -230,6 +232,55 @@ public class ReconnectTests {
         standardCloseConnection(nc);
     }
 
+    @Test
+    public void testResubscribeManySubscriptions() throws Exception {
+        NatsConnection nc;
+        TestHandler handler = new TestHandler();
+        int port = NatsTestServer.nextPort();
+        int count = 20_000;
+        Subscription first;
+        Subscription last;
+
+        try (NatsTestServer ts = new NatsTestServer(port, false)) {
+            Options options = new Options.Builder().
+                                    server(ts.getURI()).
+                                    maxReconnects(-1).
+                                    reconnectWait(Duration.ofMillis(10)).
+                                    connectionListener(handler).
+                                    build();
+            nc = (NatsConnection) standardConnection(options);
+            first = nc.subscribe("resub.0");
+            for (int i = 1; i < count - 1; i++) {
+                nc.subscribe("resub." + i);
+            }
+            last = nc.subscribe("resub." + (count - 1));
+            nc.flush(Duration.ofSeconds(5));
+            handler.prepForStatusChange(Events.DISCONNECTED);
+        }
+
+        flushAndWaitLong(nc, handler);
+        checkReconnectingStatus(nc);
+
+        // queued while disconnected, so only released after the subscriptions are back
+        nc.publish("resub.0", null);
+        nc.publish("resub." + (count - 1), null);
+
+        handler.prepForStatusChange(Events.RESUBSCRIBED);
+        long start = System.nanoTime();
+        try (NatsTestServer ts = new NatsTestServer(port, false)) {
+            standardConnectionWait(nc, handler);
+
+            assertNotNull(first.nextMessage(Duration.ofSeconds(2)));
+            assertNotNull(last.nextMessage(Duration.ofSeconds(2)));
+
+            // time to recovered, from starting the server until both ends of the subscriptions are live,
+            // the bound is generous so a slow machine does not fail it
+            long recoveredMillis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(recoveredMillis < 8000, "recovered in " + recoveredMillis + "ms");
+            standardCloseConnection(nc);
+        }
+    }
+
     @Test
     public void testMaxReconnects() throws Exception {
         Connection nc;
@@ -279,6 +330,30 @@ public class ReconnectTests {
         }
     }
 
+    @Test
+    public void testConnectWithServerProbing() throws Exception {
+        TestHandler handler = new TestHandler();
+        String dead = "nats://localhost:" + NatsTestServer.nextPort();
+
+        try (NatsTestServer ts = new NatsTestServer()) {
+            // the dead server is first, probing moves it last
+            Options options = new Options.Builder().
+                                        server(dead).
+                                        server(ts.getURI()).
+                                        noRandomize().
+                                        serverProbing(2).
+                                        connectionListener(handler).
+                                        maxReconnects(-1).
+                                        build();
+            NatsConnection nc = (NatsConnection) standardConnection(options);
+            assertEquals(ts.getURI(), nc.getConnectedUrl());
+            assertTrue(nc.getServerRtts().containsKey(dead));
+            assertNull(nc.getServerRtts().get(dead));
+            assertNotNull(nc.getServerRtts().get(ts.getURI()));
+            standardCloseConnection(nc);
+        }
+    }
+
     @Test
     public void testNoRandomizeReconnectToSecondServer() throws Exception {
         NatsConnection nc;
@@ -391,6 +466,64 @@ public class ReconnectTests {
         standardCloseConnection(nc);
     }
 
+    @Test
+    public void testReconnectOutbox() throws Exception {
+        NatsConnection nc;
+        TestHandler handler = new TestHandler();
+        int port = NatsTestServer.nextPort();
+        Path outboxDir = Files.createTempDirectory("nats_java_outbox");
+        Subscription sub;
+
+        try (NatsTestServer ts = new NatsTestServer(port, false)) {
+            Options options = new Options.Builder().
+                                    server(ts.getURI()).
+                                    maxReconnects(-1).
+                                    connectionListener(handler).
+                                    reconnectBufferSize(4*512).
+                                    reconnectOutbox(outboxDir, -1).
+                                    reconnectWait(Duration.ofMillis(500)).
+                                    build();
+            nc = (NatsConnection) standardConnection(options);
+            sub = nc.subscribe("outbox");
+            nc.flush(Duration.ofSeconds(1));
+            handler.prepForStatusChange(Events.DISCONNECTED);
+        }
+
+        flushAndWaitLong(nc, handler);
+        checkReconnectingStatus(nc);
+
+        // more than fits in the reconnect buffer, the rest goes to disk instead of failing
+        int count = 100;
+        for (int i = 0; i < count; i++) {
+            byte[] payload = new byte[512];
+            payload[0] = (byte) i;
+            nc.publish("outbox", payload);
+        }
+        Statistics stats = nc.getStatistics();
+        assertTrue(stats.getOutboxSpilled() > 0, "spilled");
+        assertEquals(stats.getOutboxSpilled(), stats.getOutboxPending());
+
+        handler.prepForStatusChange(Events.RESUBSCRIBED);
+        try (NatsTestServer ts = new NatsTestServer(port, false)) {
+            standardConnectionWait(nc, handler);
+
+            for (int i = 0; i < count; i++) {
+                Message msg = sub.nextMessage(Duration.ofSeconds(2));
+                assertNotNull(msg, "message " + i);
+                assertEquals((byte) i, msg.getData()[0], "in order");
+            }
+            assertEquals(stats.getOutboxSpilled(), stats.getOutboxReplayed());
+            assertEquals(0, stats.getOutboxPending());
+            assertEquals(0, stats.getOutboxPendingBytes());
+            assertTrue(stats.getOutboxReplayLag() >= 0);
+
+            standardCloseConnection(nc);
+        }
+        finally {
+            Files.deleteIfExists(outboxDir);
+        }
+    }
+
     @Test
     public void testReconnectDropOnLineFeed() throws Exception {
         NatsConnection nc;
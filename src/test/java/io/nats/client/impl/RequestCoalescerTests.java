@@ -0,0 +1,193 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.impl;
+
+import io.nats.client.Message;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestCoalescerTests {
+
+    @Test
+    public void testCoalescesInFlight() throws Exception {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ZERO, 10);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Message> actual = new CompletableFuture<>();
+
+        CompletableFuture<Message> f1 = rc.request("subj", "data".getBytes(), null, () -> { calls.incrementAndGet(); return actual; });
+        CompletableFuture<Message> f2 = rc.request("subj", "data".getBytes(), null, () -> { calls.incrementAndGet(); return actual; });
+        CompletableFuture<Message> f3 = rc.request("subj", "other".getBytes(), null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        CompletableFuture<Message> f4 = rc.request("other", "data".getBytes(), null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+
+        assertEquals(3, calls.get());
+        assertEquals(1, stats.getCoalescedRequests());
+        assertEquals(3, rc.inFlightCount());
+        assertNotSame(f1, f2);
+
+        // cancelling one caller's future must not affect the other
+        f1.cancel(true);
+        Message m = new NatsMessage("reply", null, "data".getBytes());
+        actual.complete(m);
+        assertSame(m, f2.get());
+        assertFalse(f3.isDone());
+        assertFalse(f4.isDone());
+        assertEquals(2, rc.inFlightCount());
+
+        // no cache, so a new request is made
+        rc.request("subj", "data".getBytes(), null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        assertEquals(4, calls.get());
+        assertEquals(0, stats.getRequestCacheHits());
+    }
+
+    @Test
+    public void testNullAndEmptyPayloadAreTheSame() {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ZERO, 10);
+        rc.request("subj", null, null, CompletableFuture::new);
+        rc.request("subj", new byte[0], null, CompletableFuture::new);
+        assertEquals(1, stats.getCoalescedRequests());
+    }
+
+    @Test
+    public void testExceptionalCompletionIsShared() {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ofMinutes(1), 10);
+        CompletableFuture<Message> actual = new CompletableFuture<>();
+        CompletableFuture<Message> f1 = rc.request("subj", null, null, () -> actual);
+        CompletableFuture<Message> f2 = rc.request("subj", null, null, () -> actual);
+        actual.cancel(true);
+        assertThrows(Exception.class, f1::get);
+        assertThrows(Exception.class, f2::get);
+        assertEquals(0, rc.inFlightCount());
+
+        // failures are not cached
+        AtomicInteger calls = new AtomicInteger();
+        rc.request("subj", null, null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testRequesterThrows() {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ZERO, 10);
+        assertThrows(IllegalStateException.class,
+                () -> rc.request("subj", null, null, () -> { throw new IllegalStateException("closed"); }));
+        assertEquals(0, rc.inFlightCount());
+    }
+
+    @Test
+    public void testReplyCache() throws ExecutionException, InterruptedException {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ofMinutes(1), 2);
+        AtomicInteger calls = new AtomicInteger();
+
+        Message a = requestAndReply(rc, "a", calls);
+        assertSame(a, rc.request("subj", "a".getBytes(), null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); }).get());
+        assertEquals(1, calls.get());
+        assertEquals(1, stats.getRequestCacheHits());
+
+        // b and c push a out of the cache, since a is the least recently used
+        requestAndReply(rc, "b", calls);
+        requestAndReply(rc, "c", calls);
+        requestAndReply(rc, "a", calls);
+        assertEquals(4, calls.get());
+        assertEquals(1, stats.getRequestCacheHits());
+    }
+
+    @Test
+    public void testReplyCacheExpires() throws Exception {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ofMillis(50), 10);
+        AtomicInteger calls = new AtomicInteger();
+        requestAndReply(rc, "a", calls);
+        Thread.sleep(100);
+        requestAndReply(rc, "a", calls);
+        assertEquals(2, calls.get());
+        assertEquals(0, stats.getRequestCacheHits());
+    }
+
+    @Test
+    public void testKeyKeepsItsOwnCopyOfThePayload() {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ZERO, 10);
+        AtomicInteger calls = new AtomicInteger();
+        byte[] buffer = "aaaa".getBytes();
+        rc.request("subj", buffer, null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+
+        // the caller reuses its buffer for a different request, which must not match the first one
+        System.arraycopy("bbbb".getBytes(), 0, buffer, 0, 4);
+        rc.request("subj", buffer, null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        rc.request("subj", "aaaa".getBytes(), null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        assertEquals(2, calls.get());
+        assertEquals(1, stats.getCoalescedRequests());
+        assertEquals(2, rc.inFlightCount());
+    }
+
+    @Test
+    public void testEachCallerHasItsOwnTimeout() throws Exception {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ZERO, 10);
+        CompletableFuture<Message> actual = new CompletableFuture<>();
+        CompletableFuture<Message> leader = rc.request("subj", null, Duration.ofSeconds(1), () -> actual);
+        CompletableFuture<Message> follower = rc.request("subj", null, Duration.ofMinutes(1), () -> actual);
+
+        // past the leader's deadline, but not the follower's
+        rc.cleanCallers(System.nanoTime() + Duration.ofSeconds(30).toNanos(), false);
+        assertTrue(leader.isCompletedExceptionally());
+        assertFalse(follower.isDone());
+        assertFalse(actual.isDone());
+        assertEquals(1, rc.inFlightCount());
+
+        Message m = new NatsMessage("reply", null, "data".getBytes());
+        actual.complete(m);
+        assertSame(m, follower.get());
+        assertEquals(0, rc.inFlightCount());
+    }
+
+    @Test
+    public void testSharedRequestIsDroppedWhenNoCallerIsLeft() {
+        NatsStatistics stats = new NatsStatistics(false);
+        RequestCoalescer rc = new RequestCoalescer(stats, Duration.ZERO, 10);
+        CompletableFuture<Message> actual = new CompletableFuture<>();
+        CompletableFuture<Message> f1 = rc.request("subj", null, Duration.ofSeconds(1), () -> actual);
+        CompletableFuture<Message> f2 = rc.request("subj", null, null, () -> actual);
+
+        rc.cleanCallers(System.nanoTime(), true);
+        assertTrue(f1.isCompletedExceptionally());
+        assertTrue(f2.isCompletedExceptionally());
+        assertTrue(actual.isCancelled());
+        assertEquals(0, rc.inFlightCount());
+
+        // a new caller starts a new request
+        AtomicInteger calls = new AtomicInteger();
+        rc.request("subj", null, null, () -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        assertEquals(1, calls.get());
+    }
+
+    private Message requestAndReply(RequestCoalescer rc, String data, AtomicInteger calls) {
+        Message m = new NatsMessage("reply", null, data.getBytes());
+        rc.request("subj", data.getBytes(), null, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(m);
+        });
+        return m;
+    }
+}
@@ -14,6 +14,7 @@
 package io.nats.client.impl;
 
 import io.nats.client.*;
+import io.nats.client.support.LatencyHistogram;
 import io.nats.client.support.NatsRequestCompletableFuture;
 import io.nats.client.utils.TestBase;
 import org.junit.jupiter.api.Test;
@@ -170,6 +171,157 @@ public class RequestTests extends TestBase {
         });
     }
 
+    @Test
+    public void testRequestCoalescing() throws Exception {
+        Options.Builder builder = new Options.Builder().requestCoalescing().turnOnAdvancedStats();
+        runInServer(builder, nc -> {
+            AtomicInteger received = new AtomicInteger();
+            Dispatcher d = nc.createDispatcher(msg -> {
+                received.incrementAndGet();
+                sleep(250); // hold the reply so the other requests pile up
+                nc.publish(msg.getReplyTo(), msg.getData());
+            });
+            d.subscribe(SUBJECT);
+
+            byte[] data = "same".getBytes(StandardCharsets.UTF_8);
+            CompletableFuture<Message> f1 = nc.request(SUBJECT, data);
+            CompletableFuture<Message> f2 = nc.request(SUBJECT, "same".getBytes(StandardCharsets.UTF_8));
+            CompletableFuture<Message> f3 = nc.request(SUBJECT, "different".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals("same", new String(f1.get(2, TimeUnit.SECONDS).getData(), StandardCharsets.UTF_8));
+            assertEquals("same", new String(f2.get(2, TimeUnit.SECONDS).getData(), StandardCharsets.UTF_8));
+            assertEquals("different", new String(f3.get(2, TimeUnit.SECONDS).getData(), StandardCharsets.UTF_8));
+            assertEquals(2, received.get());
+            assertEquals(1, nc.getStatistics().getCoalescedRequests());
+            assertEquals(0, nc.getStatistics().getRequestCacheHits());
+
+            // no cache configured, so this goes to the responder
+            assertNotNull(nc.request(SUBJECT, data, Duration.ofSeconds(2)));
+            assertEquals(3, received.get());
+        });
+    }
+
+    @Test
+    public void testRequestCoalescingReplyCache() throws Exception {
+        Options.Builder builder = new Options.Builder().requestCoalescing().requestReplyCache(Duration.ofSeconds(30), 2);
+        runInServer(builder, nc -> {
+            AtomicInteger received = new AtomicInteger();
+            Dispatcher d = nc.createDispatcher(msg -> {
+                received.incrementAndGet();
+                nc.publish(msg.getReplyTo(), msg.getData());
+            });
+            d.subscribe(SUBJECT);
+
+            assertNotNull(nc.request(SUBJECT, "a".getBytes(), Duration.ofSeconds(2)));
+            assertNotNull(nc.request(SUBJECT, "a".getBytes(), Duration.ofSeconds(2)));
+            assertEquals(1, received.get());
+            assertEquals(1, nc.getStatistics().getRequestCacheHits());
+
+            // requests with headers are never coalesced or cached
+            Headers h = new Headers().add("key", "value");
+            Message m = NatsMessage.builder().subject(SUBJECT).headers(h).data("a".getBytes()).build();
+            assertNotNull(nc.request(m, Duration.ofSeconds(2)));
+            assertEquals(2, received.get());
+
+            // evict "a" by filling the cache past its size
+            assertNotNull(nc.request(SUBJECT, "b".getBytes(), Duration.ofSeconds(2)));
+            assertNotNull(nc.request(SUBJECT, "c".getBytes(), Duration.ofSeconds(2)));
+            assertNotNull(nc.request(SUBJECT, "a".getBytes(), Duration.ofSeconds(2)));
+            assertEquals(5, received.get());
+        });
+    }
+
+    @Test
+    public void testHedgedRequest() throws Exception {
+        runInServer(nc -> {
+            AtomicInteger slowCount = new AtomicInteger();
+            Dispatcher slow = nc.createDispatcher(msg -> {
+                slowCount.incrementAndGet();
+                sleep(2000);
+                nc.publish(msg.getReplyTo(), "slow".getBytes());
+            });
+            slow.subscribe(SUBJECT);
+            Dispatcher fast = nc.createDispatcher(msg -> nc.publish(msg.getReplyTo(), "fast".getBytes()));
+            fast.subscribe("alternate");
+
+            HedgePolicy policy = HedgePolicy.builder().initialDelay(Duration.ofMillis(50)).alternateSubjects("alternate").build();
+            Message request = NatsMessage.builder().subject(SUBJECT).data("hedge".getBytes()).build();
+            Message reply = nc.request(request, policy, Duration.ofSeconds(1));
+            assertNotNull(reply);
+            assertEquals("fast", new String(reply.getData()));
+            assertEquals(1, slowCount.get());
+
+            NatsStatistics stats = ((NatsConnection)nc).getNatsStatistics();
+            assertEquals(1, stats.getHedgedRequests());
+            assertEquals(1, stats.getHedgeWins());
+            assertEquals(0, stats.getOutstandingRequests()); // the loser is no longer awaited
+        });
+    }
+
+    @Test
+    public void testHedgedRequestNoHedgeNeeded() throws Exception {
+        runInServer(nc -> {
+            Dispatcher d = nc.createDispatcher(msg -> nc.publish(msg.getReplyTo(), msg.getData()));
+            d.subscribe(SUBJECT);
+
+            HedgePolicy policy = HedgePolicy.builder().initialDelay(Duration.ofSeconds(1)).build();
+            Message request = NatsMessage.builder().subject(SUBJECT).data("data".getBytes()).build();
+            for (int x = 0; x < 5; x++) {
+                assertNotNull(nc.request(request, policy).get(1, TimeUnit.SECONDS));
+            }
+            sleep(100);
+            NatsStatistics stats = ((NatsConnection)nc).getNatsStatistics();
+            assertEquals(0, stats.getHedgedRequests());
+            assertEquals(0, stats.getOutstandingRequests());
+        });
+    }
+
+    @Test
+    public void testHedgedRequestNoResponders() throws Exception {
+        runInServer(nc -> {
+            Dispatcher d = nc.createDispatcher(msg -> nc.publish(msg.getReplyTo(), "alt".getBytes()));
+            d.subscribe("alternate");
+
+            // the original subject has no responders, the hedge goes out without waiting for the delay
+            HedgePolicy policy = HedgePolicy.builder().initialDelay(Duration.ofSeconds(10)).alternateSubjects("alternate").build();
+            Message request = NatsMessage.builder().subject(SUBJECT).data("data".getBytes()).build();
+            Message reply = nc.request(request, policy).get(2, TimeUnit.SECONDS);
+            assertEquals("alt", new String(reply.getData()));
+
+            // nobody anywhere, the request fails once every hedge has failed
+            policy = HedgePolicy.builder().alternateSubjects("nobody").maxHedges(2).build();
+            CompletableFuture<Message> f = nc.request(request, policy);
+            assertThrows(ExecutionException.class, () -> f.get(2, TimeUnit.SECONDS));
+        });
+    }
+
+    @Test
+    public void testHedgeDelay() {
+        HedgePolicy policy = HedgePolicy.builder()
+                .percentile(50).minSamples(10).initialDelay(Duration.ofMillis(7))
+                .minDelay(Duration.ofMillis(2)).maxDelay(Duration.ofMillis(100))
+                .build();
+        LatencyHistogram latencies = new LatencyHistogram();
+        assertEquals(Duration.ofMillis(7).toNanos(), HedgedRequest.hedgeDelayNanos(policy, latencies));
+
+        for (int x = 0; x < 10; x++) {
+            latencies.record(Duration.ofMillis(20).toNanos());
+        }
+        long delay = HedgedRequest.hedgeDelayNanos(policy, latencies);
+        assertTrue(delay >= Duration.ofMillis(20).toNanos() && delay < Duration.ofMillis(22).toNanos());
+
+        latencies.reset();
+        for (int x = 0; x < 10; x++) {
+            latencies.record(1000);
+        }
+        assertEquals(Duration.ofMillis(2).toNanos(), HedgedRequest.hedgeDelayNanos(policy, latencies));
+
+        for (int x = 0; x < 20; x++) {
+            latencies.record(Duration.ofSeconds(5).toNanos());
+        }
+        assertEquals(Duration.ofMillis(100).toNanos(), HedgedRequest.hedgeDelayNanos(policy, latencies));
+    }
+
     @Test
     public void testManualRequestReply() throws IOException, InterruptedException {
         try (NatsTestServer ts = new NatsTestServer(false);
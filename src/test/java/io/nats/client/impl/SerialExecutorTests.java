@@ -0,0 +1,124 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerialExecutorTests {
+
+    @Test
+    public void testRunsInOrderOneAtATime() throws Exception {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            SerialExecutor serial = new SerialExecutor(pool);
+            List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+            int[] concurrent = new int[1];
+            int[] maxConcurrent = new int[1];
+            for (int x = 0; x < 1000; x++) {
+                int n = x;
+                serial.execute(() -> {
+                    synchronized (concurrent) {
+                        maxConcurrent[0] = Math.max(maxConcurrent[0], ++concurrent[0]);
+                    }
+                    ran.add(n);
+                    synchronized (concurrent) {
+                        concurrent[0]--;
+                    }
+                });
+            }
+            serial.shutdown();
+            assertTrue(serial.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(1000, ran.size());
+            for (int x = 0; x < 1000; x++) {
+                assertEquals(x, (int) ran.get(x));
+            }
+            assertEquals(1, maxConcurrent[0]);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExceptionDoesNotStopLaterTasks() throws Exception {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            SerialExecutor serial = new SerialExecutor(pool);
+            CountDownLatch latch = new CountDownLatch(1);
+            serial.execute(() -> { throw new IllegalStateException("boom"); });
+            serial.execute(latch::countDown);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            SerialExecutor serial = new SerialExecutor(pool);
+            CountDownLatch release = new CountDownLatch(1);
+            List<String> ran = Collections.synchronizedList(new ArrayList<>());
+            serial.execute(() -> {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ran.add("first");
+            });
+            serial.execute(() -> ran.add("second"));
+
+            assertFalse(serial.awaitTermination(50, TimeUnit.MILLISECONDS));
+            serial.shutdownNow(); // second is dropped, first is already running
+            assertTrue(serial.isShutdown());
+            assertThrows(RejectedExecutionException.class, () -> serial.execute(() -> ran.add("third")));
+
+            release.countDown();
+            assertTrue(serial.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList("first"), ran);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIdleHoldsNoThread() throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 50, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        try {
+            SerialExecutor serial = new SerialExecutor(pool);
+            CountDownLatch latch = new CountDownLatch(1);
+            serial.execute(latch::countDown);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(serial.awaitTermination(5, TimeUnit.SECONDS));
+            Thread.sleep(200);
+            assertEquals(0, pool.getPoolSize());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+}
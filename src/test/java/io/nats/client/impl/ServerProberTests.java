@@ -0,0 +1,151 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerProberTests {
+
+    @Test
+    public void testOrdersByRtt() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Map<String, Long> millis = new HashMap<>();
+            millis.put("a", 150L);
+            millis.put("b", 100L);
+            millis.put("c", -1L); // fails
+            millis.put("d", 120L);
+            ServerProber prober = new ServerProber(4, Duration.ofSeconds(2), executor, fakeProbe(millis));
+
+            assertEquals(Arrays.asList("b", "d", "a", "c"), prober.order(Arrays.asList("a", "b", "c", "d")));
+            Map<String, Duration> table = prober.getRttTable();
+            assertNull(table.get("c"));
+            assertTrue(table.get("b").compareTo(table.get("a")) < 0);
+
+            // a single server is not probed
+            assertEquals(Collections.singletonList("x"), prober.order(Collections.singletonList("x")));
+            assertFalse(prober.getRttTable().containsKey("x"));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUnprobedUseTheTable() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Map<String, Long> millis = new HashMap<>();
+            millis.put("a", 150L);
+            millis.put("b", 50L);
+            millis.put("c", 100L);
+            millis.put("x", 2_000L);
+            ServerProber prober = new ServerProber(2, Duration.ofSeconds(5), executor, fakeProbe(millis));
+
+            // only the first 2 are probed
+            assertEquals(Arrays.asList("c", "a", "b"), prober.order(Arrays.asList("c", "a", "b")));
+
+            // x does not answer in time, the ones not answering this time are ordered by the table
+            assertEquals(Arrays.asList("b", "c", "a", "x"), prober.order(Arrays.asList("b", "x", "a", "c")));
+
+            // a failed connect is remembered
+            prober.recordFailure("c");
+            assertEquals(Arrays.asList("b", "a", "x", "c"), prober.order(Arrays.asList("b", "x", "a", "c")));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSlowServersAreNotWaitedFor() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Map<String, Long> millis = new HashMap<>();
+            millis.put("slow", 5_000L);
+            millis.put("fast", 10L);
+            ServerProber prober = new ServerProber(2, Duration.ofSeconds(10), executor, fakeProbe(millis));
+
+            long start = System.nanoTime();
+            assertEquals(Arrays.asList("fast", "slow"), prober.order(Arrays.asList("slow", "fast")));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "did not wait for the slow server");
+            assertFalse(prober.getRttTable().containsKey("slow"));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testProbeInfo() throws Exception {
+        try (ServerSocket ss = new ServerSocket(0)) {
+            Thread t = new Thread(() -> {
+                try (Socket s = ss.accept()) {
+                    s.getOutputStream().write("INFO {}\r\n".getBytes());
+                    s.getOutputStream().flush();
+                    s.getInputStream().read();
+                }
+                catch (IOException e) {
+                    // the probe closed first
+                }
+            });
+            t.start();
+            URI uri = new URI("nats://localhost:" + ss.getLocalPort());
+            assertTrue(ServerProber.probeInfo(uri, TimeUnit.SECONDS.toNanos(2)) > 0);
+            t.join(2000);
+        }
+
+        try (ServerSocket ss = new ServerSocket(0)) {
+            Thread t = new Thread(() -> {
+                try (Socket s = ss.accept()) {
+                    s.getOutputStream().write("-ERR\r\n".getBytes());
+                }
+                catch (IOException e) {
+                    // the probe closed first
+                }
+            });
+            t.start();
+            URI uri = new URI("nats://localhost:" + ss.getLocalPort());
+            assertThrows(IOException.class, () -> ServerProber.probeInfo(uri, TimeUnit.SECONDS.toNanos(2)));
+            t.join(2000);
+        }
+    }
+
+    private static ServerProber.Probe fakeProbe(Map<String, Long> millis) {
+        return (server, timeout) -> {
+            long ms = millis.get(server);
+            if (ms < 0) {
+                throw new IOException("refused");
+            }
+            Thread.sleep(ms);
+            return TimeUnit.MILLISECONDS.toNanos(ms);
+        };
+    }
+}
@@ -0,0 +1,126 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import io.nats.client.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import static io.nats.client.utils.TestBase.standardConnectionWait;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedConnectionTests {
+
+    @Test
+    public void testPublishKeepsOrderPerSubject() throws IOException, InterruptedException, TimeoutException {
+        try (NatsTestServer ts = new NatsTestServer(false);
+             Connection nc = Nats.connectSharded(new Options.Builder().server(ts.getURI()).build(), 4)) {
+            standardConnectionWait(nc);
+            ShardedConnection sharded = (ShardedConnection) nc;
+            assertEquals(4, sharded.getShardCount());
+            assertSame(sharded.shardFor("foo.1"), sharded.shardFor("foo.1"));
+
+            Subscription sub = nc.subscribe("foo.*");
+            nc.flush(Duration.ofSeconds(1));
+
+            int count = 1000;
+            for (int x = 0; x < count; x++) {
+                nc.publish("foo." + (x % 10), Integer.toString(x).getBytes(StandardCharsets.UTF_8));
+            }
+            nc.flush(Duration.ofSeconds(2));
+
+            // the subjects are interleaved, but each one arrives in the order it was published
+            int[] last = new int[10];
+            Arrays.fill(last, -1);
+            for (int x = 0; x < count; x++) {
+                Message msg = sub.nextMessage(Duration.ofSeconds(1));
+                assertNotNull(msg);
+                int value = Integer.parseInt(new String(msg.getData(), StandardCharsets.UTF_8));
+                int subject = Integer.parseInt(msg.getSubject().substring(4));
+                assertTrue(value > last[subject], "out of order on " + msg.getSubject());
+                last[subject] = value;
+            }
+
+            assertEquals(count, nc.getStatistics().getOutMsgs());
+            assertEquals(count, nc.getStatistics().getInMsgs());
+        }
+    }
+
+    @Test
+    public void testSpreadsSubscriptionsAndDispatchers() throws IOException, InterruptedException, TimeoutException {
+        try (NatsTestServer ts = new NatsTestServer(false);
+             Connection nc = Nats.connectSharded(new Options.Builder().server(ts.getURI()).build(), 3)) {
+            standardConnectionWait(nc);
+
+            Set<Connection> used = new HashSet<>();
+            for (int x = 0; x < 3; x++) {
+                Subscription sub = nc.subscribe("bar");
+                used.add(((NatsSubscription) sub).connection);
+            }
+            assertEquals(3, used.size());
+
+            Dispatcher d = nc.createDispatcher(msg -> {});
+            d.subscribe("baz");
+            nc.closeDispatcher(d);
+            assertThrows(IllegalArgumentException.class, () -> nc.closeDispatcher(d));
+
+            ShardedConnection sharded = (ShardedConnection) nc;
+            for (int x = 0; x < 30; x++) {
+                sharded.publishUnordered("bar", new byte[1]);
+            }
+            nc.flush(Duration.ofSeconds(1));
+            for (int x = 0; x < 3; x++) {
+                assertEquals(30, sharded.getShard(x).getStatistics().getInMsgs());
+                assertEquals(10, sharded.getShard(x).getStatistics().getOutMsgs());
+            }
+            assertEquals(Connection.Status.CONNECTED, nc.getStatus());
+        }
+    }
+
+    @Test
+    public void testRequestReply() throws IOException, InterruptedException {
+        try (NatsTestServer ts = new NatsTestServer(false);
+             Connection nc = Nats.connectSharded(new Options.Builder().server(ts.getURI()).build(), 2)) {
+            standardConnectionWait(nc);
+
+            Dispatcher d = nc.createDispatcher(msg -> nc.publish(msg.getReplyTo(), msg.getData()));
+            d.subscribe("echo");
+            for (int x = 0; x < 10; x++) {
+                Message reply = nc.request("echo", new byte[] {(byte) x}, Duration.ofSeconds(2));
+                assertNotNull(reply);
+                assertEquals(x, reply.getData()[0]);
+            }
+        }
+    }
+
+    @Test
+    public void testNeedsAShard() {
+        assertThrows(IllegalArgumentException.class, () -> Nats.connectSharded(new Options.Builder().build(), 0));
+    }
+
+    @Test
+    public void testOutboxCannotBeShared() {
+        Options options = new Options.Builder().reconnectOutbox(Paths.get("outbox"), -1).build();
+        assertThrows(IllegalArgumentException.class, () -> Nats.connectSharded(options, 2));
+    }
+}
@@ -0,0 +1,117 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubjectTrieTests {
+
+    @Test
+    public void testMatch() {
+        SubjectTrie<String> trie = trie("foo.bar", "foo.*", "foo.>", "*.bar", ">", "foo.bar.baz", "foo.*.baz", "bar");
+
+        assertEquals(sorted("foo.bar", "foo.*", "foo.>", "*.bar", ">"), match(trie, "foo.bar"));
+        assertEquals(sorted("foo.>", ">", "foo.bar.baz", "foo.*.baz"), match(trie, "foo.bar.baz"));
+        assertEquals(sorted("foo.>", ">", "foo.*.baz"), match(trie, "foo.x.baz"));
+        assertEquals(sorted(">", "bar"), match(trie, "bar"));
+        assertEquals(sorted(">"), match(trie, "foo"));
+        assertEquals(8, trie.size());
+    }
+
+    @Test
+    public void testCoveringAndCoveredBy() {
+        SubjectTrie<String> trie = trie("foo.bar", "foo.*", "foo.>", "*.*", "foo.bar.baz", "foo.*.baz", ">");
+
+        List<String> found = new ArrayList<>();
+        trie.covering("foo.*", found::add);
+        assertEquals(sorted("foo.*", "foo.>", "*.*", ">"), sort(found));
+
+        found.clear();
+        trie.covering("foo.>", found::add);
+        assertEquals(sorted("foo.>", ">"), sort(found));
+
+        found.clear();
+        trie.coveredBy("foo.*", found::add);
+        assertEquals(sorted("foo.bar", "foo.*"), sort(found));
+
+        found.clear();
+        trie.coveredBy("foo.>", found::add);
+        assertEquals(sorted("foo.bar", "foo.*", "foo.>", "foo.bar.baz", "foo.*.baz"), sort(found));
+
+        found.clear();
+        trie.coveredBy("*.*", found::add);
+        assertEquals(sorted("foo.bar", "foo.*", "*.*"), sort(found));
+
+        assertTrue(SubjectTrie.covers("foo.*", "foo.bar"));
+        assertTrue(SubjectTrie.covers("foo.*", "foo.*"));
+        assertTrue(SubjectTrie.covers("foo.>", "foo.*.baz"));
+        assertTrue(SubjectTrie.covers(">", "foo"));
+        assertFalse(SubjectTrie.covers("foo.*", "foo.>"));
+        assertFalse(SubjectTrie.covers("foo.>", "foo"));
+        assertFalse(SubjectTrie.covers("foo.bar", "foo.*"));
+        assertFalse(SubjectTrie.covers("foo.*", "foo.bar.baz"));
+    }
+
+    @Test
+    public void testRemove() {
+        SubjectTrie<String> trie = trie("foo.bar", "foo.>");
+        trie.add("foo.bar", "again");
+
+        assertFalse(trie.remove("foo.baz", "foo.baz"));
+        assertFalse(trie.remove("foo.bar", "foo.>"));
+        assertTrue(trie.remove("foo.bar", "foo.bar"));
+        assertEquals(sorted("foo.>", "again"), match(trie, "foo.bar"));
+
+        assertTrue(trie.remove("foo.bar", "again"));
+        assertTrue(trie.remove("foo.>", "foo.>"));
+        assertFalse(trie.remove("foo.>", "foo.>"));
+        assertTrue(trie.isEmpty());
+        assertEquals(Collections.emptyList(), match(trie, "foo.bar"));
+
+        // the emptied nodes are gone, adding back works from scratch
+        trie.add("foo.bar", "foo.bar");
+        assertEquals(sorted("foo.bar"), match(trie, "foo.bar"));
+    }
+
+    private static SubjectTrie<String> trie(String... patterns) {
+        SubjectTrie<String> trie = new SubjectTrie<>();
+        for (String p : patterns) {
+            trie.add(p, p);
+        }
+        return trie;
+    }
+
+    private static List<String> match(SubjectTrie<String> trie, String subject) {
+        List<String> found = new ArrayList<>();
+        trie.match(subject, found::add);
+        return sort(found);
+    }
+
+    private static List<String> sorted(String... values) {
+        return sort(new ArrayList<>(Arrays.asList(values)));
+    }
+
+    private static List<String> sort(List<String> values) {
+        Collections.sort(values);
+        return values;
+    }
+}
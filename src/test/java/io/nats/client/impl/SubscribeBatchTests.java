@@ -0,0 +1,77 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubscribeBatchTests {
+
+    @Test
+    public void testLines() {
+        List<NatsMessage> sent = new ArrayList<>();
+        SubscribeBatch batch = new SubscribeBatch(1024, 1024, sent::add);
+        batch.add("1", "foo", null);
+        batch.add("2", "bar", "queue");
+        assertTrue(sent.isEmpty());
+        batch.flush();
+        batch.flush(); // nothing left, nothing sent
+
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0).isProtocol());
+        assertEquals("SUB foo 1\r\nSUB bar queue 2", new String(sent.get(0).getProtocolBytes(), UTF_8));
+        assertEquals(2, batch.getCount());
+        assertEquals(1, batch.getMessages());
+    }
+
+    @Test
+    public void testSplitsAtMaxBytes() {
+        List<NatsMessage> sent = new ArrayList<>();
+        SubscribeBatch batch = new SubscribeBatch(256, 1024, sent::add);
+        int count = 1000;
+        for (int x = 0; x < count; x++) {
+            batch.add(Integer.toString(x), "subject." + x, null);
+        }
+        batch.flush();
+
+        assertEquals(count, batch.getCount());
+        assertEquals(sent.size(), batch.getMessages());
+        assertTrue(sent.size() > 1 && sent.size() < count / 5, "a few messages, not one each");
+
+        // every line is there once, in order, and no message is bigger than the buffer
+        StringBuilder all = new StringBuilder();
+        for (NatsMessage m : sent) {
+            assertTrue(m.getProtocolBytes().length + 2 <= 256 + 32);
+            all.append(new String(m.getProtocolBytes(), UTF_8)).append("\r\n");
+        }
+        String[] lines = all.toString().split("\r\n");
+        assertEquals(count, lines.length);
+        for (int x = 0; x < count; x++) {
+            assertEquals("SUB subject." + x + " " + x, lines[x]);
+        }
+    }
+
+    @Test
+    public void testControlLineTooLong() {
+        SubscribeBatch batch = new SubscribeBatch(1024, 16, m -> {});
+        batch.add("1", "short", null);
+        assertThrows(IllegalArgumentException.class, () -> batch.add("2", "a.much.longer.subject", null));
+    }
+}
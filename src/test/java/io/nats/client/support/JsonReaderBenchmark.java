@@ -0,0 +1,145 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.support;
+
+import io.nats.client.utils.ResourceUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.time.Duration;
+
+import static io.nats.client.support.ApiConstants.*;
+
+/**
+ * Compares reading JetStream api responses with the {@link JsonReader} against the regular
+ * expression based {@link JsonUtils} read methods, for a small publish ack and a full stream info.
+ * Both sides start from the response bytes and read the same fields.
+ */
+public class JsonReaderBenchmark {
+    static final int ITERATIONS = 1_000_000;
+    static final int WARMUP = 200_000;
+
+    public static void main(String[] args) {
+        byte[] ack = "{\"stream\":\"benchmark-stream\",\"seq\":1234567,\"duplicate\":false}".getBytes(StandardCharsets.UTF_8);
+        byte[] info = ResourceUtils.dataAsString("StreamInfo.json").getBytes(StandardCharsets.UTF_8);
+
+        run(ack, JsonReaderBenchmark::regexAck, WARMUP);
+        run(ack, JsonReaderBenchmark::readerAck, WARMUP);
+        run(info, JsonReaderBenchmark::regexInfo, WARMUP / 10);
+        run(info, JsonReaderBenchmark::readerInfo, WARMUP / 10);
+
+        report("Publish ack, JsonUtils", run(ack, JsonReaderBenchmark::regexAck, ITERATIONS), ITERATIONS);
+        report("Publish ack, JsonReader", run(ack, JsonReaderBenchmark::readerAck, ITERATIONS), ITERATIONS);
+        report("Stream info, JsonUtils", run(info, JsonReaderBenchmark::regexInfo, ITERATIONS / 10), ITERATIONS / 10);
+        report("Stream info, JsonReader", run(info, JsonReaderBenchmark::readerInfo, ITERATIONS / 10), ITERATIONS / 10);
+    }
+
+    interface Reader {
+        long read(byte[] json);
+    }
+
+    static long run(byte[] json, Reader reader, int iterations) {
+        long blackhole = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += reader.read(json);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (blackhole == 42) {
+            System.out.println(); // keeps the reads from being optimized away
+        }
+        return elapsed;
+    }
+
+    static long regexAck(byte[] bytes) {
+        String json = new String(bytes, StandardCharsets.UTF_8);
+        String error = JsonUtils.getJsonObject(ERROR, json, null);
+        String stream = JsonUtils.readString(json, STREAM_RE, null);
+        long seq = JsonUtils.readLong(json, SEQ_RE, 0);
+        boolean dupe = JsonUtils.readBoolean(json, DUPLICATE_RE);
+        return seq + stream.length() + (dupe ? 1 : 0) + (error == null ? 0 : 1);
+    }
+
+    static long readerAck(byte[] bytes) {
+        JsonNode json = JsonReader.parse(bytes);
+        JsonNode error = json.getObject(ERROR, null);
+        String stream = json.readString(STREAM, null);
+        long seq = json.readLong(SEQ, 0);
+        boolean dupe = json.readBoolean(DUPLICATE);
+        return seq + stream.length() + (dupe ? 1 : 0) + (error == null ? 0 : 1);
+    }
+
+    static long regexInfo(byte[] bytes) {
+        String json = new String(bytes, StandardCharsets.UTF_8);
+        long total = JsonUtils.getJsonObject(ERROR, json, null) == null ? 0 : 1;
+        total += JsonUtils.readDate(json, CREATED_RE).getNano();
+        String config = JsonUtils.getJsonObject(CONFIG, json);
+        total += JsonUtils.readString(config, NAME_RE).length();
+        total += JsonUtils.getStringList(SUBJECTS, config).size();
+        total += JsonUtils.readLong(config, MAX_MSGS_RE, 0);
+        total += JsonUtils.readLong(config, MAX_BYTES_RE, 0);
+        total += JsonUtils.readNanos(config, MAX_AGE_RE, Duration.ZERO).getNano();
+        total += JsonUtils.readInt(config, NUM_REPLICAS_RE, 0);
+        total += JsonUtils.readString(config, STORAGE_TYPE_RE).length();
+        String state = JsonUtils.getJsonObject(STATE, json);
+        total += JsonUtils.readLong(state, MESSAGES_RE, 0);
+        total += JsonUtils.readLong(state, BYTES_RE, 0);
+        total += JsonUtils.readLong(state, FIRST_SEQ_RE, 0);
+        total += JsonUtils.readLong(state, LAST_SEQ_RE, 0);
+        String cluster = JsonUtils.getJsonObject(CLUSTER, json);
+        total += JsonUtils.readString(cluster, LEADER_RE).length();
+        for (String replica : JsonUtils.getObjectList(REPLICAS, cluster)) {
+            total += JsonUtils.readLong(replica, LAG_RE, 0);
+        }
+        for (String source : JsonUtils.getObjectList(SOURCES, json)) {
+            total += JsonUtils.readLong(source, LAG_RE, 0);
+        }
+        return total;
+    }
+
+    static long readerInfo(byte[] bytes) {
+        JsonNode json = JsonReader.parse(bytes);
+        long total = json.getObject(ERROR, null) == null ? 0 : 1;
+        total += json.readDate(CREATED).getNano();
+        JsonNode config = json.getObject(CONFIG);
+        total += config.readString(NAME).length();
+        total += config.getStringList(SUBJECTS).size();
+        total += config.readLong(MAX_MSGS, 0);
+        total += config.readLong(MAX_BYTES, 0);
+        total += config.readNanos(MAX_AGE, Duration.ZERO).getNano();
+        total += config.readInt(NUM_REPLICAS, 0);
+        total += config.readString(STORAGE).length();
+        JsonNode state = json.getObject(STATE);
+        total += state.readLong(MESSAGES, 0);
+        total += state.readLong(BYTES, 0);
+        total += state.readLong(FIRST_SEQ, 0);
+        total += state.readLong(LAST_SEQ, 0);
+        JsonNode cluster = json.getObject(CLUSTER);
+        total += cluster.readString(LEADER).length();
+        for (JsonNode replica : cluster.getObjectList(REPLICAS)) {
+            total += replica.readLong(LAG, 0);
+        }
+        for (JsonNode source : json.getObjectList(SOURCES)) {
+            total += source.readLong(LAG, 0);
+        }
+        return total;
+    }
+
+    static void report(String name, long nanos, int iterations) {
+        System.out.printf("\n%s: %s ms, %s ns/op\n", name,
+                NumberFormat.getInstance().format(nanos / 1_000_000L),
+                NumberFormat.getInstance().format(((double) nanos) / iterations));
+    }
+}
@@ -0,0 +1,157 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package io.nats.client.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static io.nats.client.utils.ResourceUtils.dataAsString;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class JsonReaderTests {
+
+    @Test
+    public void testReadValues() {
+        String json = "{\"str\":\"val\", \"num\": 42, \"neg\":-1, \"big\":100000000000, \"frac\":1.5e2,"
+                + "\"t\":true, \"f\":false, \"n\":null, \"date\":\"2021-01-25T20:09:10.6225191Z\","
+                + "\"b64\":\"" + java.util.Base64.getEncoder().encodeToString("data".getBytes()) + "\","
+                + "\"esc\":\"a\\\"b\\\\c\\u0021\", \"utf\":\"é中\"}";
+        JsonNode node = JsonReader.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("val", node.readString("str"));
+        assertEquals("dflt", node.readString("num", "dflt"));
+        assertNull(node.readString("missing"));
+        assertEquals(42, node.readInt("num", 0));
+        assertEquals(-1, node.readLong("neg", 0));
+        assertEquals(100_000_000_000L, node.readLong("big", 0));
+        assertEquals(150, node.readLong("frac", 0));
+        assertEquals(7, node.readLong("str", 7));
+        assertTrue(node.readBoolean("t"));
+        assertFalse(node.readBoolean("f"));
+        assertFalse(node.readBoolean("n"));
+        assertFalse(node.readBoolean("missing"));
+        assertTrue(node.has("n"));
+        assertFalse(node.has("missing"));
+        assertEquals(DateTimeUtils.parseDateTime("2021-01-25T20:09:10.6225191Z"), node.readDate("date"));
+        assertNull(node.readDate("missing"));
+        assertEquals(Duration.ofNanos(42), node.readNanos("num", Duration.ZERO));
+        assertEquals(Duration.ZERO, node.readNanos("missing", Duration.ZERO));
+        assertArrayEquals("data".getBytes(), node.readBase64("b64"));
+        assertArrayEquals("val".getBytes(), node.readBytes("str"));
+        assertEquals("a\"b\\c!", node.readString("esc"));
+        assertEquals("é中", node.readString("utf"));
+
+        long[] found = new long[3];
+        node.readLong("num", l -> found[0] = l);
+        node.readInt("neg", i -> found[1] = i);
+        node.readNanos("big", d -> found[2] = d.toNanos());
+        node.readLong("missing", l -> fail());
+        assertArrayEquals(new long[] {42, -1, 100_000_000_000L}, found);
+    }
+
+    @Test
+    public void testFieldsAreScopedToTheirObject() {
+        String json = "{\"inner\":{\"name\":\"in\",\"deep\":{\"name\":\"deep\"}},\"list\":[{\"name\":\"a\"},1,{\"name\":\"b\"}],\"name\":\"out\"}";
+        JsonNode node = JsonReader.parse(json);
+        assertEquals("out", node.readString("name"));
+        assertEquals("in", node.getObject("inner").readString("name"));
+        assertEquals("deep", node.getObject("inner").getObject("deep").readString("name"));
+        assertEquals("{\"name\":\"deep\"}", node.getObject("inner").getObject("deep").toJson());
+
+        List<JsonNode> list = node.getObjectList("list");
+        assertEquals(2, list.size());
+        assertEquals("a", list.get(0).readString("name"));
+        assertEquals("b", list.get(1).readString("name"));
+
+        assertSame(JsonNode.EMPTY, node.getObject("missing"));
+        assertNull(node.getObject("name", null));
+        assertTrue(node.getObjectList("missing").isEmpty());
+        assertTrue(node.getObjectList("inner").isEmpty());
+    }
+
+    @Test
+    public void testStringList() {
+        JsonNode node = JsonReader.parse("{\"a\":[\"x\", \"\", \"y\", 3, \"[z:1]:4222\"], \"e\":[], \"s\":\"x\"}");
+        assertEquals(3, node.getStringList("a").size());
+        assertEquals("x", node.getStringList("a").get(0));
+        assertEquals("y", node.getStringList("a").get(1));
+        assertEquals("[z:1]:4222", node.getStringList("a").get(2));
+        assertTrue(node.getStringList("e").isEmpty());
+        assertTrue(node.getStringList("s").isEmpty());
+        assertTrue(node.getStringList("missing").isEmpty());
+    }
+
+    @Test
+    public void testLenient() {
+        // trailing commas and a prefix before the object
+        JsonNode node = JsonReader.parse("INFO {\"a\":1,\"b\":[1,2,],}");
+        assertEquals(1, node.readInt("a", 0));
+        assertTrue(node.has("b"));
+
+        // everything before the problem is kept
+        node = JsonReader.parse("{\"a\":1,\"b\":{\"c\":\"x\"},\"d\": ???, \"e\":2}");
+        assertEquals(1, node.readInt("a", 0));
+        assertEquals("x", node.getObject("b").readString("c"));
+        assertFalse(node.has("e"));
+
+        node = JsonReader.parse("{\"a\":1,\"b\":{\"c\":\"x");
+        assertEquals(1, node.readInt("a", 0));
+        assertFalse(node.getObject("b").has("c"));
+
+        node = JsonReader.parse("{\"a\":");
+        assertFalse(node.has("a"));
+
+        assertSame(JsonNode.EMPTY, JsonReader.parse((byte[])null));
+        assertSame(JsonNode.EMPTY, JsonReader.parse((String)null));
+        assertSame(JsonNode.EMPTY, JsonReader.parse(new byte[0]));
+        assertSame(JsonNode.EMPTY, JsonReader.parse("not json"));
+        assertFalse(JsonNode.EMPTY.has("a"));
+    }
+
+    @Test
+    public void testPartOfAnArray() {
+        byte[] bytes = "xx{\"a\":1}{\"a\":2}".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(1, JsonReader.parse(bytes, 2, 7).readInt("a", 0));
+        assertEquals(2, JsonReader.parse(bytes, 9, 7).readInt("a", 0));
+    }
+
+    @Test
+    public void testLargeDocument() {
+        // more entries than the initial tape and nesting deeper than the initial stack
+        JsonNode node = JsonReader.parse(dataAsString("StreamInfo.json"));
+        assertEquals("streamName", node.getObject("config").readString("name"));
+        assertEquals(2, node.getObject("cluster").getObjectList("replicas").size());
+
+        StringBuilder sb = new StringBuilder();
+        for (int x = 0; x < 20; x++) {
+            sb.append("{\"n\":");
+        }
+        sb.append(1);
+        for (int x = 0; x < 20; x++) {
+            sb.append("}");
+        }
+        sb.append(",\"after\":true}");
+        node = JsonReader.parse("{\"deep\":" + sb);
+        assertTrue(node.readBoolean("after"));
+        JsonNode deep = node.getObject("deep");
+        for (int x = 0; x < 19; x++) {
+            deep = deep.getObject("n");
+        }
+        assertEquals(1, deep.readInt("n", 0));
+    }
+}
@@ -0,0 +1,145 @@
+// Copyright 2021 The NATS Authors
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at:
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package io.nats.client.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTests {
+
+    @Test
+    public void testBucketBoundaries() {
+        for (int b = 0; b < LatencyHistogram.BUCKETS; b++) {
+            long low = LatencyHistogram.lowestValueIn(b);
+            long high = LatencyHistogram.highestValueIn(b);
+            assertTrue(low <= high);
+            assertEquals(b, LatencyHistogram.bucketFor(low));
+            assertEquals(b, LatencyHistogram.bucketFor(high));
+            if (b > 0) {
+                assertEquals(LatencyHistogram.highestValueIn(b - 1) + 1, low);
+            }
+        }
+        assertEquals(0, LatencyHistogram.bucketFor(-5));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketFor(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPrecision() {
+        long[] values = {17, 100, 999, 12_345, 1_000_000, 123_456_789, 10_000_000_000L};
+        for (long v : values) {
+            long reported = LatencyHistogram.highestValueIn(LatencyHistogram.bucketFor(v));
+            assertTrue(reported >= v);
+            assertTrue((reported - v) <= v / 16, "value " + v + " reported " + reported);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getValueAtPercentile(50));
+        assertEquals(0, h.getMax());
+
+        for (int x = 1; x <= 1000; x++) {
+            h.record(x * 1000L); // 1 to 1000 micros
+        }
+        assertEquals(1000, h.getCount());
+        assertNear(500_000, h.getValueAtPercentile(50));
+        assertNear(990_000, h.getValueAtPercentile(99));
+        assertNear(1_000_000, h.getValueAtPercentile(100));
+        assertNear(1_000_000, h.getMax());
+        assertNear(1_000, h.getValueAtPercentile(0));
+
+        long[] ps = h.getValuesAtPercentiles(50, 99);
+        assertEquals(h.getValueAtPercentile(50), ps[0]);
+        assertEquals(h.getValueAtPercentile(99), ps[1]);
+
+        h.reset();
+        assertEquals(0, h.getCount());
+    }
+
+    @Test
+    public void testShards() throws InterruptedException {
+        assertEquals(1, new LatencyHistogram().getShards());
+        assertEquals(1, new LatencyHistogram(0).getShards());
+        assertEquals(4, new LatencyHistogram(3).getShards());
+        assertEquals(8, new LatencyHistogram(8).getShards());
+
+        LatencyHistogram h = new LatencyHistogram(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int x = 1; x <= 1000; x++) {
+                    h.record(x * 1000L);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // merged on read, the same as one thread recording everything
+        assertEquals(8000, h.getCount());
+        assertNear(500_000, h.getValueAtPercentile(50));
+        assertNear(1_000_000, h.getMax());
+        h.reset();
+        assertEquals(0, h.getCount());
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram(4);
+        for (int x = 1; x <= 100; x++) {
+            a.record(x * 1000);
+            b.record(x * 1000 + 100_000);
+        }
+
+        LatencyHistogram sum = new LatencyHistogram();
+        sum.add(a);
+        sum.add(b);
+        assertEquals(200, sum.getCount());
+        assertNear(100_000, sum.getValueAtPercentile(50));
+        assertNear(200_000, sum.getMax());
+        assertEquals(100, a.getCount()); // the parts are left alone
+    }
+
+    @Test
+    public void testSnapshot() {
+        LatencyHistogram h = new LatencyHistogram(4);
+        for (int x = 1; x <= 100; x++) {
+            h.record(x * 1000);
+        }
+        LatencyHistogram snapshot = h.snapshot();
+        assertTrue(snapshot.isReadOnly());
+        assertFalse(h.isReadOnly());
+        h.record(1_000_000);
+        assertEquals(100, snapshot.getCount()); // later values are not seen
+        assertNear(100_000, snapshot.getMax());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.record(1000));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(h));
+        assertThrows(UnsupportedOperationException.class, snapshot::reset);
+        assertEquals(101, h.snapshot().getCount());
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue(actual >= expected && actual - expected <= expected / 16, "expected ~" + expected + " was " + actual);
+    }
+}